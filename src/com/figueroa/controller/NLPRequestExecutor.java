@@ -0,0 +1,182 @@
+package com.figueroa.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Runs web service calls on a dedicated pool of NLP threads, so that
+ * long-running calls (e.g. RankUp) don't block the container threads.
+ * The pool has a bounded queue: when it is full, the call fails fast with
+ * 503 (Service Unavailable) and a Retry-After header instead of waiting.
+ * The executor keeps metrics of its queue depth and of the time calls wait
+ * in the queue.
+ */
+public class NLPRequestExecutor {
+
+	private static final Logger logger = Logger.getLogger(NLPRequestExecutor.class);
+
+    public final static long DEFAULT_TIMEOUT_MILLIS = 120000L;
+    public final static int RETRY_AFTER_SECONDS = 5;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    // Metrics
+    private final AtomicLong submittedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timedOutCalls = new AtomicLong();
+    private final AtomicLong startedCalls = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Creates an executor for web service calls.
+     * @param name: the name of the executor and prefix of its thread names
+     * @param threads: the number of NLP threads
+     * @param queueCapacity: the maximum number of waiting calls
+     * @param timeoutMillis: the maximum time a call can take, including the
+     * time it waits in the queue
+     */
+    public NLPRequestExecutor(final String name, int threads, int queueCapacity,
+            long timeoutMillis) {
+
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Submits a web service call. The returned DeferredResult is completed
+     * with the response of the call, with its exception if it fails, or
+     * with 503 if the queue is full or the call times out.
+     * @param call
+     * @return
+     */
+    public <T> DeferredResult<ResponseEntity<T>> submit(
+            final Callable<ResponseEntity<T>> call) {
+
+        final DeferredResult<ResponseEntity<T>> deferredResult =
+                new DeferredResult<ResponseEntity<T>>(timeoutMillis,
+                        NLPRequestExecutor.<T>serviceUnavailable());
+        final long submitTime = System.nanoTime();
+
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                recordWait(System.nanoTime() - submitTime);
+                if (deferredResult.isSetOrExpired()) {
+                    return;
+                }
+                try {
+                    deferredResult.setResult(call.call());
+                }
+                catch (Exception e) {
+                    deferredResult.setErrorResult(e);
+                }
+            }
+        };
+
+        submittedCalls.incrementAndGet();
+        try {
+            final Future<?> future = executor.submit(task);
+            deferredResult.onTimeout(new Runnable() {
+                @Override
+                public void run() {
+                    timedOutCalls.incrementAndGet();
+                    future.cancel(true);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            rejectedCalls.incrementAndGet();
+            logger.warn("Executor " + name + " is full, rejecting call");
+            deferredResult.setResult(NLPRequestExecutor.<T>serviceUnavailable());
+        }
+
+        return deferredResult;
+    }
+
+    private void recordWait(long waitNanos) {
+        startedCalls.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max = maxWaitNanos.get();
+        while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    static <T> ResponseEntity<T> serviceUnavailable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+        return new ResponseEntity<T>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Get the current metrics of this executor: queue depth, active threads,
+     * number of calls and wait times in the queue.
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+
+        LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+        long started = startedCalls.get();
+
+        metrics.put("threads", executor.getMaximumPoolSize());
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueCapacity",
+                executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        metrics.put("submittedCalls", submittedCalls.get());
+        metrics.put("rejectedCalls", rejectedCalls.get());
+        metrics.put("timedOutCalls", timedOutCalls.get());
+        metrics.put("completedCalls", executor.getCompletedTaskCount());
+        metrics.put("averageWaitMillis", started > 0 ?
+                totalWaitNanos.get() / 1e6 / started : 0.0);
+        metrics.put("maxWaitMillis", maxWaitNanos.get() / 1e6);
+
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Stops accepting new calls.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+package com.figueroa.controller;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.figueroa.nlp.NLPMain;
+
+/**
+ * Loads and warms up the NLP models when the application starts, instead of
+ * on the first request. The loading runs in the background, so the container
+ * can start serving (e.g. /ws/ready) while it is in progress; requests that
+ * arrive earlier wait for the models to be loaded.
+ */
+@Component
+public class NLPStartup {
+
+	private static final Logger logger = Logger.getLogger(NLPStartup.class);
+
+    @PostConstruct
+    public void start() {
+
+        Thread startupThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    NLPMain.startUp();
+                }
+                catch (Exception e) {
+                    logger.error("Exception in NLPStartup: " + e.getMessage());
+                }
+            }
+        }, "nlp-startup");
+        startupThread.setDaemon(true);
+        startupThread.start();
+    }
+}
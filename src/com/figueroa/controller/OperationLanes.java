@@ -0,0 +1,213 @@
+package com.figueroa.controller;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.figueroa.nlp.KeyPhrase;
+import com.figueroa.nlp.KeyPhrase.RankingMethod;
+import com.figueroa.util.BatchExecutor;
+import com.figueroa.util.BatchExecutor.Batch;
+import com.figueroa.util.BatchExecutor.BatchListener;
+import com.figueroa.util.BatchExecutor.ItemResult;
+
+/**
+ * Separate execution lanes (bulkheads) for each class of NLP operation.
+ * Each lane has its own request executor and batch executor, with their own
+ * concurrency limits, queues and metrics, so that a flood of expensive
+ * requests (e.g. RankUp) cannot starve cheap ones (e.g. tagging).
+ * The lanes are a singleton bean, shut down with the application context.
+ */
+@Component
+public class OperationLanes {
+
+	private static final Logger logger = Logger.getLogger(OperationLanes.class);
+
+    /**
+     * The classes of NLP operations, each one with its own lane.
+     */
+    public static enum Operation {
+        TAG, LEMMATIZE, TEXTRANK, RANKUP
+    }
+
+    private final EnumMap<Operation, NLPRequestExecutor> requestExecutors =
+            new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, BatchExecutor> batchExecutors =
+            new EnumMap<>(Operation.class);
+
+    /**
+     * Creates the lanes. Tagging, lemmatization and TextRank use one thread
+     * per core. RankUp and the feature-based methods, which are much more
+     * expensive, use half of the cores and a shorter queue.
+     */
+    public OperationLanes() {
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int rankUpThreads = Math.max(1, cores / 2);
+
+        addLane(Operation.TAG, cores, 200);
+        addLane(Operation.LEMMATIZE, cores, 200);
+        addLane(Operation.TEXTRANK, cores, 100);
+        addLane(Operation.RANKUP, rankUpThreads, 50);
+    }
+
+    private void addLane(Operation operation, int threads, int queueCapacity) {
+        String name = operation.toString().toLowerCase();
+        requestExecutors.put(operation, new NLPRequestExecutor(
+                name, threads, queueCapacity, NLPRequestExecutor.DEFAULT_TIMEOUT_MILLIS));
+        batchExecutors.put(operation, new BatchExecutor(
+                name + "-batch", threads, queueCapacity));
+    }
+
+    /**
+     * Get the executor for single web service calls of the given operation.
+     * @param operation
+     * @return
+     */
+    public NLPRequestExecutor getRequestExecutor(Operation operation) {
+        return requestExecutors.get(operation);
+    }
+
+    /**
+     * Get the executor for the items of batch calls of the given operation.
+     * @param operation
+     * @return
+     */
+    public BatchExecutor getBatchExecutor(Operation operation) {
+        return batchExecutors.get(operation);
+    }
+
+    /**
+     * Builds the response of a batch call from the results of its items.
+     * @param <T>: the type of the item results
+     * @param <R>: the type of the response body
+     */
+    public static interface BatchResponse<T, R> {
+        ResponseEntity<R> getResponse(List<ItemResult<T>> results) throws Exception;
+    }
+
+    /**
+     * Runs the items of a batch call on the batch executor of the given
+     * operation. No request thread waits for the batch: the response is
+     * built by the thread that finishes its last item. The call fails with
+     * 503 (Service Unavailable) if the batch queue is full or if the batch 
+     * times out (see getBatchTimeoutMillis).
+     * @param operation
+     * @param items
+     * @param response
+     * @return
+     */
+    public <T, R> DeferredResult<ResponseEntity<R>> submitBatch(Operation operation,
+            List<? extends Callable<T>> items, final BatchResponse<T, R> response) {
+
+        BatchExecutor batchExecutor = batchExecutors.get(operation);
+        final DeferredResult<ResponseEntity<R>> deferredResult =
+                new DeferredResult<ResponseEntity<R>>(
+                        getBatchTimeoutMillis(batchExecutor, items.size()),
+                        NLPRequestExecutor.<R>serviceUnavailable());
+
+        try {
+            final Batch<T> batch = batchExecutor.submitAll(items, new BatchListener<T>() {
+                @Override
+                public void completed(List<ItemResult<T>> results) {
+                    try {
+                        deferredResult.setResult(response.getResponse(results));
+                    }
+                    catch (Exception e) {
+                        deferredResult.setErrorResult(e);
+                    }
+                }
+            });
+            deferredResult.onTimeout(new Runnable() {
+                @Override
+                public void run() {
+                    batch.cancel();
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            logger.warn("Batch executor of " + operation + " is full, rejecting batch");
+            deferredResult.setResult(NLPRequestExecutor.<R>serviceUnavailable());
+        }
+
+        return deferredResult;
+    }
+
+    /**
+     * Get the timeout of a batch: the timeout of a single call for each 
+     * round of items over the threads of the batch executor, since each 
+     * item can take as long as a single call.
+     * @param batchExecutor
+     * @param items: the number of items of the batch
+     * @return
+     */
+    static long getBatchTimeoutMillis(BatchExecutor batchExecutor, int items) {
+        int threads = batchExecutor.getThreads();
+        int rounds = Math.max(1, (items + threads - 1) / threads);
+        return rounds * NLPRequestExecutor.DEFAULT_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Get the operation of a keyword extraction call. Only TextRank runs
+     * on its own lane; RankUp and the feature-based methods share a lane.
+     * @param method
+     * @return
+     */
+    public static Operation getKeywordOperation(String method) {
+        return KeyPhrase.getRankingMethodFromString(method) == RankingMethod.TEXTRANK ?
+                Operation.TEXTRANK : Operation.RANKUP;
+    }
+
+    /**
+     * Get the operation of a keyword extraction call with several methods.
+     * @param methods
+     * @return TEXTRANK if all the methods are TextRank, or RANKUP otherwise
+     */
+    public static Operation getKeywordOperation(Collection<String> methods) {
+        for (String method : methods) {
+            if (getKeywordOperation(method) == Operation.RANKUP) {
+                return Operation.RANKUP;
+            }
+        }
+        return methods.isEmpty() ? Operation.RANKUP : Operation.TEXTRANK;
+    }
+
+    /**
+     * Stops all lanes from accepting new calls and batch items.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Operation operation : Operation.values()) {
+            requestExecutors.get(operation).shutdown();
+            batchExecutors.get(operation).shutdown();
+        }
+    }
+
+    /**
+     * Get the metrics of all lanes.
+     * @return a map of lane names to their request and batch metrics
+     */
+    public Map<String, Object> getMetrics() {
+
+        LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LinkedHashMap<String, Object> laneMetrics = new LinkedHashMap<>();
+            laneMetrics.put("requests", requestExecutors.get(operation).getMetrics());
+            laneMetrics.put("batchItems", batchExecutors.get(operation).getMetrics());
+            metrics.put(operation.toString().toLowerCase(), laneMetrics);
+        }
+
+        return metrics;
+    }
+}
@@ -44,7 +44,7 @@ public class TaggerController {
             String text = request.getParameter("text");
             if (text != null) {
             	NLPMain nlpMain = NLPMain.getNLPMainInstance();
-                taggedText = nlpMain.tagText(text);
+                taggedText = nlpMain.tag(text).getTaggedText(NLPMain.TAG_SEPARATOR);
             }
             else {
                 text = "";
@@ -2,12 +2,16 @@ package com.figueroa.controller;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.Callable;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -15,8 +19,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.figueroa.controller.OperationLanes.BatchResponse;
+import com.figueroa.controller.OperationLanes.Operation;
+import com.figueroa.nlp.KeyPhrase;
 import com.figueroa.nlp.NLPMain;
+import com.figueroa.util.BatchExecutor.ItemResult;
 import com.figueroa.util.MiscUtils;
 
 /**
@@ -29,12 +39,18 @@ import com.figueroa.util.MiscUtils;
 @RequestMapping("/ws/")
 public class WebServiceController {
 	
-	@SuppressWarnings("unused")
 	private static final Logger logger = Logger.getLogger(WebServiceController.class);
 	
+	// Separate executors (lanes) for each class of NLP operation, so they
+	// don't block the container threads or each other
+	@Autowired
+	private OperationLanes lanes;
+	
 	private static class LemmatizedTextJSON {
 		public String originalText;
 		public String lemmatizedText;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public String error;
 		public LemmatizedTextJSON(String originalText, String lemmatizedText) {
 			this.originalText = originalText;
 			this.lemmatizedText = lemmatizedText;
@@ -47,6 +63,8 @@ public class WebServiceController {
 	private static class TaggedTextJSON {
 		public String originalText;
 		public String taggedText;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public String error;
 		public TaggedTextJSON(String originalText, String taggedText) {
 			this.originalText = originalText;
 			this.taggedText = taggedText;
@@ -97,7 +115,13 @@ public class WebServiceController {
 	private static class KeywordListJSON {
 		public String originalText;
 		public String method;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public Integer limit;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public Double minScore;
 		public List<KeyPhraseSimple> keywords;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public String error;
 		public KeywordListJSON(String originalText, String method,
 				List<KeyPhraseSimple> keywords) {
 			this.originalText = originalText;
@@ -110,6 +134,20 @@ public class WebServiceController {
 		}
 	}
 	
+	private static class MultiKeywordListJSON {
+		public String originalText;
+		public List<String> methods;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public Integer limit;
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public Double minScore;
+		public Map<String, List<KeyPhraseSimple>> keywords;
+		public MultiKeywordListJSON(){
+			originalText = "";
+			methods = Collections.singletonList("rankup");
+		}
+	}
+	
 	/**
 	 * Web service to lemmatize a given text
 	 * @param text
@@ -125,16 +163,21 @@ public class WebServiceController {
 	@Deprecated
 	@RequestMapping(value = "/lemmatize", method = RequestMethod.GET, 
     		headers={"Accept=application/json"})
-    public LemmatizedTextJSON lemmatizeText(
-    		@RequestParam(value="text", defaultValue="") String text,
-    		HttpServletRequest request) throws Exception {
+    public DeferredResult<ResponseEntity<LemmatizedTextJSON>> lemmatizeText(
+    		@RequestParam(value="text", defaultValue="") final String text,
+    		final HttpServletRequest request) throws Exception {
 
-        NLPMain nlpMain = NLPMain.getNLPMainInstance();
-        String lemmatizedText = nlpMain.lemmatizeText(text);
+    	return lanes.getRequestExecutor(Operation.LEMMATIZE).submit(new Callable<ResponseEntity<LemmatizedTextJSON>>() {
+			@Override
+			public ResponseEntity<LemmatizedTextJSON> call() throws Exception {
+		        NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		        String lemmatizedText = nlpMain.lemmatizeText(text);
         
-    	LemmatizedTextJSON lt = new LemmatizedTextJSON(text, lemmatizedText);
+		    	LemmatizedTextJSON lt = new LemmatizedTextJSON(text, lemmatizedText);
     	
-    	return lt;
+		    	return new ResponseEntity<LemmatizedTextJSON>(lt, HttpStatus.OK);
+			}
+		});
     }
 	
 	/**
@@ -151,16 +194,21 @@ public class WebServiceController {
 	 */
 	@RequestMapping(value = "/lemmatize", method = RequestMethod.POST, 
     		headers={"Accept=application/json"})
-    public ResponseEntity<LemmatizedTextJSON> lemmatizeTextPost(
-    		@RequestBody LemmatizedTextJSON lt,
-    		HttpServletRequest request) throws Exception {
+    public DeferredResult<ResponseEntity<LemmatizedTextJSON>> lemmatizeTextPost(
+    		@RequestBody final LemmatizedTextJSON lt,
+    		final HttpServletRequest request) throws Exception {
 
-        NLPMain nlpMain = NLPMain.getNLPMainInstance();
-        String lemmatizedText = nlpMain.lemmatizeText(lt.originalText);
+    	return lanes.getRequestExecutor(Operation.LEMMATIZE).submit(new Callable<ResponseEntity<LemmatizedTextJSON>>() {
+			@Override
+			public ResponseEntity<LemmatizedTextJSON> call() throws Exception {
+		        NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		        String lemmatizedText = nlpMain.lemmatizeText(lt.originalText);
         
-        lt.lemmatizedText = lemmatizedText;
+		        lt.lemmatizedText = lemmatizedText;
     	
-    	return new ResponseEntity<LemmatizedTextJSON>(lt, HttpStatus.OK);
+		    	return new ResponseEntity<LemmatizedTextJSON>(lt, HttpStatus.OK);
+			}
+		});
     }
     
 	/**
@@ -178,16 +226,22 @@ public class WebServiceController {
 	@Deprecated
     @RequestMapping(value = "/tag", method = RequestMethod.GET, 
 			headers={"Accept=application/json"})
-    public TaggedTextJSON tagText(
-    		@RequestParam(value="text", defaultValue="") String text,
-    		HttpServletRequest request) throws Exception {
-        
-    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
-        String taggedText = nlpMain.tagText(text);
+    public DeferredResult<ResponseEntity<TaggedTextJSON>> tagText(
+    		@RequestParam(value="text", defaultValue="") final String text,
+    		final HttpServletRequest request) throws Exception {
+
+    	return lanes.getRequestExecutor(Operation.TAG).submit(new Callable<ResponseEntity<TaggedTextJSON>>() {
+			@Override
+			public ResponseEntity<TaggedTextJSON> call() throws Exception {
+		    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		        String taggedText = 
+		        		nlpMain.tag(text).getTaggedText(NLPMain.TAG_SEPARATOR);
         
-        TaggedTextJSON tt = new TaggedTextJSON(text, taggedText);
+		        TaggedTextJSON tt = new TaggedTextJSON(text, taggedText);
     	
-    	return tt;
+		    	return new ResponseEntity<TaggedTextJSON>(tt, HttpStatus.OK);
+			}
+		});
     }
 	
 	/**
@@ -204,16 +258,22 @@ public class WebServiceController {
 	 */
     @RequestMapping(value = "/tag", method = RequestMethod.POST, 
 			headers={"Accept=application/json"})
-    public ResponseEntity<TaggedTextJSON> tagTextPost(
-    		@RequestBody TaggedTextJSON tt,
-    		HttpServletRequest request) throws Exception {
-        
-    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
-        String taggedText = nlpMain.tagText(tt.originalText);
+    public DeferredResult<ResponseEntity<TaggedTextJSON>> tagTextPost(
+    		@RequestBody final TaggedTextJSON tt,
+    		final HttpServletRequest request) throws Exception {
+
+    	return lanes.getRequestExecutor(Operation.TAG).submit(new Callable<ResponseEntity<TaggedTextJSON>>() {
+			@Override
+			public ResponseEntity<TaggedTextJSON> call() throws Exception {
+		    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		        String taggedText = 
+		        		nlpMain.tag(tt.originalText).getTaggedText(NLPMain.TAG_SEPARATOR);
         
-        tt.taggedText = taggedText;
+		        tt.taggedText = taggedText;
     	
-        return new ResponseEntity<TaggedTextJSON>(tt, HttpStatus.OK);
+		        return new ResponseEntity<TaggedTextJSON>(tt, HttpStatus.OK);
+			}
+		});
     }
     
 	/**
@@ -221,6 +281,9 @@ public class WebServiceController {
 	 * @param text
 	 * @param method the keyword extraction method.
 	 * Possible values are: ["rankup", "textrank", "rake", "tfidf", "ridf", "clusteredness"] (default="rankup")
+	 * An unknown method is rejected with 400 (Bad Request).
+	 * @param limit the maximum number of keywords, best first (default=0, all the keywords)
+	 * @param minScore the minimum score of the keywords (optional)
 	 * @param request the HTTP servlet request
 	 * @return a KeywordListJSON instance representing the requested service
 	 * {
@@ -252,23 +315,40 @@ public class WebServiceController {
 	@Deprecated
     @RequestMapping(value = "/keywords", method = RequestMethod.GET, 
     		headers={"Accept=application/json"})
-    public KeywordListJSON extractKeywords(
-    		@RequestParam(value="text", defaultValue="") String text,
-    		@RequestParam(value="method", defaultValue="rankup") String method,
-    		HttpServletRequest request) throws Exception {
+    public DeferredResult<ResponseEntity<KeywordListJSON>> extractKeywords(
+    		@RequestParam(value="text", defaultValue="") final String text,
+    		@RequestParam(value="method", defaultValue="rankup") final String method,
+    		@RequestParam(value="limit", defaultValue="0") final int limit,
+    		@RequestParam(value="minScore", required=false) final Double minScore,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (!isValidMethod(method) || limit < 0) {
+    		return badRequest();
+    	}
     	
-    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
-    	List<KeyPhraseSimple> keywords = nlpMain.extractKeywords(text, method);
-    	KeywordListJSON keywordList = new KeywordListJSON(text, method, keywords);
+    	NLPRequestExecutor executor = lanes.getRequestExecutor(
+    			OperationLanes.getKeywordOperation(method));
+    	return executor.submit(new Callable<ResponseEntity<KeywordListJSON>>() {
+			@Override
+			public ResponseEntity<KeywordListJSON> call() throws Exception {
+		    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		    	List<KeyPhraseSimple> keywords = nlpMain.extractKeywords(text, method,
+		    			limit, getMinScore(minScore));
+		    	KeywordListJSON keywordList = new KeywordListJSON(text, method, keywords);
         
-    	return keywordList;
+		    	return new ResponseEntity<KeywordListJSON>(keywordList, HttpStatus.OK);
+			}
+		});
     }
 	
 	/**
 	 * Web service to extract the keywords of a given text
 	 * @param kwl a KeywordListJSON object containing the original text
-	 * {"originalText":"text","method":"method"}
+	 * {"originalText":"text","method":"method","limit":10,"minScore":0.05}
 	 * Possible values for method are: ["rankup", "textrank", "rake", "tfidf", "ridf", "clusteredness"] (default="rankup")
+	 * An unknown method is rejected with 400 (Bad Request).
+	 * limit (the maximum number of keywords, best first) and minScore (the 
+	 * minimum score of the keywords) are optional
 	 * @param request the HTTP servlet request
 	 * @return a KeywordListJSON instance representing the requested service
 	 * {
@@ -298,16 +378,374 @@ public class WebServiceController {
 	 */
     @RequestMapping(value = "/keywords", method = RequestMethod.POST, 
     		headers={"Accept=application/json"})
-    public ResponseEntity<KeywordListJSON> extractKeywordsPost(
-    		@RequestBody KeywordListJSON kwl,
-    		HttpServletRequest request) throws Exception {
+    public DeferredResult<ResponseEntity<KeywordListJSON>> extractKeywordsPost(
+    		@RequestBody final KeywordListJSON kwl,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (!isValidMethod(kwl.method) || !isValidLimit(kwl.limit)) {
+    		return badRequest();
+    	}
+    	
+    	NLPRequestExecutor executor = lanes.getRequestExecutor(
+    			OperationLanes.getKeywordOperation(kwl.method));
+    	return executor.submit(new Callable<ResponseEntity<KeywordListJSON>>() {
+			@Override
+			public ResponseEntity<KeywordListJSON> call() throws Exception {
+		    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		    	List<KeyPhraseSimple> keywords = 
+		    			nlpMain.extractKeywords(kwl.originalText, kwl.method,
+		    					getLimit(kwl.limit), getMinScore(kwl.minScore));
+		    	kwl.keywords = keywords;
+        
+		    	return new ResponseEntity<KeywordListJSON>(kwl, HttpStatus.OK);
+			}
+		});
+    }
+    
+	/**
+	 * Web service to extract the keywords of a given text with several methods
+	 * at once. The text is analyzed only once, and the intermediate results 
+	 * are shared by all the requested methods.
+	 * @param mkwl a MultiKeywordListJSON object containing the original text
+	 * {"originalText":"text","methods":["method1","method2"],"limit":10,"minScore":0.05}
+	 * Possible values for each method are: ["rankup", "textrank", "rake", "tfidf", "ridf", "clusteredness"] (default=["rankup"])
+	 * An unknown method is rejected with 400 (Bad Request).
+	 * limit and minScore are optional, and apply to each method
+	 * @param request the HTTP servlet request
+	 * @return a MultiKeywordListJSON instance representing the requested service
+	 * {
+	 *   "originalText":"Daallo Airlines Flight 159 makes a successful emergency 
+	 *   landing after an explosion aboard kills one person and injures three.",
+	 *   "methods":["rankup","tfidf"],
+	 *   "keywords":
+	 *   {
+	 *     "rankup":
+	 *     [
+	 *     {
+	 *       "text":"airlines flight",
+	 *       "score":0.5773502691896257
+	 *     },
+	 *     ...
+	 *     ],
+	 *     "tfidf":
+	 *     [
+	 *     ...
+	 *     ]
+	 *   }
+	 * }
+	 * @throws Exception
+	 */
+    @RequestMapping(value = "/keywords/multi", method = RequestMethod.POST, 
+    		headers={"Accept=application/json"})
+    public DeferredResult<ResponseEntity<MultiKeywordListJSON>> extractKeywordsMultiPost(
+    		@RequestBody final MultiKeywordListJSON mkwl,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (mkwl.methods == null || !isValidLimit(mkwl.limit)) {
+    		return badRequest();
+    	}
+    	for (String method : mkwl.methods) {
+    		if (!isValidMethod(method)) {
+    			return badRequest();
+    		}
+    	}
+    	
+    	NLPRequestExecutor executor = lanes.getRequestExecutor(
+    			OperationLanes.getKeywordOperation(mkwl.methods));
+    	return executor.submit(new Callable<ResponseEntity<MultiKeywordListJSON>>() {
+			@Override
+			public ResponseEntity<MultiKeywordListJSON> call() throws Exception {
+		    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
+		    	Map<String, ArrayList<KeyPhraseSimple>> keywordLists = 
+		    			nlpMain.extractKeywords(mkwl.originalText, mkwl.methods,
+		    					getLimit(mkwl.limit), getMinScore(mkwl.minScore));
+		    	mkwl.keywords = new LinkedHashMap<String, List<KeyPhraseSimple>>(keywordLists);
+        
+		    	return new ResponseEntity<MultiKeywordListJSON>(mkwl, HttpStatus.OK);
+			}
+		});
+    }
+    
+	/**
+	 * Web service to lemmatize a batch of texts. The texts are processed in
+	 * parallel, and the results are returned in the same order.
+	 * @param lts a list of LemmatizedTextJSON objects containing the original texts
+	 * [{"originalText":"text1"},{"originalText":"text2"}]
+	 * @param request the HTTP servlet request
+	 * @return a list of LemmatizedTextJSON instances. An item that failed
+	 * contains an "error" message instead of the lemmatized text.
+	 * @throws Exception
+	 */
+	@RequestMapping(value = "/lemmatize/batch", method = RequestMethod.POST, 
+    		headers={"Accept=application/json"})
+    public DeferredResult<ResponseEntity<List<LemmatizedTextJSON>>> lemmatizeTextBatchPost(
+    		@RequestBody final List<LemmatizedTextJSON> lts,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (lts.size() > NLPMain.MAX_BATCH_SIZE) {
+    		return badRequest();
+    	}
+    	
+    	List<Callable<String>> items = new ArrayList<>();
+    	for (final LemmatizedTextJSON lt : lts) {
+    		items.add(new Callable<String>() {
+    			@Override
+    			public String call() throws Exception {
+    				return NLPMain.getNLPMainInstance().lemmatizeText(lt.originalText);
+    			}
+    		});
+    	}
+    	
+    	return lanes.submitBatch(Operation.LEMMATIZE, items, 
+    			new BatchResponse<String, List<LemmatizedTextJSON>>() {
+			@Override
+			public ResponseEntity<List<LemmatizedTextJSON>> getResponse(
+					List<ItemResult<String>> results) {
+		        for (int i = 0; i < lts.size(); i++) {
+		        	lts.get(i).lemmatizedText = results.get(i).value;
+		        	lts.get(i).error = results.get(i).error;
+		        }
+    	
+		    	return new ResponseEntity<List<LemmatizedTextJSON>>(lts, HttpStatus.OK);
+			}
+		});
+    }
+	
+	/**
+	 * Web service to POS-tag a batch of texts. The texts are processed in
+	 * parallel, and the results are returned in the same order.
+	 * @param tts a list of TaggedTextJSON objects containing the original texts
+	 * [{"originalText":"text1"},{"originalText":"text2"}]
+	 * @param request the HTTP servlet request
+	 * @return a list of TaggedTextJSON instances. An item that failed
+	 * contains an "error" message instead of the tagged text.
+	 * @throws Exception
+	 */
+    @RequestMapping(value = "/tag/batch", method = RequestMethod.POST, 
+			headers={"Accept=application/json"})
+    public DeferredResult<ResponseEntity<List<TaggedTextJSON>>> tagTextBatchPost(
+    		@RequestBody final List<TaggedTextJSON> tts,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (tts.size() > NLPMain.MAX_BATCH_SIZE) {
+    		return badRequest();
+    	}
+    	
+    	List<Callable<String>> items = new ArrayList<>();
+    	for (final TaggedTextJSON tt : tts) {
+    		items.add(new Callable<String>() {
+    			@Override
+    			public String call() throws Exception {
+    				return NLPMain.getNLPMainInstance().tag(tt.originalText)
+    						.getTaggedText(NLPMain.TAG_SEPARATOR);
+    			}
+    		});
+    	}
+    	
+    	return lanes.submitBatch(Operation.TAG, items, 
+    			new BatchResponse<String, List<TaggedTextJSON>>() {
+			@Override
+			public ResponseEntity<List<TaggedTextJSON>> getResponse(
+					List<ItemResult<String>> results) {
+		        for (int i = 0; i < tts.size(); i++) {
+		        	tts.get(i).taggedText = results.get(i).value;
+		        	tts.get(i).error = results.get(i).error;
+		        }
+    	
+		        return new ResponseEntity<List<TaggedTextJSON>>(tts, HttpStatus.OK);
+			}
+		});
+    }
+	
+	/**
+	 * Web service to extract the keywords of a batch of texts. The texts are 
+	 * processed in parallel, and the results are returned in the same order.
+	 * @param kwls a list of KeywordListJSON objects containing the original texts
+	 * [{"originalText":"text1","method":"method"},{"originalText":"text2","method":"method","limit":10}]
+	 * Possible values for method are: ["rankup", "textrank", "rake", "tfidf", "ridf", "clusteredness"] (default="rankup")
+	 * limit and minScore are optional, as in the single text service.
+	 * A batch of more than NLPMain.MAX_BATCH_SIZE texts, or with an unknown
+	 * method or an invalid limit, is rejected as a whole with 400 (Bad Request).
+	 * Its timeout grows with its size (see OperationLanes.getBatchTimeoutMillis).
+	 * @param request the HTTP servlet request
+	 * @return a list of KeywordListJSON instances. An item that failed
+	 * contains an "error" message instead of the keywords.
+	 * @throws Exception
+	 */
+    @RequestMapping(value = "/keywords/batch", method = RequestMethod.POST, 
+    		headers={"Accept=application/json"})
+    public DeferredResult<ResponseEntity<List<KeywordListJSON>>> extractKeywordsBatchPost(
+    		@RequestBody final List<KeywordListJSON> kwls,
+    		final HttpServletRequest request) throws Exception {
+
+    	if (kwls.size() > NLPMain.MAX_BATCH_SIZE) {
+    		return badRequest();
+    	}
+    	ArrayList<String> methods = new ArrayList<>();
+    	for (KeywordListJSON kwl : kwls) {
+    		if (!isValidMethod(kwl.method) || !isValidLimit(kwl.limit)) {
+    			return badRequest();
+    		}
+    		methods.add(kwl.method);
+    	}
     	
-    	NLPMain nlpMain = NLPMain.getNLPMainInstance();
-    	List<KeyPhraseSimple> keywords = 
-    			nlpMain.extractKeywords(kwl.originalText, kwl.method);
-    	kwl.keywords = keywords;
+    	List<Callable<List<KeyPhraseSimple>>> items = new ArrayList<>();
+    	for (final KeywordListJSON kwl : kwls) {
+    		items.add(new Callable<List<KeyPhraseSimple>>() {
+    			@Override
+    			public List<KeyPhraseSimple> call() throws Exception {
+    				return NLPMain.getNLPMainInstance().extractKeywords(
+    						kwl.originalText, kwl.method,
+    						getLimit(kwl.limit), getMinScore(kwl.minScore));
+    			}
+    		});
+    	}
+    	
+    	return lanes.submitBatch(OperationLanes.getKeywordOperation(methods), items, 
+    			new BatchResponse<List<KeyPhraseSimple>, List<KeywordListJSON>>() {
+			@Override
+			public ResponseEntity<List<KeywordListJSON>> getResponse(
+					List<ItemResult<List<KeyPhraseSimple>>> results) {
+		        for (int i = 0; i < kwls.size(); i++) {
+		        	kwls.get(i).keywords = results.get(i).value;
+		        	kwls.get(i).error = results.get(i).error;
+		        }
         
-    	return new ResponseEntity<KeywordListJSON>(kwl, HttpStatus.OK);
+		    	return new ResponseEntity<List<KeywordListJSON>>(kwls, HttpStatus.OK);
+			}
+		});
+    }
+    
+	/**
+	 * Web service to get the metrics of the NLP executors and result caches
+	 * (requires the SpringSecurityConfig.ADMIN_AUTHORITY authority)
+	 * @param request the HTTP servlet request
+	 * @return the metrics of each operation lane (tag, lemmatize, textrank and rankup)
+	 * and of the result caches
+	 * {
+	 *   "tag":
+	 *   {
+	 *     "requests":
+	 *     {
+	 *       "threads":4,
+	 *       "activeThreads":1,
+	 *       "queueDepth":0,
+	 *       ...
+	 *     },
+	 *     "batchItems":
+	 *     {
+	 *       ...
+	 *     }
+	 *   },
+	 *   ...
+	 *   "cache":
+	 *   {
+	 *     "text":
+	 *     {
+	 *       "size":120,
+	 *       "hits":45,
+	 *       "misses":120,
+	 *       ...
+	 *     },
+	 *     "keywords":
+	 *     {
+	 *       ...
+	 *     }
+	 *   }
+	 * }
+	 */
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET, 
+    		headers={"Accept=application/json"})
+    public ResponseEntity<Map<String, Object>> getMetrics(
+    		HttpServletRequest request) {
+    	
+    	Map<String, Object> metrics = lanes.getMetrics();
+    	metrics.put("cache", NLPMain.getCacheMetrics());
+    	
+    	return new ResponseEntity<Map<String, Object>>(metrics, HttpStatus.OK);
+    }
+    
+	/**
+	 * Web service to check whether the NLP models have been loaded and 
+	 * warmed up
+	 * @param request the HTTP servlet request
+	 * @return 200 (OK) if the service is ready, or 503 (Service Unavailable)
+	 * while it is starting up or if the models of some methods failed to 
+	 * load, with the readiness of each class of methods (empty while 
+	 * starting up)
+	 * {
+	 *   "ready":false,
+	 *   "methods":
+	 *   {
+	 *     "tag":true,
+	 *     "lemmatize":true,
+	 *     "textrank":true,
+	 *     "rankup":false
+	 *   }
+	 * }
+	 */
+    @RequestMapping(value = "/ready", method = RequestMethod.GET, 
+    		headers={"Accept=application/json"})
+    public ResponseEntity<Map<String, Object>> getReadiness(
+    		HttpServletRequest request) {
+    	
+    	boolean ready = NLPMain.isReady();
+    	Map<String, Object> response = new LinkedHashMap<>();
+    	response.put("ready", ready);
+    	response.put("methods", NLPMain.getMethodReadiness());
+    	
+    	return new ResponseEntity<Map<String, Object>>(response, 
+    			ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+	/**
+	 * Web service to flush the result caches of keywords, tagged and 
+	 * lemmatized texts, e.g. after the models or the RankUp configuration
+	 * have changed (requires the SpringSecurityConfig.ADMIN_AUTHORITY authority)
+	 * @param request the HTTP servlet request
+	 * @return the number of results removed
+	 * {
+	 *   "flushedEntries":165
+	 * }
+	 */
+    @RequestMapping(value = "/cache", method = RequestMethod.DELETE, 
+    		headers={"Accept=application/json"})
+    public ResponseEntity<Map<String, Object>> flushCache(
+    		HttpServletRequest request) {
+    	
+    	int flushedEntries = NLPMain.flushCaches();
+    	logger.info("Flushed " + flushedEntries + " cached results");
+    	
+    	Map<String, Object> response = new LinkedHashMap<>();
+    	response.put("flushedEntries", flushedEntries);
+    	
+    	return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+    
+    /**
+     * Get a response to an invalid call, which is not submitted to the lanes.
+     * @return a DeferredResult already completed with 400 (Bad Request)
+     */
+    private static <T> DeferredResult<ResponseEntity<T>> badRequest() {
+    	DeferredResult<ResponseEntity<T>> deferredResult = new DeferredResult<>();
+    	deferredResult.setResult(new ResponseEntity<T>(HttpStatus.BAD_REQUEST));
+    	return deferredResult;
+    }
+    
+    private static boolean isValidMethod(String method) {
+    	return method != null && KeyPhrase.getRankingMethodFromString(method) != null;
+    }
+    
+    private static boolean isValidLimit(Integer limit) {
+    	return limit == null || limit >= 0;
+    }
+    
+    private static int getLimit(Integer limit) {
+    	return limit != null ? limit : NLPMain.NO_LIMIT;
+    }
+    
+    private static double getMinScore(Double minScore) {
+    	return minScore != null ? minScore : NLPMain.NO_MIN_SCORE;
     }
     
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package com.figueroa.nlp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A text annotated once by the POSTagger and the Lemmatizer: its sentences,
+ * and the offsets, POS tags and lemmas of their tokens.
+ * The annotation is the most expensive part of a request, so a single
+ * AnnotatedDocument is created per text and shared by all the components
+ * that need tags or lemmas (TextRank, PhraseFeatures, RankUp, etc.), instead
+ * of each one tagging the text (or parts of it) again.
+ */
+public class AnnotatedDocument {
+
+    /**
+     * A single annotated token. The offsets refer to the text of the document.
+     */
+    public static class Token {
+        public final String word;
+        public final String tag;
+        public final String lemma;
+        public final int beginPosition;
+        public final int endPosition;
+
+        public Token(String word, String tag, String lemma,
+                int beginPosition, int endPosition) {
+            this.word = word;
+            this.tag = tag;
+            this.lemma = lemma;
+            this.beginPosition = beginPosition;
+            this.endPosition = endPosition;
+        }
+
+        /**
+         * Whether the Lemmatizer found a lemma different from the word itself.
+         * @return
+         */
+        public boolean hasLemma() {
+            return !lemma.equals(word);
+        }
+
+        @Override
+        public String toString() {
+            return word + "/" + tag + "/" + lemma;
+        }
+    }
+
+    private final String text;
+    private final List<List<Token>> sentences;
+    private final Token[] tokens; // All tokens, in order
+    private final HashMap<String, List<Integer>> tokenIndex; // Lowercase word -> positions in tokens
+
+    /**
+     * Creates an annotated document. Use Lemmatizer.annotate() to annotate
+     * a text.
+     * @param text: the (cleaned) text the token offsets refer to
+     * @param sentences: the annotated tokens of each sentence
+     */
+    public AnnotatedDocument(String text, List<List<Token>> sentences) {
+        this.text = text;
+        this.sentences = sentences;
+
+        int tokenCount = 0;
+        for (List<Token> sentence : sentences) {
+            tokenCount += sentence.size();
+        }
+        tokens = new Token[tokenCount];
+        tokenIndex = new HashMap<>();
+        int i = 0;
+        for (List<Token> sentence : sentences) {
+            for (Token token : sentence) {
+                tokens[i] = token;
+                String key = token.word.toLowerCase();
+                List<Integer> positions = tokenIndex.get(key);
+                if (positions == null) {
+                    positions = new ArrayList<>();
+                    tokenIndex.put(key, positions);
+                }
+                positions.add(i);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Get the text the token offsets refer to.
+     * @return
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Get the annotated tokens of each sentence.
+     * @return
+     */
+    public List<List<Token>> getSentences() {
+        return Collections.unmodifiableList(sentences);
+    }
+
+    /**
+     * Get the number of tokens in the document.
+     * @return
+     */
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    /**
+     * Get the lemmatized text, term by term, in the same format as
+     * Lemmatizer.stemText().
+     * @return the lemmatized text
+     */
+    public String getLemmatizedText() {
+
+        if (tokens.length == 0) {
+            return "";
+        }
+
+        StringBuilder lemmatizedText = new StringBuilder();
+        for (Token token : tokens) {
+            if (lemmatizedText.length() > 0) {
+                lemmatizedText.append(' ');
+            }
+            lemmatizedText.append(token.lemma);
+        }
+
+        String stemmedText = lemmatizedText.toString().trim();
+        if (stemmedText.isEmpty()) {
+            return text;
+        }
+
+        return Lemmatizer.replaceParentheses(stemmedText);
+    }
+
+    /**
+     * Get the tagged text, term by term, in the same format as
+     * POSTagger.tagText().
+     * @param separator: the separator between a term and its POS tag
+     * @return the tagged text
+     */
+    public String getTaggedText(String separator) {
+
+        StringBuilder taggedText = new StringBuilder();
+        for (Token token : tokens) {
+            if (taggedText.length() > 0) {
+                taggedText.append(' ');
+            }
+            taggedText.append(token.word).append(separator).append(token.tag);
+        }
+
+        return taggedText.toString();
+    }
+
+    /**
+     * Lemmatizes a phrase of this document using the tags of its first
+     * occurrence in the document, instead of tagging the phrase on its own.
+     * @param phrase: a space-separated sequence of words of the document
+     * (case insensitive)
+     * @return the lemmatized phrase, or null if the phrase does not occur in
+     * the document as a sequence of tokens
+     */
+    public String lemmatizePhrase(String phrase) {
+
+        String[] words = phrase.trim().split(" +");
+        if (words.length == 0 || words[0].isEmpty()) {
+            return null;
+        }
+
+        List<Integer> positions = tokenIndex.get(words[0].toLowerCase());
+        if (positions == null) {
+            return null;
+        }
+
+        for (int start : positions) {
+            if (start + words.length > tokens.length) {
+                break;
+            }
+            boolean matches = true;
+            for (int i = 1; i < words.length; i++) {
+                if (!tokens[start + i].word.equalsIgnoreCase(words[i])) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (!matches) {
+                continue;
+            }
+
+            StringBuilder lemmatizedPhrase = new StringBuilder();
+            for (int i = 0; i < words.length; i++) {
+                Token token = tokens[start + i];
+                if (i > 0) {
+                    lemmatizedPhrase.append(' ');
+                }
+                lemmatizedPhrase.append(token.hasLemma() ? token.lemma : words[i]);
+            }
+            return Lemmatizer.replaceParentheses(lemmatizedPhrase.toString());
+        }
+
+        return null;
+    }
+}
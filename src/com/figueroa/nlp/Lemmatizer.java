@@ -7,6 +7,7 @@ import java.net.URL;
 import edu.mit.jwi.*;
 import edu.mit.jwi.item.*;
 import edu.mit.jwi.morph.WordnetStemmer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,6 +25,7 @@ public class Lemmatizer {
     private IDictionary dict;  // The WordNet dictionary
     private POSTagger posTagger;
     private WordnetStemmer stemmer;
+    private WordNetImage wordNetImage; // Used instead of JWI when given
 
     /**
      * Constructor for the Lemmatizer class. The Lemmatizer requires an instance
@@ -60,6 +62,18 @@ public class Lemmatizer {
 		}
     }
 
+    /**
+     * Constructor for the Lemmatizer class with a precompiled WordNet image,
+     * which is used instead of opening the WordNet dictionary with JWI.
+     * The stems are the same as those of the JWI stemmer.
+     * @param wordNetImage
+     * @param posTag: instance of POSTagger
+     */
+    public Lemmatizer(WordNetImage wordNetImage, POSTagger posTag) {
+        this.wordNetImage = wordNetImage;
+        this.posTagger = posTag;
+    }
+
     /**
      * Lemmatizes the given text, term by term.
      * @param text
@@ -68,19 +82,18 @@ public class Lemmatizer {
      */
     public String stemText(String text, boolean textIsTagged) {
 
-        String taggedText;
+        // Untagged text is tagged and lemmatized in a single annotation pass
         if (!textIsTagged) {
-            taggedText = posTagger.tagText(text);
-        }
-        else {
-            taggedText = text;
+            return annotate(text).getLemmatizedText();
         }
 
+        String taggedText = text;
+
         if (!taggedText.contains(posTagger.getSeparator())) {
             return taggedText;
         }
 
-        String stemmedText = "";
+        StringBuilder stemmedTokens = new StringBuilder();
         String[] tokenizedText = taggedText.split(" ");
 
         for (int i = 0; i < tokenizedText.length; i++) {
@@ -89,40 +102,102 @@ public class Lemmatizer {
             String currWord = posTagger.getWord(currToken);
             String currTag = posTagger.getTag(currToken);
 
-            POS pos = posTagger.getPOS(currTag);
-            if (pos == null) {
-                stemmedText = stemmedText.concat(currWord + " ");
-            }
-            else {
-                List<String> stems = stemmer.findStems(currWord, pos);
-                if (stems.isEmpty()) {
-                    stemmedText = stemmedText.concat(currWord + " ");
-                }
-                else {
-                    stemmedText = stemmedText.concat(stems.get(0) + " ");
-                }
-            }
+            stemmedTokens.append(stemWord(currWord, currTag)).append(' ');
         }
 
-        stemmedText = stemmedText.trim(); // Clean text
+        String stemmedText = stemmedTokens.toString().trim(); // Clean text
 
         /*if (stemmedText.contains("-LRB-") || stemmedText.contains("-RRB-")) {
         return text;
         }*/
 
         if (stemmedText.isEmpty()) {
-            if (textIsTagged) {
-                stemmedText = posTagger.getWord(text);
+            stemmedText = posTagger.getWord(text);
+        }
+        
+        return replaceParentheses(stemmedText);
+    }
+
+    /**
+     * Lemmatizes already tagged tokens, term by term, in the same format as
+     * stemText().
+     * @param tokens
+     * @return the lemmatized text
+     */
+    public String stemTokens(TaggedTokens tokens) {
+
+        StringBuilder stemmedText = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                stemmedText.append(' ');
             }
-            else {
-                stemmedText = text;
+            stemmedText.append(stemWord(tokens.getWord(i), tokens.getTag(i)));
+        }
+
+        return replaceParentheses(stemmedText.toString().trim());
+    }
+
+    /**
+     * Tags and lemmatizes the given text once, keeping the sentences, offsets,
+     * tags and lemmas of its tokens.
+     * @param text
+     * @return the annotated text
+     */
+    public AnnotatedDocument annotate(String text) {
+
+        TaggedTokens tokens = posTagger.tag(text);
+
+        List<List<AnnotatedDocument.Token>> annotatedSentences = 
+                new ArrayList<>(tokens.getSentenceCount());
+        for (int s = 0; s < tokens.getSentenceCount(); s++) {
+            int end = tokens.getSentenceEnd(s);
+            List<AnnotatedDocument.Token> annotatedSentence = 
+                    new ArrayList<>(end - tokens.getSentenceStart(s));
+            for (int i = tokens.getSentenceStart(s); i < end; i++) {
+                annotatedSentence.add(new AnnotatedDocument.Token(
+                        tokens.getWord(i), 
+                        tokens.getTag(i), 
+                        stemWord(tokens.getWord(i), tokens.getTag(i)),
+                        tokens.getBeginPosition(i), 
+                        tokens.getEndPosition(i)));
             }
+            annotatedSentences.add(annotatedSentence);
         }
-        
-        // Replace left and right parentheses
+
+        return new AnnotatedDocument(tokens.getText(), annotatedSentences);
+    }
+
+    /**
+     * Lemmatizes a single word with the given Penn Treebank tag.
+     * @param word
+     * @param tag
+     * @return the first WordNet stem of the word, or the word itself
+     */
+    private String stemWord(String word, String tag) {
+
+        POS pos = posTagger.getPOS(tag);
+        if (pos == null) {
+            return word;
+        }
+
+        List<String> stems = wordNetImage != null ?
+                wordNetImage.findStems(word, pos.getTag()) :
+                stemmer.findStems(word, pos);
+        if (stems.isEmpty()) {
+            return word;
+        }
+        return stems.get(0);
+    }
+
+    /**
+     * Replaces the Penn Treebank left and right parentheses in a lemmatized
+     * text.
+     * @param stemmedText
+     * @return
+     */
+    static String replaceParentheses(String stemmedText) {
         stemmedText = stemmedText.replaceAll("-LRB- ", "(");
         stemmedText = stemmedText.replaceAll(" -RRB-", ")");
-        
         return stemmedText;
     }
 
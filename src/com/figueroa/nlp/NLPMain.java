@@ -1,11 +1,23 @@
 package com.figueroa.nlp;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ResourceUtils;
 
@@ -14,8 +26,14 @@ import com.figueroa.nlp.KeyPhrase.RankingMethod;
 import com.figueroa.nlp.rankup.RankUpMain;
 import com.figueroa.nlp.textrank.LanguageModel;
 import com.figueroa.nlp.textrank.MetricVector;
+import com.figueroa.nlp.textrank.RankSolverOptions;
+import com.figueroa.nlp.textrank.SynsetNeighborhood;
 import com.figueroa.nlp.textrank.TextRank;
 import com.figueroa.nlp.textrank.WordNet;
+import com.figueroa.util.Abstract;
+import com.figueroa.util.MiscUtils;
+import com.figueroa.util.ResultCache;
+import com.figueroa.util.SingleFlight;
 
 /**
  *
@@ -24,8 +42,21 @@ import com.figueroa.nlp.textrank.WordNet;
 @Component
 public class NLPMain {
 	
+	private static final Logger logger = Logger.getLogger(NLPMain.class);
+	
 	// Singleton instance
-	private static NLPMain instance = null;
+	private static volatile NLPMain instance = null;
+	private static final Object instanceLock = new Object();
+	
+	// Ready once the models of all the methods are loaded and warmed up, 
+	// with the readiness of each class of methods (see startUp())
+	private static volatile boolean ready = false;
+	private static volatile Map<String, Boolean> methodReadiness = 
+			Collections.emptyMap();
+	public final static String TAG_METHODS = "tag";
+	public final static String LEMMATIZE_METHODS = "lemmatize";
+	public final static String TEXTRANK_METHODS = "textrank";
+	public final static String RANKUP_METHODS = "rankup";
 	
 	// Resources
 	public final String contextPath; // Class path for resources
@@ -43,6 +74,10 @@ public class NLPMain {
     
 	public final static String TAG_SEPARATOR = "_";
 	public final static String WN_HOME = RESOURCES_PATH + "WordNet-3.0";
+	// Precompiled WordNet image, generated by the build (see WordNetImageCompiler).
+	// When it exists, it is used by both the Lemmatizer and TextRank instead of
+	// JWI and JWNL.
+	public final static String WN_IMAGE_PATH = WN_HOME + File.separator + "wordnet.img";
 	public final Lemmatizer lemmatizer;
 	
     // TextRank
@@ -50,10 +85,42 @@ public class NLPMain {
     public final static String log4j_conf = TEXTRANK_RESOURCES_PATH + 
     		File.separator + "log4j.properties";
     public final static String LANG_CODE = "en";
+    public final static String TEXTRANK_SOLVER_PROPERTIES_PATH = 
+    		TEXTRANK_RESOURCES_PATH + File.separator + "solver.properties";
     public static LanguageModel languageModel;
     private final static Stopwords stopwords = new Stopwords();
     public final TextRank textRank;
     
+    // Batch processing
+    public final static int MAX_BATCH_SIZE = 1000;
+    
+    // Keyword selection: all the keywords, whatever their score
+    public final static int NO_LIMIT = 0;
+    public final static double NO_MIN_SCORE = Double.NEGATIVE_INFINITY;
+    
+    // Result caches, keyed by the normalized text, the method and the configuration
+    public final static int CACHE_MAX_ENTRIES = 5000;
+    public final static long CACHE_TTL_MILLIS = 60 * 60 * 1000L; // 1 hour
+    private final static ResultCache<String> textCache = 
+    		new ResultCache<>(CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+    private final static ResultCache<TaggedTokens> tokenCache = 
+    		new ResultCache<>(CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+    private final static ResultCache<KeywordList> keywordCache = 
+    		new ResultCache<>(CACHE_MAX_ENTRIES, CACHE_TTL_MILLIS);
+    
+    // Keyword computations in progress, shared by identical concurrent calls
+    private final static SingleFlight<Map<RankingMethod, KeywordList>> 
+    		keywordFlights = new SingleFlight<>();
+    
+    // Warmup
+    public final static String WARMUP_TEXT = 
+    		"Compatibility of systems of linear constraints over the set of natural " +
+    		"numbers. Criteria of compatibility of a system of linear Diophantine " +
+    		"equations, strict inequations, and nonstrict inequations are considered. " +
+    		"Upper bounds for components of a minimal set of solutions and algorithms " +
+    		"of construction of minimal generating sets of solutions for all types " +
+    		"of systems are given.";
+    
     /**
      * Get the unique (singleton) instance of this class. 
      * If the instance doesn't exist, then it is created.
@@ -61,14 +128,24 @@ public class NLPMain {
      * @throws Exception 
      */
     public static NLPMain getNLPMainInstance() throws Exception {
-    	if (instance == null) {
-    		instance = new NLPMain();
+    	NLPMain nlpMain = instance;
+    	if (nlpMain == null) {
+    		synchronized (instanceLock) {
+    			nlpMain = instance;
+    			if (nlpMain == null) {
+    				nlpMain = new NLPMain();
+    				instance = nlpMain;
+    			}
+    		}
     	}
-    	return instance;
+    	return nlpMain;
     }
     
     /**
      * Private constructor for singleton instance of this class.
+     * The independent models (Stanford POS tagger and JWI dictionary, 
+     * OpenNLP models and JWNL dictionary) are loaded concurrently. If the
+     * WordNet image exists, it replaces both WordNet dictionaries.
      * @throws Exception 
      */
     private NLPMain() throws Exception {
@@ -79,18 +156,229 @@ public class NLPMain {
     	}
     	contextPath = classpath;
     	
-    	// Load POSTagger
-        posTagger = new POSTagger(contextPath + POS_TAGGER_MODEL_PATH, 
-        		TAG_SEPARATOR);
+    	long startTime = System.currentTimeMillis();
+    	final WordNetImage wordNetImage = loadWordNetImage(contextPath + WN_IMAGE_PATH);
     	
-        // Load Lemmatizer
-        lemmatizer = new Lemmatizer(contextPath + WN_HOME, posTagger);
-        
-        // Load TextRank
-		languageModel = 
-	    		LanguageModel.buildLanguage(contextPath + TEXTRANK_RESOURCES_PATH, LANG_CODE);
-		WordNet.buildDictionary(contextPath + TEXTRANK_RESOURCES_PATH, LANG_CODE);
-		textRank = new TextRank(stopwords, languageModel);
+    	ExecutorService loader = Executors.newFixedThreadPool(3);
+    	try {
+    		// Load POSTagger and Lemmatizer
+	    	Future<Lemmatizer> lemmatizerFuture = loader.submit(new Callable<Lemmatizer>() {
+	    		@Override
+	    		public Lemmatizer call() throws Exception {
+	    			POSTagger posTagger = new POSTagger(contextPath + POS_TAGGER_MODEL_PATH, 
+	    	        		TAG_SEPARATOR);
+	    			if (wordNetImage != null) {
+	    				return new Lemmatizer(wordNetImage, posTagger);
+	    			}
+	    			return new Lemmatizer(contextPath + WN_HOME, posTagger);
+	    		}
+	    	});
+	    	
+	    	// Load TextRank language model (OpenNLP)
+	    	Future<LanguageModel> languageModelFuture = loader.submit(new Callable<LanguageModel>() {
+	    		@Override
+	    		public LanguageModel call() throws Exception {
+	    			return LanguageModel.buildLanguage(
+	    					contextPath + TEXTRANK_RESOURCES_PATH, LANG_CODE);
+	    		}
+	    	});
+	    	
+	    	// Load TextRank WordNet dictionary (JWNL, unless the image is used)
+	    	Future<Void> wordNetFuture = loader.submit(new Callable<Void>() {
+	    		@Override
+	    		public Void call() throws Exception {
+	    			if (wordNetImage != null) {
+	    				WordNet.buildDictionary(wordNetImage);
+	    				return null;
+	    			}
+	    			WordNet.buildDictionary(contextPath + TEXTRANK_RESOURCES_PATH, LANG_CODE);
+	    			return null;
+	    		}
+	    	});
+	    	
+	    	lemmatizer = getLoaded(lemmatizerFuture);
+	    	posTagger = lemmatizer.getPosTagger();
+	    	languageModel = getLoaded(languageModelFuture);
+	    	getLoaded(wordNetFuture);
+    	}
+    	finally {
+    		loader.shutdownNow();
+    	}
+    	
+		RankSolverOptions solverOptions = 
+				loadSolverOptions(contextPath + TEXTRANK_SOLVER_PROPERTIES_PATH);
+		logger.info("TextRank solver: " + solverOptions);
+		textRank = new TextRank(stopwords, languageModel, solverOptions);
+		logger.info("NLP models loaded in " + 
+				(System.currentTimeMillis() - startTime) + " ms");
+    }
+    
+    /**
+     * Map the WordNet image generated by the build (see
+     * WordNetImageCompiler).
+     * @param imagePath
+     * @return the image, or null if there is no image or it can't be mapped,
+     * in which case JWI and JWNL are used
+     */
+    private static WordNetImage loadWordNetImage(String imagePath) {
+
+    	File imageFile = new File(imagePath);
+    	if (!imageFile.exists()) {
+    		logger.info("No WordNet image at " + imagePath + ", using JWI and JWNL");
+    		return null;
+    	}
+    	try {
+    		return WordNetImage.load(imageFile.getPath());
+    	}
+    	catch (Exception e) {
+    		logger.warn("Exception in NLPMain: the WordNet image could not be mapped, " +
+    				"using JWI and JWNL: " + e.getMessage());
+    		return null;
+    	}
+    }
+
+    /**
+     * Load the TextRank solver options.
+     * @param propertiesPath
+     * @return the options of the properties file, or the default options
+     * if there is no such file
+     * @throws Exception
+     */
+    private static RankSolverOptions loadSolverOptions(String propertiesPath) 
+    		throws Exception {
+    	
+    	File propertiesFile = new File(propertiesPath);
+    	if (!propertiesFile.exists()) {
+    		return RankSolverOptions.DEFAULT;
+    	}
+    	try (FileInputStream fis = new FileInputStream(propertiesFile)) {
+    		Properties props = new Properties();
+    		props.load(fis);
+    		return RankSolverOptions.fromProperties(props);
+    	}
+    }
+    
+    private static <T> T getLoaded(Future<T> future) throws Exception {
+    	try {
+    		return future.get();
+    	}
+    	catch (ExecutionException e) {
+    		Throwable cause = e.getCause() != null ? e.getCause() : e;
+    		throw new Exception("Exception in NLPMain: " + cause.getMessage());
+    	}
+    }
+    
+    /**
+     * Loads all the models (including RankUp) and runs a warmup text through
+     * each method, so that the first requests don't pay for the loading and 
+     * for the JIT compilation of the hot paths. The service is ready when
+     * this is done for all the methods. Failures of single methods are 
+     * logged, reported by getMethodReadiness() and don't prevent the other 
+     * methods from being used.
+     * @throws Exception if the NLP models can't be loaded
+     */
+    public static void startUp() throws Exception {
+    	
+    	long startTime = System.currentTimeMillis();
+    	NLPMain nlpMain = getNLPMainInstance();
+    	
+    	boolean rankUpLoaded = true;
+    	try {
+    		nlpMain.getRankUpMain();
+    	}
+    	catch (Exception e) {
+    		logger.error("Exception in startUp: RankUp could not be loaded: " + 
+    				e.getMessage());
+    		rankUpLoaded = false;
+    	}
+    	
+    	Map<String, Boolean> readiness = nlpMain.warmUp(rankUpLoaded);
+    	methodReadiness = Collections.unmodifiableMap(readiness);
+    	ready = !readiness.containsValue(false);
+    	if (ready) {
+	    	logger.info("NLP service ready in " + 
+	    			(System.currentTimeMillis() - startTime) + " ms");
+    	}
+    	else {
+    		logger.error("NLP service started in " + 
+	    			(System.currentTimeMillis() - startTime) + " ms, but not ready: " + 
+    				readiness);
+    	}
+    }
+    
+    /**
+     * Runs the warmup text through every method, bypassing the result caches.
+     * @param rankUpLoaded: whether the RankUp models were loaded
+     * @return the readiness of each class of methods
+     */
+    private LinkedHashMap<String, Boolean> warmUp(boolean rankUpLoaded) {
+    	
+    	logger.info("Warming up...");
+    	LinkedHashMap<String, Boolean> readiness = new LinkedHashMap<>();
+    	try {
+    		posTagger.tag(WARMUP_TEXT);
+    		readiness.put(TAG_METHODS, true);
+    	}
+    	catch (Exception e) {
+    		logger.error("Exception in warmUp for tagging: " + e.getMessage());
+    		readiness.put(TAG_METHODS, false);
+    	}
+    	try {
+    		lemmatizer.stemText(WARMUP_TEXT, false);
+    		readiness.put(LEMMATIZE_METHODS, true);
+    	}
+    	catch (Exception e) {
+    		logger.error("Exception in warmUp for lemmatization: " + e.getMessage());
+    		readiness.put(LEMMATIZE_METHODS, false);
+    	}
+    	
+    	// TextRank on its own, and all the methods in a single RankUp pass
+    	LinkedHashMap<RankingMethod, String> textRankOnly = new LinkedHashMap<>();
+    	textRankOnly.put(RankingMethod.TEXTRANK, null);
+    	readiness.put(TEXTRANK_METHODS, warmUpKeywords(textRankOnly));
+    	if (rankUpLoaded) {
+	    	LinkedHashMap<RankingMethod, String> allMethods = new LinkedHashMap<>();
+	    	for (RankingMethod rankingMethod : RankingMethod.values()) {
+	    		allMethods.put(rankingMethod, null);
+	    	}
+	    	readiness.put(RANKUP_METHODS, warmUpKeywords(allMethods));
+    	}
+    	else {
+    		readiness.put(RANKUP_METHODS, false);
+    	}
+    	
+    	return readiness;
+    }
+    
+    private boolean warmUpKeywords(Map<RankingMethod, String> methods) {
+    	try {
+    		computeKeywords(WARMUP_TEXT, methods);
+    		return true;
+    	}
+    	catch (Exception e) {
+    		logger.error("Exception in warmUp for " + methods.keySet() + ": " + 
+    				e.getMessage());
+    		return false;
+    	}
+    }
+    
+    /**
+     * Whether the models of all the methods have been loaded and warmed up 
+     * by startUp().
+     * @return
+     */
+    public static boolean isReady() {
+    	return ready;
+    }
+    
+    /**
+     * Get the readiness of each class of methods (tag, lemmatize, textrank
+     * and rankup, which includes all the feature-based methods).
+     * @return a map of each class of methods to whether its models have been
+     * loaded and warmed up, empty until startUp() is done
+     */
+    public static Map<String, Boolean> getMethodReadiness() {
+    	return methodReadiness;
     }
     
     /**
@@ -101,21 +389,31 @@ public class NLPMain {
      * @throws Exception
      */
     public String lemmatizeText(String text) throws Exception {
-        String lemmatizedText = lemmatizer.stemText(text, false);
+    	String key = ResultCache.key("lemmatize", ResultCache.normalizeText(text));
+    	String lemmatizedText = textCache.get(key);
+    	if (lemmatizedText == null) {
+    		lemmatizedText = lemmatizer.stemText(text, false);
+    		textCache.put(key, lemmatizedText);
+    	}
         return lemmatizedText;
     }
     
     /**
      * Assign POS tags to each term in the given string. 
-     * Uses the Penn Treebank tagset.
-     * @param contextPath the absolute root path of the project
+     * Uses the Penn Treebank tagset. The tagged text is rendered from the
+     * tokens with TaggedTokens.getTaggedText(TAG_SEPARATOR).
      * @param text
-     * @return the POS-tagged text
+     * @return the POS-tagged tokens
      * @throws Exception
      */
-    public String tagText(String text) throws Exception {
-        String taggedText = posTagger.tagText(text);
-        return taggedText;
+    public TaggedTokens tag(String text) throws Exception {
+    	String key = ResultCache.key("tag", ResultCache.normalizeText(text));
+    	TaggedTokens tokens = tokenCache.get(key);
+    	if (tokens == null) {
+    		tokens = posTagger.tag(text);
+    		tokenCache.put(key, tokens);
+    	}
+        return tokens;
     }
     
     /**
@@ -128,45 +426,305 @@ public class NLPMain {
     public ArrayList<KeyPhraseSimple> extractKeywords( 
     		String text, String method) throws Exception {
 
-    	RankingMethod rankingMethod = 
-    			KeyPhrase.getRankingMethodFromString(method);
-    	
-    	ArrayList<KeyPhraseSimple> keywords = new ArrayList<>();
-    	switch (rankingMethod) {
-    		case TEXTRANK:				
-				Collection<MetricVector> metricVectorCollection = textRank.run(text);
-				
+    	return extractKeywords(text, method, NO_LIMIT, NO_MIN_SCORE);
+    }
+    
+    /**
+     * Extract the top keywords from a given text
+     * @param text
+     * @param method
+     * @param limit: the maximum number of keywords, or NO_LIMIT
+     * @param minScore: the minimum score of the keywords, or NO_MIN_SCORE
+     * @return an ArrayList of KeyPhrase, best first if limited
+     * @throws Exception
+     */
+    public ArrayList<KeyPhraseSimple> extractKeywords( 
+    		String text, String method, int limit, double minScore) throws Exception {
+
+    	return extractKeywords(text, Collections.singletonList(method), 
+    			limit, minScore).get(method);
+    }
+    
+    /**
+     * Extract keywords from a given text using several methods at once.
+     * RankUp is run once for all the RankUp-based methods, so the shared 
+     * intermediate results (keyphrase candidates, features, TextRank graph)
+     * are computed only once. The results of each method are cached, and 
+     * only the methods that are not cached are run. Identical calls that
+     * arrive while the same methods are being computed for the same text
+     * wait for that computation instead of running it again.
+     * @param text
+     * @param methods
+     * @return a map of each method to its keywords (null for unknown methods),
+     * in the given order
+     * @throws Exception
+     */
+    public LinkedHashMap<String, ArrayList<KeyPhraseSimple>> extractKeywords(
+    		final String text, List<String> methods) throws Exception {
+    	
+    	return extractKeywords(text, methods, NO_LIMIT, NO_MIN_SCORE);
+    }
+    
+    /**
+     * Extract the top keywords from a given text using several methods at 
+     * once (see extractKeywords(String, List)). The full results are 
+     * cached, and each call selects its own top keywords from them.
+     * @param text
+     * @param methods
+     * @param limit: the maximum number of keywords of each method, or NO_LIMIT
+     * @param minScore: the minimum score of the keywords, or NO_MIN_SCORE
+     * @return a map of each method to its keywords (null for unknown methods),
+     * in the given order
+     * @throws Exception
+     */
+    public LinkedHashMap<String, ArrayList<KeyPhraseSimple>> extractKeywords(
+    		final String text, List<String> methods, int limit, double minScore) 
+    				throws Exception {
+    	
+    	LinkedHashMap<String, ArrayList<KeyPhraseSimple>> keywordLists = 
+    			new LinkedHashMap<>();
+    	
+    	// Look up the cached results. They depend on the TextRank solver 
+    	// options, and the RankUp-based results also on the RankUp configuration.
+    	String normalizedText = ResultCache.normalizeText(text);
+    	String textRankConfig = textRank.getSolverOptions().toString();
+    	String rankUpConfig = null;
+    	LinkedHashMap<RankingMethod, String> cacheKeys = new LinkedHashMap<>();
+    	for (String method : methods) {
+    		RankingMethod rankingMethod = 
+        			KeyPhrase.getRankingMethodFromString(method);
+    		if (rankingMethod == null) {
+    			keywordLists.put(method, null);
+    			continue;
+    		}
+    		if (rankingMethod != RankingMethod.TEXTRANK && rankUpConfig == null) {
+    			rankUpConfig = getRankUpMain().getRankUpProperties().toString() + 
+    					"\n" + textRankConfig;
+    		}
+    		String key = ResultCache.key("keywords", rankingMethod.toString(),
+    				rankingMethod == RankingMethod.TEXTRANK ? textRankConfig : rankUpConfig,
+    				normalizedText);
+    		cacheKeys.put(rankingMethod, key);
+    		KeywordList cachedKeywords = keywordCache.get(key);
+    		keywordLists.put(method, cachedKeywords != null ? 
+    				cachedKeywords.select(limit, minScore) : null);
+    	}
+    	
+    	// Collect the methods that are not cached
+    	final LinkedHashSet<RankingMethod> missingMethods = new LinkedHashSet<>();
+    	for (String method : methods) {
+    		RankingMethod rankingMethod = 
+        			KeyPhrase.getRankingMethodFromString(method);
+    		if (rankingMethod != null && keywordLists.get(method) == null) {
+    			missingMethods.add(rankingMethod);
+    		}
+    	}
+    	if (missingMethods.isEmpty()) {
+    		return keywordLists;
+    	}
+    	
+    	// Compute them, or wait for an identical computation in progress
+    	final LinkedHashMap<RankingMethod, String> missingKeys = new LinkedHashMap<>();
+    	for (RankingMethod rankingMethod : missingMethods) {
+    		missingKeys.put(rankingMethod, cacheKeys.get(rankingMethod));
+    	}
+    	String flightKey = ResultCache.key(
+    			missingKeys.values().toArray(new String[missingKeys.size()]));
+    	Map<RankingMethod, KeywordList> computedKeywords = 
+    			keywordFlights.execute(flightKey, 
+    					new Callable<Map<RankingMethod, KeywordList>>() {
+    				@Override
+    				public Map<RankingMethod, KeywordList> call() 
+    						throws Exception {
+    					Map<RankingMethod, KeywordList> keywordLists = 
+    							computeKeywords(text, missingKeys);
+    					for (RankingMethod rankingMethod : keywordLists.keySet()) {
+    						keywordCache.put(missingKeys.get(rankingMethod), 
+    								keywordLists.get(rankingMethod));
+    					}
+    					return keywordLists;
+    				}
+    			});
+    	
+    	for (String method : methods) {
+    		RankingMethod rankingMethod = 
+        			KeyPhrase.getRankingMethodFromString(method);
+    		if (rankingMethod == null || keywordLists.get(method) != null) {
+    			continue;
+    		}
+    		keywordLists.put(method, 
+    				computedKeywords.get(rankingMethod).select(limit, minScore));
+    	}
+    	
+	    return keywordLists;
+    }
+    
+    /**
+     * Compute the keywords of the given methods.
+     * RankUp is run once for all the RankUp-based methods. The TextRank 
+     * keywords are not sorted here (see KeywordList).
+     * @param text
+     * @param methodKeys: the methods to compute, with their cache keys
+     * @return the keywords of each method
+     * @throws Exception
+     */
+    private Map<RankingMethod, KeywordList> computeKeywords(
+    		String text, Map<RankingMethod, String> methodKeys) throws Exception {
+    	
+    	// Separate the methods computed by RankUp
+    	LinkedHashSet<RankingMethod> rankUpMethods = new LinkedHashSet<>();
+    	boolean textRankRequested = false;
+    	for (RankingMethod rankingMethod : methodKeys.keySet()) {
+    		if (rankingMethod == RankingMethod.TEXTRANK) {
+    			textRankRequested = true;
+    		}
+    		else {
+    			rankUpMethods.add(rankingMethod);
+    		}
+    	}
+    	
+    	// Run RankUp once for all its methods
+    	Map<RankingMethod, List<KeyPhrase>> rankUpKeyphrases = null;
+    	Abstract abs = null;
+    	if (!rankUpMethods.isEmpty()) {
+    		RankUpMain rankUpMain = getRankUpMain();
+    		abs = rankUpMain.newAbstract(text);
+    		rankUpKeyphrases = rankUpMain.extractRankUpKeywords(abs, rankUpMethods);
+    		if (rankUpKeyphrases == null) {
+    			throw new Exception("Exception in extractKeywords: RankUp failed for methods " + 
+    					rankUpMethods);
+    		}
+    	}
+    	
+    	// TextRank: reuse the TextRank run of RankUp if it analyzed the same text
+    	Collection<MetricVector> metricVectorCollection = null;
+    	if (textRankRequested) {
+    		if (abs != null && abs.getTextRankContext() != null &&
+    				abs.getTextRankContext().getText().equals(posTagger.cleanText(text))) {
+    			metricVectorCollection = abs.getTextRankContext().getMetricVectors();
+    		}
+    		else {
+    			metricVectorCollection = 
+    					textRank.run(lemmatizer.annotate(text)).getMetricVectors();
+    		}
+    	}
+    	
+    	LinkedHashMap<RankingMethod, KeywordList> keywordLists = 
+    			new LinkedHashMap<>();
+    	for (RankingMethod rankingMethod : methodKeys.keySet()) {
+    		ArrayList<KeyPhraseSimple> keywords = new ArrayList<>();
+    		if (rankingMethod == RankingMethod.TEXTRANK) {
 				for (MetricVector metricVector : metricVectorCollection) {
 					String keyword = metricVector.value.text;
 					double score = metricVector.metric;
 					KeyPhraseSimple keyphrase = new KeyPhraseSimple(keyword, score);
 					keywords.add(keyphrase);
 				}
-				Collections.sort(keywords);
-				break;
-    	
-    		case RANKUP:
-    		case RAKE:
-    		case TFIDF:
-    		case RIDF:
-    		case CLUSTEREDNESS:
-    			RankUpMain rankUpMain = 
-    					RankUpMain.getRankUpMainInstance(textRank, lemmatizer, posTagger, stopwords);
-	    		List<KeyPhrase> keyphrases = 
-	    				(ArrayList<KeyPhrase>) rankUpMain.extractRankUpKeywords(
-	    						text,
-	    						rankingMethod);
-	    		for (KeyPhrase rankUpKeyphrase : keyphrases) {
+				keywordLists.put(rankingMethod, new KeywordList(keywords, false));
+				continue;
+    		}
+    		else {
+	    		for (KeyPhrase rankUpKeyphrase : rankUpKeyphrases.get(rankingMethod)) {
 	    			KeyPhraseSimple keyphrase = 
 	    					new KeyPhraseSimple(rankUpKeyphrase.text,
 	    							rankUpKeyphrase.getRanking(rankingMethod));
 	    			keywords.add(keyphrase);
 	    		}
-	    		break;
-	    	default:
-	    		return null;
+    		}
+    		keywordLists.put(rankingMethod, new KeywordList(keywords, true));
+    	}
+    	
+    	return keywordLists;
+    }
+    
+    /**
+     * Select the keywords with at least the minimum score, and then the top
+     * limit of them by score. The keywords are copied, so the cached lists
+     * are never modified.
+     * @param keywords
+     * @param limit: the maximum number of keywords, or NO_LIMIT
+     * @param minScore: the minimum score of the keywords, or NO_MIN_SCORE
+     * @return the selected keywords, in their order if not limited
+     */
+    public static ArrayList<KeyPhraseSimple> selectKeywords(
+    		List<KeyPhraseSimple> keywords, int limit, double minScore) {
+    	
+    	ArrayList<KeyPhraseSimple> selected = new ArrayList<>(keywords);
+    	if (minScore != NO_MIN_SCORE) {
+    		selected.clear();
+    		for (KeyPhraseSimple keyword : keywords) {
+    			if (keyword.score >= minScore) {
+    				selected.add(keyword);
+    			}
+    		}
+    	}
+    	if (limit != NO_LIMIT) {
+    		selected = MiscUtils.selectTop(selected, limit, 
+    				new Comparator<KeyPhraseSimple>() {
+    			@Override
+    			public int compare(KeyPhraseSimple a, KeyPhraseSimple b) {
+    				return a.compareTo(b);
+    			}
+    		});
+    	}
+    	
+    	return selected;
+    }
+    
+    /**
+     * The full keyword list of a method, as cached. The TextRank keywords
+     * are kept in the order of the graph and only sorted the first time
+     * all of them are requested: a limited selection takes the top 
+     * keywords from the unsorted list (see selectKeywords), which gives the
+     * same keywords in the same order.
+     */
+    private static class KeywordList {
+    	
+    	private ArrayList<KeyPhraseSimple> keywords;
+    	private boolean sorted;
+    	
+    	KeywordList(ArrayList<KeyPhraseSimple> keywords, boolean sorted) {
+    		this.keywords = keywords;
+    		this.sorted = sorted;
     	}
     	
-	    return keywords;
+    	synchronized ArrayList<KeyPhraseSimple> select(int limit, double minScore) {
+    		if (limit == NO_LIMIT && !sorted) {
+    			ArrayList<KeyPhraseSimple> sortedKeywords = new ArrayList<>(keywords);
+    			Collections.sort(sortedKeywords);
+    			keywords = sortedKeywords;
+    			sorted = true;
+    		}
+    		return selectKeywords(keywords, limit, minScore);
+    	}
+    }
+    
+    private RankUpMain getRankUpMain() throws Exception {
+    	return RankUpMain.getRankUpMainInstance(textRank, lemmatizer, posTagger, stopwords);
+    }
+    
+    /**
+     * Get the metrics of the result caches.
+     * @return a map of cache names to their metrics
+     */
+    public static Map<String, Object> getCacheMetrics() {
+    	
+    	LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+    	metrics.put("text", textCache.getMetrics());
+    	metrics.put("tokens", tokenCache.getMetrics());
+    	metrics.put("keywords", keywordCache.getMetrics());
+    	metrics.put("keywordsInFlight", keywordFlights.getMetrics());
+    	metrics.put("wordnet", SynsetNeighborhood.getCacheMetrics());
+    	
+    	return metrics;
+    }
+    
+    /**
+     * Remove all the cached results, e.g. after the models or the 
+     * configuration have changed.
+     * @return the number of results removed
+     */
+    public static int flushCaches() {
+    	return textCache.clear() + tokenCache.clear() + keywordCache.clear();
     }
 }
\ No newline at end of file
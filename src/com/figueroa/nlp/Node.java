@@ -1,6 +1,15 @@
 package com.figueroa.nlp;
 
-import java.util.HashMap;
+import gnu.trove.TObjectIdentityHashingStrategy;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import com.figueroa.util.MiscUtils;
@@ -8,6 +17,13 @@ import com.figueroa.nlp.KeyPhrase;
 
 /**
  * Implements a node in the RankUp graph, denoting some word or keyword
+ * 
+ * The edges are stored in parallel arrays (adjacent node, weight and previous
+ * weight, in insertion order), so the weights are not boxed. Adjacent nodes
+ * are matched by identity, and looked up through a primitive index once a
+ * node has more than EDGE_INDEX_THRESHOLD edges. getEdges() and 
+ * getPreviousEdges() are Map views over the arrays, kept for compatibility;
+ * loops that only read the weights should use the indexed methods instead.
  *
  * @author Gerardo Figueroa
  * Institute of Information Systems and Applications
@@ -20,6 +36,11 @@ public abstract class Node implements Comparable<Node> {
     @SuppressWarnings("unused")
 	private final static Log log_ = LogFactory.getLog(Node.class.getName());
     public final static Double DEFAULT_EDGE_WEIGHT = 1.0;
+    // Nodes with more edges than this look up their edges through an index
+    public final static int EDGE_INDEX_THRESHOLD = 8;
+    
+    private final static Node[] NO_EDGE_NODES = new Node[0];
+    private final static double[] NO_EDGE_WEIGHTS = new double[0];
     
     /**
      * Public members.
@@ -38,8 +59,13 @@ public abstract class Node implements Comparable<Node> {
     protected double originalRank;
     protected double d_j; // Differential value used in RankUp (equations 3.25 and 3.27)
     protected double previous_d_j;
-    protected HashMap<Node, Double> edges = new HashMap<>();
-    protected final HashMap<Node, Double> previousEdges = new HashMap<>();
+    protected Node[] edgeNodes = NO_EDGE_NODES;
+    protected double[] edgeWeights = NO_EDGE_WEIGHTS;
+    protected double[] previousEdgeWeights = NO_EDGE_WEIGHTS; // NaN if never set
+    protected int edgeCount = 0;
+    private TObjectIntHashMap<Node> edgeIndex = null; // Edge index + 1, by identity
+    protected final Map<Node, Double> edges = new EdgeMap(false);
+    protected final Map<Node, Double> previousEdges = new EdgeMap(true);
 
     /**
      * Private constructor.
@@ -85,25 +111,110 @@ public abstract class Node implements Comparable<Node> {
         }
     }
 
-    public HashMap<Node, Double> getEdges() {
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    /**
+     * Get the edges of this node (adjacent node -> weight).
+     * The map is a view over the edge arrays.
+     * @return 
+     */
+    public Map<Node, Double> getEdges() {
         return edges;
     }
     
-    public HashMap<Node, Double> getPreviousEdges() {
+    /**
+     * Get the previous weights of the edges that have been set with
+     * setEdgeWeight (adjacent node -> previous weight).
+     * The map is a read-only view over the edge arrays.
+     * @return 
+     */
+    public Map<Node, Double> getPreviousEdges() {
         return previousEdges;
     }
     
+    /**
+     * Get the number of edges of this node.
+     * @return 
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+    
+    /**
+     * Get the node adjacent through an edge.
+     * @param edge: the edge index, in [0, getEdgeCount())
+     * @return 
+     */
+    public Node getEdgeNode(int edge) {
+        return edgeNodes[edge];
+    }
+    
+    /**
+     * Get the weight of an edge.
+     * @param edge: the edge index, in [0, getEdgeCount())
+     * @return 
+     */
+    public double getEdgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+    
+    /**
+     * Get the previous weight of an edge.
+     * @param edge: the edge index, in [0, getEdgeCount())
+     * @return the previous weight, or NaN if it has never been set
+     */
+    public double getPreviousEdgeWeight(int edge) {
+        return previousEdgeWeights[edge];
+    }
+    
+    /**
+     * Get the sum of the weights of all the edges of this node.
+     * @return 
+     */
+    public double getEdgeWeightSum() {
+        double sum = 0.0D;
+        for (int i = 0; i < edgeCount; i++) {
+            sum += edgeWeights[i];
+        }
+        return sum;
+    }
+    
+    /**
+     * Get the index of the edge to a node.
+     * @param edgeNode
+     * @return the edge index, or -1 if the nodes are not connected
+     */
+    public int indexOfEdge(Object edgeNode) {
+        if (edgeIndex != null) {
+            return edgeIndex.get((Node) edgeNode) - 1;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            if (edgeNodes[i] == edgeNode) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
     /**
      * Sets an edge's weight.
      * @param edgeNode
      * @param weight 
      */
     public void setEdgeWeight(Node edgeNode, double weight) {
+        int edge = indexOfEdge(edgeNode);
+        if (edge < 0) {
+            throw new IllegalArgumentException("No edge from " + key + " to " + 
+                    edgeNode.key);
+        }
+        
         // First, assign previous edge
-        double previousWeight = edges.get(edgeNode);
-        previousEdges.put(edgeNode, previousWeight);
+        previousEdgeWeights[edge] = edgeWeights[edge];
         
-        edges.put(edgeNode, weight);
+        edgeWeights[edge] = weight;
     }
     
     /**
@@ -112,8 +223,8 @@ public abstract class Node implements Comparable<Node> {
      * @param weight
      */
     public void connect(final Node that, Double weight) {
-        this.edges.put(that, weight);
-        that.edges.put(this, weight);
+        this.putEdge(that, weight);
+        that.putEdge(this, weight);
     }
 
     /**
@@ -122,8 +233,73 @@ public abstract class Node implements Comparable<Node> {
      * @param that
      */
     public void disconnect(final Node that) {
-        this.edges.remove(that);
-        that.edges.remove(this);
+        this.removeEdge(that);
+        that.removeEdge(this);
+    }
+    
+    /**
+     * Add an edge to a node, or replace its weight (its previous weight is
+     * kept).
+     * @param edgeNode
+     * @param weight
+     * @return the index of the edge
+     */
+    protected int putEdge(Node edgeNode, double weight) {
+        int edge = indexOfEdge(edgeNode);
+        if (edge >= 0) {
+            edgeWeights[edge] = weight;
+            return edge;
+        }
+        
+        if (edgeCount == edgeNodes.length) {
+            int capacity = Math.max(4, edgeCount * 2);
+            edgeNodes = Arrays.copyOf(edgeNodes, capacity);
+            edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+            previousEdgeWeights = Arrays.copyOf(previousEdgeWeights, capacity);
+        }
+        edge = edgeCount++;
+        edgeNodes[edge] = edgeNode;
+        edgeWeights[edge] = weight;
+        previousEdgeWeights[edge] = Double.NaN;
+        
+        if (edgeIndex != null) {
+            edgeIndex.put(edgeNode, edge + 1);
+        }
+        else if (edgeCount > EDGE_INDEX_THRESHOLD) {
+            edgeIndex = new TObjectIntHashMap<>(edgeCount * 2,
+                    new TObjectIdentityHashingStrategy<Node>());
+            for (int i = 0; i < edgeCount; i++) {
+                edgeIndex.put(edgeNodes[i], i + 1);
+            }
+        }
+        return edge;
+    }
+    
+    /**
+     * Remove the edge to a node. The last edge takes its place.
+     * @param edgeNode
+     * @return the weight of the removed edge, or NaN if there was no edge
+     */
+    protected double removeEdge(Object edgeNode) {
+        int edge = indexOfEdge(edgeNode);
+        if (edge < 0) {
+            return Double.NaN;
+        }
+        double weight = edgeWeights[edge];
+        
+        int last = --edgeCount;
+        if (edgeIndex != null) {
+            edgeIndex.remove((Node) edgeNode);
+            if (edge != last) {
+                edgeIndex.put(edgeNodes[last], edge + 1);
+            }
+        }
+        edgeNodes[edge] = edgeNodes[last];
+        edgeWeights[edge] = edgeWeights[last];
+        previousEdgeWeights[edge] = previousEdgeWeights[last];
+        edgeNodes[last] = null;
+        
+        return weight;
     }
 
     /**
@@ -132,16 +308,25 @@ public abstract class Node implements Comparable<Node> {
      * @return 
      */
     public String getId() {
-        return Integer.toString(hashCode(), 16);
+        return Integer.toString(System.identityHashCode(this), 16);
     }
     
     /**
-     * Rever the node values to their previous states
+     * Rever the node values to their previous states.
+     * Edges whose weight has never been set are dropped, as the previous
+     * edges only hold the edges set through setEdgeWeight.
      */
     public void revertNode() {
         rank = previousRank >= 0 ? previousRank : originalRank;
 //        d_j = previous_d_j;
-        edges = previousEdges;
+        for (int i = edgeCount - 1; i >= 0; i--) {
+            if (Double.isNaN(previousEdgeWeights[i])) {
+                removeEdge(edgeNodes[i]);
+            }
+            else {
+                edgeWeights[i] = previousEdgeWeights[i];
+            }
+        }
     }
     
     public String getText() {
@@ -207,8 +392,9 @@ public abstract class Node implements Comparable<Node> {
         this.previous_d_j = 0;
         
         // Reset edge weights
-        for (Node edgeNode : this.edges.keySet()) {
-            this.setEdgeWeight(edgeNode, DEFAULT_EDGE_WEIGHT);
+        for (int i = 0; i < edgeCount; i++) {
+            previousEdgeWeights[i] = edgeWeights[i];
+            edgeWeights[i] = DEFAULT_EDGE_WEIGHT;
         }
     }
 
@@ -270,4 +456,155 @@ public abstract class Node implements Comparable<Node> {
         return output;
     }
 
+    /**
+     * Map view over the edge arrays: the current weights, or the previous
+     * weights (read-only, only the edges whose previous weight was set).
+     */
+    private class EdgeMap extends AbstractMap<Node, Double> {
+        
+        private final boolean previous;
+        
+        EdgeMap(boolean previous) {
+            this.previous = previous;
+        }
+        
+        private double[] weights() {
+            return previous ? previousEdgeWeights : edgeWeights;
+        }
+        
+        private boolean contains(int edge) {
+            return edge >= 0 && !(previous && Double.isNaN(previousEdgeWeights[edge]));
+        }
+        
+        @Override
+        public int size() {
+            if (!previous) {
+                return edgeCount;
+            }
+            int size = 0;
+            for (int i = 0; i < edgeCount; i++) {
+                if (!Double.isNaN(previousEdgeWeights[i])) {
+                    size++;
+                }
+            }
+            return size;
+        }
+        
+        @Override
+        public boolean containsKey(Object edgeNode) {
+            return contains(indexOfEdge(edgeNode));
+        }
+        
+        @Override
+        public Double get(Object edgeNode) {
+            int edge = indexOfEdge(edgeNode);
+            return contains(edge) ? weights()[edge] : null;
+        }
+        
+        @Override
+        public Double put(Node edgeNode, Double weight) {
+            if (previous) {
+                throw new UnsupportedOperationException();
+            }
+            Double oldWeight = get(edgeNode);
+            putEdge(edgeNode, weight);
+            return oldWeight;
+        }
+        
+        @Override
+        public Double remove(Object edgeNode) {
+            if (previous) {
+                throw new UnsupportedOperationException();
+            }
+            double weight = removeEdge(edgeNode);
+            return Double.isNaN(weight) ? null : weight;
+        }
+        
+        @Override
+        public Set<Map.Entry<Node, Double>> entrySet() {
+            return new AbstractSet<Map.Entry<Node, Double>>() {
+                @Override
+                public Iterator<Map.Entry<Node, Double>> iterator() {
+                    return new EdgeIterator<Map.Entry<Node, Double>>() {
+                        @Override
+                        protected Map.Entry<Node, Double> get(final int edge) {
+                            return new AbstractMap.SimpleImmutableEntry<>(
+                                    edgeNodes[edge], weights()[edge]);
+                        }
+                    };
+                }
+                @Override
+                public int size() {
+                    return EdgeMap.this.size();
+                }
+            };
+        }
+        
+        @Override
+        public Set<Node> keySet() {
+            return new AbstractSet<Node>() {
+                @Override
+                public Iterator<Node> iterator() {
+                    return new EdgeIterator<Node>() {
+                        @Override
+                        protected Node get(int edge) {
+                            return edgeNodes[edge];
+                        }
+                    };
+                }
+                @Override
+                public int size() {
+                    return EdgeMap.this.size();
+                }
+                @Override
+                public boolean contains(Object edgeNode) {
+                    return containsKey(edgeNode);
+                }
+            };
+        }
+        
+        /**
+         * Iterates over the edges of the map. Removing an edge moves the
+         * last edge into its place, so the iterator visits it next.
+         */
+        private abstract class EdgeIterator<T> implements Iterator<T> {
+            
+            private int next = advance(0);
+            private int current = -1;
+            
+            private int advance(int edge) {
+                while (edge < edgeCount && !contains(edge)) {
+                    edge++;
+                }
+                return edge;
+            }
+            
+            protected abstract T get(int edge);
+            
+            @Override
+            public boolean hasNext() {
+                return next < edgeCount;
+            }
+            
+            @Override
+            public T next() {
+                if (next >= edgeCount) {
+                    throw new NoSuchElementException();
+                }
+                current = next;
+                next = advance(next + 1);
+                return get(current);
+            }
+            
+            @Override
+            public void remove() {
+                if (previous || current < 0) {
+                    throw new IllegalStateException();
+                }
+                removeEdge(edgeNodes[current]);
+                next = advance(current);
+                current = -1;
+            }
+        }
+    }
 }
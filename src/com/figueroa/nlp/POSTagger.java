@@ -2,12 +2,13 @@ package com.figueroa.nlp;
 
 import edu.mit.jwi.item.POS;
 import java.io.BufferedReader;
-import edu.stanford.nlp.ling.Sentence;
 import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.ling.HasOffset;
 import edu.stanford.nlp.ling.HasWord;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -30,6 +31,17 @@ public class POSTagger {
     private String separator;
     private HashMap<String, POS> posTags; // A mapping between Penn Treebank Tagset and Wordnet POS Tags
     
+    // Tag ids of TaggedTokens: the Penn Treebank tagset, then any other tag
+    // in the order the tagger outputs it
+    private final static String[] PENN_TREEBANK_TAGS = {
+        "CC", "CD", "DT", "EX", "FW", "IN", "JJ", "JJR", "JJS", "LS", "MD",
+        "NN", "NNS", "NNP", "NNPS", "PDT", "POS", "PRP", "PRP$", "RB", "RBR",
+        "RBS", "RP", "SYM", "TO", "UH", "VB", "VBD", "VBG", "VBN", "VBP",
+        "VBZ", "WDT", "WP", "WP$", "WRB", "#", "$", ".", ",", ":", "``", "''",
+        "-LRB-", "-RRB-"};
+    private final ConcurrentHashMap<String, Short> tagIds = new ConcurrentHashMap<>();
+    private volatile String[] tagNames = new String[0];
+    
     /**
      * Constructor for the POSTagger class. Initializes the class with the given
      * model file directory, configuration file directory and default separator
@@ -43,6 +55,9 @@ public class POSTagger {
         separator = sep;
 
         posTags = createPOSTags();
+        for (String tag : PENN_TREEBANK_TAGS) {
+            getTagId(tag);
+        }
 
         try {
             //DataInputStream is = new DataInputStream(new FileInputStream(configFile));
@@ -69,26 +84,89 @@ public class POSTagger {
      * @return the tagged text
      */
     public String tagText(String text) {
+        return tag(text).getTaggedText(separator);
+    }
+
+    /**
+     * POS-tags the given string into its tokens: the word, tag and offsets
+     * of each token, and the sentence boundaries.
+     * @param text
+     * @return the tagged tokens, whose offsets refer to the cleaned text
+     */
+    public TaggedTokens tag(String text) {
+
+        String cleanText = cleanText(text);
+        List<List<HasWord>> sentences = tokenizeText(cleanText);
+
+        int tokenCount = 0;
+        for (List<HasWord> sentence : sentences) {
+            tokenCount += sentence.size();
+        }
+
+        String[] words = new String[tokenCount];
+        short[] tokenTagIds = new short[tokenCount];
+        int[] beginPositions = new int[tokenCount];
+        int[] endPositions = new int[tokenCount];
+        int[] sentenceStarts = new int[sentences.size() + 1];
 
-        // Clean original text
+        int i = 0;
+        int s = 0;
+        for (List<HasWord> sentence : sentences) {
+            sentenceStarts[s++] = i;
+            ArrayList<TaggedWord> taggedSentence = tagSentence(sentence);
+            for (int j = 0; j < taggedSentence.size(); j++) {
+                TaggedWord taggedWord = taggedSentence.get(j);
+                words[i] = taggedWord.word();
+                tokenTagIds[i] = getTagId(taggedWord.tag());
+                if (sentence.get(j) instanceof HasOffset) {
+                    beginPositions[i] = ((HasOffset) sentence.get(j)).beginPosition();
+                    endPositions[i] = ((HasOffset) sentence.get(j)).endPosition();
+                }
+                else {
+                    beginPositions[i] = -1;
+                    endPositions[i] = -1;
+                }
+                i++;
+            }
+        }
+        sentenceStarts[s] = i;
+
+        return new TaggedTokens(cleanText, words, tokenTagIds,
+                beginPositions, endPositions, sentenceStarts, tagNames);
+    }
+
+    /**
+     * Cleans the given text before tagging: removes HTML tags, separators
+     * and double spaces.
+     * @param text
+     * @return the cleaned text
+     */
+    public String cleanText(String text) {
         text = text.replaceAll("\\<.*?>", "");     // Remove HTML tags
         text = text.replaceAll(separator, " ");   // Remove separators
         text = text.replaceAll("  ", " ");        // Remove double spaces
         text = text.trim();
 
-        List<List<HasWord>> sentences = MaxentTagger.tokenizeText(new BufferedReader(new StringReader(text)));
-
-        String taggedText = "";
-        for (List<HasWord> sentence : sentences) {
-            ArrayList<TaggedWord> tSentence = (ArrayList<TaggedWord>) tagger.tagSentence(sentence);
-            taggedText = taggedText.concat(Sentence.listToString(tSentence, false, separator) + " ");
-        }
+        return text;
+    }
 
-        // Clean processed text
-        taggedText = taggedText.replaceAll("  ", " ");  // Remove double spaces
-        taggedText = taggedText.trim();
+    /**
+     * Splits an already cleaned text into sentences of tokens. The tokens
+     * keep their offsets in the given text.
+     * @param cleanText
+     * @return the tokens of each sentence
+     */
+    public List<List<HasWord>> tokenizeText(String cleanText) {
+        return MaxentTagger.tokenizeText(new BufferedReader(new StringReader(cleanText)));
+    }
 
-        return taggedText;
+    /**
+     * POS-tags a single tokenized sentence.
+     * @param sentence
+     * @return the tagged words of the sentence
+     */
+    public ArrayList<TaggedWord> tagSentence(List<HasWord> sentence) {
+        return (ArrayList<TaggedWord>) tagger.tagSentence(sentence);
     }
 
     /**
@@ -125,6 +203,31 @@ public class POSTagger {
         return tag;
     }
 
+    /**
+     * Gets the id of a Penn Treebank tag in TaggedTokens. Tags outside the
+     * tagset get the next free id.
+     * @param tag
+     * @return the tag id
+     */
+    public short getTagId(String tag) {
+        Short tagId = tagIds.get(tag);
+        if (tagId != null) {
+            return tagId;
+        }
+
+        synchronized (tagIds) {
+            tagId = tagIds.get(tag);
+            if (tagId == null) {
+                String[] names = Arrays.copyOf(tagNames, tagNames.length + 1);
+                tagId = (short) tagNames.length;
+                names[tagId] = tag;
+                tagNames = names;
+                tagIds.put(tag, tagId);
+            }
+            return tagId;
+        }
+    }
+
     /**
      * Gets the default separator used in the tagger
      * @return
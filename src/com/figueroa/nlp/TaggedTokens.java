@@ -0,0 +1,135 @@
+package com.figueroa.nlp;
+
+/**
+ * The tokens of a text tagged by the POSTagger, in compact parallel arrays:
+ * the word, tag id and character offsets of each token, and the first token
+ * of each sentence. Consumers read the tokens directly instead of parsing a
+ * tagged text ("word_TAG word_TAG ..."), which is only rendered for display
+ * (see getTaggedText()).
+ */
+public class TaggedTokens {
+
+    private final String text;
+    private final String[] words;
+    private final short[] tagIds;
+    private final int[] beginPositions;
+    private final int[] endPositions;
+    private final int[] sentenceStarts; // Sentence s has the tokens [sentenceStarts[s], sentenceStarts[s + 1])
+    private final String[] tagNames;    // Tag id -> tag
+
+    /**
+     * Creates the tagged tokens of a text. Use POSTagger.tag() to tag a text.
+     * @param text: the (cleaned) text the offsets refer to
+     * @param words
+     * @param tagIds
+     * @param beginPositions: the offset of each token, or -1 if unknown
+     * @param endPositions
+     * @param sentenceStarts: the first token of each sentence, followed by
+     * the number of tokens
+     * @param tagNames: the tag of each tag id
+     */
+    TaggedTokens(String text, String[] words, short[] tagIds,
+            int[] beginPositions, int[] endPositions, int[] sentenceStarts,
+            String[] tagNames) {
+        this.text = text;
+        this.words = words;
+        this.tagIds = tagIds;
+        this.beginPositions = beginPositions;
+        this.endPositions = endPositions;
+        this.sentenceStarts = sentenceStarts;
+        this.tagNames = tagNames;
+    }
+
+    /**
+     * Get the text the token offsets refer to.
+     * @return
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Get the number of tokens.
+     * @return
+     */
+    public int size() {
+        return words.length;
+    }
+
+    public int getSentenceCount() {
+        return sentenceStarts.length - 1;
+    }
+
+    /**
+     * Get the first token of a sentence.
+     * @param sentence
+     * @return
+     */
+    public int getSentenceStart(int sentence) {
+        return sentenceStarts[sentence];
+    }
+
+    /**
+     * Get the token after the last token of a sentence.
+     * @param sentence
+     * @return
+     */
+    public int getSentenceEnd(int sentence) {
+        return sentenceStarts[sentence + 1];
+    }
+
+    public String getWord(int token) {
+        return words[token];
+    }
+
+    /**
+     * Get the Penn Treebank tag of a token.
+     * @param token
+     * @return
+     */
+    public String getTag(int token) {
+        return tagNames[tagIds[token]];
+    }
+
+    /**
+     * Get the tag id of a token (see POSTagger.getTagId()).
+     * @param token
+     * @return
+     */
+    public int getTagId(int token) {
+        return tagIds[token];
+    }
+
+    public int getBeginPosition(int token) {
+        return beginPositions[token];
+    }
+
+    public int getEndPosition(int token) {
+        return endPositions[token];
+    }
+
+    /**
+     * Render the tagged text, term by term, in the format of
+     * POSTagger.tagText().
+     * @param separator: the separator between a term and its POS tag
+     * @return the tagged text
+     */
+    public String getTaggedText(String separator) {
+
+        StringBuilder taggedText = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                taggedText.append(' ');
+            }
+            taggedText.append(words[i]).append(separator).append(getTag(i));
+        }
+
+        // Tokens may contain spaces
+        return taggedText.toString().replaceAll("  ", " ").trim();
+    }
+
+    @Override
+    public String toString() {
+        return getTaggedText("/");
+    }
+}
@@ -0,0 +1,672 @@
+package com.figueroa.nlp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Read-only, memory-mapped WordNet lexicon compiled by WordNetImageCompiler:
+ * the lemma index, the morphological exception lists, and the synsets with
+ * their words and pointers, for each part of speech.
+ * Nothing is parsed when the image is loaded; lookups binary search the
+ * mapped file, so the lexicon is shared through the OS page cache by all the
+ * processes that map it. The image is immutable and safe to share between
+ * threads (only absolute reads are used on the buffer).
+ * Parts of speech are given by their WordNet tags ('n', 'v', 'a', 'r'),
+ * which are also the JWNL keys and the JWI tags.
+ * Base forms are found with the same rules as the JWNL morphological
+ * processor used by TextRank (lookupBaseForm) and as the JWI WordnetStemmer
+ * used by the Lemmatizer (findStems).
+ *
+ * Image layout (big-endian): magic, version, then for each part of speech the
+ * count and table position of its lemmas, exceptions and synsets. Tables hold
+ * the positions of the records, sorted by lemma, inflected form and synset
+ * offset (followed by the offsets themselves for synsets). Records:
+ * lemma (string, sense count, synset offsets), exception (string, base form
+ * count, strings), synset (word count, strings, pointer count, pointers of
+ * symbol id, target offset, target part of speech and source/target).
+ * Strings are a short length followed by UTF-8 bytes.
+ */
+public class WordNetImage {
+
+    private static final Logger logger = Logger.getLogger(WordNetImage.class);
+
+    public final static int MAGIC = 0x574E494D; // "WNIM"
+    public final static int VERSION = 1;
+
+    // WordNet tags of the parts of speech, in image order
+    public final static char[] POS_TAGS = {'n', 'v', 'a', 'r'};
+
+    // Pointer symbols, indexed by the symbol ids of the image
+    final static String[] POINTER_SYMBOLS = {
+        "!", "@", "@i", "~", "~i", "#m", "#s", "#p", "%m", "%s", "%p", "=", "+",
+        ";c", "-c", ";r", "-r", ";u", "-u", "*", ">", "^", "$", "&", "<", "\\"
+    };
+    public final static String HYPERNYM = "@";
+    public final static String HYPONYM = "~";
+
+    // Suffix rules, the same in the JWNL morphological processor
+    // (wn_file_props.xml) and in the JWI SimpleStemmer
+    private final static String[][][] SUFFIXES = {
+        {{"s", ""}, {"ses", "s"}, {"xes", "x"}, {"zes", "z"}, {"ches", "ch"},
+            {"shes", "sh"}, {"men", "man"}, {"ies", "y"}},
+        {{"s", ""}, {"ies", "y"}, {"es", "e"}, {"es", ""}, {"ed", "e"}, {"ed", ""},
+            {"ing", "e"}, {"ing", ""}},
+        {{"er", ""}, {"est", ""}, {"er", "e"}, {"est", "e"}},
+        {}
+    };
+    private final static String[] JWNL_DELIMITERS = {" ", "-"};
+
+    private final ByteBuffer buffer;
+    private final int[] lemmaCounts = new int[POS_TAGS.length];
+    private final int[] lemmaTables = new int[POS_TAGS.length];
+    private final int[] exceptionCounts = new int[POS_TAGS.length];
+    private final int[] exceptionTables = new int[POS_TAGS.length];
+    private final int[] synsetCounts = new int[POS_TAGS.length];
+    private final int[] synsetTables = new int[POS_TAGS.length];
+
+    private WordNetImage(ByteBuffer buffer) throws Exception {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < 8 || buffer.getInt(0) != MAGIC) {
+            throw new Exception("Exception in WordNetImage: not a WordNet image");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new Exception("Exception in WordNetImage: unsupported version " +
+                    buffer.getInt(4));
+        }
+
+        int position = 8;
+        for (int p = 0; p < POS_TAGS.length; p++) {
+            lemmaCounts[p] = buffer.getInt(position);
+            lemmaTables[p] = buffer.getInt(position + 4);
+            exceptionCounts[p] = buffer.getInt(position + 8);
+            exceptionTables[p] = buffer.getInt(position + 12);
+            synsetCounts[p] = buffer.getInt(position + 16);
+            synsetTables[p] = buffer.getInt(position + 20);
+            position += 24;
+        }
+    }
+
+    /**
+     * Map an image file.
+     * @param path
+     * @return the image
+     * @throws Exception
+     */
+    public static WordNetImage load(String path) throws Exception {
+        long startTime = System.currentTimeMillis();
+
+        try (RandomAccessFile file = new RandomAccessFile(new File(path), "r")) {
+            FileChannel channel = file.getChannel();
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            WordNetImage image = new WordNetImage(buffer);
+
+            logger.info("WordNet image " + path + " mapped (" + channel.size() +
+                    " bytes) in " + (System.currentTimeMillis() - startTime) + " ms");
+            return image;
+        }
+        catch (IOException e) {
+            throw new Exception("Exception in WordNetImage: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the image index of a part of speech ('s', adjective satellite, is
+     * an adjective).
+     * @param tag
+     * @return
+     */
+    static int getPosIndex(char tag) {
+        switch (tag) {
+            case 'n':
+                return 0;
+            case 'v':
+                return 1;
+            case 'a':
+            case 's':
+                return 2;
+            case 'r':
+                return 3;
+            default:
+                throw new IllegalArgumentException("Unknown part of speech: " + tag);
+        }
+    }
+
+    /**
+     * Get the image id of a pointer symbol.
+     * @param symbol
+     * @return
+     */
+    static int getPointerSymbolId(String symbol) {
+        for (int i = 0; i < POINTER_SYMBOLS.length; i++) {
+            if (POINTER_SYMBOLS[i].equals(symbol)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pointer symbol: " + symbol);
+    }
+
+    /**
+     * Get the number of lemmas of a part of speech.
+     * @param pos
+     * @return
+     */
+    public int getLemmaCount(char pos) {
+        return lemmaCounts[getPosIndex(pos)];
+    }
+
+    /**
+     * Whether a lemma is in the index.
+     * @param pos
+     * @param lemma
+     * @return
+     */
+    public boolean containsLemma(char pos, String lemma) {
+        int p = getPosIndex(pos);
+        return find(lemmaTables[p], lemmaCounts[p], normalize(lemma)) >= 0;
+    }
+
+    /**
+     * Get the senses of a lemma.
+     * @param pos
+     * @param lemma
+     * @return the synset offsets of the senses, in WordNet order, or null if
+     * the lemma is not in the index
+     */
+    public long[] getSenses(char pos, String lemma) {
+        int p = getPosIndex(pos);
+        int record = find(lemmaTables[p], lemmaCounts[p], normalize(lemma));
+        if (record < 0) {
+            return null;
+        }
+
+        int position = skipString(record);
+        long[] senses = new long[buffer.getShort(position) & 0xFFFF];
+        position += 2;
+        for (int i = 0; i < senses.length; i++) {
+            senses[i] = buffer.getInt(position);
+            position += 4;
+        }
+        return senses;
+    }
+
+    /**
+     * Get the base forms of an irregular inflected form.
+     * @param pos
+     * @param form
+     * @return the base forms, or null if the form has no exception entry
+     */
+    public String[] getExceptions(char pos, String form) {
+        int p = getPosIndex(pos);
+        int record = find(exceptionTables[p], exceptionCounts[p], normalize(form));
+        if (record < 0) {
+            return null;
+        }
+
+        int position = skipString(record);
+        String[] baseForms = new String[buffer.get(position) & 0xFF];
+        position++;
+        for (int i = 0; i < baseForms.length; i++) {
+            baseForms[i] = readString(position);
+            position = skipString(position);
+        }
+        return baseForms;
+    }
+
+    /**
+     * Get the words of a synset.
+     * @param pos
+     * @param offset
+     * @return the words, or null if there is no synset at the offset
+     */
+    public String[] getWords(char pos, long offset) {
+        int record = findSynset(getPosIndex(pos), offset);
+        if (record < 0) {
+            return null;
+        }
+
+        String[] words = new String[buffer.get(record) & 0xFF];
+        int position = record + 1;
+        for (int i = 0; i < words.length; i++) {
+            words[i] = readString(position);
+            position = skipString(position);
+        }
+        return words;
+    }
+
+    /**
+     * Get the targets of the pointers of a synset with the given symbol
+     * (e.g. HYPERNYM). The targets of hypernym and hyponym pointers have the
+     * part of speech of the synset.
+     * @param pos
+     * @param offset
+     * @param symbol
+     * @return the target synset offsets, in WordNet order
+     */
+    public long[] getPointerTargets(char pos, long offset, String symbol) {
+        int record = findSynset(getPosIndex(pos), offset);
+        if (record < 0) {
+            return new long[0];
+        }
+
+        int symbolId = getPointerSymbolId(symbol);
+        int position = record + 1;
+        for (int i = buffer.get(record) & 0xFF; i > 0; i--) {
+            position = skipString(position);
+        }
+
+        int pointerCount = buffer.getShort(position) & 0xFFFF;
+        position += 2;
+        long[] targets = new long[pointerCount];
+        int count = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            if (buffer.get(position) == symbolId) {
+                targets[count++] = buffer.getInt(position + 1);
+            }
+            position += 8;
+        }
+        return Arrays.copyOf(targets, count);
+    }
+
+    /**
+     * Create a description text for a synset.
+     * @param pos
+     * @param offset
+     * @return
+     */
+    public String getDescription(char pos, long offset) {
+        String[] words = getWords(pos, offset);
+        if (words == null) {
+            return Long.toString(offset);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[Synset: [Offset: ").append(offset).append("] [POS: ").append(pos);
+        sb.append("] Words: ");
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(words[i]);
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Lookup the first base form of a word in the index, with the operations
+     * of the JWNL DefaultMorphologicalProcessor configured for TextRank:
+     * exceptions, then suffix detachment, then the tokenization of
+     * collocations.
+     * @param pos
+     * @param derivation
+     * @return the lemma, or null if none is found
+     */
+    public String lookupBaseForm(char pos, String derivation) {
+        // Only the lookups are case insensitive, as in JWNL; the tokens of
+        // a collocation are split at upper case letters too
+        String word = derivation;
+        if (word.isEmpty()) {
+            return null;
+        }
+        int p = getPosIndex(pos);
+
+        Set<String> forms = new LinkedHashSet<>();
+        if (!addExceptions(pos, word, forms) &&
+                !detachSuffixes(pos, p, word, forms) &&
+                !tokenize(pos, p, word, forms)) {
+            return null;
+        }
+
+        // The first form of the first successful operation
+        String lemma = forms.iterator().next();
+        return containsLemma(pos, lemma) ? normalize(lemma) : null;
+    }
+
+    private boolean addExceptions(char pos, String word, Set<String> forms) {
+        String[] baseForms = getExceptions(pos, word);
+        if (baseForms == null) {
+            return false;
+        }
+        Collections.addAll(forms, baseForms);
+        return true;
+    }
+
+    private boolean addLemma(char pos, String word, Set<String> forms) {
+        if (containsLemma(pos, word)) {
+            forms.add(word);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean detachSuffixes(char pos, int p, String word, Set<String> forms) {
+        boolean added = false;
+        for (String[] rule : SUFFIXES[p]) {
+            if (word.endsWith(rule[0])) {
+                String stem = word.substring(0, word.length() - rule[0].length()) + rule[1];
+                added |= addLemma(pos, stem, forms);
+                added |= addExceptions(pos, stem, forms);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * JWNL TokenizerOperation: split the word into tokens of letters and
+     * apostrophes, find the base forms of each token, and look up every
+     * combination of base forms over every span of tokens, joined with
+     * each delimiter or with nothing.
+     */
+    private boolean tokenize(char pos, int p, String word, Set<String> forms) {
+        List<String> tokens = splitTokens(word);
+        List<List<String>> tokenForms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Set<String> baseForms = new LinkedHashSet<>();
+            baseForms.add(token);
+            addLemma(pos, token, baseForms);
+            addExceptions(pos, token, baseForms);
+            detachSuffixes(pos, p, token, baseForms);
+            tokenForms.add(new ArrayList<>(baseForms));
+        }
+
+        boolean found = false;
+        for (int i = 0; i < tokenForms.size(); i++) {
+            for (int j = tokenForms.size() - 1; j >= i; j--) {
+                found |= tryAllCombinations(pos, tokenForms, i, j, forms);
+            }
+        }
+        return found;
+    }
+
+    private boolean tryAllCombinations(char pos, List<List<String>> tokenForms,
+            int start, int end, Set<String> forms) {
+
+        int length = end - start + 1;
+        int[] indexes = new int[length];
+        String[] words = new String[length];
+        boolean found = false;
+
+        while (true) {
+            for (int k = 0; k < length; k++) {
+                words[k] = tokenForms.get(start + k).get(indexes[k]);
+            }
+            for (String delimiter : JWNL_DELIMITERS) {
+                // A set bit joins two words without the delimiter
+                BitSet joined = new BitSet();
+                do {
+                    StringBuilder lemma = new StringBuilder();
+                    for (int k = 0; k < length; k++) {
+                        if (k > 0 && !joined.get(k - 1)) {
+                            lemma.append(delimiter);
+                        }
+                        lemma.append(words[k]);
+                    }
+                    found |= addLemma(pos, lemma.toString(), forms);
+                } while (increment(joined, length - 1));
+            }
+
+            // Next combination of base forms
+            int k = length - 1;
+            while (k >= 0 && indexes[k] == tokenForms.get(start + k).size() - 1) {
+                indexes[k] = 0;
+                k--;
+            }
+            if (k < 0) {
+                return found;
+            }
+            indexes[k]++;
+        }
+    }
+
+    private static boolean increment(BitSet bits, int size) {
+        int i = size - 1;
+        while (i >= 0 && bits.get(i)) {
+            bits.clear(i);
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        bits.set(i);
+        return true;
+    }
+
+    private static List<String> splitTokens(String word) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if ((c >= 'a' && c <= 'z') || c == '\'') {
+                token.append(c);
+            }
+            else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the stems of a word, with the rules of the JWI WordnetStemmer:
+     * the word itself if it is in the index, plus either its exception base
+     * forms or the suffix rule candidates that are in the index. If none of
+     * them is in the index, all the candidates.
+     * @param word
+     * @param pos
+     * @return the stems, sorted
+     */
+    public List<String> findStems(String word, char pos) {
+        word = normalizeStemmerInput(word);
+        int p = getPosIndex(pos);
+
+        SortedSet<String> stems = new TreeSet<>();
+        String[] baseForms = getExceptions(pos, word);
+        if (baseForms != null) {
+            Collections.addAll(stems, baseForms);
+        }
+        if (containsLemma(pos, word)) {
+            stems.add(word);
+        }
+        if (baseForms != null) {
+            return new ArrayList<>(stems);
+        }
+
+        List<String> candidates = getStemCandidates(word, pos, p);
+        for (String candidate : candidates) {
+            if (containsLemma(pos, candidate)) {
+                stems.add(candidate);
+            }
+        }
+        if (stems.isEmpty()) {
+            return candidates;
+        }
+        return new ArrayList<>(stems);
+    }
+
+    private static String normalizeStemmerInput(String word) {
+        word = word.trim();
+        if (word.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        return word.replaceAll("\\s+", "_").toLowerCase();
+    }
+
+    /**
+     * JWI SimpleStemmer: the sorted suffix rule candidates of a word. The
+     * parts of a noun or verb collocation are stemmed with findStems, all of
+     * them for nouns and one at a time for verbs.
+     */
+    private List<String> getStemCandidates(String word, char pos, int p) {
+        if (p == 3) {
+            return Collections.emptyList();
+        }
+        if (p != 2 && word.contains("_")) {
+            return getCollocationCandidates(word, pos, p);
+        }
+        return stripSuffixes(word, p);
+    }
+
+    private static List<String> stripSuffixes(String word, int p) {
+        // Nouns ending in "ful" are stemmed without it, e.g. boxesful
+        boolean ful = p == 0 && word.endsWith("ful");
+        String base = ful ? word.substring(0, word.length() - 3) : word;
+
+        SortedSet<String> candidates = new TreeSet<>();
+        for (String[] rule : SUFFIXES[p]) {
+            if (base.endsWith(rule[0])) {
+                String candidate = base.substring(0, base.length() - rule[0].length()) + rule[1];
+                candidates.add(ful ? candidate + "ful" : candidate);
+            }
+        }
+        candidates.remove("");
+        return new ArrayList<>(candidates);
+    }
+
+    private List<String> getCollocationCandidates(String word, char pos, int p) {
+        String[] parts = word.split("_");
+        if (parts.length < 2) {
+            return Collections.emptyList();
+        }
+
+        SortedSet<String> candidates = new TreeSet<>();
+        if (p == 0) {
+            // Every combination of the stems of each part; parts after the
+            // first one are kept when they have no stems
+            List<String> prefixes = findStems(parts[0], pos);
+            for (int i = 1; i < parts.length; i++) {
+                List<String> stems = findStems(parts[i], pos);
+                if (stems.isEmpty()) {
+                    stems = Collections.singletonList(parts[i]);
+                }
+                List<String> next = new ArrayList<>(prefixes.size() * stems.size());
+                for (String prefix : prefixes) {
+                    for (String stem : stems) {
+                        next.add(prefix + "_" + stem);
+                    }
+                }
+                prefixes = next;
+            }
+            for (String candidate : prefixes) {
+                if (!candidate.trim().isEmpty()) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        else {
+            // The stems of each part, with the other parts unchanged
+            for (int i = 0; i < parts.length; i++) {
+                for (String stem : findStems(parts[i], pos)) {
+                    StringBuilder candidate = new StringBuilder();
+                    for (int j = 0; j < parts.length; j++) {
+                        if (j > 0) {
+                            candidate.append('_');
+                        }
+                        candidate.append(j == i ? stem : parts[j]);
+                    }
+                    candidates.add(candidate.toString());
+                }
+            }
+            candidates.remove("");
+        }
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Normalize a lemma as in the index (lower case, '_' for spaces).
+     */
+    private static String normalize(String lemma) {
+        return lemma.trim().toLowerCase().replace(' ', '_');
+    }
+
+    /**
+     * Binary search a table of records by their leading string.
+     * @return the position of the record, or -1
+     */
+    private int find(int table, int count, String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int record = buffer.getInt(table + 4 * middle);
+            int comparison = compare(record, bytes);
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private int findSynset(int p, long offset) {
+        int table = synsetTables[p];
+        int count = synsetCounts[p];
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getInt(table + 4 * middle);
+            if (value < offset) {
+                low = middle + 1;
+            }
+            else if (value > offset) {
+                high = middle - 1;
+            }
+            else {
+                return buffer.getInt(table + 4 * (count + middle));
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int position, byte[] key) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int a = buffer.get(position + 2 + i) & 0xFF;
+            int b = key[i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length;
+    }
+
+    private String readString(int position) {
+        byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(position + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int position) {
+        return position + 2 + (buffer.getShort(position) & 0xFFFF);
+    }
+}
@@ -0,0 +1,268 @@
+package com.figueroa.nlp;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Build-time tool that compiles a WordNet database directory (the Princeton
+ * index.*, data.* and *.exc files) into a single binary image, read by
+ * WordNetImage. Glosses, verb frames and sense counts are not kept.
+ * The build runs it on resources/WordNet-3.0/dict after compiling the classes
+ * (see pom.xml), so the image is packaged next to the dictionary.
+ * Usage: WordNetImageCompiler dict_dir image_file
+ */
+public class WordNetImageCompiler {
+
+    // File suffixes of each part of speech, in WordNetImage.POS_TAGS order
+    private final static String[] FILE_SUFFIXES = {"noun", "verb", "adj", "adv"};
+
+    /**
+     * Compile the WordNet database in args[0] into the image file args[1].
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: WordNetImageCompiler dict_dir image_file");
+            System.exit(1);
+        }
+
+        long startTime = System.currentTimeMillis();
+        int size = compile(new File(args[0]), new File(args[1]));
+        System.out.println("WordNet image " + args[1] + " written (" + size + " bytes) in " +
+                (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Compile a WordNet database directory into an image file.
+     * Parts of speech whose files are missing are left empty.
+     * @param dictDir
+     * @param imageFile
+     * @return the size of the image in bytes
+     * @throws Exception
+     */
+    public static int compile(File dictDir, File imageFile) throws Exception {
+
+        try {
+            int posCount = WordNetImage.POS_TAGS.length;
+            List<Map<String, long[]>> lemmas = new ArrayList<>(posCount);
+            List<Map<String, String[]>> exceptions = new ArrayList<>(posCount);
+            List<Map<Long, byte[]>> synsets = new ArrayList<>(posCount);
+
+            for (int p = 0; p < posCount; p++) {
+                lemmas.add(readIndex(new File(dictDir, "index." + FILE_SUFFIXES[p])));
+                exceptions.add(readExceptions(new File(dictDir, FILE_SUFFIXES[p] + ".exc")));
+                synsets.add(readData(new File(dictDir, "data." + FILE_SUFFIXES[p])));
+            }
+
+            // Records, then the tables of record positions
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int headerSize = 8 + posCount * 6 * 4;
+            out.write(new byte[headerSize]);
+
+            int[][] header = new int[posCount][6];
+            for (int p = 0; p < posCount; p++) {
+                int[] lemmaPositions = new int[lemmas.get(p).size()];
+                int i = 0;
+                for (Map.Entry<String, long[]> lemma : lemmas.get(p).entrySet()) {
+                    lemmaPositions[i++] = out.size();
+                    writeString(out, lemma.getKey());
+                    out.writeShort(lemma.getValue().length);
+                    for (long offset : lemma.getValue()) {
+                        out.writeInt((int) offset);
+                    }
+                }
+
+                int[] exceptionPositions = new int[exceptions.get(p).size()];
+                i = 0;
+                for (Map.Entry<String, String[]> exception : exceptions.get(p).entrySet()) {
+                    exceptionPositions[i++] = out.size();
+                    writeString(out, exception.getKey());
+                    out.writeByte(exception.getValue().length);
+                    for (String baseForm : exception.getValue()) {
+                        writeString(out, baseForm);
+                    }
+                }
+
+                int[] synsetOffsets = new int[synsets.get(p).size()];
+                int[] synsetPositions = new int[synsetOffsets.length];
+                i = 0;
+                for (Map.Entry<Long, byte[]> synset : synsets.get(p).entrySet()) {
+                    synsetOffsets[i] = synset.getKey().intValue();
+                    synsetPositions[i++] = out.size();
+                    out.write(synset.getValue());
+                }
+
+                header[p][0] = lemmaPositions.length;
+                header[p][1] = writeTable(out, lemmaPositions);
+                header[p][2] = exceptionPositions.length;
+                header[p][3] = writeTable(out, exceptionPositions);
+                header[p][4] = synsetOffsets.length;
+                header[p][5] = writeTable(out, synsetOffsets);
+                writeTable(out, synsetPositions);
+            }
+            out.flush();
+
+            byte[] image = bytes.toByteArray();
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(headerSize);
+            DataOutputStream headerOut = new DataOutputStream(headerBytes);
+            headerOut.writeInt(WordNetImage.MAGIC);
+            headerOut.writeInt(WordNetImage.VERSION);
+            for (int p = 0; p < posCount; p++) {
+                for (int value : header[p]) {
+                    headerOut.writeInt(value);
+                }
+            }
+            System.arraycopy(headerBytes.toByteArray(), 0, image, 0, headerSize);
+
+            File imageDir = imageFile.getAbsoluteFile().getParentFile();
+            if (imageDir != null && !imageDir.exists() && !imageDir.mkdirs()) {
+                throw new IOException("can't create " + imageDir);
+            }
+            try (OutputStream file = new BufferedOutputStream(new FileOutputStream(imageFile))) {
+                file.write(image);
+            }
+            return image.length;
+        }
+        catch (IOException e) {
+            throw new Exception("Exception in WordNetImageCompiler: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read an index file: lemma -> synset offsets, in sense order.
+     */
+    private static Map<String, long[]> readIndex(File file) throws IOException {
+        // Sorted as in the binary search of WordNetImage (lemmas are ASCII)
+        Map<String, long[]> lemmas = new TreeMap<>();
+        if (!file.exists()) {
+            return lemmas;
+        }
+
+        for (String line : readLines(file)) {
+            // lemma pos synset_cnt p_cnt [ptr_symbol...] sense_cnt tagsense_cnt synset_offset...
+            String[] fields = line.split(" ");
+            int synsetCount = Integer.parseInt(fields[2]);
+            int pointerCount = Integer.parseInt(fields[3]);
+            int first = 4 + pointerCount + 2;
+
+            long[] offsets = new long[synsetCount];
+            for (int i = 0; i < synsetCount; i++) {
+                offsets[i] = Long.parseLong(fields[first + i]);
+            }
+            lemmas.put(fields[0], offsets);
+        }
+        return lemmas;
+    }
+
+    /**
+     * Read an exception list: inflected form -> base forms.
+     */
+    private static Map<String, String[]> readExceptions(File file) throws IOException {
+        Map<String, String[]> exceptions = new TreeMap<>();
+        if (!file.exists()) {
+            return exceptions;
+        }
+
+        for (String line : readLines(file)) {
+            String[] fields = line.split(" ");
+            exceptions.put(fields[0], Arrays.copyOfRange(fields, 1, fields.length));
+        }
+        return exceptions;
+    }
+
+    /**
+     * Read a data file: synset offset -> synset record (words and pointers).
+     */
+    private static Map<Long, byte[]> readData(File file) throws IOException {
+        Map<Long, byte[]> synsets = new TreeMap<>();
+        if (!file.exists()) {
+            return synsets;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+
+        for (String line : readLines(file)) {
+            // offset lex_filenum ss_type w_cnt [word lex_id...] p_cnt [ptr...] ... | gloss
+            String[] fields = line.split(" ");
+            long offset = Long.parseLong(fields[0]);
+            int wordCount = Integer.parseInt(fields[3], 16);
+
+            bytes.reset();
+            record.writeByte(wordCount);
+            int f = 4;
+            for (int i = 0; i < wordCount; i++) {
+                String word = fields[f];
+                // Adjective markers, e.g. galore(ip)
+                int marker = word.indexOf('(');
+                if (marker > 0 && word.endsWith(")")) {
+                    word = word.substring(0, marker);
+                }
+                writeString(record, word);
+                f += 2;
+            }
+
+            int pointerCount = Integer.parseInt(fields[f++]);
+            record.writeShort(pointerCount);
+            for (int i = 0; i < pointerCount; i++) {
+                // pointer_symbol synset_offset pos source/target
+                record.writeByte(WordNetImage.getPointerSymbolId(fields[f]));
+                record.writeInt(Integer.parseInt(fields[f + 1]));
+                record.writeByte(WordNetImage.getPosIndex(fields[f + 2].charAt(0)));
+                record.writeShort(Integer.parseInt(fields[f + 3], 16));
+                f += 4;
+            }
+            record.flush();
+            synsets.put(offset, bytes.toByteArray());
+        }
+        return synsets;
+    }
+
+    /**
+     * Read the lines of a WordNet file, skipping the license header (the
+     * lines starting with a space).
+     */
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && line.charAt(0) != ' ') {
+                    lines.add(line.trim());
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int writeTable(DataOutputStream out, int[] table) throws IOException {
+        int position = out.size();
+        for (int value : table) {
+            out.writeInt(value);
+        }
+        return position;
+    }
+}
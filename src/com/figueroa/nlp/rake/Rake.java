@@ -2,25 +2,24 @@ package com.figueroa.nlp.rake;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.math.util.MathUtils;
 import org.apache.log4j.Logger;
-import org.python.core.Py;
-import org.python.core.PyDictionary;
-import org.python.core.PyList;
-import org.python.core.PyString;
-import org.python.core.PySystemState;
-import org.python.core.PyTuple;
-import org.python.util.PythonInterpreter;
 
 import com.figueroa.nlp.Node;
 import com.figueroa.nlp.rake.RakeNode.RakeNodeType;
 import com.figueroa.util.Abstract;
 
 /**
- * A wrapper class for the RAKE implementation in Python
+ * A wrapper class for the RAKE implementation (RakeExtractor) that keeps the
+ * RAKE graph used by RankUp.
+ * An instance holds the graph and scores of one text, so it must not be
+ * shared between concurrent requests (see newInstance()).
  * 
  * @author Gerardo Figueroa
  * Institute of Information Systems and Applications
@@ -32,164 +31,104 @@ public class Rake {
     
 	private static final Logger logger = Logger.getLogger(Rake.class);
 	
-    public final static String JYTHON_ROOT_PATH = "/home/gfigueroa/jython2.5.3/Lib";
     public final static String RAKE_DIR = "rake";
     public final static String RAKE_STOPWORDS_PATH = RAKE_DIR + 
     		File.separator + "SmartStoplist.txt";
     
-    public final PythonInterpreter pythonInterpreter;
+    private final RakeExtractor extractor;
     public HashMap<String, RakeNode> rakeFullGraph = null;
     public HashMap<String, Double> currentKeyphrases = null;
     public HashMap<String, Double> currentWords = null;
     
-    public Rake(String resourcesPath) {
-        pythonInterpreter = initPython(resourcesPath);
-        initRake(resourcesPath);
+    // RAKE graph nodes indexed by extractor word and phrase ids
+    private RakeNode[] wordNodeIndex = new RakeNode[0];
+    private RakeNode[] keywordNodeIndex = new RakeNode[0];
+    // The graph whose original state is saved in the extractor
+    private HashMap<String, RakeNode> savedGraph = null;
+    // Whether currentKeyphrases and currentWords are still the maps of the
+    // original state (shared with the Abstract)
+    private boolean scoreMapsShared = true;
+    
+    public Rake(String resourcesPath) throws Exception {
+        logger.debug("Initializing RAKE...");
+        extractor = new RakeExtractor(resourcesPath + File.separator + RAKE_STOPWORDS_PATH);
     }
     
-    /**
-     * Loads main components required by the Jython interpreter (for RAKE)
-     * @return an instance of the PythonInterpreter already initialized
-     */
-    private PythonInterpreter initPython(String resourcesPath) {
-        logger.debug("Initializing Jython...");
-        PythonInterpreter interp = new PythonInterpreter(null, new PySystemState());
-        PySystemState sys = Py.getSystemState();
-        //sys.path.append(new PyString(JYTHON_ROOT_PATH));
-        sys.path.append(new PyString(resourcesPath + File.separator + RAKE_DIR));
-        interp.exec("import sys");
-        interp.exec("import rake");
-        
-        return interp;
+    private Rake(RakeExtractor extractor) {
+        this.extractor = extractor;
     }
     
-    private void initRake(String resourcesPath) {
-    	String rakeStopwordsPath = resourcesPath + File.separator + RAKE_STOPWORDS_PATH;
-    	rakeStopwordsPath = rakeStopwordsPath.replaceAll("\\\\", "\\\\\\\\");
-    	pythonInterpreter.exec("extractor = rake.Rake('" + rakeStopwordsPath + "')");
-//        pythonInterpreter.exec("extractor = rake.Rake('" + resourcesPath + File.separator +
-//        		RAKE_STOPWORDS_PATH + "')");
+    /**
+     * Creates a new RAKE instance with its own graph and scoring state, 
+     * sharing the stop words of this one
+     * @return a new Rake instance
+     */
+    public Rake newInstance() {
+        return new Rake(new RakeExtractor(extractor));
     }
     
     /**
-     * Set this class's and Jython's instance back to the original state
+     * Set this class's and the extractor's instance back to the original state
      * @param abs: the abstract containing the original state's variables
+     * @throws java.lang.Exception
      */
-    public void setRakeToOriginalState(Abstract abs) {
+    public void setRakeToOriginalState(Abstract abs) throws Exception {
         // First, set this class's fields
         rakeFullGraph = abs.getRakeFullGraph();
         currentKeyphrases = abs.getCurrentRakeKeyphrases();
         currentWords = abs.getCurrentRakeWords();
+        scoreMapsShared = true;
         
-        // Then, set phrase list in Jython
-        pythonInterpreter.exec("phrase_list = []");
-        for (String keyphrase : currentKeyphrases.keySet()){
-            pythonInterpreter.exec("phrase_list.append(\"" + keyphrase + "\")");
+        // If the extractor still holds this graph, just restore its saved state
+        if (rakeFullGraph == savedGraph) {
+            extractor.restoreState();
+            return;
         }
-        pythonInterpreter.exec("extractor.phrase_list = phrase_list");
         
-        // Then, set co-occurrence graph in Jython
-        pythonInterpreter.exec("co_occ_graph = {}");
+        // Else, set phrase list in the extractor
+        extractor.loadPhrases(currentKeyphrases.keySet());
+        
+        // Then, set co-occurrence graph in the extractor
         for (RakeNode node : rakeFullGraph.values()) {
             // Only do it for Words
             if (node.type != RakeNodeType.WORD) {
                 continue;
             }
-            String nodeText = node.getText();
-            pythonInterpreter.exec("edgeNodeDictionary = {}");
             HashMap<RakeNode, Double> originalEdges = node.getOriginalEdges();
             for (RakeNode edgeNode : originalEdges.keySet()) {
                 // Only do it for Words
                 if (edgeNode.type != RakeNodeType.WORD) {
                     continue;
                 }
-                String edgeNodeText = edgeNode.getText();
-                double weight = originalEdges.get(edgeNode);
-                pythonInterpreter.exec("edgeNodeDictionary[\"" + edgeNodeText + "\"]" +
-                        " = " + weight);
+                extractor.setEdgeWeight(node.getText(), edgeNode.getText(),
+                        originalEdges.get(edgeNode));
             }
-            pythonInterpreter.exec("co_occ_graph[\"" + nodeText + "\"] = edgeNodeDictionary");
         }
-        pythonInterpreter.exec("extractor.co_occ_graph = co_occ_graph");
-    }    
-    /**
-     * Converts the keywords object returned by RAKE (a PyList of PyTuples) into a
-     * HashMap<String, Double>.
-     * @param keywordObjectList: The PyList of PyTuples returned by RAKE
-     * @return 
-     */
-    private static HashMap<String, Double> getKeywordHashMapFromPyList(
-            PyList keywordObjectList) {
-                
-        HashMap<String, Double> keywordMap = new HashMap<>();
-        for (Object keywordObject : keywordObjectList) {
-            PyTuple keywordTuple = (PyTuple) keywordObject;
-            String keyword = (String) keywordTuple.get(0);
-            double score;
-            try {
-                score = (Double) keywordTuple.get(1);
-            }
-            catch (ClassCastException e) {
-                score = (Integer) keywordTuple.get(1);
-            }
-            keywordMap.put(keyword, score);
-        }
-        
-        return keywordMap;
-    }
-    
-    /**
-     * Converts the word_scores object returned by RAKE (a PyDictionary) into a
-     * HashMap<String, Double>.
-     * @param wordDictionary: The PyDictionary of words returned by RAKE
-     * @return 
-     */
-    private static HashMap<String, Double> getWordHashMapFromPyDictionary(
-            PyDictionary wordDictionary) {
-                
-        HashMap<String, Double> wordMap = new HashMap<>();
-        for (Object wordObject : wordDictionary.keySet()) {
-            String word = (String) wordObject;
-            double score;
-            try {
-                score = (Double) wordDictionary.get(wordObject);
-            }
-            catch (ClassCastException e) {
-                score = (Integer) wordDictionary.get(wordObject);
-            }
-            wordMap.put(word, score);
-        }
-        
-        return wordMap;
+        extractor.saveState();
+        indexNodes();
+        savedGraph = rakeFullGraph;
     }
     
     /**
      * Constructs a new RAKE Graph (for HashMap<String, RakeNode> rakeFullGraph)
- 	 * from the Jython Rake instance co-occurrence graph.
+ 	 * from the extractor's co-occurrence graph.
      * @throws Exception 
      */
     private void constructRakeGraph() throws Exception {
         
         // Construct rakeFullGraph with Words
         rakeFullGraph = new HashMap<>();
-        pythonInterpreter.exec("co_occ_graph = extractor.co_occ_graph");
-        PyDictionary pyGraph = (PyDictionary) pythonInterpreter.get("co_occ_graph");
-        for (Object key : pyGraph.keySet()) {
-            String word = (String) key;
-            RakeNode rakeNode = 
-                    RakeNode.buildNode(rakeFullGraph, word, RakeNodeType.WORD);
-            
+        int wordCount = extractor.getWordCount();
+        wordNodeIndex = new RakeNode[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            wordNodeIndex[i] = RakeNode.buildNode(rakeFullGraph, extractor.getWord(i),
+                    RakeNodeType.WORD);
+        }
+        for (int i = 0; i < wordCount; i++) {
             // Construct rakeFullGraph edges
-            PyDictionary pyEdges = (PyDictionary) pyGraph.get(key);
-            for (Object edgeKey : pyEdges.keySet()) {
-                String edgeWord = (String) edgeKey;
-                double edgeWeight = 
-                        pyEdges.get(edgeKey) instanceof Double ?
-                        (Double) pyEdges.get(edgeKey) : (Integer) pyEdges.get(edgeKey);
-                RakeNode edgeNode = 
-                        RakeNode.buildNode(rakeFullGraph, edgeWord, RakeNodeType.WORD);
-                
-                rakeNode.connect(edgeNode, edgeWeight);
+            for (int edge = extractor.getEdgeStart(i); edge < extractor.getEdgeEnd(i); edge++) {
+                wordNodeIndex[i].connect(wordNodeIndex[extractor.getEdgeTarget(edge)],
+                        extractor.getEdgeWeight(edge));
             }
         }
         
@@ -197,27 +136,27 @@ public class Rake {
         for (RakeNode node : rakeFullGraph.values()) {
             double frequency = 0;
             double degree = 0;
-            for (Node edgeNode : node.getEdges().keySet()) {
-                if (node.equals(edgeNode)) {
-                    frequency = node.getEdges().get(edgeNode);
+            for (int edge = 0; edge < node.getEdgeCount(); edge++) {
+                if (node.equals(node.getEdgeNode(edge))) {
+                    frequency = node.getEdgeWeight(edge);
                 }
-                degree += node.getEdges().get(edgeNode);
+                degree += node.getEdgeWeight(edge);
             }
             double score = degree / frequency;
             node.setRank(score);
         }
         
         // Construct rakeFullGraph with Keywords
-        for (String keyword : currentKeyphrases.keySet()) {
-            double score = currentKeyphrases.get(keyword);
+        int phraseCount = extractor.getPhraseCount();
+        keywordNodeIndex = new RakeNode[phraseCount];
+        for (int i = 0; i < phraseCount; i++) {
+            String keyword = extractor.getPhrase(i);
             RakeNode rakeNode = 
                     RakeNode.buildNode(rakeFullGraph, keyword, RakeNodeType.KEYWORD);
-            rakeNode.setRank(score);
+            rakeNode.setRank(extractor.getPhraseScore(i));
+            keywordNodeIndex[i] = rakeNode;
             // Construct keyword edges
-            pythonInterpreter.exec("word_list = rake.get_word_list(\"" + keyword + "\")");
-            PyList wordList = (PyList) pythonInterpreter.get("word_list");
-            for (Object wordObject : wordList) {
-                String word = (String) wordObject;
+            for (String word : extractor.getPhraseWords(keyword)) {
                 RakeNode edgeNode = 
                         RakeNode.buildNode(rakeFullGraph, word, RakeNodeType.WORD);
                 rakeNode.connect(edgeNode, Node.DEFAULT_EDGE_WEIGHT);
@@ -226,51 +165,75 @@ public class Rake {
     }
     
     /**
-     * Updates the RAKE Graph Keyword and Word node scores from the current Jython Rake 
-     * instance keyphrases and word_scores.
-     * @throws Exception 
+     * Indexes the nodes of the current RAKE graph by extractor word and
+     * phrase ids.
      */
-    private void updateRakeGraph() throws Exception {
+    private void indexNodes() {
+        wordNodeIndex = new RakeNode[extractor.getWordCount()];
+        for (int i = 0; i < wordNodeIndex.length; i++) {
+            wordNodeIndex[i] = rakeFullGraph.get(RakeNode.buildRakeNodeKey(
+                    extractor.getWord(i), RakeNodeType.WORD));
+        }
+        keywordNodeIndex = new RakeNode[extractor.getPhraseCount()];
+        for (int i = 0; i < keywordNodeIndex.length; i++) {
+            keywordNodeIndex[i] = rakeFullGraph.get(RakeNode.buildRakeNodeKey(
+                    extractor.getPhrase(i), RakeNodeType.KEYWORD));
+        }
+    }
+    
+    /**
+     * Updates the RAKE Graph Keyword and Word node scores (and the current
+     * keyphrase and word maps) for the words and phrases rescored by the
+     * extractor's last rerun.
+     */
+    private void updateRakeGraph() {
         
-        for (String keyword : currentKeyphrases.keySet()) {
-            double rank = currentKeyphrases.get(keyword);
-            String key = RakeNode.buildRakeNodeKey(keyword, RakeNodeType.KEYWORD);
-            RakeNode node = rakeFullGraph.get(key);
-            
-            node.setRank(rank);
+        if (scoreMapsShared) {
+            currentKeyphrases = new HashMap<>(currentKeyphrases);
+            currentWords = new HashMap<>(currentWords);
+            scoreMapsShared = false;
         }
         
-        for (String word: currentWords.keySet()) {
-            double rank = currentWords.get(word);
-            String key = RakeNode.buildRakeNodeKey(word, RakeNodeType.WORD);
-            RakeNode node = rakeFullGraph.get(key);
-            
-            node.setRank(rank);
+        for (int i = 0; i < extractor.getChangedPhraseCount(); i++) {
+            int phrase = extractor.getChangedPhrase(i);
+            double rank = extractor.getPhraseScore(phrase);
+            keywordNodeIndex[phrase].setRank(rank);
+            currentKeyphrases.put(extractor.getPhrase(phrase), rank);
+        }
+        
+        for (int i = 0; i < extractor.getChangedWordCount(); i++) {
+            int word = extractor.getChangedWord(i);
+            double rank = extractor.getWordScore(word);
+            wordNodeIndex[word].setRank(rank);
+            currentWords.put(extractor.getWord(word), rank);
         }
     }
     
     /**
-     * Updates the Co-Occurrence Graph in Python's RAKE using the current
-     * Word nodes
+     * Updates the extractor's Co-Occurrence Graph with the edges of the 
+     * given Word nodes. Only the edges whose weights changed mark their 
+     * words for rescoring.
+     * @param nodes
      */
-    private void updateRakePythonGraph() {
-        for (RakeNode node : getWordNodes()) {
-            
-            for (Node edgeNode : node.getEdges().keySet()) {
-                RakeNode rakeEdgeNode = (RakeNode) edgeNode;
-                
-                // Only do it for WORD nodes
-                if (rakeEdgeNode.type != RakeNodeType.WORD) {
+    private void updateRakeExtractorGraph(Collection<? extends Node> nodes) {
+        for (Node node : nodes) {
+            RakeNode rakeNode = (RakeNode) node;
+            if (rakeNode.type != RakeNodeType.WORD) {
+                continue;
+            }
+            int word = extractor.getWordId(rakeNode.getText());
+            if (word < 0) {
+                continue;
+            }
+            for (int nodeEdge = 0; nodeEdge < rakeNode.getEdgeCount(); nodeEdge++) {
+                RakeNode edgeNode = (RakeNode) rakeNode.getEdgeNode(nodeEdge);
+                if (edgeNode.type != RakeNodeType.WORD) {
                     continue;
                 }
-                
-                double weight = node.getEdges().get(edgeNode);
-                
-                // def modify_edge_weight(self, node1, node2):
-                pythonInterpreter.exec("extractor.modify_edge_weight(" + 
-                        "\"" + node.getText() + "\", " + 
-                        "\"" + edgeNode.getText() + "\", " + 
-                        weight + ")");
+                int edge = extractor.findEdge(word, extractor.getWordId(edgeNode.getText()));
+                if (edge >= 0) {
+                    extractor.updateEdgeWeight(word, edge, rakeNode.getEdgeWeight(nodeEdge));
+                }
             }
         }
     }
@@ -304,36 +267,22 @@ public class Rake {
     }
     
     /**
-     * Runs RAKE (initial) and returns keywords from RAKE Python program
+     * Runs RAKE (initial) and returns its keywords
      * @param text: the text to process
      * @return a HashMap of <String, Double> with the keywords and their scores
      * @throws java.lang.Exception
      */
     public HashMap<String, Double> runRake(String text) throws Exception {
         logger.debug("Extracting RAKE keywords...");
-        // Clean new line
-        text = text.replaceAll("\n", "\\n");
-        
-        try {
-            pythonInterpreter.exec("keywords = extractor.run(\"" + text + "\")");
-            pythonInterpreter.exec("word_scores = extractor.word_scores");
-            }
-        catch (Exception e) {
-            logger.trace("Error in runRake(): " + e.getMessage());
-            throw e;
-        }
-        
-        // Get keywords
-        PyList keywordObjectList = (PyList) pythonInterpreter.get("keywords");
-        currentKeyphrases = getKeywordHashMapFromPyList(keywordObjectList);
         
-        // Get words
-        PyDictionary wordDictionary = 
-                (PyDictionary) pythonInterpreter.get("word_scores");
-        currentWords = getWordHashMapFromPyDictionary(wordDictionary);
+        // Get keywords and words
+        currentKeyphrases = extractor.run(text);
+        currentWords = extractor.getWordScores();
+        scoreMapsShared = true;
         
         // Construct the graph
         constructRakeGraph();
+        savedGraph = rakeFullGraph;
         
         return currentKeyphrases;
     }
@@ -344,29 +293,32 @@ public class Rake {
      * @throws java.lang.Exception
      */
     public HashMap<String, Double> rerunRake() throws Exception {
+        return rerunRake(Arrays.asList(wordNodeIndex));
+    }
+    
+    /**
+     * Reruns RAKE after the edges of the given nodes changed in the 
+     * rakeFullGraph, and returns the keywords. Only the words of those 
+     * nodes and their phrases are rescored.
+     * @param changedNodes: the nodes whose edges changed
+     * @return a HashMap of <Keyword, Score>
+     * @throws java.lang.Exception
+     */
+    public HashMap<String, Double> rerunRake(Collection<? extends Node> changedNodes) 
+            throws Exception {
         logger.debug("Rerunning RAKE...");
         
-        // First, update the co-occurrence graph in Python
-        updateRakePythonGraph();
+        // First, update the co-occurrence graph in the extractor
+        updateRakeExtractorGraph(changedNodes);
         
         try {
-            pythonInterpreter.exec("keywords = extractor.rerun()");
-            pythonInterpreter.exec("word_scores = extractor.word_scores");
+            extractor.rerun();
         }
         catch (Exception e) {
             logger.trace("Error in rerunRake(): " + e.getMessage());
             throw e;
         }
         
-        // Get keywords
-        PyList keywordObjectList = (PyList) pythonInterpreter.get("keywords");
-        currentKeyphrases = getKeywordHashMapFromPyList(keywordObjectList);
-        
-        // Get words
-        PyDictionary wordDictionary = 
-                (PyDictionary) pythonInterpreter.get("word_scores");
-        currentWords = getWordHashMapFromPyDictionary(wordDictionary);
-        
         // Update RakeNode scores in the graph
         updateRakeGraph();
         
@@ -389,8 +341,8 @@ public class Rake {
             
             String nodeString = node.toString();
             
-            HashMap<Node, Double> previousEdges = node.getPreviousEdges();
-            HashMap<Node, Double> edges = node.getEdges();
+            Map<Node, Double> previousEdges = node.getPreviousEdges();
+            Map<Node, Double> edges = node.getEdges();
 
             logger.trace(nodeString);
             logger.trace("\tEdges: ");
@@ -0,0 +1,703 @@
+package com.figueroa.nlp.rake;
+
+import gnu.trove.TIntDoubleHashMap;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Java implementation of RAKE - Rapid Automatic Keyword Extraction algorithm
+ * as described in:
+ * Rose, S., D. Engel, N. Cramer, and W. Cowley (2010).
+ * Automatic keyword extraction from individual documents.
+ * In M. W. Berry and J. Kogan (Eds.), Text Mining: Applications and Theory.
+ * John Wiley and Sons, Ltd.
+ *
+ * This is a port of rake.py of the Python implementation of RAKE (Bakharia
+ * et al.), which was previously run through Jython, and produces the same
+ * scores (see RakeExtractorTest). Only its stoplist is kept, in
+ * resources/python/rake. Words are interned to integer
+ * ids, frequencies and degrees are kept in primitive arrays and the
+ * co-occurrence graph is stored in compressed sparse row form.
+ *
+ * An instance keeps the state of the last processed text and is not
+ * thread-safe. Edge weight changes only mark the affected words, so rerun()
+ * rescores just those words and the phrases that contain them, and the state
+ * of the initial run can be saved and restored without copying it. The
+ * words still marked when the state is saved are marked again when it is
+ * restored, so the scores of the other words never need a full rescore.
+ */
+public class RakeExtractor {
+
+    private final StopwordAutomaton stopwordAutomaton;
+
+    // Vocabulary, word ids are assigned in order of first appearance
+    private final HashMap<String, Integer> wordIds = new HashMap<>();
+    private final ArrayList<String> words = new ArrayList<>();
+
+    // Unique candidate phrases, the ids of their words and, for every word,
+    // the ids of the phrases that contain it
+    private final HashMap<String, Integer> phraseIds = new HashMap<>();
+    private final ArrayList<String> phrases = new ArrayList<>();
+    private int[][] phraseWords = new int[0][];
+    private int[][] wordPhrases = new int[0][];
+
+    // Word frequency and degree of the initial run
+    private int[] frequency = new int[0];
+    private int[] degree = new int[0];
+
+    // Co-occurrence graph: the neighbors of word i are
+    // columns[rowStart[i]] ... columns[rowStart[i + 1] - 1], sorted by id.
+    // diagonal[i] is the position of the edge from word i to itself.
+    // The edge weights are part of the ScoreState.
+    private int[] rowStart = new int[1];
+    private int[] columns = new int[0];
+    private int[] diagonal = new int[0];
+
+    // Scores of the saved (original) state and of the current state. Both
+    // refer to the same arrays until the current state is modified.
+    private ScoreState savedState = new ScoreState(0, 0, 0);
+    private ScoreState state = savedState;
+    private boolean stateShared = true;
+
+    // Words whose edges changed since the last rerun, and those of them
+    // that were not rescored when the state was saved
+    private boolean[] dirtyWord = new boolean[0];
+    private int[] dirtyWords = new int[0];
+    private int dirtyWordCount = 0;
+    private int[] savedDirtyWords = new int[0];
+
+    // Words and phrases rescored by the last rerun
+    private int[] changedWords = new int[0];
+    private int changedWordCount = 0;
+    private boolean[] changedPhrase = new boolean[0];
+    private int[] changedPhrases = new int[0];
+    private int changedPhraseCount = 0;
+
+    /**
+     * Edge weights, word degrees (sum of the edge weights of each word),
+     * word scores and phrase scores.
+     */
+    private static class ScoreState {
+        final double[] weights;
+        final double[] degrees;
+        final double[] wordScores;
+        final double[] phraseScores;
+
+        ScoreState(int edgeCount, int wordCount, int phraseCount) {
+            weights = new double[edgeCount];
+            degrees = new double[wordCount];
+            wordScores = new double[wordCount];
+            phraseScores = new double[phraseCount];
+        }
+
+        ScoreState(ScoreState that) {
+            weights = that.weights.clone();
+            degrees = that.degrees.clone();
+            wordScores = that.wordScores.clone();
+            phraseScores = that.phraseScores.clone();
+        }
+    }
+
+    /**
+     * Constructor with a stop word file.
+     * @param stopwordsPath: path of a file containing stop words, one or more per
+     * line. Lines starting with # are ignored.
+     * @throws Exception
+     */
+    public RakeExtractor(String stopwordsPath) throws Exception {
+        this.stopwordAutomaton = new StopwordAutomaton(loadStopwords(stopwordsPath));
+    }
+
+    /**
+     * Constructor that shares the stop words of another extractor. The new
+     * extractor starts with an empty text, graph and scoring state.
+     * @param stopwordSource
+     */
+    public RakeExtractor(RakeExtractor stopwordSource) {
+        this.stopwordAutomaton = stopwordSource.stopwordAutomaton;
+    }
+
+    /**
+     * Load stop words from a file and return them as a list.
+     * @param stopwordsPath
+     * @return
+     * @throws Exception
+     */
+    public static List<String> loadStopwords(String stopwordsPath) throws Exception {
+        ArrayList<String> stopwords = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(stopwordsPath), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                for (String word : line.split("\\s+")) {
+                    if (!word.isEmpty()) {
+                        stopwords.add(word);
+                    }
+                }
+            }
+        }
+        catch (Exception e) {
+            throw new Exception("Exception in loadStopwords: " + e.getMessage());
+        }
+        return stopwords;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    // Text processing
+    //////////////////////////////////////////////////////////////////////
+
+    /**
+     * Sentence delimiters of the original implementation.
+     */
+    private static boolean isSentenceDelimiter(char c) {
+        switch (c) {
+            case '.': case '!': case '?': case ',': case ';': case ':':
+            case '\t': case '-': case '"': case '(': case ')': case '\'':
+            case '\u2019': case '\u2013':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Characters kept in words by separate_words(): [a-zA-Z0-9_+\-/]
+     */
+    private static boolean isWordSymbol(char c) {
+        return StopwordAutomaton.isWordCharacter(c) ||
+                c == '+' || c == '-' || c == '/';
+    }
+
+    /**
+     * Numbers are left in phrases but not counted as words.
+     */
+    private static boolean isNumber(String word) {
+        int start = word.charAt(0) == '+' || word.charAt(0) == '-' ? 1 : 0;
+        if (start == word.length()) {
+            return false;
+        }
+        for (int i = start; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split the text into candidate phrases, that is, the sequences of
+     * words between sentence delimiters and stop words.
+     * Equivalent to split_sentences() followed by generate_candidate_keywords().
+     * @param text
+     * @return the list of candidate phrases (lowercase, with repetitions)
+     */
+    private List<String> generateCandidateKeywords(String text) {
+        ArrayList<String> phraseList = new ArrayList<>();
+        int length = text.length();
+        int phraseStart = 0;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (StopwordAutomaton.isWordCharacter(c)) {
+                int runEnd = i + 1;
+                while (runEnd < length && StopwordAutomaton.isWordCharacter(text.charAt(runEnd))) {
+                    runEnd++;
+                }
+                if (stopwordAutomaton.isStopword(text, i, runEnd)) {
+                    addPhrase(text, phraseStart, i, phraseList);
+                    phraseStart = runEnd;
+                }
+                i = runEnd;
+            }
+            else {
+                if (isSentenceDelimiter(c) || c == '|') {
+                    addPhrase(text, phraseStart, i, phraseList);
+                    phraseStart = i + 1;
+                }
+                i++;
+            }
+        }
+        addPhrase(text, phraseStart, length, phraseList);
+
+        return phraseList;
+    }
+
+    private static void addPhrase(String text, int start, int end, List<String> phraseList) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            phraseList.add(text.substring(start, end).toLowerCase());
+        }
+    }
+
+    /**
+     * Return the list of words in a phrase, skipping numbers.
+     * @param phrase
+     * @return
+     */
+    public static List<String> getWordList(String phrase) {
+        ArrayList<String> wordList = new ArrayList<>();
+        int length = phrase.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordSymbol(phrase.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < length && isWordSymbol(phrase.charAt(end))) {
+                end++;
+            }
+            String word = phrase.substring(i, end).toLowerCase();
+            if (!isNumber(word)) {
+                wordList.add(word);
+            }
+            i = end;
+        }
+        return wordList;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    // Graph construction and scoring
+    //////////////////////////////////////////////////////////////////////
+
+    private int getOrAddWordId(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = words.size();
+            wordIds.put(word, id);
+            words.add(word);
+        }
+        return id;
+    }
+
+    /**
+     * Build the vocabulary, word frequencies and degrees and the
+     * co-occurrence graph from a list of phrases.
+     * @param phraseList
+     */
+    private void buildGraph(Collection<String> phraseList) {
+        wordIds.clear();
+        words.clear();
+        phraseIds.clear();
+        phrases.clear();
+
+        ArrayList<int[]> uniquePhraseWords = new ArrayList<>();
+        ArrayList<int[]> phraseOccurrences = new ArrayList<>(phraseList.size());
+        for (String phrase : phraseList) {
+            Integer phraseId = phraseIds.get(phrase);
+            if (phraseId == null) {
+                List<String> wordList = getWordList(phrase);
+                int[] wordIdList = new int[wordList.size()];
+                for (int i = 0; i < wordIdList.length; i++) {
+                    wordIdList[i] = getOrAddWordId(wordList.get(i));
+                }
+                phraseId = phrases.size();
+                phraseIds.put(phrase, phraseId);
+                phrases.add(phrase);
+                uniquePhraseWords.add(wordIdList);
+            }
+            phraseOccurrences.add(uniquePhraseWords.get(phraseId));
+        }
+        phraseWords = uniquePhraseWords.toArray(new int[uniquePhraseWords.size()][]);
+
+        int wordCount = words.size();
+        int phraseCount = phrases.size();
+        frequency = new int[wordCount];
+        degree = new int[wordCount];
+        TIntDoubleHashMap[] rows = new TIntDoubleHashMap[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            rows[i] = new TIntDoubleHashMap();
+        }
+
+        for (int[] wordIdList : phraseOccurrences) {
+            int phraseDegree = wordIdList.length - 1;
+            for (int word : wordIdList) {
+                frequency[word]++;
+                degree[word] += phraseDegree;
+                for (int word2 : wordIdList) {
+                    rows[word].adjustOrPutValue(word2, 1.0, 1.0);
+                }
+            }
+        }
+
+        // Index the phrases of every word
+        int[] wordPhraseCount = new int[wordCount];
+        for (int[] wordIdList : phraseWords) {
+            for (int word : wordIdList) {
+                wordPhraseCount[word]++;
+            }
+        }
+        wordPhrases = new int[wordCount][];
+        for (int i = 0; i < wordCount; i++) {
+            wordPhrases[i] = new int[wordPhraseCount[i]];
+            wordPhraseCount[i] = 0;
+        }
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int word : phraseWords[phrase]) {
+                wordPhrases[word][wordPhraseCount[word]++] = phrase;
+            }
+        }
+
+        // Compress the rows
+        rowStart = new int[wordCount + 1];
+        for (int i = 0; i < wordCount; i++) {
+            rowStart[i + 1] = rowStart[i] + rows[i].size();
+        }
+        columns = new int[rowStart[wordCount]];
+        diagonal = new int[wordCount];
+        state = new ScoreState(rowStart[wordCount], wordCount, phraseCount);
+        stateShared = false;
+        for (int i = 0; i < wordCount; i++) {
+            int[] keys = rows[i].keys();
+            Arrays.sort(keys);
+            int position = rowStart[i];
+            for (int key : keys) {
+                columns[position] = key;
+                state.weights[position] = rows[i].get(key);
+                if (key == i) {
+                    diagonal[i] = position;
+                }
+                position++;
+            }
+        }
+
+        dirtyWord = new boolean[wordCount];
+        dirtyWords = new int[wordCount];
+        dirtyWordCount = 0;
+        changedWords = new int[wordCount];
+        changedWordCount = 0;
+        changedPhrase = new boolean[phraseCount];
+        changedPhrases = new int[phraseCount];
+        changedPhraseCount = 0;
+    }
+
+    /**
+     * Word score = deg(w) / freq(w), from the word frequencies and degrees
+     * of the initial run. A word repeated within a phrase has a self edge
+     * weight above its frequency, so rerun() scores it differently (as 
+     * rake.py does): such words are marked for the next rerun.
+     */
+    private void calculateWordScores() {
+        int wordCount = words.size();
+        for (int i = 0; i < wordCount; i++) {
+            state.degrees[i] = degree[i] + frequency[i];
+            state.wordScores[i] = (degree[i] + frequency[i]) / (frequency[i] * 1.0);
+            if (state.weights[diagonal[i]] != frequency[i]) {
+                markDirty(i);
+            }
+        }
+        for (int phrase = 0; phrase < phrases.size(); phrase++) {
+            calculatePhraseScore(phrase);
+        }
+    }
+
+    /**
+     * Word score = deg(w) / freq(w), using the (possibly modified)
+     * co-occurrence graph.
+     * @throws Exception
+     */
+    private void recalculateWordScore(int word) throws Exception {
+        double wordDegree = 0;
+        for (int k = rowStart[word]; k < rowStart[word + 1]; k++) {
+            wordDegree += state.weights[k];
+        }
+        double wordFrequency = state.weights[diagonal[word]];
+        if (wordFrequency == 0) {
+            throw new Exception("Error in recalculateWordScore: item = " +
+                    words.get(word) + ", word_degree = " + wordDegree +
+                    ", word_frequency = " + wordFrequency);
+        }
+        state.degrees[word] = wordDegree;
+        state.wordScores[word] = wordDegree / wordFrequency;
+    }
+
+    private void calculatePhraseScore(int phrase) {
+        double candidateScore = 0;
+        for (int word : phraseWords[phrase]) {
+            candidateScore += state.wordScores[word];
+        }
+        state.phraseScores[phrase] = candidateScore;
+    }
+
+    /**
+     * Make sure the current state can be modified without changing the
+     * saved state.
+     */
+    private void ensureStateNotShared() {
+        if (stateShared) {
+            state = new ScoreState(savedState);
+            stateShared = false;
+        }
+    }
+
+    private void markDirty(int word) {
+        if (!dirtyWord[word]) {
+            dirtyWord[word] = true;
+            dirtyWords[dirtyWordCount++] = word;
+        }
+    }
+
+    private void clearDirtyWords() {
+        for (int i = 0; i < dirtyWordCount; i++) {
+            dirtyWord[dirtyWords[i]] = false;
+        }
+        dirtyWordCount = 0;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    // Public interface
+    //////////////////////////////////////////////////////////////////////
+
+    /**
+     * Run RAKE on a text. The resulting state is saved, so it can be
+     * restored with restoreState().
+     * @param text
+     * @return a HashMap of <Keyword, Score>
+     */
+    public HashMap<String, Double> run(String text) {
+        loadPhrases(generateCandidateKeywords(text));
+        return getKeywordScores();
+    }
+
+    /**
+     * Rerun RAKE using the current (possibly modified) co-occurrence graph.
+     * Only the words whose edges changed since the last rerun (or the last
+     * saveState()/restoreState()) and the phrases that contain them are 
+     * rescored.
+     * @throws Exception
+     */
+    public void rerun() throws Exception {
+        ensureStateNotShared();
+
+        for (int i = 0; i < changedPhraseCount; i++) {
+            changedPhrase[changedPhrases[i]] = false;
+        }
+        changedPhraseCount = 0;
+        changedWordCount = 0;
+
+        for (int i = 0; i < dirtyWordCount; i++) {
+            int word = dirtyWords[i];
+            recalculateWordScore(word);
+            changedWords[changedWordCount++] = word;
+            for (int phrase : wordPhrases[word]) {
+                if (!changedPhrase[phrase]) {
+                    changedPhrase[phrase] = true;
+                    changedPhrases[changedPhraseCount++] = phrase;
+                }
+            }
+        }
+        clearDirtyWords();
+
+        for (int i = 0; i < changedPhraseCount; i++) {
+            calculatePhraseScore(changedPhrases[i]);
+        }
+    }
+
+    /**
+     * Replace the current state with the given candidate phrases. The
+     * co-occurrence graph is rebuilt from them and can then be adjusted
+     * with setEdgeWeight() and saved with saveState().
+     * @param phraseList
+     */
+    public void loadPhrases(Collection<String> phraseList) {
+        buildGraph(phraseList);
+        calculateWordScores();
+        saveState();
+    }
+
+    /**
+     * Save the current state (edge weights and scores). The saved state
+     * shares its arrays with the current one until the next change. The
+     * words whose edges changed since the last rerun stay marked for the
+     * next one.
+     */
+    public void saveState() {
+        savedState = state;
+        stateShared = true;
+        savedDirtyWords = Arrays.copyOf(dirtyWords, dirtyWordCount);
+    }
+
+    /**
+     * Restore the last saved state, with the words that were marked for
+     * rescoring when it was saved.
+     */
+    public void restoreState() {
+        state = savedState;
+        stateShared = true;
+        clearDirtyWords();
+        for (int word : savedDirtyWords) {
+            markDirty(word);
+        }
+    }
+
+    /**
+     * Set the edge weight between two words (in both directions).
+     * @param word1
+     * @param word2
+     * @param weight
+     * @throws Exception
+     */
+    public void setEdgeWeight(String word1, String word2, double weight)
+            throws Exception {
+        Integer id1 = wordIds.get(word1);
+        Integer id2 = wordIds.get(word2);
+        int position1 = id1 != null && id2 != null ? findEdge(id1, id2) : -1;
+        int position2 = id1 != null && id2 != null ? findEdge(id2, id1) : -1;
+        if (position1 < 0 || position2 < 0) {
+            throw new Exception("Exception in setEdgeWeight: no edge between " +
+                    word1 + " and " + word2);
+        }
+        updateEdgeWeight(id1, position1, weight);
+        updateEdgeWeight(id2, position2, weight);
+    }
+
+    /**
+     * Get the position of the edge from a word to another one.
+     * @param word
+     * @param word2
+     * @return the position of the edge, or -1 if there is no such edge
+     */
+    int findEdge(int word, int word2) {
+        if (word < 0 || word2 < 0) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(columns, rowStart[word], rowStart[word + 1], word2);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Get the scores of all words in the last (re)run.
+     * @return a HashMap of <Word, Score>
+     */
+    public HashMap<String, Double> getWordScores() {
+        HashMap<String, Double> wordScoreMap = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            wordScoreMap.put(words.get(i), state.wordScores[i]);
+        }
+        return wordScoreMap;
+    }
+
+    /**
+     * Get the scores of all candidate phrases in the last (re)run.
+     * @return a HashMap of <Keyword, Score>
+     */
+    public HashMap<String, Double> getKeywordScores() {
+        HashMap<String, Double> keywordCandidates = new HashMap<>();
+        for (int i = 0; i < phrases.size(); i++) {
+            keywordCandidates.put(phrases.get(i), state.phraseScores[i]);
+        }
+        return keywordCandidates;
+    }
+
+    /**
+     * Get the words of a candidate phrase of the last run.
+     * @param phrase
+     * @return the list of words, or null if the phrase is not a candidate
+     */
+    public List<String> getPhraseWords(String phrase) {
+        Integer phraseId = phraseIds.get(phrase);
+        if (phraseId == null) {
+            return null;
+        }
+        ArrayList<String> wordList = new ArrayList<>(phraseWords[phraseId].length);
+        for (int word : phraseWords[phraseId]) {
+            wordList.add(words.get(word));
+        }
+        return wordList;
+    }
+
+    // Package-level access to the co-occurrence graph and scores (used by Rake)
+
+    int getWordCount() {
+        return words.size();
+    }
+
+    String getWord(int word) {
+        return words.get(word);
+    }
+
+    int getWordId(String word) {
+        Integer id = wordIds.get(word);
+        return id != null ? id : -1;
+    }
+
+    double getWordScore(int word) {
+        return state.wordScores[word];
+    }
+
+    int getPhraseCount() {
+        return phrases.size();
+    }
+
+    String getPhrase(int phrase) {
+        return phrases.get(phrase);
+    }
+
+    double getPhraseScore(int phrase) {
+        return state.phraseScores[phrase];
+    }
+
+    int getEdgeStart(int word) {
+        return rowStart[word];
+    }
+
+    int getEdgeEnd(int word) {
+        return rowStart[word + 1];
+    }
+
+    int getEdgeTarget(int edge) {
+        return columns[edge];
+    }
+
+    double getEdgeWeight(int edge) {
+        return state.weights[edge];
+    }
+
+    /**
+     * Set the weight of a single (directed) edge of a word. The word is
+     * rescored on the next rerun only if the weight actually changed.
+     * @param word
+     * @param edge
+     * @param weight
+     */
+    void updateEdgeWeight(int word, int edge, double weight) {
+        if (state.weights[edge] != weight) {
+            ensureStateNotShared();
+            state.weights[edge] = weight;
+            markDirty(word);
+        }
+    }
+
+    int getChangedWordCount() {
+        return changedWordCount;
+    }
+
+    int getChangedWord(int i) {
+        return changedWords[i];
+    }
+
+    int getChangedPhraseCount() {
+        return changedPhraseCount;
+    }
+
+    int getChangedPhrase(int i) {
+        return changedPhrases[i];
+    }
+}
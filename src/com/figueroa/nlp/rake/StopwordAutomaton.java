@@ -0,0 +1,128 @@
+package com.figueroa.nlp.rake;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A trie-based automaton that recognizes RAKE stopwords.
+ * The original RAKE implementation matches a single regular expression of
+ * the form \bword1\b|\bword2\b|... (case insensitive) against every sentence.
+ * Since every stopword consists of word characters only, such a match is
+ * always a whole run of word characters, so it is enough to walk each run
+ * through this automaton once.
+ *
+ * Word characters are the ASCII letters, digits and the underscore, as in
+ * the \w class of the original regular expression.
+ */
+public class StopwordAutomaton {
+
+    private static final int ALPHABET_SIZE = 37; // a-z, 0-9, _
+    private static final int NO_STATE = -1;
+
+    private int[] transitions;
+    private boolean[] accepting;
+    private int stateCount;
+
+    /**
+     * Builds the automaton from a collection of stopwords. Stopwords that
+     * contain non-word characters can never match a word run, so they are
+     * skipped.
+     * @param stopwords
+     */
+    public StopwordAutomaton(Collection<String> stopwords) {
+        transitions = new int[64 * ALPHABET_SIZE];
+        accepting = new boolean[64];
+        Arrays.fill(transitions, NO_STATE);
+        stateCount = 1; // root
+
+        for (String stopword : stopwords) {
+            addStopword(stopword);
+        }
+    }
+
+    private void addStopword(String stopword) {
+        if (stopword.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < stopword.length(); i++) {
+            if (symbol(stopword.charAt(i)) == NO_STATE) {
+                return;
+            }
+        }
+
+        int state = 0;
+        for (int i = 0; i < stopword.length(); i++) {
+            int index = state * ALPHABET_SIZE + symbol(stopword.charAt(i));
+            if (transitions[index] == NO_STATE) {
+                // newState() may reallocate the transition table
+                int next = newState();
+                transitions[index] = next;
+            }
+            state = transitions[index];
+        }
+        accepting[state] = true;
+    }
+
+    private int newState() {
+        if (stateCount == accepting.length) {
+            int oldLength = transitions.length;
+            transitions = Arrays.copyOf(transitions, oldLength * 2);
+            Arrays.fill(transitions, oldLength, transitions.length, NO_STATE);
+            accepting = Arrays.copyOf(accepting, accepting.length * 2);
+        }
+        return stateCount++;
+    }
+
+    /**
+     * Maps a character to its (case insensitive) symbol in the automaton.
+     * @param c
+     * @return the symbol, or -1 if c is not a word character
+     */
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        else if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        else if (c >= '0' && c <= '9') {
+            return 26 + (c - '0');
+        }
+        else if (c == '_') {
+            return 36;
+        }
+        return NO_STATE;
+    }
+
+    /**
+     * Determines whether the given character is a word character (\w).
+     * @param c
+     * @return
+     */
+    public static boolean isWordCharacter(char c) {
+        return symbol(c) != NO_STATE;
+    }
+
+    /**
+     * Determines whether text[start, end) is a stopword. The range is
+     * expected to be a run of word characters.
+     * @param text
+     * @param start
+     * @param end
+     * @return true if the range is a stopword
+     */
+    public boolean isStopword(CharSequence text, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            int s = symbol(text.charAt(i));
+            if (s == NO_STATE) {
+                return false;
+            }
+            state = transitions[state * ALPHABET_SIZE + s];
+            if (state == NO_STATE) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+}
@@ -1,8 +1,11 @@
 package com.figueroa.nlp.rankup;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.apache.log4j.Logger;
@@ -134,12 +137,15 @@ public abstract class ErrorCorrector {
      * @param graph: the original graph
      * @param graphEdges: the new edges of the graph to which the graph will be updated
      * @param correctNegativeWeights: bug fix
+     * @return the nodes whose edge weights changed
      * @throws Exception 
      */
-    protected static void updateEdgeWeights(Map<String, ? extends Node> graph,
+    protected static Set<Node> updateEdgeWeights(Map<String, ? extends Node> graph,
             HashMap<String, EdgeVector> graphEdges, boolean correctNegativeWeights) 
             throws Exception {
 
+        Set<Node> changedNodes =
+                Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
         String lastKey = null; // For debugging
         try {
             for (String key : graphEdges.keySet()) {
@@ -177,9 +183,16 @@ public abstract class ErrorCorrector {
                 // Set newWeight to 0 if it is negative
                 //newWeight = newWeight < 0 ? 0 : newWeight;
                 
+                int edge = node1.indexOfEdge(node2);
+                if (edge < 0 || node1.getEdgeWeight(edge) != newWeight) {
+                    changedNodes.add(node1);
+                    changedNodes.add(node2);
+                }
+                
                 node1.setEdgeWeight(node2, newWeight);
                 node2.setEdgeWeight(node1, newWeight);
             }
+            return changedNodes;
         }
         catch (Exception e) {
             throw new Exception("Exception in updateEdgeWeights (" + e.getMessage() +
@@ -13,6 +13,7 @@ import com.figueroa.nlp.rake.RakeNode;
 import com.figueroa.nlp.textrank.MetricVector;
 import com.figueroa.nlp.textrank.SynsetLink;
 import com.figueroa.nlp.textrank.TextRank;
+import com.figueroa.nlp.textrank.TextRankContext;
 import com.figueroa.nlp.textrank.TextRankGraph;
 import com.figueroa.nlp.textrank.TextRankNode;
 import com.figueroa.util.Abstract;
@@ -139,18 +140,23 @@ public class GraphBasedKeywordExtractor {
         // Step 1: Extract TextRank Keyphrases
         logger.info("1.1 Running TextRank...");
 
-        Collection<MetricVector> metricVectorCollection =
+        // Reuse the annotation of the abstract instead of tagging it again
+        TextRankContext textRankContext = abs.getAnnotatedDocument() != null ?
+                textRank.run(abs.getAnnotatedDocument()) :
                 textRank.run(abs.getOriginalText());
-        TreeSet<MetricVector> metricSpace = new TreeSet<>(metricVectorCollection);
+        abs.setTextRankContext(textRankContext);
         
         // Set originalTextRankNodeScores after running for first time
-        for (TextRankNode node : textRank.getGraph().values()) {
+        for (TextRankNode node : textRankContext.getGraph().values()) {
             node.setOriginalRank(node.getRank());
         }
 
         // Step 2: Map metric vectors with RankUp keyphrase nodes
         logger.info("1.2 Mapping metric vectors to RankUp keyphrase nodes...");
         if (!rankUpProperties.useWholeTextRankGraph) {
+            Collection<MetricVector> metricVectorCollection =
+                    textRankContext.getMetricVectors();
+            TreeSet<MetricVector> metricSpace = new TreeSet<>(metricVectorCollection);
             for (MetricVector mv : metricSpace) {
 
                 double metric = mv.metric;
@@ -161,17 +167,13 @@ public class GraphBasedKeywordExtractor {
             }
         }
         else {
-            TextRankGraph textRankGraph = textRank.getGraph();
+            TextRankGraph textRankGraph = textRankContext.getGraph();
             for (TextRankNode node : textRankGraph.values()) {
                 // Don't add synset links
                 if (!(node.value instanceof SynsetLink)) {
-                    double originalTextRankScore = -1.0;
-                    for (MetricVector mv : metricSpace) {
-                        if (mv.value.getParentNode().equals(node)) {
-                            originalTextRankScore = mv.metric;
-                            break;
-                        }
-                    }
+                    // Metric vectors are indexed by their ngram node
+                    MetricVector mv = textRankContext.getMetricVector(node);
+                    double originalTextRankScore = mv != null ? mv.metric : -1.0;
                     // Check that node rank is a valid value
                     double nodeRank = node.getRank();
 
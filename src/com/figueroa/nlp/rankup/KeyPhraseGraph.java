@@ -3,8 +3,8 @@ package com.figueroa.nlp.rankup;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 import org.apache.commons.math.util.MathUtils;
 import org.apache.log4j.Logger;
@@ -658,7 +658,7 @@ public class KeyPhraseGraph extends TreeMap<String, KeyPhrase> {
             
             String keyphraseString = keyphrase.toString();
             Node node = keyphrase.getNode();
-            HashMap<Node, Double> edges = node.getEdges();
+            Map<Node, Double> edges = node.getEdges();
 
             logger.trace(keyphraseString);
             logger.trace("\tEdges: ");
@@ -148,10 +148,16 @@ public class PhraseFeatures {
         String originalPhrase = phrase.getText();
 //        String[] tokenizedOriginalKeyphrase = originalPhrase.split(" ");
 
-        String taggedPhrase = posTagger.tagText(phrase.getText());
+        // Lemmatize the phrase with the tags of the annotated abstract. Only
+        // phrases that don't occur in it are tagged on their own
         String stemmedPhrase = "";
         try {
-            stemmedPhrase = lemmatizer.stemText(taggedPhrase, true);
+            if (abs.getAnnotatedDocument() != null) {
+                stemmedPhrase = abs.getAnnotatedDocument().lemmatizePhrase(originalPhrase);
+            }
+            if (stemmedPhrase == null || stemmedPhrase.isEmpty()) {
+                stemmedPhrase = lemmatizer.stemTokens(posTagger.tag(originalPhrase));
+            }
             if (stemmedPhrase.isEmpty()) {
                 stemmedPhrase = phrase.getText();
             }
@@ -210,7 +216,7 @@ public class PhraseFeatures {
 //        clusterednessUnstemmed = calculateClusteredness(originalPhrase, trainingAbstracts, true);
         clusterednessStemmed = calculateClusteredness(stemmedPhrase, trainingAbstracts, false);
         
-        // RAKE (Use Jython) 
+        // RAKE
         // In M. W. Berry and J. Kogan (Eds.), Text Mining: Applications and Theory
         rakeUnstemmed = calculateRake(originalPhrase, rakeKeyphrases);
         rakeStemmed = rakeUnstemmed;
@@ -2,6 +2,7 @@ package com.figueroa.nlp.rankup;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.apache.log4j.Logger;
@@ -68,8 +69,9 @@ public class RakeErrorCorrector extends ErrorCorrector {
         }
     }
 
-    // Modify each edge weight in the graph (Step 2)
-    private static void modifyEdgeWeights(
+    // Modify each edge weight in the graph (Step 2), and return the nodes 
+    // whose edges changed
+    private static Set<Node> modifyEdgeWeights(
             List<RakeNode> wordNodes, HashMap<String, RakeNode> rakeGraph,
             double learningRate, boolean correctNegativeWeights) 
             throws Exception {
@@ -79,9 +81,12 @@ public class RakeErrorCorrector extends ErrorCorrector {
         for (Node graphNode : wordNodes) {
 
             double d_i = graphNode.get_d_j(); // graph node differential
-            double w_ii = graphNode.getEdges().get(graphNode); // frequency
+            double w_ii = graphNode.getEdgeWeight(
+                    graphNode.indexOfEdge(graphNode)); // frequency
             
-            for (Node edgeNode : graphNode.getEdges().keySet()) {
+            for (int edge = 0; edge < graphNode.getEdgeCount(); edge++) {
+                
+                Node edgeNode = graphNode.getEdgeNode(edge);
                 
                 if (graphNode.equals(edgeNode)) {
                     continue;
@@ -96,7 +101,7 @@ public class RakeErrorCorrector extends ErrorCorrector {
                 // New formula for RAKE
                 double delta_w_ij = (learningRate * d_i) / w_ii;
 
-                double previousWeight = graphNode.getEdges().get(edgeNode);
+                double previousWeight = graphNode.getEdgeWeight(edge);
                 double newWeight = previousWeight + delta_w_ij;
 
                 // Construct graphEdge
@@ -122,7 +127,7 @@ public class RakeErrorCorrector extends ErrorCorrector {
             }
         }
 
-        updateEdgeWeights(rakeGraph, graphEdges, correctNegativeWeights);
+        return updateEdgeWeights(rakeGraph, graphEdges, correctNegativeWeights);
     }
 
     public static int performErrorFeedback(
@@ -183,10 +188,11 @@ public class RakeErrorCorrector extends ErrorCorrector {
             }
 
             // Step 2: Modify edge weights
-            modifyEdgeWeights(rakeWordNodes, rakeGraph, learningRate, correctNegativeWeights);
+            Set<Node> changedNodes = modifyEdgeWeights(rakeWordNodes, rakeGraph, 
+                    learningRate, correctNegativeWeights);
 
-            // Step 3: Rerun Rake
-            rake.rerunRake();
+            // Step 3: Rerun Rake (from the words whose edges changed)
+            rake.rerunRake(changedNodes);
 
             // Step 4: Reassign scores
             for (KeyPhrase keyphrase: keyphraseList) {
@@ -50,6 +50,8 @@ public class RankUp {
     // KeyPhrases
     private KeyPhraseGraph keyPhraseGraph;
     private List<KeyPhrase> originalKeyphraseList;
+    private ArrayList<KeyPhrase> feedbackKeyphraseList;
+    private ArrayList<KeyPhrase> realKeyphraseList;
 
     // RankUp Properties
     private final RankUpProperties rankUpProperties;
@@ -144,24 +146,22 @@ public class RankUp {
     /**
      * Remove stop phrases and any subphrases that have lower ranks than their superphrases.
      * @param oldKeyphrases
+     * @param abs
      * @return
      * @throws Exception
      */
-    private ArrayList postProcessKeyphrases(List<KeyPhrase> oldKeyphrases) throws Exception {
+    private ArrayList postProcessKeyphrases(List<KeyPhrase> oldKeyphrases, Abstract abs) 
+            throws Exception {
 
         ArrayList<KeyPhrase> newKeyphrases = new ArrayList<>();
 
         for (KeyPhrase oldKeyphrase : oldKeyphrases) {
             String originalOldKeyphrase = oldKeyphrase.text;
-            String stemmedOldKeyphrase = oldKeyphrase.getFeatures() != null ?
-                    oldKeyphrase.getFeatures().stemmedPhrase :
-                    lemmatizer.stemText(oldKeyphrase.text, false);
+            String stemmedOldKeyphrase = getStemmedPhrase(oldKeyphrase, abs);
             boolean hasSuperPhrase = false;
             for (KeyPhrase newKeyphrase : newKeyphrases) {
                 String originalNewKeyphrase = newKeyphrase.text;
-                String stemmedNewKeyphrase = newKeyphrase.getFeatures() != null ?
-                        newKeyphrase.getFeatures().stemmedPhrase : 
-                        lemmatizer.stemText(newKeyphrase.text, false);
+                String stemmedNewKeyphrase = getStemmedPhrase(newKeyphrase, abs);
 
                 if (originalNewKeyphrase.contains(originalOldKeyphrase) ||
                         originalNewKeyphrase.contains(stemmedOldKeyphrase) ||
@@ -192,6 +192,27 @@ public class RankUp {
 
         return newKeyphrases;
     }
+    
+    /**
+     * Get the stemmed text of a keyphrase, from its features if they have been
+     * set, or else from the annotation of the abstract.
+     * @param keyphrase
+     * @param abs
+     * @return
+     */
+    private String getStemmedPhrase(KeyPhrase keyphrase, Abstract abs) {
+        
+        if (keyphrase.getFeatures() != null) {
+            return keyphrase.getFeatures().stemmedPhrase;
+        }
+        
+        String stemmedPhrase = abs.getAnnotatedDocument() != null ?
+                abs.getAnnotatedDocument().lemmatizePhrase(keyphrase.text) : null;
+        if (stemmedPhrase == null) {
+            stemmedPhrase = lemmatizer.stemText(keyphrase.text, false);
+        }
+        return stemmedPhrase;
+    }
 
     /**
      * Main RankUp algorithm.
@@ -209,118 +230,18 @@ public class RankUp {
         try {
             // 1. Run Keyword Extractor (TextRank, RAKE, etc.) 
             // (3.1 Construct Graph and 3.2 Ranking Nodes)
-            logger.info("1. Extracting " + keywordExtractor.keywordExtractionMethod + 
-                    " keyphrases...");
-            List<KeyPhrase> originalKeyphraseListFull = keywordExtractor.extractKeyphrases(abs);
-
-            // Get Keyphrases to use in ErrorDetector and ErrorCorrector
-            ArrayList<KeyPhrase> feedbackKeyphraseList;
-            ArrayList<KeyPhrase> realKeyphraseList;
-            // In TextRank, use all keyphrases in the graph
-            if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
-                feedbackKeyphraseList = (ArrayList<KeyPhrase>) originalKeyphraseListFull;
-                realKeyphraseList = feedbackKeyphraseList;
-            }
-            // In RAKE, only use Word Nodes
-            else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE) {
-                    feedbackKeyphraseList = new ArrayList<>();
-                    realKeyphraseList = new ArrayList<>();
-                for (KeyPhrase keyphrase : originalKeyphraseListFull) {
-                    RakeNode rakeNode = (RakeNode) keyphrase.getNode();
-                    if (rakeNode.type == RakeNodeType.WORD) {
-                        feedbackKeyphraseList.add(keyphrase);
-                    }
-                    else if (rakeNode.type == RakeNodeType.KEYWORD) {
-                        realKeyphraseList.add(keyphrase);
-                    }
-                }
-            }
-            else {
-                feedbackKeyphraseList = null;
-                realKeyphraseList = null;
-            }
-            originalKeyphraseList = realKeyphraseList;
+            extractKeyphrases(abs, keywordExtractor);
             
             // 2. Set keyphrase features
-            logger.info("2. Setting keyphrase features...");
-            setKeyPhraseFeatures(feedbackKeyphraseList, abs, false);
+            setKeyPhraseFeatures(abs);
             
-            // 3. Assign keyphrase sets
-            logger.info("3. Assigning keyphrase sets...");
-            keyPhraseGraph = new KeyPhraseGraph(
-                    feedbackKeyphraseList,
-                    rankUpProperties.setAssignmentApproach,
-                    rankUpProperties.featureLowerBound,
-                    rankUpProperties.featureUpperBound,
-                    PhraseFeatures.getFeatureFromErrorDetectingApproach(
-                            rankUpProperties.errorDetectingApproach));
-
-            // 4. Assign expected scores (3.3 Detect Errors)
-            logger.info("4. Assigning expected scores...");
-            ErrorDetector.assignExpectedScores(keyPhraseGraph,
-                    rankUpProperties.expectedScoreValue, MINMAX_MID_BUG_FIX);
-
-            // Print Feature Sets
-            PhraseFeatures.Feature feature = 
-                    PhraseFeatures.getFeatureFromErrorDetectingApproach(
-                            rankUpProperties.errorDetectingApproach);
-            logger.debug("**** Initial " + feature + " Sets ****");
-            keyPhraseGraph.printFeatureSet(SetLevel.LOW);
-            keyPhraseGraph.printFeatureSet(SetLevel.MID);
-            keyPhraseGraph.printFeatureSet(SetLevel.HIGH);
-            
-            // 5. Perform error Feedback (3.4 Error Feedback)
-            logger.info("5. Performing error feedback...");
-            if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
-                errorCorrectorIterations = TextRankErrorCorrector.performErrorFeedback(
-                        abs,
-                        keyPhraseGraph, 
-                        keywordExtractor.textRank,
-                        rankUpProperties.useWholeTextRankGraph, 
-                        rankUpProperties.learningRate,
-                        rankUpProperties.standardErrorThreshold,
-                        rankUpProperties.convergenceScheme, 
-                        rankUpProperties.convergenceRule,
-                        rankUpProperties.revertGraphs,
-                        printGephiGraphs,
-                        CORRECT_NEGATIVE_WEIGHTS,
-                        DENORMALIZE_MODIFICATION_VALUE,
-                        USE_DIFFERENTIAL_CONVERGENCE);
-            }
-            else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE){
-                errorCorrectorIterations = RakeErrorCorrector.performErrorFeedback(
-                        abs,
-                        realKeyphraseList,
-                        keyPhraseGraph, 
-                        keywordExtractor.rake,
-                        rankUpProperties.learningRate,
-                        rankUpProperties.standardErrorThreshold,
-                        rankUpProperties.convergenceScheme, 
-                        rankUpProperties.convergenceRule,
-                        rankUpProperties.revertGraphs,
-                        printGephiGraphs,
-                        CORRECT_NEGATIVE_WEIGHTS);
-            }
-            
-            // Sort keyphrases
-            List<KeyPhrase> rankUpKeyphrases = null;
-            if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
-                rankUpKeyphrases = keyPhraseGraph.getSortedKeyphrases();
-            }
-            else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE) {
-                rankUpKeyphrases = getSortedKeyphrases(realKeyphraseList);
-            }
-            
-            logger.debug("**** Final " + feature + " Sets ****");
-            keyPhraseGraph.printFeatureSet(SetLevel.LOW);
-            keyPhraseGraph.printFeatureSet(SetLevel.MID);
-            keyPhraseGraph.printFeatureSet(SetLevel.HIGH);
+            // 3. - 5. Assign keyphrase sets, detect errors and perform error feedback
+            List<KeyPhrase> rankUpKeyphrases = 
+                    performErrorFeedback(abs, printGephiGraphs, keywordExtractor);
 
             // 6. Apply postprocessing 
             if (rankUpProperties.postprocess) {
-                logger.info("6. Applying Postprocessing...");
-                rankUpKeyphrases =
-                        postProcessKeyphrases(rankUpKeyphrases);  // Full post-processing
+                rankUpKeyphrases = applyPostprocessing(abs, rankUpKeyphrases);
             }
 
             return rankUpKeyphrases;
@@ -332,6 +253,164 @@ public class RankUp {
         }
     }
     
+    /**
+     * Step 1 of RankUp: run the base keyword extractor (TextRank, RAKE, etc.)
+     * and separate the keyphrases used for error feedback from the keyphrases
+     * that are actually returned.
+     * @param abs
+     * @param keywordExtractor
+     * @throws Exception 
+     */
+    public void extractKeyphrases(
+            Abstract abs, 
+            GraphBasedKeywordExtractor keywordExtractor) throws Exception {
+        
+        logger.info("1. Extracting " + keywordExtractor.keywordExtractionMethod + 
+                " keyphrases...");
+        List<KeyPhrase> originalKeyphraseListFull = keywordExtractor.extractKeyphrases(abs);
+
+        // Get Keyphrases to use in ErrorDetector and ErrorCorrector
+        // In TextRank, use all keyphrases in the graph
+        if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
+            feedbackKeyphraseList = (ArrayList<KeyPhrase>) originalKeyphraseListFull;
+            realKeyphraseList = feedbackKeyphraseList;
+        }
+        // In RAKE, only use Word Nodes
+        else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE) {
+            feedbackKeyphraseList = new ArrayList<>();
+            realKeyphraseList = new ArrayList<>();
+            for (KeyPhrase keyphrase : originalKeyphraseListFull) {
+                RakeNode rakeNode = (RakeNode) keyphrase.getNode();
+                if (rakeNode.type == RakeNodeType.WORD) {
+                    feedbackKeyphraseList.add(keyphrase);
+                }
+                else if (rakeNode.type == RakeNodeType.KEYWORD) {
+                    realKeyphraseList.add(keyphrase);
+                }
+            }
+        }
+        else {
+            feedbackKeyphraseList = null;
+            realKeyphraseList = null;
+        }
+        originalKeyphraseList = realKeyphraseList;
+    }
+    
+    /**
+     * Step 2 of RankUp: set the features of the keyphrases extracted in step 1.
+     * @param abs
+     * @throws Exception 
+     */
+    public void setKeyPhraseFeatures(Abstract abs) throws Exception {
+        
+        logger.info("2. Setting keyphrase features...");
+        setKeyPhraseFeatures(feedbackKeyphraseList, abs, false);
+    }
+    
+    /**
+     * Steps 3 to 5 of RankUp: assign the keyphrase sets, detect errors and
+     * correct them through error feedback. Requires steps 1 and 2.
+     * @param abs
+     * @param printGephiGraphs
+     * @param keywordExtractor
+     * @return the keyphrases sorted by their final score
+     * @throws Exception 
+     */
+    public List<KeyPhrase> performErrorFeedback(
+            Abstract abs,
+            boolean printGephiGraphs,
+            GraphBasedKeywordExtractor keywordExtractor) throws Exception {
+        
+        // 3. Assign keyphrase sets
+        logger.info("3. Assigning keyphrase sets...");
+        keyPhraseGraph = new KeyPhraseGraph(
+                feedbackKeyphraseList,
+                rankUpProperties.setAssignmentApproach,
+                rankUpProperties.featureLowerBound,
+                rankUpProperties.featureUpperBound,
+                PhraseFeatures.getFeatureFromErrorDetectingApproach(
+                        rankUpProperties.errorDetectingApproach));
+
+        // 4. Assign expected scores (3.3 Detect Errors)
+        logger.info("4. Assigning expected scores...");
+        ErrorDetector.assignExpectedScores(keyPhraseGraph,
+                rankUpProperties.expectedScoreValue, MINMAX_MID_BUG_FIX);
+
+        // Print Feature Sets
+        PhraseFeatures.Feature feature = 
+                PhraseFeatures.getFeatureFromErrorDetectingApproach(
+                        rankUpProperties.errorDetectingApproach);
+        logger.debug("**** Initial " + feature + " Sets ****");
+        keyPhraseGraph.printFeatureSet(SetLevel.LOW);
+        keyPhraseGraph.printFeatureSet(SetLevel.MID);
+        keyPhraseGraph.printFeatureSet(SetLevel.HIGH);
+        
+        // 5. Perform error Feedback (3.4 Error Feedback)
+        logger.info("5. Performing error feedback...");
+        if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
+            errorCorrectorIterations = TextRankErrorCorrector.performErrorFeedback(
+                    abs,
+                    keyPhraseGraph, 
+                    abs.getTextRankContext(),
+                    rankUpProperties.useWholeTextRankGraph, 
+                    rankUpProperties.learningRate,
+                    rankUpProperties.standardErrorThreshold,
+                    rankUpProperties.convergenceScheme, 
+                    rankUpProperties.convergenceRule,
+                    rankUpProperties.revertGraphs,
+                    printGephiGraphs,
+                    CORRECT_NEGATIVE_WEIGHTS,
+                    DENORMALIZE_MODIFICATION_VALUE,
+                    USE_DIFFERENTIAL_CONVERGENCE,
+                    rankUpProperties.incrementalReranking);
+        }
+        else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE){
+            errorCorrectorIterations = RakeErrorCorrector.performErrorFeedback(
+                    abs,
+                    realKeyphraseList,
+                    keyPhraseGraph, 
+                    keywordExtractor.rake,
+                    rankUpProperties.learningRate,
+                    rankUpProperties.standardErrorThreshold,
+                    rankUpProperties.convergenceScheme, 
+                    rankUpProperties.convergenceRule,
+                    rankUpProperties.revertGraphs,
+                    printGephiGraphs,
+                    CORRECT_NEGATIVE_WEIGHTS);
+        }
+        
+        // Sort keyphrases
+        List<KeyPhrase> rankUpKeyphrases = null;
+        if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.TEXTRANK) {
+            rankUpKeyphrases = keyPhraseGraph.getSortedKeyphrases();
+        }
+        else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE) {
+            rankUpKeyphrases = getSortedKeyphrases(realKeyphraseList);
+        }
+        
+        logger.debug("**** Final " + feature + " Sets ****");
+        keyPhraseGraph.printFeatureSet(SetLevel.LOW);
+        keyPhraseGraph.printFeatureSet(SetLevel.MID);
+        keyPhraseGraph.printFeatureSet(SetLevel.HIGH);
+        
+        return rankUpKeyphrases;
+    }
+    
+    /**
+     * Step 6 of RankUp: remove stop phrases and subphrases from the final
+     * keyphrases.
+     * @param abs
+     * @param rankUpKeyphrases
+     * @return
+     * @throws Exception 
+     */
+    public List<KeyPhrase> applyPostprocessing(Abstract abs, List<KeyPhrase> rankUpKeyphrases) 
+            throws Exception {
+        
+        logger.info("6. Applying Postprocessing...");
+        return postProcessKeyphrases(rankUpKeyphrases, abs);  // Full post-processing
+    }
+    
     /**
      * Get the original set of keyphrases extracted by the base extraction algorithm.
      * @return
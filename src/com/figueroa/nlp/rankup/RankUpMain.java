@@ -6,10 +6,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.log4j.Logger;
@@ -96,17 +99,21 @@ public class RankUpMain {
     
     // POSTagger and Lemmatizer
     private Lemmatizer lemmatizer;
+    private final POSTagger posTagger;
+    
+    // Stopwords
+    private final Stopwords stopwords;
 
     // TextRank tools
     private TextRank textRank;
     
-    // Python and RAKE tools
+    // RAKE tools (the stopword list of the original Python implementation).
+    // Each run uses its own instance (see Rake.newInstance())
     private static Rake rake;
     public final static String PYTHON_RESOURCES_PATH = 
     		NLPMain.RESOURCES_PATH + "python";
 
     // RankUp-specific
-    private static RankUp rankUp;
     public final static String RANKUP_RESOURCES_PATH = NLPMain.RESOURCES_PATH + 
     		"rankup";
     private final static String RANKUP_PROPERTIES_FILE = RANKUP_RESOURCES_PATH +
@@ -120,7 +127,7 @@ public class RankUpMain {
      * @return singleton instance of RankUpMain
      * @throws Exception
      */
-    public static RankUpMain getRankUpMainInstance(
+    public static synchronized RankUpMain getRankUpMainInstance(
     		TextRank textRank, 
     		Lemmatizer lemmatizer, 
     		POSTagger posTagger, 
@@ -149,6 +156,9 @@ public class RankUpMain {
     	}
     	contextPath = classpath;
     	
+    	this.posTagger = posTagger;
+    	this.stopwords = stopwords;
+    	
         loadComponents(textRank, 
         		lemmatizer, 
         		posTagger);
@@ -171,13 +181,23 @@ public class RankUpMain {
         
         logger.info("***************************************");
         logger.info("");
-
-        rankUp = new RankUp(
+    }
+    
+    /**
+     * Creates a new RankUp instance for a single run.
+     * RankUp keeps the keyphrase graph of the text it is processing, so it
+     * must not be shared between concurrent requests.
+     * @param runRake: the RAKE instance of this run
+     * @return a new RankUp instance
+     * @throws Exception 
+     */
+    private RankUp newRankUp(Rake runRake) throws Exception {
+        return new RankUp(
                     abstractManager, 
                     posTagger, 
                     lemmatizer, 
                     stopwords,
-                    rake,
+                    runRake,
                     rankUpProperties, 
                     allAbstracts, 
                     MINMAX_MID_BUG_FIX,
@@ -211,7 +231,7 @@ public class RankUpMain {
         // Load TextRank
         this.textRank = textRank;
         
-        // Load and set up RAKE
+        // Load RAKE
         rake = new Rake(contextPath + PYTHON_RESOURCES_PATH);
     }
 
@@ -334,7 +354,7 @@ public class RankUpMain {
      * @return
      * @throws Exception 
      */
-    private static List<KeyPhrase> getFeatureKeyphrases(
+    static List<KeyPhrase> getFeatureKeyphrases(
             RankUpProperties rankUpProperties,
             final Feature feature,
             List<KeyPhrase> textRankKeyphrases) throws Exception {
@@ -365,20 +385,65 @@ public class RankUpMain {
         return keyphrases;
     }
     
+    /**
+     * Get the properties (configuration) RankUp runs with.
+     * @return
+     */
+    public RankUpProperties getRankUpProperties() {
+        return rankUpProperties;
+    }
+
+    /**
+     * Creates the Abstract used by RankUp for the given text.
+     * @param text
+     * @return
+     * @throws Exception 
+     */
+    public Abstract newAbstract(String text) throws Exception {
+        return new Abstract(0, text, Type.TESTING, lemmatizer);
+    }
+    
     /**
      * Run RankUp with the corresponding properties and configuration.
-     * @param contextPath
      * @param text
+     * @param rankingMethod
+     * @return the keyphrases ranked by the given method
      */
     public List<KeyPhrase> extractRankUpKeywords(
     		String text, RankingMethod rankingMethod) {
         
         try {
-
-            Abstract abs = new Abstract(0, text, Type.TESTING, lemmatizer);
+            Map<RankingMethod, List<KeyPhrase>> keyphrases = 
+                    extractRankUpKeywords(newAbstract(text), 
+                            Collections.singletonList(rankingMethod));
+            return keyphrases != null ? keyphrases.get(rankingMethod) : null;
+        }
+        catch (Exception e) {
+            logger.error("Exception in RankUp Main: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Run RankUp once for several ranking methods. The stages shared by the
+     * methods (keyword extraction, keyphrase features, etc.) are run only once,
+     * and the Abstract keeps the TextRank context of the run.
+     * @param abs
+     * @param rankingMethods
+     * @return a map of each ranking method to its keyphrases, in the given order
+     */
+    public Map<RankingMethod, List<KeyPhrase>> extractRankUpKeywords(
+    		Abstract abs, Collection<RankingMethod> rankingMethods) {
+        
+        try {
 
             logger.info("Text: " + abs.getOriginalText() + "\n");
             
+            // RAKE keeps the graph and scores of the text it is processing,
+            // so every run gets its own instance
+            Rake runRake = rake.newInstance();
+            
             // Determine keyword extraction method
             GraphBasedKeywordExtractor keywordExtractor;
             if (rankUpProperties.keywordExtractionMethod == null ||
@@ -391,84 +456,46 @@ public class RankUpMain {
             else if (rankUpProperties.keywordExtractionMethod == GraphBasedKeywordExtractionMethod.RAKE) {
                 keywordExtractor = new GraphBasedKeywordExtractor(
                         rankUpProperties,
-                        rake);
+                        runRake);
             }
             else {
                 logger.error("Wrong Keyword Extraction Method");
                 return null;
             }
 
-            // Run RankUp
-            List<KeyPhrase> rankUpKeyphrases = null;
-            List<KeyPhrase> originalKeyphrases = null;
+            // Run only the RankUp stages required by the ranking methods
+            LinkedHashMap<RankingMethod, List<KeyPhrase>> keyphrases = 
+                    new LinkedHashMap<>();
             try {
-                rankUpKeyphrases = 
-                        rankUp.runRankUp(abs, PRINT_GEPHI_GRAPHS, keywordExtractor);
-                originalKeyphrases = rankUp.getOriginalKeyphraseSet();
+                RankUpPipeline pipeline = new RankUpPipeline(
+                        newRankUp(runRake), abs, keywordExtractor, PRINT_GEPHI_GRAPHS);
+                for (RankingMethod rankingMethod : rankingMethods) {
+                    keyphrases.put(rankingMethod, 
+                            pipeline.getKeyphrases(rankingMethod));
+                }
+                logger.debug("Completed stages: " + pipeline.getCompletedStages());
             }
             catch (Exception exception) {
                 logger.error("Exception in runRankUp: " + 
                         exception.getMessage());
                 exception.printStackTrace();
+                return null;
             }
 
-            // Get TFIDF KeyPhrases
-            List<KeyPhrase> tfidfKeyphrases = getFeatureKeyphrases(
-                    rankUpProperties, Feature.TFIDF_STEMMED,
-                    originalKeyphrases);
-
-            // Get RIDF KeyPhrases
-            List<KeyPhrase> ridfKeyphrases = getFeatureKeyphrases(
-                    rankUpProperties, Feature.RIDF_STEMMED,
-                    originalKeyphrases);
-
-
-            // Get Clusteredness KeyPhrases
-            List<KeyPhrase> clusterednessKeyphrases = getFeatureKeyphrases(
-                    rankUpProperties, Feature.CLUSTEREDNESS_STEMMED,
-                    originalKeyphrases);
-
-            // Get RAKE KeyPhrases
-            List<KeyPhrase> rakeKeyphrases= getFeatureKeyphrases(
-                    rankUpProperties, Feature.RAKE_STEMMED,
-                    originalKeyphrases);
-
-            // Print TextRank KeyPhrases
-            printKeyPhrases(originalKeyphrases, 
-                    rankUpProperties.keywordExtractionMethod.toString());
-            
-            // Print RankUp KeyPhrases into database
-            printKeyPhrases(rankUpKeyphrases, "RankUp");
+            // Print the requested KeyPhrases
+            if (keyphrases.containsKey(RankingMethod.TEXTRANK)) {
+                printKeyPhrases(keyphrases.get(RankingMethod.TEXTRANK), 
+                        rankUpProperties.keywordExtractionMethod.toString());
+            }
+            if (keyphrases.containsKey(RankingMethod.RANKUP)) {
+                printKeyPhrases(keyphrases.get(RankingMethod.RANKUP), "RankUp");
+            }
 
             logger.info("");
             logger.info("RankUp completed for this text!");
             logger.info("");
             
-            switch (rankingMethod) {
-	            case RANKUP:
-	            	//return rankUp.getSortedKeyphrases(rankUpKeyphrases);
-	            	return rankUpKeyphrases;
-	            case TEXTRANK:
-	            	return originalKeyphrases;
-	            case RAKE:
-	            	return rakeKeyphrases;
-	            case TFIDF:
-	            	return tfidfKeyphrases;
-	            case RIDF:
-	            	return ridfKeyphrases;
-	            case CLUSTEREDNESS:
-	            	return clusterednessKeyphrases;
-	            default:
-	            	return null;
-            }
-        }
-        catch (FileNotFoundException fnfe) {
-            logger.error("Properties file not found! " + fnfe.getMessage());
-            return null;
-        }
-        catch (IOException ioe) {
-            logger.error("IO Exception! " + ioe.getMessage());
-            return null;
+            return keyphrases;
         }
         catch (Exception e) {
             logger.error("Exception in RankUp Main: " + e.getMessage());
@@ -0,0 +1,178 @@
+package com.figueroa.nlp.rankup;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.figueroa.nlp.KeyPhrase;
+import com.figueroa.nlp.KeyPhrase.RankingMethod;
+import com.figueroa.util.Abstract;
+
+/**
+ * A lazily executed RankUp pipeline for a single text.
+ * Not every RankingMethod needs the whole RankUp algorithm: the original
+ * TextRank (or RAKE) ranking only needs the keyphrase extraction, and the
+ * feature rankings (TFIDF, RIDF, Clusteredness, RAKE) only need the keyphrase
+ * features on top of it. The error feedback loop is only needed by RankUp.
+ * The pipeline plans the minimal set of stages for the requested ranking and
+ * runs each stage at most once, the first time it is needed.
+ */
+public class RankUpPipeline {
+
+	private static final Logger logger = Logger.getLogger(RankUpPipeline.class);
+
+    /**
+     * The stages of RankUp, in execution order. Every stage requires all
+     * the stages before it.
+     */
+    public static enum Stage {
+        EXTRACTION,         // 1. Base keyword extraction
+        FEATURES,           // 2. Keyphrase features
+        ERROR_FEEDBACK,     // 3. - 5. Keyphrase sets, error detection and feedback
+        POSTPROCESSING      // 6. Removal of stop phrases and subphrases
+    }
+
+    private final RankUp rankUp;
+    private final Abstract abs;
+    private final GraphBasedKeywordExtractor keywordExtractor;
+    private final boolean printGephiGraphs;
+
+    private final EnumSet<Stage> completedStages = EnumSet.noneOf(Stage.class);
+    private List<KeyPhrase> originalKeyphrases = null;
+    private List<KeyPhrase> rankUpKeyphrases = null;
+
+    /**
+     * Creates a pipeline for the given text. No stage is run until a
+     * ranking is requested.
+     * @param rankUp: a RankUp instance used only by this pipeline
+     * @param abs
+     * @param keywordExtractor
+     * @param printGephiGraphs
+     */
+    public RankUpPipeline(
+            RankUp rankUp,
+            Abstract abs,
+            GraphBasedKeywordExtractor keywordExtractor,
+            boolean printGephiGraphs) {
+
+        this.rankUp = rankUp;
+        this.abs = abs;
+        this.keywordExtractor = keywordExtractor;
+        this.printGephiGraphs = printGephiGraphs;
+    }
+
+    /**
+     * Get the last stage required to produce the given ranking.
+     * @param rankingMethod
+     * @param rankUpProperties
+     * @return the last required stage
+     */
+    public static Stage getFinalStage(
+            RankingMethod rankingMethod,
+            RankUpProperties rankUpProperties) {
+
+        switch (rankingMethod) {
+            case RANKUP:
+                return rankUpProperties.postprocess ?
+                        Stage.POSTPROCESSING : Stage.ERROR_FEEDBACK;
+            case TEXTRANK:
+                return Stage.EXTRACTION;
+            default:
+                return Stage.FEATURES;
+        }
+    }
+
+    /**
+     * Plan the minimal set of stages required to produce the given ranking.
+     * @param rankingMethod
+     * @param rankUpProperties
+     * @return the required stages
+     */
+    public static EnumSet<Stage> planStages(
+            RankingMethod rankingMethod,
+            RankUpProperties rankUpProperties) {
+
+        return EnumSet.range(Stage.EXTRACTION,
+                getFinalStage(rankingMethod, rankUpProperties));
+    }
+
+    /**
+     * Get the keyphrases ranked by the given method, running only the stages
+     * that it requires and that have not been run yet.
+     * @param rankingMethod
+     * @return the ranked keyphrases
+     * @throws Exception
+     */
+    public List<KeyPhrase> getKeyphrases(RankingMethod rankingMethod) throws Exception {
+
+        EnumSet<Stage> stages = planStages(rankingMethod, rankUp.getRankUpProperties());
+        logger.debug("Stages for " + rankingMethod + ": " + stages);
+        for (Stage stage : stages) {
+            runStage(stage);
+        }
+
+        switch (rankingMethod) {
+            case RANKUP:
+                return rankUpKeyphrases;
+            case TEXTRANK:
+                return originalKeyphrases;
+            case RAKE:
+                return getFeatureKeyphrases(PhraseFeatures.Feature.RAKE_STEMMED);
+            case TFIDF:
+                return getFeatureKeyphrases(PhraseFeatures.Feature.TFIDF_STEMMED);
+            case RIDF:
+                return getFeatureKeyphrases(PhraseFeatures.Feature.RIDF_STEMMED);
+            case CLUSTEREDNESS:
+                return getFeatureKeyphrases(PhraseFeatures.Feature.CLUSTEREDNESS_STEMMED);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Run a single stage if it has not been run yet. The stages before it
+     * must have been run already.
+     * @param stage
+     * @throws Exception
+     */
+    private void runStage(Stage stage) throws Exception {
+
+        if (completedStages.contains(stage)) {
+            return;
+        }
+
+        switch (stage) {
+            case EXTRACTION:
+                rankUp.extractKeyphrases(abs, keywordExtractor);
+                originalKeyphrases = rankUp.getOriginalKeyphraseSet();
+                break;
+            case FEATURES:
+                rankUp.setKeyPhraseFeatures(abs);
+                break;
+            case ERROR_FEEDBACK:
+                rankUpKeyphrases = rankUp.performErrorFeedback(
+                        abs, printGephiGraphs, keywordExtractor);
+                break;
+            case POSTPROCESSING:
+                rankUpKeyphrases = rankUp.applyPostprocessing(abs, rankUpKeyphrases);
+                break;
+        }
+
+        completedStages.add(stage);
+    }
+
+    private List<KeyPhrase> getFeatureKeyphrases(PhraseFeatures.Feature feature)
+            throws Exception {
+        return RankUpMain.getFeatureKeyphrases(
+                rankUp.getRankUpProperties(), feature, originalKeyphrases);
+    }
+
+    /**
+     * Get the stages that have been run so far.
+     * @return
+     */
+    public EnumSet<Stage> getCompletedStages() {
+        return EnumSet.copyOf(completedStages);
+    }
+}
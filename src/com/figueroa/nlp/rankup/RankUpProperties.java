@@ -38,6 +38,7 @@ public class RankUpProperties {
     public final ConvergenceRule convergenceRule;
     public final boolean revertGraphs;
     public final GraphBasedKeywordExtractionMethod keywordExtractionMethod;
+    public final boolean incrementalReranking;
 
     public RankUpProperties(String propertiesFileName, Properties props) 
             throws Exception {
@@ -81,6 +82,8 @@ public class RankUpProperties {
             this.keywordExtractionMethod =
                     GraphBasedKeywordExtractor.getGraphBasedKeywordExtractionMethodFromString(
                             props.getProperty("keyword_extraction_method"));
+            this.incrementalReranking =
+                    Boolean.parseBoolean(props.getProperty("incremental_reranking"));
         }
         catch (NumberFormatException e) {
             throw new Exception("Error parsing properties file!");
@@ -104,7 +107,8 @@ public class RankUpProperties {
 //            WeightUpdatingScheme weightUpdatingScheme,
             ConvergenceRule convergenceRule,
             boolean revertGraphs,
-            GraphBasedKeywordExtractionMethod keywordExtractionMethod) {
+            GraphBasedKeywordExtractionMethod keywordExtractionMethod,
+            boolean incrementalReranking) {
 
             this.propertiesFileName = propertiesFileName;
             this.abstractSource = abstractSource;
@@ -123,6 +127,7 @@ public class RankUpProperties {
             this.convergenceRule = convergenceRule;
             this.revertGraphs = revertGraphs;
             this.keywordExtractionMethod = keywordExtractionMethod;
+            this.incrementalReranking = incrementalReranking;
     }
 
     @Override
@@ -144,7 +149,8 @@ public class RankUpProperties {
 //        string += "WEIGHT_UPDATING_SCHEME = " + weightUpdatingScheme + "\n";
         string += "CONVERGENCE_RULE = " + convergenceRule + "\n";
         string += "REVERT_GRAPHS = " + revertGraphs + "\n";
-        string += "KEYWORD_EXTRACTION_METHOD = " + keywordExtractionMethod;
+        string += "KEYWORD_EXTRACTION_METHOD = " + keywordExtractionMethod + "\n";
+        string += "INCREMENTAL_RERANKING = " + incrementalReranking;
 
         return string;
     }
@@ -2,6 +2,7 @@ package com.figueroa.nlp.rankup;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.TreeSet;
 import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 
@@ -9,7 +10,7 @@ import com.figueroa.nlp.KeyPhrase;
 import com.figueroa.nlp.Node;
 import com.figueroa.nlp.textrank.MetricVector;
 import com.figueroa.nlp.textrank.NGram;
-import com.figueroa.nlp.textrank.TextRank;
+import com.figueroa.nlp.textrank.TextRankContext;
 import com.figueroa.nlp.textrank.TextRankGraph;
 import com.figueroa.util.Abstract;
 
@@ -45,18 +46,15 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             }
             // If the node is not in the expected score list
             else {
-                for (Node edgeNode : graphNode.getEdges().keySet()) {
+                for (int edge = 0; edge < graphNode.getEdgeCount(); edge++) {
 
+                    Node edgeNode = graphNode.getEdgeNode(edge);
                     double d_k = edgeNode.get_d_j();
-                    double w_jk = graphNode.getEdges().get(edgeNode);
 
                     // Calculate normalized w_jk
-                    double denominator = 0.0;
-                    for (double weight : edgeNode.getEdges().values()) {
-                        denominator += weight;
-                    }
-                    double normalized_w_jk = edgeNode.getEdges().get(graphNode) /
-                            denominator;
+                    double denominator = edgeNode.getEdgeWeightSum();
+                    double normalized_w_jk = edgeNode.getEdgeWeight(
+                            edgeNode.indexOfEdge(graphNode)) / denominator;
 
                     d_j += d_k * normalized_w_jk;
                     //d_j += d_k * w_jk;
@@ -104,18 +102,15 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             }
             // If the node is not in the expected score list
             else {
-                for (Node edgeNode : graphNode.getEdges().keySet()) {
+                for (int edge = 0; edge < graphNode.getEdgeCount(); edge++) {
 
+                    Node edgeNode = graphNode.getEdgeNode(edge);
                     double d_k = edgeNode.get_d_j();
-                    double w_jk = graphNode.getEdges().get(edgeNode);
 
                     // Calculate normalized w_jk
-                    double denominator = 0.0;
-                    for (double weight : edgeNode.getEdges().values()) {
-                        denominator += weight;
-                    }
-                    double normalized_w_jk = edgeNode.getEdges().get(graphNode) /
-                            denominator;
+                    double denominator = edgeNode.getEdgeWeightSum();
+                    double normalized_w_jk = edgeNode.getEdgeWeight(
+                            edgeNode.indexOfEdge(graphNode)) / denominator;
 
                     d_j += d_k * normalized_w_jk;
                     //d_j += d_k * w_jk;
@@ -143,7 +138,7 @@ public class TextRankErrorCorrector extends ErrorCorrector {
 
     // Modify each edge weight in the graph (Step 2)
     // New version (using whole TR graph)
-    private static void modifyEdgeWeights(
+    private static Set<Node> modifyEdgeWeights(
             TextRankGraph textRankGraph, double learningRate, boolean correctNegativeWeights,
             boolean denormalizeModificationValue) 
             throws Exception {
@@ -155,15 +150,15 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             // Calculate denormalization denominator
             double denormalizationDenominator = 0;
             if (denormalizeModificationValue) {
-                for (Node edgeNode : graphNode.getEdges().keySet()) {
-                    denormalizationDenominator += graphNode.getEdges().get(edgeNode);
-                }
+                denormalizationDenominator = graphNode.getEdgeWeightSum();
             }
             else {
                 denormalizationDenominator = 1;
             }
             
-            for (Node edgeNode : graphNode.getEdges().keySet()) {
+            for (int edge = 0; edge < graphNode.getEdgeCount(); edge++) {
+
+                Node edgeNode = graphNode.getEdgeNode(edge);
 
                 // Check that edgeNode is still in TextRank TextRankGraph
                 if (textRankGraph.get(edgeNode.key) == null) {
@@ -182,7 +177,7 @@ public class TextRankErrorCorrector extends ErrorCorrector {
                 // Denormalize (if required)
                 delta_normalized_w_ij *= denormalizationDenominator;
 
-                double previousWeight = graphNode.getEdges().get(edgeNode);
+                double previousWeight = graphNode.getEdgeWeight(edge);
                 double newWeight = previousWeight + delta_normalized_w_ij;
 
                 // Construct graphEdge
@@ -208,11 +203,11 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             }
         }
 
-        updateEdgeWeights(textRankGraph, graphEdges, correctNegativeWeights);
+        return updateEdgeWeights(textRankGraph, graphEdges, correctNegativeWeights);
     }
     
     // Modify each edge weight in the graph (Step 2)
-    private static void modifyEdgeWeights(KeyPhraseGraph keyPhraseGraph,
+    private static Set<Node> modifyEdgeWeights(KeyPhraseGraph keyPhraseGraph,
             TextRankGraph textRankGraph, double learningRate, boolean correctNegativeWeights) 
             throws Exception {
 
@@ -222,7 +217,9 @@ public class TextRankErrorCorrector extends ErrorCorrector {
 
             KeyPhrase keyPhraseNode = keyPhraseGraph.get(graphNode.key);
 
-            for (Node edgeNode : graphNode.getEdges().keySet()) {
+            for (int edge = 0; edge < graphNode.getEdgeCount(); edge++) {
+
+                Node edgeNode = graphNode.getEdgeNode(edge);
 
                 // Check that edgeNode is still in TextRank TextRankGraph
                 if (textRankGraph.get(edgeNode.key) == null) {
@@ -241,7 +238,7 @@ public class TextRankErrorCorrector extends ErrorCorrector {
                         TextRankGraph.TEXTRANK_DAMPING_FACTOR *
                         A_i;
 
-                double previousWeight = graphNode.getEdges().get(edgeNode);
+                double previousWeight = graphNode.getEdgeWeight(edge);
                 double newWeight = previousWeight + delta_normalized_w_ij;
 
                 // Construct graphEdge
@@ -267,13 +264,13 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             }
         }
 
-        updateEdgeWeights(textRankGraph, graphEdges, correctNegativeWeights);
+        return updateEdgeWeights(textRankGraph, graphEdges, correctNegativeWeights);
     }
 
     public static int performErrorFeedback(
             Abstract abs,
             KeyPhraseGraph keyPhraseGraph, 
-            TextRank textRank, 
+            TextRankContext textRankContext, 
             boolean useWholeTextRankGraph,
             double learningRate, 
             double standardErrorThreshold,
@@ -284,11 +281,12 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             boolean printGephiGraphs,
             boolean correctNegativeWeights,
             boolean denormalizeModificationValue,
-            boolean useDifferentialConvergence) 
+            boolean useDifferentialConvergence,
+            boolean useIncrementalReranking) 
             throws Exception {
 
         HashMap<NGram, MetricVector> metric_space;
-        TextRankGraph textRankGraph = textRank.getGraph();
+        TextRankGraph textRankGraph = textRankContext.getGraph();
 
         // Modify Edge Weights
         // Either run through N iterations, until the standard
@@ -340,19 +338,28 @@ public class TextRankErrorCorrector extends ErrorCorrector {
             }
 
             // Step 2: Modify edge weights
+            Set<Node> changedNodes;
             if (useWholeTextRankGraph) {
-                modifyEdgeWeights(textRankGraph, learningRate, correctNegativeWeights,
-                        denormalizeModificationValue);
+                changedNodes = modifyEdgeWeights(textRankGraph, learningRate, 
+                        correctNegativeWeights, denormalizeModificationValue);
             }
             else {
-                modifyEdgeWeights(keyPhraseGraph, textRankGraph, learningRate, correctNegativeWeights);
+                changedNodes = modifyEdgeWeights(keyPhraseGraph, textRankGraph, 
+                        learningRate, correctNegativeWeights);
             }
 
-            // Step 3: Rerun TextRank
-            textRankGraph.runTextRank(false);
+            // Step 3: Rerun TextRank (incrementally, from the nodes whose edges 
+            // changed, or with the solver options of the original run)
+            if (useIncrementalReranking) {
+                textRankGraph.rerank(changedNodes, 
+                        TextRankGraph.INCREMENTAL_TOLERANCE, false);
+            }
+            else {
+                textRankGraph.runTextRank(textRankContext.getSolverOptions(), false);
+            }
 
             // Step 4: Recalculate Metrics
-            metric_space = textRank.calculateMetrics();
+            metric_space = textRankContext.calculateMetrics();
             
             // Step 5: Map metric vectors with RankUp keyphrase nodes
             Collection<MetricVector> metricVectorCollection = metric_space.values();
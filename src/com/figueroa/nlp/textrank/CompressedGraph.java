@@ -0,0 +1,256 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.figueroa.nlp.Node;
+
+/**
+ * A frozen copy of a graph in compressed sparse row (CSR) layout, used to
+ * iterate the TextRank formula over primitive arrays.
+ * Each node gets an int id. The row of a node lists the nodes adjacent to it
+ * (targets) together with the normalized weight of each edge, i.e. the weight
+ * of the edge from the adjacent node divided by the sum of the weights of all
+ * the edges of the adjacent node. The normalized weights are computed once
+ * here, instead of in every iteration.
+ * The ranked nodes get the ids 0..nodeCount-1. Adjacent nodes that are not
+ * ranked (i.e. not in the given node list) get the following ids; their rank
+ * is used as it is, but never updated.
+ * The graph is not updated if the nodes or their edges change afterwards.
+ */
+public class CompressedGraph {
+
+    private final Node[] nodes;
+    private final int nodeCount;
+    private final int[] offsets; // Row i spans [offsets[i], offsets[i + 1])
+    private final int[] targets;
+    private final double[] weights;
+    private final IdentityHashMap<Node, Integer> ids;
+
+    // Transpose (columns), built on demand: the rows that refer to each ranked node
+    private int[] column_offsets = null;
+    private int[] column_rows = null;
+    private double[] column_weights = null;
+
+    /**
+     * Freezes the given nodes and their edges.
+     * @param rankedNodes: the nodes whose ranks are calculated
+     */
+    public CompressedGraph(Node[] rankedNodes) {
+
+        nodeCount = rankedNodes.length;
+
+        // Assign ids: ranked nodes first, then the adjacent nodes outside the list
+        ids = new IdentityHashMap<>();
+        int edgeCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            ids.put(rankedNodes[i], i);
+        }
+        int id = nodeCount;
+        for (Node node : rankedNodes) {
+            for (int edge = 0; edge < node.getEdgeCount(); edge++) {
+                Node edgeNode = node.getEdgeNode(edge);
+                if (!ids.containsKey(edgeNode)) {
+                    ids.put(edgeNode, id++);
+                }
+                edgeCount++;
+            }
+        }
+        nodes = new Node[id];
+        for (Map.Entry<Node, Integer> entry : ids.entrySet()) {
+            nodes[entry.getValue()] = entry.getKey();
+        }
+
+        // Sum of the edge weights of each node (the normalization denominator)
+        double[] edgeWeightSums = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            edgeWeightSums[i] = nodes[i].getEdgeWeightSum();
+        }
+
+        // Rows, in the iteration order of the edges of each node
+        offsets = new int[nodeCount + 1];
+        targets = new int[edgeCount];
+        weights = new double[edgeCount];
+        int e = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = rankedNodes[i];
+            offsets[i] = e;
+            for (int edge = 0; edge < node.getEdgeCount(); edge++) {
+                Node edgeNode = node.getEdgeNode(edge);
+                int target = ids.get(edgeNode);
+                targets[e] = target;
+                weights[e] = edgeNode.getEdgeWeight(edgeNode.indexOfEdge(node)) /
+                        edgeWeightSums[target];
+                e++;
+            }
+        }
+        offsets[nodeCount] = e;
+    }
+
+    /**
+     * Get the id of a node.
+     * @param node
+     * @return the id, or -1 if the node is neither ranked nor adjacent to
+     * a ranked node
+     */
+    public int getId(Node node) {
+        Integer id = ids.get(node);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Get the ids of the ranked nodes adjacent to a ranked node.
+     * @param id
+     * @return
+     */
+    public int[] getAdjacentIds(int id) {
+        int count = 0;
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            if (targets[e] < nodeCount) {
+                count++;
+            }
+        }
+        int[] adjacentIds = new int[count];
+        int j = 0;
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            if (targets[e] < nodeCount) {
+                adjacentIds[j++] = targets[e];
+            }
+        }
+        return adjacentIds;
+    }
+
+    /**
+     * Get the number of ranked nodes.
+     * @return
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of ranked nodes plus the number of adjacent nodes that
+     * are not ranked, i.e. the length of a rank array.
+     * @return
+     */
+    public int getTotalNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Get the number of edges (row entries) of the ranked nodes.
+     * @return
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Get the current ranks of the nodes, indexed by id.
+     * @return a new rank array
+     */
+    public double[] getRanks() {
+        double[] ranks = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            ranks[i] = nodes[i].getRank();
+        }
+        return ranks;
+    }
+
+    /**
+     * Set the ranks of the ranked nodes.
+     * @param ranks: a rank array indexed by id
+     */
+    public void setRanks(double[] ranks) {
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].setRank(ranks[i]);
+        }
+    }
+
+    /**
+     * Get the sum of the ranks of the nodes adjacent to a node, weighted by
+     * the normalized edge weights (the TextRank formula before damping).
+     * @param id: the id of a ranked node
+     * @param ranks: the ranks of all the nodes, indexed by id
+     * @return the weighted rank sum
+     */
+    public double getWeightedRankSum(int id, double[] ranks) {
+        double sum = 0.0D;
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            sum += weights[e] * ranks[targets[e]];
+        }
+        return sum;
+    }
+
+    /**
+     * Propagate a rank change of a ranked node to the residuals of the rows
+     * that refer to it (push-style update), using the transpose of the graph.
+     * @param id: the id of the ranked node whose rank changed
+     * @param change: the change of its rank, times the damping factor
+     * @param residuals: the residuals of the ranked nodes, indexed by id
+     * @param changed_rows: receives the ids of the updated rows
+     * @return the number of updated rows
+     */
+    public int pushChange(int id, double change, double[] residuals, int[] changed_rows) {
+        if (column_offsets == null) {
+            transpose();
+        }
+        int count = 0;
+        for (int e = column_offsets[id]; e < column_offsets[id + 1]; e++) {
+            final int row = column_rows[e];
+            residuals[row] += column_weights[e] * change;
+            changed_rows[count++] = row;
+        }
+        return count;
+    }
+
+    /**
+     * Get the maximum number of rows that refer to a single ranked node.
+     * @return
+     */
+    public int getMaxColumnSize() {
+        if (column_offsets == null) {
+            transpose();
+        }
+        int max = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            max = Math.max(max, column_offsets[i + 1] - column_offsets[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Build the transpose of the rows of the ranked nodes, restricted to
+     * ranked targets.
+     */
+    private void transpose() {
+
+        final int[] counts = new int[nodeCount + 1];
+        for (int e = 0; e < targets.length; e++) {
+            if (targets[e] < nodeCount) {
+                counts[targets[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            counts[i + 1] += counts[i];
+        }
+
+        final int[] rows = new int[counts[nodeCount]];
+        final double[] column_weights = new double[counts[nodeCount]];
+        final int[] next = counts.clone();
+        for (int row = 0; row < nodeCount; row++) {
+            for (int e = offsets[row]; e < offsets[row + 1]; e++) {
+                final int target = targets[e];
+                if (target < nodeCount) {
+                    rows[next[target]] = row;
+                    column_weights[next[target]] = weights[e];
+                    next[target]++;
+                }
+            }
+        }
+
+        this.column_rows = rows;
+        this.column_weights = column_weights;
+        this.column_offsets = counts;
+    }
+}
@@ -59,6 +59,8 @@ public class LanguageEnglish extends LanguageModel {
     public static Tokenizer tokenizer_en = null;
     public static ParserTagger tagger_en = null;
     public static englishStemmer stemmer_en = null;
+    // The OpenNLP models and the Snowball stemmer keep internal state
+    // between calls, so shared instances are guarded by their own monitors
 
     /**
      * Constructor. Not quite a Singleton pattern but close enough
@@ -95,7 +97,9 @@ public class LanguageEnglish extends LanguageModel {
      */
     @Override
 	public String[] splitParagraph(final String text) {
-        return splitter_en.markupRawText(2, text).split("\\n");
+        synchronized (splitter_en) {
+            return splitter_en.markupRawText(2, text).split("\\n");
+        }
 
         /** /
         return splitter_en.sentDetect(text);
@@ -107,7 +111,10 @@ public class LanguageEnglish extends LanguageModel {
      */
     @Override
 	public String[] tokenizeSentence(final String text) {
-        final String[] token_list = tokenizer_en.tokenize(text);
+        final String[] token_list;
+        synchronized (tokenizer_en) {
+            token_list = tokenizer_en.tokenize(text);
+        }
 
         for (int i = 0; i < token_list.length; i++) {
             token_list[i] = token_list[i].replace("\"", "").toLowerCase().trim();
@@ -121,7 +128,10 @@ public class LanguageEnglish extends LanguageModel {
      */
     @Override
 	public String[] tagTokens(final String[] token_list) {
-        final Sequence[] sequences = tagger_en.topKSequences(token_list);
+        final Sequence[] sequences;
+        synchronized (tagger_en) {
+            sequences = tagger_en.topKSequences(token_list);
+        }
         final String[] tag_list = new String[token_list.length];
 
         int i = 0;
@@ -172,9 +182,11 @@ public class LanguageEnglish extends LanguageModel {
      */
     @Override
 	public String stemToken(final String token) {
-        stemmer_en.setCurrent(token);
-        stemmer_en.stem();
+        synchronized (stemmer_en) {
+            stemmer_en.setCurrent(token);
+            stemmer_en.stem();
 
-        return stemmer_en.getCurrent();
+            return stemmer_en.getCurrent();
+        }
     }
 }
@@ -59,6 +59,8 @@ public class LanguageSpanish extends LanguageModel {
     public static Tokenizer tokenizer_es = null;
     public static PosTagger tagger_es = null;
     public static spanishStemmer stemmer_es = null;
+    // The OpenNLP models and the Snowball stemmer keep internal state
+    // between calls, so shared instances are guarded by their own monitors
 
     /**
      * Constructor. Not quite a Singleton pattern but close enough
@@ -93,7 +95,9 @@ public class LanguageSpanish extends LanguageModel {
      */
     @Override
 	public String[] splitParagraph(final String text) {
-        return splitter_es.sentDetect(text);
+        synchronized (splitter_es) {
+            return splitter_es.sentDetect(text);
+        }
     }
 
     /**
@@ -101,7 +105,9 @@ public class LanguageSpanish extends LanguageModel {
      */
     @Override
 	public String[] tokenizeSentence(final String text) {
-        return tokenizer_es.tokenize(text);
+        synchronized (tokenizer_es) {
+            return tokenizer_es.tokenize(text);
+        }
     }
 
     /**
@@ -109,7 +115,9 @@ public class LanguageSpanish extends LanguageModel {
      */
     @Override
 	public String[] tagTokens(final String[] token_list) {
-        return tagger_es.tag(token_list);
+        synchronized (tagger_es) {
+            return tagger_es.tag(token_list);
+        }
     }
 
     /**
@@ -150,9 +158,11 @@ public class LanguageSpanish extends LanguageModel {
      */
     @Override
 	public String stemToken(final String token) {
-        stemmer_es.setCurrent(token);
-        stemmer_es.stem();
+        synchronized (stemmer_es) {
+            stemmer_es.setCurrent(token);
+            stemmer_es.stem();
 
-        return stemmer_es.getCurrent();
+            return stemmer_es.getCurrent();
+        }
     }
 }
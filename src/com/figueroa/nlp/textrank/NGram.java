@@ -32,7 +32,6 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.figueroa.nlp.textrank;
 
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -52,7 +51,8 @@ public class NGram extends NodeValue implements Comparable<NGram> {
      * Public members.
      */
     public HashSet<TextRankNode> nodes = new HashSet<TextRankNode>();
-    public HashSet<Context> contexts = new HashSet<Context>();
+    public Context first_context = null; // The first occurrence
+    public int count = 0; // The number of occurrences
     public int length = 0;
 
     /**
@@ -62,7 +62,8 @@ public class NGram extends NodeValue implements Comparable<NGram> {
         this.text = text;
         this.nodes = nodes;
         this.length = nodes.size();
-        this.contexts.add(context);
+        this.first_context = context;
+        this.count = 1;
     }
 
     /**
@@ -70,7 +71,7 @@ public class NGram extends NodeValue implements Comparable<NGram> {
      * the text.
      */
     public int getCount() {
-        return contexts.size();
+        return count;
     }
 
     /**
@@ -87,8 +88,9 @@ public class NGram extends NodeValue implements Comparable<NGram> {
     public String renderContexts() {
         final StringBuilder sb = new StringBuilder();
 
-        for (Context c : contexts) {
-            sb.append("\n  ").append(c.start).append(": ").append(c.s.text);
+        sb.append("\n  ").append(first_context.start).append(": ").append(first_context.s.text);
+        if (count > 1) {
+            sb.append("\n  (").append(count).append(" occurrences)");
         }
 
         return sb.toString();
@@ -118,41 +120,65 @@ public class NGram extends NodeValue implements Comparable<NGram> {
 
     /**
      * Factory method.
+     * The n-gram is identified by the sequence of the vocabulary ids of its
+     * nodes; its key, text and first context are only built for a new
+     * n-gram, further occurrences are only counted.
+     * @param ngrams
+     * @param s
+     * @param token_span: the indexes of the tokens of the span
+     * @param span_length: the number of tokens of the span
+     * @param node_ids: a buffer of at least span_length ids
+     * @param max_rank
+     * @return the n-gram
+     * @throws Exception 
      */
-    public static NGram buildNGram(final TextRankGraph ngrams, final Sentence s, final LinkedList<Integer> token_span, final double max_rank)
+    public static NGram buildNGram(final TextRankGraph ngrams, final Sentence s, 
+            final int[] token_span, final int span_length, final int[] node_ids, 
+            final double max_rank)
             throws Exception {
-        final HashSet<TextRankNode> nodes = new HashSet<TextRankNode>();
-        final StringBuffer sb_key = new StringBuffer("NGram");
-        final StringBuffer sb_text = new StringBuffer();
+        int length = 0;
 
-        for (int i : token_span) {
+        for (int j = 0; j < span_length; j++) {
+            final int i = token_span[j];
             if (!"".equals(s.token_list[i])) {
-                nodes.add(s.node_list[i]);
-                sb_key.append(s.node_list[i].key);
-                sb_text.append(s.token_list[i]).append(' ');
+                node_ids[length++] = s.node_list[i].id;
             }
         }
 
-        final Context context = new Context(s, token_span.get(0));
-        final String gram_key = sb_key.toString();
+        final Vocabulary vocabulary = ngrams.getVocabulary();
+        final int gram_id = vocabulary.getSequenceId(node_ids, length);
 
-        TextRankNode n = ngrams.get(gram_key);
+        TextRankNode n = gram_id >= 0 ? ngrams.getById(gram_id) : null;
         NGram gram = null;
 
         if (n == null) {
-            gram = new NGram(sb_text.toString().trim(), nodes, context);
+            final HashSet<TextRankNode> nodes = new HashSet<TextRankNode>();
+            final StringBuilder sb_key = new StringBuilder("NGram");
+            final StringBuilder sb_text = new StringBuilder();
+
+            for (int j = 0; j < span_length; j++) {
+                final int i = token_span[j];
+                if (!"".equals(s.token_list[i])) {
+                    nodes.add(s.node_list[i]);
+                    sb_key.append(s.node_list[i].key);
+                    sb_text.append(s.token_list[i]).append(' ');
+                }
+            }
+
+            gram = new NGram(sb_text.toString().trim(), nodes, new Context(s, token_span[0]));
 
             if (!"".equals(gram.text.trim())) {
+                final String gram_key = sb_key.toString();
                 n = TextRankNode.buildNode(ngrams, gram_key, gram);
                 n.setRank(max_rank);
                 gram.setParentNode(n); // SET PARENT NODE
 
-                ngrams.put(gram_key, n);
+                ngrams.putById(vocabulary.internSequence(node_ids, length, gram_key), n);
             }
         }
         else {
             gram = (NGram) n.value;
-            gram.contexts.add(context);
+            gram.count++;
         }
 
         return gram;
@@ -160,27 +186,38 @@ public class NGram extends NodeValue implements Comparable<NGram> {
 
     /**
      * Report the n-grams marked in each sentence.
+     * The spans are scanned over the node list of each sentence with
+     * reusable int buffers.
      */
     public static TextRankGraph collectNGrams(final LanguageModel lang, final List<Sentence> s_list, final double rank_threshold) throws Exception {
         final TextRankGraph ngrams = new TextRankGraph();
-        final LinkedList<Integer> token_span = new LinkedList<Integer>();
+
+        int max_length = 0;
+        for (Sentence s : s_list) {
+            max_length = Math.max(max_length, s.node_list.length);
+        }
+        final int[] token_span = new int[max_length];
+        final int[] node_ids = new int[max_length];
 
         for (Sentence s : s_list) {
+            final TextRankNode[] node_list = s.node_list;
             boolean span_marked = false;
             double max_rank = 0.0D;
+            int span_length = 0;
 
-            token_span.clear();
+            for (int i = 0; i < node_list.length; i++) {
+                final TextRankNode node = node_list[i];
 
-            for (int i = 0; i < s.node_list.length; i++) {
-                if (s.node_list[i] == null) {
+                if (node == null) {
                     // evaluate the accumulated token span, after
                     // reaching a phrase boundary
 
-                    if (span_marked && (token_span.size() > 0)) {
-                        if ((token_span.size() > 1)
+                    if (span_marked && (span_length > 0)) {
+                        if ((span_length > 1)
                                 || ((max_rank >= rank_threshold)
-                                && lang.isNoun(((KeyWord) s.node_list[token_span.get(0)].value).pos))) {
-                            final NGram gram = buildNGram(ngrams, s, token_span, max_rank);
+                                && lang.isNoun(((KeyWord) node_list[token_span[0]].value).pos))) {
+                            final NGram gram = buildNGram(ngrams, s, 
+                                    token_span, span_length, node_ids, max_rank);
 
                             if (LOG.isDebugEnabled()) {
                                 LOG.debug("emit: " + gram.text + " @ " + gram.getCount() + " span " + gram.length);
@@ -190,15 +227,15 @@ public class NGram extends NodeValue implements Comparable<NGram> {
 
                     // reset the span
 
-                    token_span.clear();
+                    span_length = 0;
                     span_marked = false;
                     max_rank = 0.0D;
                 }
                 else {
                     // keep widening the token span
-                    token_span.add(i);
-                    span_marked = span_marked || s.node_list[i].marked;
-                    max_rank = Math.max(max_rank, s.node_list[i].getRank());
+                    token_span[span_length++] = i;
+                    span_marked = span_marked || node.marked;
+                    max_rank = Math.max(max_rank, node.getRank());
                 }
             }
         }
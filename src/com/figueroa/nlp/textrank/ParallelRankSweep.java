@@ -0,0 +1,139 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * One Jacobi sweep of the TextRank formula over a range of the nodes of a
+ * CompressedGraph, split recursively across a ForkJoinPool.
+ * Every node reads the ranks of the last sweep and writes its next rank, so
+ * the ranges are independent and the ranks are the same as in a sequential
+ * sweep. The sweep also reduces the statistics of the absolute rank changes
+ * (count, mean and sum of squared deviations, merged pairwise, plus their
+ * sum and maximum) used to test convergence.
+ */
+class ParallelRankSweep extends RecursiveTask<double[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    // Ranges of up to this many nodes are swept by a single task
+    final static int LEAF_SIZE = 1024;
+
+    private final CompressedGraph graph;
+    private final double[] rank_list;
+    private final double[] next_rank_list;
+    private final double damping_factor;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param graph
+     * @param rank_list: the ranks of the last sweep, indexed by id
+     * @param next_rank_list: the array where the next ranks are written
+     * @param damping_factor
+     * @param from: the first node id of the range
+     * @param to: the node id after the last one of the range
+     */
+    ParallelRankSweep(
+            final CompressedGraph graph,
+            final double[] rank_list,
+            final double[] next_rank_list,
+            final double damping_factor,
+            final int from,
+            final int to) {
+
+        this.graph = graph;
+        this.rank_list = rank_list;
+        this.next_rank_list = next_rank_list;
+        this.damping_factor = damping_factor;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @return the statistics of the absolute rank changes of the range:
+     * {count, mean, sum of squared deviations from the mean, sum, maximum}
+     */
+    @Override
+    protected double[] compute() {
+
+        if (to - from <= LEAF_SIZE) {
+            return sweep();
+        }
+
+        final int middle = (from + to) >>> 1;
+        final ParallelRankSweep left = new ParallelRankSweep(
+                graph, rank_list, next_rank_list, damping_factor, from, middle);
+        final ParallelRankSweep right = new ParallelRankSweep(
+                graph, rank_list, next_rank_list, damping_factor, middle, to);
+        left.fork();
+        final double[] right_stats = right.compute();
+        final double[] left_stats = left.join();
+
+        return merge(left_stats, right_stats);
+    }
+
+    private double[] sweep() {
+
+        double count = 0.0D;
+        double mean = 0.0D;
+        double m2 = 0.0D;
+        double sum = 0.0D;
+        double max = 0.0D;
+
+        for (int i = from; i < to; i++) {
+            double rank = graph.getWeightedRankSum(i, rank_list);
+
+            rank *= damping_factor;
+            rank += 1.0D - damping_factor;
+
+            next_rank_list[i] = rank;
+
+            // Welford's update
+            final double change = Math.abs(rank_list[i] - rank);
+            count++;
+            final double delta = change - mean;
+            mean += delta / count;
+            m2 += delta * (change - mean);
+            sum += change;
+            max = Math.max(max, change);
+        }
+
+        return new double[] {count, mean, m2, sum, max};
+    }
+
+    /**
+     * Merge the statistics of two ranges (Chan et al.).
+     * @param a
+     * @param b
+     * @return
+     */
+    static double[] merge(final double[] a, final double[] b) {
+
+        final double count = a[0] + b[0];
+        if (count == 0.0D) {
+            return a;
+        }
+
+        final double delta = b[1] - a[1];
+        final double mean = a[1] + delta * b[0] / count;
+        final double m2 = a[2] + b[2] + delta * delta * a[0] * b[0] / count;
+
+        return new double[] {count, mean, m2, a[3] + b[3], Math.max(a[4], b[4])};
+    }
+
+    /**
+     * Get the standard error of the mean from the reduced statistics, as
+     * standard deviation / sqrt(n) with the bias-corrected deviation.
+     * @param stats
+     * @return
+     */
+    static double getStandardError(final double[] stats) {
+
+        final double count = stats[0];
+        if (count <= 1.0D) {
+            return count == 1.0D ? 0.0D : Double.NaN;
+        }
+
+        return Math.sqrt(stats[2] / (count - 1.0D)) / Math.sqrt(count);
+    }
+}
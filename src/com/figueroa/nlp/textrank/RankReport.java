@@ -0,0 +1,44 @@
+package com.figueroa.nlp.textrank;
+
+/**
+ * Report of a TextRank rank calculation: how many sweeps it ran, its final
+ * residual and why it stopped.
+ */
+public class RankReport {
+
+    public final RankSolverOptions options;
+    public final int nodeCount;
+    public final int iterations;          // For the PUSH solver, the number of node updates
+    public final double residual;
+    public final boolean converged;       // The residual fell below the tolerance
+    public final boolean topKStable;      // The order of the top-k nodes was stable
+    public final boolean parallel;
+
+    public RankReport(
+            RankSolverOptions options,
+            int nodeCount,
+            int iterations,
+            double residual,
+            boolean converged,
+            boolean topKStable,
+            boolean parallel) {
+
+        this.options = options;
+        this.nodeCount = nodeCount;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.converged = converged;
+        this.topKStable = topKStable;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + options + "] nodes: " + nodeCount +
+                ", iterations: " + iterations +
+                ", residual: " + residual +
+                (converged ? ", converged" : "") +
+                (topKStable ? ", top-k stable" : "") +
+                (parallel ? ", parallel" : "");
+    }
+}
@@ -0,0 +1,389 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+import org.apache.log4j.Logger;
+
+import com.figueroa.nlp.textrank.RankSolverOptions.Residual;
+import com.figueroa.nlp.textrank.RankSolverOptions.Solver;
+
+/**
+ * Iterates the TextRank formula over a CompressedGraph with the solver,
+ * residual and stopping rules of the given RankSolverOptions.
+ */
+class RankSolver {
+
+    private static final Logger logger = Logger.getLogger(RankSolver.class);
+
+    // The EXTRAPOLATED solver extrapolates the ranks every this many sweeps
+    final static int EXTRAPOLATION_INTERVAL = 10;
+
+    private final CompressedGraph graph;
+    private final RankSolverOptions options;
+    private final double damping_factor;
+    private final int node_count;
+    private final boolean parallel;
+
+    /**
+     * @param graph
+     * @param options
+     * @param damping_factor
+     */
+    RankSolver(CompressedGraph graph, RankSolverOptions options, double damping_factor) {
+        this.graph = graph;
+        this.options = options;
+        this.damping_factor = damping_factor;
+        this.node_count = graph.getNodeCount();
+
+        // Gauss-Seidel sweeps and pushes are inherently sequential
+        this.parallel = options.solver != Solver.GAUSS_SEIDEL &&
+                options.solver != Solver.PUSH &&
+                node_count >= TextRankGraph.PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Iterate until the residual falls below the tolerance, the order of the
+     * top-k nodes is stable, or the maximum number of iterations is reached.
+     * @param ranks: the initial ranks of all the nodes, indexed by id; the
+     * final ranks are written to it
+     * @param max_iterations
+     * @param dist_stats: filled with the absolute rank changes of each
+     * sequential sweep when the residual is the standard error
+     * @param pool: the pool for parallel sweeps
+     * @param debug
+     * @return the report of the iterations
+     */
+    RankReport solve(
+            final double[] ranks,
+            final int max_iterations,
+            final SummaryStatistics dist_stats,
+            final ForkJoinPool pool,
+            final boolean debug) {
+
+        final boolean extrapolate = options.solver == Solver.EXTRAPOLATED;
+
+        // Rank buffers. Nodes outside the node list keep their rank in all of them.
+        double[] current_rank_list = ranks;
+        double[] next_rank_list =
+                options.solver == Solver.GAUSS_SEIDEL ? ranks : ranks.clone();
+        double[] older_rank_list = extrapolate ? ranks.clone() : null;
+
+        int[] top_k = null;
+        int stable_sweeps = 0;
+
+        int iterations = 0;
+        double residual = Double.NaN;
+        boolean converged = false;
+        boolean top_k_stable = false;
+
+        for (int k = 0; k < max_iterations; k++) {
+            dist_stats.clear();
+
+            residual = sweep(current_rank_list, next_rank_list, dist_stats, pool);
+            iterations++;
+
+            if (debug) {
+                logger.trace("iteration: " + k + " " + options.residual + ": " + residual);
+            }
+
+            if (extrapolate && k >= 2 && (k + 1) % EXTRAPOLATION_INTERVAL == 0) {
+                extrapolate(older_rank_list, current_rank_list, next_rank_list);
+            }
+
+            // swap in new rank values
+            if (next_rank_list != current_rank_list) {
+                final double[] spare = extrapolate ? older_rank_list : current_rank_list;
+                if (extrapolate) {
+                    older_rank_list = current_rank_list;
+                }
+                current_rank_list = next_rank_list;
+                next_rank_list = spare;
+            }
+
+            if (residual < options.tolerance) {
+                converged = true;
+                break;
+            }
+
+            if (options.useTopKExit()) {
+                final int[] next_top_k = getTopK(current_rank_list, options.topK);
+                stable_sweeps = Arrays.equals(top_k, next_top_k) ? stable_sweeps + 1 : 0;
+                top_k = next_top_k;
+                if (stable_sweeps >= options.stableSweeps) {
+                    top_k_stable = true;
+                    break;
+                }
+            }
+        }
+
+        if (current_rank_list != ranks) {
+            System.arraycopy(current_rank_list, 0, ranks, 0, node_count);
+        }
+
+        return new RankReport(options, node_count, iterations, residual,
+                converged, top_k_stable, parallel);
+    }
+
+    /**
+     * Warm-started incremental reranking (PUSH solver): starting from the
+     * current ranks, compute the residuals of the rows affected by a change,
+     * i.e. the difference between the TextRank formula and the current rank
+     * of each changed node and of its adjacent nodes. Then repeatedly apply
+     * the residual of a node to its rank and push the change, times its
+     * normalized edge weight and the damping factor, to the residuals of the
+     * nodes that refer to it, until every residual is below the tolerance.
+     * The work is proportional to the size of the change instead of the size
+     * of the graph, assuming the other ranks had already converged.
+     * @param ranks: the current ranks of all the nodes, indexed by id; the
+     * final ranks are written to it
+     * @param seeds: the ids of the ranked nodes whose edges changed, or null
+     * to compute the residuals of all the nodes
+     * @param max_pushes: the maximum number of node updates
+     * @param debug
+     * @return the report of the updates
+     */
+    RankReport solvePush(
+            final double[] ranks,
+            final int[] seeds,
+            final int max_pushes,
+            final boolean debug) {
+
+        final double tolerance = options.tolerance;
+        final double[] residuals = new double[node_count];
+        final boolean[] queued = new boolean[node_count];
+
+        // FIFO work list; a node is queued at most once at a time
+        final int[] queue = new int[node_count + 1];
+        int head = 0;
+        int tail = 0;
+
+        // Residuals of the affected rows: the changed nodes and their neighbors
+        final boolean[] affected = new boolean[node_count];
+        if (seeds == null) {
+            Arrays.fill(affected, true);
+        }
+        else {
+            for (int seed : seeds) {
+                affected[seed] = true;
+                for (int adjacent : graph.getAdjacentIds(seed)) {
+                    affected[adjacent] = true;
+                }
+            }
+        }
+        for (int i = 0; i < node_count; i++) {
+            if (!affected[i]) {
+                continue;
+            }
+            residuals[i] = damping_factor * graph.getWeightedRankSum(i, ranks) +
+                    1.0D - damping_factor - ranks[i];
+            if (Math.abs(residuals[i]) >= tolerance) {
+                queued[i] = true;
+                queue[tail] = i;
+                tail = (tail + 1) % queue.length;
+            }
+        }
+
+        final int[] changed_rows = new int[Math.max(1, graph.getMaxColumnSize())];
+        int pushes = 0;
+
+        while (head != tail && pushes < max_pushes) {
+            final int i = queue[head];
+            head = (head + 1) % queue.length;
+            queued[i] = false;
+
+            final double change = residuals[i];
+            if (Math.abs(change) < tolerance) {
+                continue;
+            }
+            ranks[i] += change;
+            residuals[i] = 0.0D;
+            pushes++;
+
+            final int count = graph.pushChange(
+                    i, damping_factor * change, residuals, changed_rows);
+            for (int j = 0; j < count; j++) {
+                final int row = changed_rows[j];
+                if (!queued[row] && Math.abs(residuals[row]) >= tolerance) {
+                    queued[row] = true;
+                    queue[tail] = row;
+                    tail = (tail + 1) % queue.length;
+                }
+            }
+        }
+
+        double residual = 0.0D;
+        for (int i = 0; i < node_count; i++) {
+            residual = Math.max(residual, Math.abs(residuals[i]));
+        }
+
+        if (debug) {
+            logger.trace("pushes: " + pushes + " " + options.residual + ": " + residual);
+        }
+
+        return new RankReport(options, node_count, pushes, residual,
+                residual < tolerance, false, false);
+    }
+
+    /**
+     * Run a single sweep, writing the next ranks.
+     * @return the residual of the sweep
+     */
+    private double sweep(
+            final double[] rank_list,
+            final double[] next_rank_list,
+            final SummaryStatistics dist_stats,
+            final ForkJoinPool pool) {
+
+        if (parallel) {
+            final double[] stats = pool.invoke(new ParallelRankSweep(
+                    graph, rank_list, next_rank_list, damping_factor, 0, node_count));
+            switch (options.residual) {
+                case L1:
+                    return stats[3];
+                case L_INF:
+                    return stats[4];
+                default:
+                    return ParallelRankSweep.getStandardError(stats);
+            }
+        }
+
+        // For Gauss-Seidel, rank_list and next_rank_list are the same array
+        final boolean standard_error = options.residual == Residual.STANDARD_ERROR;
+        double l1 = 0.0D;
+        double l_inf = 0.0D;
+
+        for (int i = 0; i < node_count; i++) {
+            double rank = graph.getWeightedRankSum(i, rank_list);
+
+            rank *= damping_factor;
+            rank += 1.0D - damping_factor;
+
+            final double change = Math.abs(rank_list[i] - rank);
+            next_rank_list[i] = rank;
+
+            if (standard_error) {
+                dist_stats.addValue(change);
+            }
+            l1 += change;
+            l_inf = Math.max(l_inf, change);
+        }
+
+        switch (options.residual) {
+            case L1:
+                return l1;
+            case L_INF:
+                return l_inf;
+            default:
+                return dist_stats.getStandardDeviation() / Math.sqrt(dist_stats.getN());
+        }
+    }
+
+    /**
+     * Aitken extrapolation of each rank from its last three values, which
+     * removes the slowest decaying component of the error of the power
+     * iteration. Ranks whose changes are not contracting, or whose
+     * extrapolation is not positive, are left as they are.
+     * @param older_rank_list: the ranks two sweeps ago
+     * @param rank_list: the ranks one sweep ago
+     * @param next_rank_list: the ranks of the last sweep, which are extrapolated
+     */
+    private void extrapolate(
+            final double[] older_rank_list,
+            final double[] rank_list,
+            final double[] next_rank_list) {
+
+        for (int i = 0; i < node_count; i++) {
+            final double step = next_rank_list[i] - rank_list[i];
+            final double previous_step = rank_list[i] - older_rank_list[i];
+
+            // Only extrapolate ranks whose changes are contracting (|ratio| < 1)
+            if (Math.abs(step) >= Math.abs(previous_step)) {
+                continue;
+            }
+
+            final double ratio = step / previous_step;
+            final double rank = next_rank_list[i] + step * ratio / (1.0D - ratio);
+            if (rank > 0.0D) {
+                next_rank_list[i] = rank;
+            }
+        }
+    }
+
+    /**
+     * Get the ids of the k highest-ranked nodes, in rank order (ties are
+     * broken by id). Uses a bounded min-heap, O(n log k).
+     * @param rank_list
+     * @param k
+     * @return
+     */
+    private int[] getTopK(final double[] rank_list, final int k) {
+
+        final int size = Math.min(k, node_count);
+        final int[] heap = new int[size]; // heap[0] is the lowest-ranked of the top k
+        int heap_size = 0;
+
+        for (int i = 0; i < node_count; i++) {
+            if (heap_size < size) {
+                heap[heap_size] = i;
+                siftUp(heap, heap_size++, rank_list);
+            }
+            else if (ranksBelow(heap[0], i, rank_list)) {
+                heap[0] = i;
+                siftDown(heap, heap_size, rank_list);
+            }
+        }
+
+        // Pop the heap from the lowest to the highest rank
+        final int[] top_k = new int[size];
+        for (int j = size - 1; j >= 0; j--) {
+            top_k[j] = heap[0];
+            heap[0] = heap[--heap_size];
+            siftDown(heap, heap_size, rank_list);
+        }
+
+        return top_k;
+    }
+
+    /**
+     * Whether node a ranks below node b.
+     */
+    private static boolean ranksBelow(final int a, final int b, final double[] rank_list) {
+        return rank_list[a] < rank_list[b] || (rank_list[a] == rank_list[b] && a > b);
+    }
+
+    private static void siftUp(final int[] heap, int i, final double[] rank_list) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (!ranksBelow(heap[i], heap[parent], rank_list)) {
+                break;
+            }
+            final int swap = heap[i];
+            heap[i] = heap[parent];
+            heap[parent] = swap;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(final int[] heap, final int heap_size, final double[] rank_list) {
+        int i = 0;
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= heap_size) {
+                break;
+            }
+            int lowest = left;
+            if (left + 1 < heap_size && ranksBelow(heap[left + 1], heap[left], rank_list)) {
+                lowest = left + 1;
+            }
+            if (!ranksBelow(heap[lowest], heap[i], rank_list)) {
+                break;
+            }
+            final int swap = heap[i];
+            heap[i] = heap[lowest];
+            heap[lowest] = swap;
+            i = lowest;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.Properties;
+
+/**
+ * Options of a TextRank rank calculation: the solver, the residual used to
+ * test convergence and its tolerance, and an optional early exit when the
+ * order of the top-k nodes stops changing. The augmented graph of TextRank
+ * (pass 4) can also be reranked incrementally, with the PUSH solver.
+ * The default options reproduce the original algorithm: Jacobi iterations
+ * until the standard error of the rank changes falls below
+ * TextRankGraph.STANDARD_ERROR_THRESHOLD.
+ * The options of the TextRank runs of the application are read from a
+ * properties file (see fromProperties()).
+ */
+public class RankSolverOptions {
+
+    /**
+     * Iterative solvers of the TextRank equations.
+     */
+    public static enum Solver {
+        JACOBI,         // Power iteration: every sweep uses the ranks of the last sweep
+        GAUSS_SEIDEL,   // Every node uses the ranks already updated in the same sweep
+        EXTRAPOLATED,   // Jacobi with periodic Aitken extrapolation of the ranks
+        PUSH            // Push-style residual propagation from a set of changed nodes,
+                        // warm-started from the current ranks (always uses L_INF)
+    }
+
+    /**
+     * Measures of the rank changes of a sweep, compared with the tolerance.
+     */
+    public static enum Residual {
+        STANDARD_ERROR, // Standard error of the mean absolute change (original rule)
+        L1,             // Sum of the absolute changes
+        L_INF           // Maximum absolute change
+    }
+
+    public final static RankSolverOptions DEFAULT = new RankSolverOptions(
+            Solver.JACOBI, Residual.STANDARD_ERROR,
+            TextRankGraph.STANDARD_ERROR_THRESHOLD, 0, 0);
+
+    public final Solver solver;
+    public final Residual residual;
+    public final double tolerance;
+    public final int topK;          // 0 disables the top-k early exit
+    public final int stableSweeps;
+    public final boolean incrementalReranking;
+
+    /**
+     * @param solver
+     * @param residual
+     * @param tolerance: the iterations stop when the residual falls below it
+     * @param topK: the number of top-ranked nodes whose order is watched,
+     * or 0 to run until the residual converges
+     * @param stableSweeps: the iterations stop when the order of the top-k
+     * nodes has not changed for this many sweeps
+     * @param incrementalReranking: whether the augmented graph of TextRank
+     * is reranked with the PUSH solver, from the nodes added or connected in
+     * passes 3-4 (see TextRankGraph.rerank()). It assumes the ranks of pass 2
+     * had converged, so it should be used with a small L_INF tolerance.
+     */
+    public RankSolverOptions(
+            Solver solver,
+            Residual residual,
+            double tolerance,
+            int topK,
+            int stableSweeps,
+            boolean incrementalReranking) {
+
+        this.solver = solver;
+        this.residual = residual;
+        this.tolerance = tolerance;
+        this.topK = topK;
+        this.stableSweeps = stableSweeps;
+        this.incrementalReranking = incrementalReranking;
+    }
+
+    /**
+     * Options without incremental reranking.
+     * @param solver
+     * @param residual
+     * @param tolerance
+     * @param topK
+     * @param stableSweeps
+     */
+    public RankSolverOptions(
+            Solver solver,
+            Residual residual,
+            double tolerance,
+            int topK,
+            int stableSweeps) {
+        this(solver, residual, tolerance, topK, stableSweeps, false);
+    }
+
+    /**
+     * Options with the given solver and residual, and no top-k early exit.
+     * @param solver
+     * @param residual
+     * @param tolerance
+     */
+    public RankSolverOptions(Solver solver, Residual residual, double tolerance) {
+        this(solver, residual, tolerance, 0, 0);
+    }
+
+    /**
+     * Options for the PUSH solver: rank changes are propagated until every
+     * residual is below the tolerance.
+     * @param tolerance
+     * @return
+     */
+    public static RankSolverOptions push(double tolerance) {
+        return new RankSolverOptions(Solver.PUSH, Residual.L_INF, tolerance);
+    }
+
+    /**
+     * Read the options from properties: solver, residual, tolerance, top_k,
+     * stable_sweeps and incremental_reranking. A missing property takes its
+     * default value.
+     * The PUSH solver is not accepted.
+     * @param props
+     * @return
+     * @throws Exception
+     */
+    public static RankSolverOptions fromProperties(Properties props)
+            throws Exception {
+
+        try {
+            final Solver solver = getSolverFromString(
+                    props.getProperty("solver", DEFAULT.solver.toString()));
+            final Residual residual = getResidualFromString(
+                    props.getProperty("residual", DEFAULT.residual.toString()));
+            if (solver == null || residual == null) {
+                throw new Exception("Exception in RankSolverOptions: unknown solver or residual");
+            }
+            if (solver == Solver.PUSH) {
+                // It needs the changed nodes of a graph whose ranks converged
+                throw new Exception("Exception in RankSolverOptions: " +
+                        "PUSH is only used for incremental reranking");
+            }
+
+            return new RankSolverOptions(
+                    solver,
+                    residual,
+                    Double.parseDouble(props.getProperty("tolerance",
+                            String.valueOf(DEFAULT.tolerance))),
+                    Integer.parseInt(props.getProperty("top_k",
+                            String.valueOf(DEFAULT.topK))),
+                    Integer.parseInt(props.getProperty("stable_sweeps",
+                            String.valueOf(DEFAULT.stableSweeps))),
+                    Boolean.parseBoolean(props.getProperty("incremental_reranking",
+                            String.valueOf(DEFAULT.incrementalReranking)).trim()));
+        }
+        catch (NumberFormatException e) {
+            throw new Exception("Exception in RankSolverOptions: " + e.getMessage());
+        }
+    }
+
+    public static Solver getSolverFromString(String solverString) {
+        for (Solver solver : Solver.values()) {
+            if (solverString.trim().equalsIgnoreCase(solver.toString())) {
+                return solver;
+            }
+        }
+        return null;
+    }
+
+    public static Residual getResidualFromString(String residualString) {
+        for (Residual residual : Residual.values()) {
+            if (residualString.trim().equalsIgnoreCase(residual.toString())) {
+                return residual;
+            }
+        }
+        return null;
+    }
+
+    public boolean useTopKExit() {
+        return topK > 0 && stableSweeps > 0 && solver != Solver.PUSH;
+    }
+
+    @Override
+    public String toString() {
+        return solver + ", " + residual + " < " + tolerance +
+                (useTopKExit() ? ", top-" + topK + " stable for " + stableSweeps : "") +
+                (incrementalReranking ? ", incremental reranking" : "");
+    }
+}
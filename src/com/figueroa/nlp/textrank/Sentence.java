@@ -49,6 +49,7 @@ public class Sentence {
      */
     public String text = null;
     public String[] token_list = null;
+    public String[] tag_list = null;
     public TextRankNode[] node_list = null;
     public String md5_hash = null;
 
@@ -90,6 +91,15 @@ public class Sentence {
         return token_list;
     }
 
+    /**
+     * Set the tokens and PoS tags of an already annotated sentence, so
+     * they don't need to be computed again.
+     */
+    public void setAnnotation(final String[] token_list, final String[] tag_list) {
+        this.token_list = token_list;
+        this.tag_list = tag_list;
+    }
+
     /**
      * Accessor for token list.
      */
@@ -118,7 +128,8 @@ public class Sentence {
     public void mapTokens(final LanguageModel lang, final TextRankGraph graph, final Stopwords stopwords) throws Exception {
         // scan each token to determine part-of-speech
 
-        final String[] tag_list = lang.tagTokens(token_list);
+        final String[] tag_list = this.tag_list != null ? 
+                this.tag_list : lang.tagTokens(token_list);
 
         // create nodes for the graph
 
@@ -139,10 +150,9 @@ public class Sentence {
                     token_list[i] = token_list[i].substring(0, token_list[i].length() - 1);
                 }
 
-                final String key = lang.getNodeKey(token_list[i], pos);
-                final KeyWord value = new KeyWord(token_list[i], pos);
-                final TextRankNode n = TextRankNode.buildNode(graph, key, value);
-                value.setParentNode(n); // SET PARENT NODE
+                final int id = graph.getVocabulary().getNodeKeyId(lang, token_list[i], pos);
+                final TextRankNode n = 
+                        TextRankNode.buildKeyWordNode(graph, id, token_list[i], pos);
 
                 // emit nodes to construct the graph
 
@@ -162,7 +172,8 @@ public class Sentence {
     public void mapTokens(final LanguageModel lang, final TextRankGraph graph) throws Exception {
         // scan each token to determine part-of-speech
 
-        final String[] tag_list = lang.tagTokens(token_list);
+        final String[] tag_list = this.tag_list != null ? 
+                this.tag_list : lang.tagTokens(token_list);
 
         // create nodes for the graph
 
@@ -183,10 +194,9 @@ public class Sentence {
                     token_list[i] = token_list[i].substring(0, token_list[i].length() - 1);
                 }
 
-                final String key = lang.getNodeKey(token_list[i], pos);
-                final KeyWord value = new KeyWord(token_list[i], pos);
-                final TextRankNode n = TextRankNode.buildNode(graph, key, value);
-                value.setParentNode(n); // SET PARENT NODE
+                final int id = graph.getVocabulary().getNodeKeyId(lang, token_list[i], pos);
+                final TextRankNode n = 
+                        TextRankNode.buildKeyWordNode(graph, id, token_list[i], pos);
 
                 // emit nodes to construct the graph
 
@@ -31,16 +31,15 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.figueroa.nlp.textrank;
 
+import net.didion.jwnl.JWNLException;
 import net.didion.jwnl.data.POS;
-import net.didion.jwnl.data.IndexWord;
-import net.didion.jwnl.data.Pointer;
-import net.didion.jwnl.data.PointerType;
 import net.didion.jwnl.data.Synset;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.figueroa.nlp.Node;
+import com.figueroa.nlp.WordNetImage;
 
 /**
  * Implements a node value in a TextRank graph denoting a synset in
@@ -61,7 +60,8 @@ public class SynsetLink extends NodeValue {
 
         SYNONYM, HYPERNYM, SIBLING
     }
-    public Synset synset = null;
+    public long offset = 0L;
+    public POS pos = null;
     public TextRankNode parent = null;
     public int hops = 0;
     public MyRelation relation = null;
@@ -69,14 +69,24 @@ public class SynsetLink extends NodeValue {
     /**
      * Constructor.
      */
-    public SynsetLink(final String text, final Synset synset, final TextRankNode parent, final MyRelation relation, final int hops) {
+    public SynsetLink(final String text, final long offset, final POS pos, final TextRankNode parent, final MyRelation relation, final int hops) {
         this.text = text;
-        this.synset = synset;
+        this.offset = offset;
+        this.pos = pos;
         this.parent = parent;
         this.relation = relation;
         this.hops = hops;
     }
 
+    /**
+     * Look up the synset in WordNet.
+     * @return 
+     * @throws JWNLException 
+     */
+    public Synset getSynset() throws JWNLException {
+        return WordNet.getSynset(pos, offset);
+    }
+
     /**
      * Create a description text for this value.
      */
@@ -86,56 +96,85 @@ public class SynsetLink extends NodeValue {
 
         sb.append(relation);
         sb.append('\t');
-        sb.append(synset);
+
+        final WordNetImage image = WordNet.getImage();
+        if (image != null) {
+            sb.append(image.getDescription(pos.getKey().charAt(0), offset));
+            return sb.toString();
+        }
+
+        try {
+            sb.append(getSynset());
+        }
+        catch (JWNLException e) {
+            sb.append(offset);
+        }
 
         return sb.toString();
     }
 
     /**
      * Foo
+     * The neighborhood of the word comes from SynsetNeighborhood, so only
+     * words that have not been cached yet go through the JWNL dictionary.
      */
     public static void addKeyWord(final TextRankGraph subgraph, final TextRankNode n, final String text, final POS pos) throws Exception {
-        final IndexWord iw = WordNet.getLemma(pos, text);
+        addKeyWord(subgraph, n, text, pos, null);
+    }
+
+    /**
+     * Link the neighborhood of the word, with at most the senses, hypernyms
+     * and siblings allowed by the budget (all of them if it is null).
+     */
+    public static void addKeyWord(final TextRankGraph subgraph, final TextRankNode n, final String text, final POS pos, final WordNetBudget budget) throws Exception {
+        final SynsetNeighborhood neighborhood = SynsetNeighborhood.get(pos, text);
+        final int max_senses = (budget == null) ? Integer.MAX_VALUE : budget.maxSenses;
+        final int max_hypernyms = (budget == null) ? Integer.MAX_VALUE : budget.maxHypernyms;
+        final int max_siblings = (budget == null) ? Integer.MAX_VALUE : budget.maxSiblings;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("n: " + n.key + " " + n.getRank() + " " + n.marked + " " + text);
-            LOG.debug(iw);
+            LOG.debug(neighborhood.senses.length + " senses");
         }
 
-        if (iw != null) {
-            for (Synset synset : iw.getSenses()) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("synset: " + synset);
-                }
+        final int sense_end = Math.min(neighborhood.senses.length, max_senses);
 
-                final TextRankNode node_synset = testLink(subgraph, synset, n, MyRelation.SYNONYM, 1);
+        for (int sense = 0; sense < sense_end; sense++) {
+            final long synset = neighborhood.senses[sense];
 
-                if (node_synset != null) {
-                    final Pointer[] hypernyms = synset.getPointers(PointerType.HYPERNYM);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("synset: " + synset);
+            }
 
-                    for (Pointer hypernym : hypernyms) {
-                        final Synset hypernym_synset = hypernym.getTargetSynset();
+            final TextRankNode node_synset = testLink(subgraph, synset, pos, n, MyRelation.SYNONYM, 1);
 
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug("hypernym: " + hypernym_synset);
-                        }
+            if (node_synset != null) {
+                final int hypernym_end = (int) Math.min(neighborhood.hypernym_starts[sense + 1],
+                        (long) neighborhood.hypernym_starts[sense] + max_hypernyms);
 
-                        final TextRankNode node_hypernym = testLink(subgraph, hypernym_synset, node_synset, MyRelation.HYPERNYM, 2);
+                for (int hypernym = neighborhood.hypernym_starts[sense]; 
+                        hypernym < hypernym_end; hypernym++) {
+                    final long hypernym_synset = neighborhood.hypernyms[hypernym];
 
-                        if (node_hypernym != null) {
-                            final Pointer[] siblings = hypernym_synset.getPointers(PointerType.HYPONYM);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("hypernym: " + hypernym_synset);
+                    }
 
-                            for (Pointer sibling : siblings) {
-                                final Synset sibling_synset = sibling.getTargetSynset();
+                    final TextRankNode node_hypernym = testLink(subgraph, hypernym_synset, pos, node_synset, MyRelation.HYPERNYM, 2);
 
-                                if (sibling_synset.getOffset() != synset.getOffset()) {
-                                    if (LOG.isDebugEnabled()) {
-                                        LOG.debug("sibling: " + sibling_synset);
-                                    }
+                    if (node_hypernym != null) {
+                        final int sibling_end = (int) Math.min(neighborhood.sibling_starts[hypernym + 1],
+                                (long) neighborhood.sibling_starts[hypernym] + max_siblings);
 
-                                    final TextRankNode node_sibling = testLink(subgraph, sibling_synset, node_hypernym, MyRelation.SIBLING, 3);
-                                }
+                        for (int sibling = neighborhood.sibling_starts[hypernym]; 
+                                sibling < sibling_end; sibling++) {
+                            final long sibling_synset = neighborhood.siblings[sibling];
+
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("sibling: " + sibling_synset);
                             }
+
+                            testLink(subgraph, sibling_synset, pos, node_hypernym, MyRelation.SIBLING, 3);
                         }
                     }
                 }
@@ -146,13 +185,13 @@ public class SynsetLink extends NodeValue {
     /**
      * Foo
      */
-    public static TextRankNode testLink(final TextRankGraph synset_subgraph, final Synset synset, final TextRankNode parent, final MyRelation relation, final int hops) throws Exception {
-        final String synset_key = Long.toString(synset.getOffset());
+    public static TextRankNode testLink(final TextRankGraph synset_subgraph, final long synset, final POS pos, final TextRankNode parent, final MyRelation relation, final int hops) throws Exception {
+        final String synset_key = Long.toString(synset);
 
         TextRankNode node = synset_subgraph.get(synset_key);
 
         if (node == null) {
-            final SynsetLink synset_link = new SynsetLink(synset_key, synset, parent, relation, hops);
+            final SynsetLink synset_link = new SynsetLink(synset_key, synset, pos, parent, relation, hops);
 
             node = TextRankNode.buildNode(synset_subgraph, synset_key, synset_link);
             node.connect(parent, Node.DEFAULT_EDGE_WEIGHT);
@@ -201,7 +240,7 @@ public class SynsetLink extends NodeValue {
                 final SynsetLink synset_link = (SynsetLink) node.value;
 
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("recur marking: " + synset_link.synset);
+                    LOG.debug("recur marking: " + synset_link.offset);
                 }
 
                 markAncestors(synset_link.parent);
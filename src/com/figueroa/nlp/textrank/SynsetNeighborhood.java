@@ -0,0 +1,225 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import net.didion.jwnl.JWNLException;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+
+import com.figueroa.nlp.WordNetImage;
+import com.figueroa.util.ResultCache;
+
+/**
+ * The WordNet neighborhood of a word, as used by SynsetLink.addKeyWord:
+ * the senses of its lemma, the hypernyms of each sense, and the hyponyms of
+ * each hypernym other than the sense itself (siblings), in JWNL order.
+ * Only the synset offsets are kept, in flat arrays.
+ * WordNet is static data, so neighborhoods are kept in a process-wide
+ * bounded cache keyed by (PoS, text); frequent words only go through the
+ * JWNL dictionary (and its lock) the first time they are seen. With a
+ * WordNet image, neighborhoods are read from the image without locking.
+ * The size of a neighborhood depends on the number of hyponyms of its
+ * hypernyms (a few offsets for most words, thousands for some), so the
+ * cache is bounded by an estimate of the memory of its neighborhoods
+ * (CACHE_MAX_BYTES) as well as by their number.
+ */
+public final class SynsetNeighborhood {
+
+    // Maximum number of cached neighborhoods, and maximum estimated memory
+    // of the cached neighborhoods and their keys
+    public final static int CACHE_MAX_ENTRIES = 50000;
+    public final static long CACHE_MAX_BYTES = 32L * 1024 * 1024;
+
+    // Estimated memory of a cache entry besides its arrays: the entry, its
+    // key and the neighborhood object
+    private final static int ENTRY_BYTES = 200;
+
+    private final static ResultCache<SynsetNeighborhood> cache =
+            new ResultCache<SynsetNeighborhood>(CACHE_MAX_ENTRIES, Long.MAX_VALUE, CACHE_MAX_BYTES) {
+                @Override
+                protected long weigh(SynsetNeighborhood neighborhood) {
+                    return neighborhood.getEstimatedBytes();
+                }
+            };
+
+    private final static long[] NO_OFFSETS = new long[0];
+    private final static int[] NO_STARTS = new int[] {0};
+
+    // Words without a lemma in WordNet
+    private final static SynsetNeighborhood EMPTY =
+            new SynsetNeighborhood(NO_OFFSETS, NO_STARTS, NO_OFFSETS, NO_STARTS, NO_OFFSETS);
+
+    // Sense i has the hypernyms [hypernym_starts[i], hypernym_starts[i + 1]);
+    // hypernym j has the siblings [sibling_starts[j], sibling_starts[j + 1])
+    final long[] senses;
+    final int[] hypernym_starts;
+    final long[] hypernyms;
+    final int[] sibling_starts;
+    final long[] siblings;
+
+    private SynsetNeighborhood(
+            final long[] senses,
+            final int[] hypernym_starts,
+            final long[] hypernyms,
+            final int[] sibling_starts,
+            final long[] siblings) {
+
+        this.senses = senses;
+        this.hypernym_starts = hypernym_starts;
+        this.hypernyms = hypernyms;
+        this.sibling_starts = sibling_starts;
+        this.siblings = siblings;
+    }
+
+    /**
+     * Get the neighborhood of a word, from the cache or from WordNet.
+     * @param pos
+     * @param text
+     * @return the neighborhood, empty if the word has no lemma in WordNet
+     * @throws JWNLException
+     */
+    public static SynsetNeighborhood get(final POS pos, final String text)
+            throws JWNLException {
+
+        final String key = pos.getKey() + ':' + text;
+        SynsetNeighborhood neighborhood = cache.get(key);
+
+        if (neighborhood == null) {
+            final WordNetImage image = WordNet.getImage();
+            if (image != null) {
+                neighborhood = load(image, pos.getKey().charAt(0), text);
+            }
+            else {
+                // JWNL loads synsets lazily, so the traversal holds the same
+                // lock as WordNet.getLemma()
+                synchronized (WordNet.class) {
+                    neighborhood = load(pos, text);
+                }
+            }
+            cache.put(key, neighborhood);
+        }
+
+        return neighborhood;
+    }
+
+    private static SynsetNeighborhood load(final POS pos, final String text)
+            throws JWNLException {
+
+        final IndexWord iw = WordNet.getLemma(pos, text);
+        if (iw == null) {
+            return EMPTY;
+        }
+
+        final Synset[] senses = iw.getSenses();
+        final long[] sense_offsets = new long[senses.length];
+        final int[] hypernym_starts = new int[senses.length + 1];
+        final ArrayList<Long> hypernyms = new ArrayList<Long>();
+        final ArrayList<Integer> sibling_starts = new ArrayList<Integer>();
+        final ArrayList<Long> siblings = new ArrayList<Long>();
+        sibling_starts.add(0);
+
+        for (int i = 0; i < senses.length; i++) {
+            final Synset synset = senses[i];
+            sense_offsets[i] = synset.getOffset();
+            hypernym_starts[i] = hypernyms.size();
+
+            for (Pointer hypernym : synset.getPointers(PointerType.HYPERNYM)) {
+                final Synset hypernym_synset = hypernym.getTargetSynset();
+                hypernyms.add(hypernym_synset.getOffset());
+
+                for (Pointer sibling : hypernym_synset.getPointers(PointerType.HYPONYM)) {
+                    final Synset sibling_synset = sibling.getTargetSynset();
+
+                    if (sibling_synset.getOffset() != synset.getOffset()) {
+                        siblings.add(sibling_synset.getOffset());
+                    }
+                }
+                sibling_starts.add(siblings.size());
+            }
+        }
+        hypernym_starts[senses.length] = hypernyms.size();
+
+        return new SynsetNeighborhood(sense_offsets, hypernym_starts,
+                toLongArray(hypernyms), toIntArray(sibling_starts), toLongArray(siblings));
+    }
+
+    private static SynsetNeighborhood load(final WordNetImage image, final char pos, final String text) {
+
+        final String lemma = image.lookupBaseForm(pos, text);
+        if (lemma == null) {
+            return EMPTY;
+        }
+
+        final long[] senses = image.getSenses(pos, lemma);
+        final int[] hypernym_starts = new int[senses.length + 1];
+        final ArrayList<Long> hypernyms = new ArrayList<Long>();
+        final ArrayList<Integer> sibling_starts = new ArrayList<Integer>();
+        final ArrayList<Long> siblings = new ArrayList<Long>();
+        sibling_starts.add(0);
+
+        for (int i = 0; i < senses.length; i++) {
+            hypernym_starts[i] = hypernyms.size();
+
+            for (long hypernym : image.getPointerTargets(pos, senses[i], WordNetImage.HYPERNYM)) {
+                hypernyms.add(hypernym);
+
+                for (long sibling : image.getPointerTargets(pos, hypernym, WordNetImage.HYPONYM)) {
+                    if (sibling != senses[i]) {
+                        siblings.add(sibling);
+                    }
+                }
+                sibling_starts.add(siblings.size());
+            }
+        }
+        hypernym_starts[senses.length] = hypernyms.size();
+
+        return new SynsetNeighborhood(senses, hypernym_starts,
+                toLongArray(hypernyms), toIntArray(sibling_starts), toLongArray(siblings));
+    }
+
+    /**
+     * Get an estimate of the memory of a cached neighborhood, its arrays
+     * (8 bytes per offset, 4 per start) plus a fixed amount per entry.
+     * @return the estimated number of bytes
+     */
+    long getEstimatedBytes() {
+        return ENTRY_BYTES + 8L * (senses.length + hypernyms.length + siblings.length)
+                + 4L * (hypernym_starts.length + sibling_starts.length);
+    }
+
+    private static long[] toLongArray(final ArrayList<Long> list) {
+        final long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static int[] toIntArray(final ArrayList<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Get the metrics of the neighborhood cache.
+     * @return a map of metric names to values
+     */
+    public static Map<String, Object> getCacheMetrics() {
+        return cache.getMetrics();
+    }
+
+    /**
+     * Remove all the cached neighborhoods.
+     * @return the number of neighborhoods removed
+     */
+    public static int clearCache() {
+        return cache.clear();
+    }
+}
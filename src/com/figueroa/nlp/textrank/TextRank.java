@@ -31,16 +31,19 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.figueroa.nlp.textrank;
 
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 
+import com.figueroa.nlp.AnnotatedDocument;
 import com.figueroa.nlp.Node;
 import com.figueroa.nlp.Stopwords;
 
@@ -63,33 +66,49 @@ public class TextRank {
     public final static double MIN_NORMALIZED_RANK = 0.05D;
     //public final static double MIN_NORMALIZED_RANK = 0.00D; // Return all possible phrases
     public final static int MAX_NGRAM_LENGTH = 5;
+    // Not applied: the original guard compared it with an empty text, so
+    // only the graph size limits the full WordNet enrichment
     public final static long MAX_WORDNET_TEXT = 2000L;
     public final static long MAX_WORDNET_GRAPH = 600L;
     public final boolean removeStopwords = true;
-    public Collection<MetricVector> answer = null;
     /**
      * Protected members.
+     * Per-call state lives in a TextRankContext, so an instance of this class
+     * only holds read-only resources and can be shared between threads.
      */
-    protected LanguageModel lang = null;
-    protected static String text;
-    protected ArrayList<Sentence> s_list = null;
-    protected TextRankGraph graph = null;
-    protected TextRankGraph ngram_subgraph = null;
-    protected TextRankGraph synset_subgraph = null;
-    protected Map<NGram, MetricVector> metric_space = null;
-    protected long start_time = 0L;
-    protected long elapsed_time = 0L;
+    protected final LanguageModel lang;
     private final Stopwords stopwords;
+    private final RankSolverOptions solver_options; // Of the runs without explicit options
+    // Context of the last run, only for the deprecated accessors
+    private volatile TextRankContext last_context = null;
 
     // Public constructor (for use in other classes)
     public TextRank(Stopwords stopwords, LanguageModel lang) 
             throws Exception {
 
+        this(stopwords, lang, RankSolverOptions.DEFAULT);
+    }
+
+    /**
+     * @param stopwords
+     * @param lang
+     * @param solver_options: the solver options of the runs that don't
+     * give their own (see run(AnnotatedDocument, RankSolverOptions))
+     * @throws Exception
+     */
+    public TextRank(Stopwords stopwords, LanguageModel lang,
+            RankSolverOptions solver_options) throws Exception {
+
         // filter out overly large files
 
         this.lang = lang;
 
         this.stopwords = stopwords;
+        this.solver_options = solver_options;
+    }
+
+    public RankSolverOptions getSolverOptions() {
+        return solver_options;
     }
     
     // Public constructor (for use in other classes)
@@ -112,36 +131,19 @@ public class TextRank {
     /**
      * Prepare to call algorithm with a new text to analyze.
      */
-    private Collection<Sentence> prepCall(final String _text) throws Exception {
-        final String[] _para = new String[1];
-
-        _para[0] = _text;
-
-        return prepCall(_para);
-    }
-
-    /**
-     * Prepare to call algorithm with a new text to analyze.
-     */
-    private Collection<Sentence> prepCall(final String[] _para) throws Exception {
-        final StringBuilder sb = new StringBuilder();
-
-        graph = new TextRankGraph();
-        ngram_subgraph = null;
-        synset_subgraph = new TextRankGraph();
-        //metric_space = new HashMap<NGram, MetricVector>();
+    private Collection<Sentence> prepCall(final TextRankContext context,
+            final String[] _para) throws Exception {
 
-        this.s_list = new ArrayList<Sentence>();
+        final TextRankGraph graph = context.graph;
+        final ArrayList<Sentence> s_list = context.s_list;
 
         //////////////////////////////////////////////////
         // PASS 1: construct a graph from PoS tags
 
-        initTime();
+        context.initTime();
 
         // scan sentences to construct a graph of relevent morphemes
 
-        s_list = new ArrayList<Sentence>();
-
         for (String para_text : _para) {
             if (para_text.trim().length() > 0) {
                 for (String sent_text : lang.splitParagraph(para_text)) {
@@ -161,35 +163,122 @@ public class TextRank {
             }
         }
 
-        TextRank.text = sb.toString();
+        context.markTime("construct_graph");
 
-        markTime("construct_graph");
+        return s_list;
+    }
+
+    /**
+     * Prepare to call algorithm with an already annotated text. The
+     * sentences and PoS tags of the annotation are used instead of running
+     * the sentence splitter, tokenizer and tagger of the language model.
+     * Sentences are also split at line breaks, as paragraphs are in the
+     * plain text version.
+     */
+    private Collection<Sentence> prepCall(final TextRankContext context,
+            final AnnotatedDocument document) throws Exception {
+
+        final TextRankGraph graph = context.graph;
+        final ArrayList<Sentence> s_list = context.s_list;
+        final String text = document.getText();
+
+        //////////////////////////////////////////////////
+        // PASS 1: construct a graph from PoS tags
+
+        context.initTime();
+
+        for (List<AnnotatedDocument.Token> sentence : document.getSentences()) {
+            int start = 0;
+            for (int i = 1; i <= sentence.size(); i++) {
+                if (i == sentence.size() ||
+                        isLineBreak(text, sentence.get(i - 1), sentence.get(i))) {
+                    s_list.add(mapSentence(graph, text, sentence.subList(start, i)));
+                    start = i;
+                }
+            }
+        }
+
+        context.markTime("construct_graph");
 
         return s_list;
     }
 
+    /**
+     * Determine whether there is a line break between two tokens.
+     */
+    private static boolean isLineBreak(final String text,
+            final AnnotatedDocument.Token previous, final AnnotatedDocument.Token next) {
+
+        return previous.endPosition >= 0 && next.beginPosition >= previous.endPosition &&
+                text.substring(previous.endPosition, next.beginPosition).indexOf('\n') >= 0;
+    }
+
+    /**
+     * Build a Sentence from annotated tokens and add its nodes to the graph.
+     */
+    private Sentence mapSentence(final TextRankGraph graph, final String text,
+            final List<AnnotatedDocument.Token> tokens) throws Exception {
+
+        final String[] token_list = new String[tokens.size()];
+        final String[] tag_list = new String[tokens.size()];
+
+        for (int i = 0; i < tokens.size(); i++) {
+            token_list[i] = tokens.get(i).word.replace("\"", "").toLowerCase().trim();
+            tag_list[i] = tokens.get(i).tag;
+        }
+
+        final AnnotatedDocument.Token first = tokens.get(0);
+        final AnnotatedDocument.Token last = tokens.get(tokens.size() - 1);
+        final String sent_text;
+        if (first.beginPosition >= 0 && last.endPosition >= first.beginPosition) {
+            sent_text = text.substring(first.beginPosition, last.endPosition);
+        }
+        else {
+            final StringBuilder sb = new StringBuilder();
+            for (AnnotatedDocument.Token token : tokens) {
+                sb.append(token.word).append(' ');
+            }
+            sent_text = sb.toString();
+        }
+
+        final Sentence s = new Sentence(sent_text.trim());
+        s.setAnnotation(token_list, tag_list);
+        if (removeStopwords) {
+            s.mapTokens(lang, graph, stopwords);
+        }
+        else {
+            s.mapTokens(lang, graph);
+        }
+
+        return s;
+    }
+
     /**
      * Run the TextRank algorithm on the given semi-structured text
      * (e.g., results of parsed HTML from crawled web content) to
      * build a graph of weighted key phrases.
      */
-    private Collection<MetricVector> call() throws Exception {
+    private Collection<MetricVector> call(final TextRankContext context) throws Exception {
+        final TextRankGraph graph = context.graph;
+
         //////////////////////////////////////////////////
         // PASS 2: run TextRank to determine keywords
 
-        initTime();
+        context.initTime();
 
         final int max_results = (int) Math.round(graph.size() * TextRankGraph.KEYWORD_REDUCTION_FACTOR); // ORIGINAL
 
-        graph.runTextRank();
+        context.rank_reports.add(graph.runTextRank(context.solver_options));
+        logger.trace("BASIC_TEXTRANK:\t" + graph.getRankReport());
         graph.sortResults(max_results);
 
-        ngram_subgraph = NGram.collectNGrams(lang, s_list, graph.getRankThreshold()); // ORIGINAL
-        //ngram_subgraph = NGram.collectNGrams(lang, s_list, 0.0D); // Return all possible phrases
+        context.ngram_subgraph = NGram.collectNGrams(lang, context.s_list, graph.getRankThreshold()); // ORIGINAL
+        //context.ngram_subgraph = NGram.collectNGrams(lang, context.s_list, 0.0D); // Return all possible phrases
+        final TextRankGraph ngram_subgraph = context.ngram_subgraph;
 
-        markTime("basic_textrank");
+        context.markTime("basic_textrank");
 
-        logger.trace("TEXT_BYTES:\t" + text.length());
+        logger.trace("TEXT_BYTES:\t" + context.text.length());
         logger.trace("GRAPH_SIZE:\t" + graph.size());
 
 //        logger.info("INITIAL GRAPH");
@@ -201,35 +290,10 @@ public class TextRank {
         //////////////////////////////////////////////////
         // PASS 3: lemmatize selected keywords and phrases
 
-        initTime();
-
-        // filter for edge cases
-
-        if ((text.length() < MAX_WORDNET_TEXT) && (graph.size() < MAX_WORDNET_GRAPH)) {
-            // test the lexical value of nouns and adjectives in WordNet
-
-            for (TextRankNode n : graph.values()) {
-                final KeyWord kw = (KeyWord) n.value;
-
-                if (lang.isNoun(kw.pos)) {
-                    SynsetLink.addKeyWord(synset_subgraph, n, kw.text, POS.NOUN);
-                }
-                else if (lang.isAdjective(kw.pos)) {
-                    SynsetLink.addKeyWord(synset_subgraph, n, kw.text, POS.ADJECTIVE);
-                }
-            }
-
-            // test the collocations in WordNet
-
-            for (TextRankNode n : ngram_subgraph.values()) {
-                final NGram gram = (NGram) n.value;
-                if (gram.nodes.size() > 1) {
-                    SynsetLink.addKeyWord(synset_subgraph, n, gram.getCollocation(), POS.NOUN);
-                }
-            }
+        context.initTime();
 
-            synset_subgraph = SynsetLink.pruneGraph(synset_subgraph, graph);
-        }
+        context.wordnet_report = addSynsets(context);
+        logger.trace("WORDNET:\t" + context.wordnet_report);
 
 //        logger.info("SYNSET SUBGRAPH");
 //        // Print TextRankGraph
@@ -237,6 +301,15 @@ public class TextRank {
 //            logger.info("Text: " + node.value.text + ", Score: " + node.rank);
 //        }
 
+        // nodes connected to the synsets, whose edges changed since pass 2
+
+        final Set<Node> changed_nodes =
+                Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+
+        for (TextRankNode s : context.synset_subgraph.values()) {
+            changed_nodes.addAll(s.getEdges().keySet());
+        }
+
         // augment the graph with n-grams added as nodes
 
         for (TextRankNode n : ngram_subgraph.values()) {
@@ -244,14 +317,16 @@ public class TextRank {
 
             if (gram.length < MAX_NGRAM_LENGTH) {
                 graph.put(n.key, n);
+                changed_nodes.add(n);
 
                 for (TextRankNode keyword_node : gram.nodes) {
                     n.connect(keyword_node, Node.DEFAULT_EDGE_WEIGHT);
+                    changed_nodes.add(keyword_node);
                 }
             }
         }
 
-        markTime("augment_graph");
+        context.markTime("augment_graph");
 
 //        logger.info("AUGMENTED GRAPH");
 //        // Print TextRankGraph
@@ -262,171 +337,215 @@ public class TextRank {
         //////////////////////////////////////////////////
         // PASS 4: re-run TextRank on the augmented graph
 
-        initTime();
+        context.initTime();
 
         logger.trace("RERUN TEXTRANK");
-        graph.runTextRank();
+        if (context.solver_options.incrementalReranking) {
+            context.rank_reports.add(graph.rerank(changed_nodes, 
+                    TextRankGraph.INCREMENTAL_TOLERANCE, false));
+        }
+        else {
+            context.rank_reports.add(graph.runTextRank(context.solver_options));
+        }
+        logger.trace("NGRAM_TEXTRANK:\t" + graph.getRankReport());
         //graph.sortResults(graph.size() / 2);
 
-        markTime("ngram_textrank");
+        context.markTime("ngram_textrank");
 
         //////////////////////////////////////////////////
         // PASS 5: construct a metric space for overall ranking
 
-        initTime();
-        metric_space = calculateMetrics();
-        markTime("normalize_ranks");
+        context.initTime();
+        context.metric_index = new HashMap<TextRankNode, MetricVector>();
+        context.metric_space = context.calculateMetrics(context.metric_index);
+        context.markTime("normalize_ranks");
 
         // return results
-        return metric_space.values();
+        return context.metric_space.values();
     }
 
-    public HashMap<NGram, MetricVector> calculateMetrics() {
-        
-        HashMap metricSpace = new HashMap<NGram, MetricVector>();
-        
-        // Collect stats for metrics
-        final int ngram_max_count = NGram.calcStats(ngram_subgraph);
-        SynsetLink.calcStats(synset_subgraph);
+    /**
+     * Test the lexical value of the nouns and adjectives, and of the
+     * collocations, in WordNet, and link their synsets into the graph.
+     * Small graphs are enriched in full; larger ones only within the WordNet
+     * budget of the context, from the top-ranked candidates down.
+     * @param context
+     * @return the report of the enrichment
+     * @throws Exception
+     */
+    private WordNetReport addSynsets(final TextRankContext context) throws Exception {
+        final long start_time = System.currentTimeMillis();
+        final TextRankGraph graph = context.graph;
 
-        // Construct a metric space for overall ranking
-        final double link_min = ngram_subgraph.dist_stats.getMin();
-        final double link_coeff = ngram_subgraph.dist_stats.getMax() -
-                ngram_subgraph.dist_stats.getMin();
+        // filter for edge cases
 
-        final double count_min = 1;
-        final double count_coeff = (double) ngram_max_count - 1;
+        final boolean full = graph.size() < MAX_WORDNET_GRAPH;
+        final WordNetBudget budget = full ? null : context.wordnet_budget;
 
-        final double synset_min = synset_subgraph.dist_stats.getMin();
-        final double synset_coeff = synset_subgraph.dist_stats.getMax() -
-                synset_subgraph.dist_stats.getMin();
+        if (!full && !budget.isEnabled()) {
+            return new WordNetReport(budget, 0, 0, 0, 0, 0L, WordNetReport.Stop.SKIPPED);
+        }
 
-        for (TextRankNode n : ngram_subgraph.values()) {
+        // nouns and adjectives, then collocations
+
+        final List<TextRankNode> nodes = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        final List<POS> poses = new ArrayList<>();
+
+        for (TextRankNode n : graph.values()) {
+            final KeyWord kw = (KeyWord) n.value;
+
+            if (lang.isNoun(kw.pos)) {
+                nodes.add(n);
+                texts.add(kw.text);
+                poses.add(POS.NOUN);
+            }
+            else if (lang.isAdjective(kw.pos)) {
+                nodes.add(n);
+                texts.add(kw.text);
+                poses.add(POS.ADJECTIVE);
+            }
+        }
+
+        for (TextRankNode n : context.ngram_subgraph.values()) {
             final NGram gram = (NGram) n.value;
-            
-            if (gram.length < TextRank.MAX_NGRAM_LENGTH) {
-                final double link_rank = (n.getRank() - link_min) / link_coeff;
-                final double count_rank = (gram.getCount() - count_min) / count_coeff;
-                final double synset_rank = n.maxNeighbor(synset_min, synset_coeff);
-
-                final MetricVector mv =
-                        new MetricVector(gram, link_rank, count_rank, synset_rank);
-                metricSpace.put(gram, mv);
+            if (gram.nodes.size() > 1) {
+                nodes.add(n);
+                texts.add(gram.getCollocation());
+                poses.add(POS.NOUN);
             }
         }
 
-        return metricSpace;
+        final int candidate_count = nodes.size();
+        Integer[] order = new Integer[candidate_count];
+        for (int i = 0; i < candidate_count; i++) {
+            order[i] = i;
+        }
+
+        if (!full) {
+            // top-ranked first; an n-gram ranks as its best keyword
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(nodes.get(b).getRank(), nodes.get(a).getRank());
+                }
+            });
+        }
+
+        WordNetReport.Stop stop = WordNetReport.Stop.COMPLETE;
+        int lookups = 0;
+
+        for (int i = 0; i < candidate_count; i++) {
+            if (!full) {
+                if (lookups >= budget.maxCandidates) {
+                    stop = WordNetReport.Stop.CANDIDATES;
+                    break;
+                }
+                else if (context.synset_subgraph.size() >= budget.maxSynsetNodes) {
+                    stop = WordNetReport.Stop.NODES;
+                    break;
+                }
+                else if (budget.maxMillis > 0 &&
+                        System.currentTimeMillis() - start_time >= budget.maxMillis) {
+                    stop = WordNetReport.Stop.TIME;
+                    break;
+                }
+            }
+
+            final int c = order[i];
+            SynsetLink.addKeyWord(context.synset_subgraph, nodes.get(c), texts.get(c), poses.get(c), budget);
+            lookups++;
+        }
+
+        final int synset_nodes = context.synset_subgraph.size();
+        context.synset_subgraph = SynsetLink.pruneGraph(context.synset_subgraph, graph);
+
+        return new WordNetReport(budget, candidate_count, lookups, synset_nodes,
+                context.synset_subgraph.size(), System.currentTimeMillis() - start_time, stop);
     }
 
     //////////////////////////////////////////////////////////////////////
     // access and utility methods
     //////////////////////////////////////////////////////////////////////
     /**
-     * Re-initialize the timer.
-     */
-    public void initTime() {
-        start_time = System.currentTimeMillis();
-    }
-
-    /**
-     * Report the elapsed time with a label.
-     * @param label
+     * Accessor for the language.
+     * @return 
      */
-    public void markTime(final String label) {
-        elapsed_time = System.currentTimeMillis() - start_time;
-
-        logger.trace("ELAPSED_TIME:\t" + elapsed_time + "\t" + label);
+    public LanguageModel getLanguageModel() {
+        return lang;
     }
 
     /**
-     * Accessor for the graph.
-     * @return 
+     * Accessor for the graph of the last run.
+     * @return
+     * @deprecated the last run may be another thread's; use
+     * TextRankContext.getGraph() on the context returned by run()
      */
+    @Deprecated
     public TextRankGraph getGraph() {
-        return graph;
+        final TextRankContext context = last_context;
+        return context != null ? context.getGraph() : null;
     }
 
     /**
-     * Accessor for ngram subgraph
-     * @return 
+     * Accessor for the ngram subgraph of the last run.
+     * @return
+     * @deprecated use TextRankContext.getNGramSubgraph()
      */
+    @Deprecated
     public TextRankGraph getNGramSubgraph() {
-        return ngram_subgraph;
+        final TextRankContext context = last_context;
+        return context != null ? context.getNGramSubgraph() : null;
     }
 
     /**
-     * Accessor for synset subgraph
-     * @return 
+     * Accessor for the synset subgraph of the last run.
+     * @return
+     * @deprecated use TextRankContext.getSynsetSubgraph()
      */
+    @Deprecated
     public TextRankGraph getSynsetSubgraph() {
-        return synset_subgraph;
+        final TextRankContext context = last_context;
+        return context != null ? context.getSynsetSubgraph() : null;
     }
 
     /**
-     * Accessor for the language.
-     * @return 
+     * Construct the metric space of the last run.
+     * @return
+     * @deprecated use TextRankContext.calculateMetrics()
      */
-    public LanguageModel getLanguageModel() {
-        return lang;
+    @Deprecated
+    public HashMap<NGram, MetricVector> calculateMetrics() {
+        return getLastContext().calculateMetrics();
     }
 
     /**
-     * Serialize the graph to a file which can be rendered.
+     * Serialize the graph of the last run to a file which can be rendered.
      * @param graph_file
      * @throws java.lang.Exception
+     * @deprecated use TextRankContext.serializeGraph()
      */
+    @Deprecated
     public void serializeGraph(final String graph_file) throws Exception {
-        for (TextRankNode n : graph.values()) {
-            n.marked = false;
-        }
-
-        final TreeSet<String> entries = new TreeSet<String>();
-
-        for (TextRankNode n : ngram_subgraph.values()) {
-            final NGram gram = (NGram) n.value;
-            final MetricVector mv = metric_space.get(gram);
-
-            if (mv != null) {
-                final StringBuilder sb = new StringBuilder();
-
-                sb.append("rank").append('\t');
-                sb.append(n.getId()).append('\t');
-                sb.append(mv.render());
-                entries.add(sb.toString());
-
-                n.serializeGraph(entries);
-            }
-        }
-
-        final OutputStreamWriter fw =
-                new OutputStreamWriter(new FileOutputStream(graph_file), "UTF-8");
-
-        try {
-            for (String entry : entries) {
-                fw.write(entry, 0, entry.length());
-                fw.write('\n');
-            }
-        }
-        finally {
-            fw.close();
-        }
+        getLastContext().serializeGraph(graph_file);
     }
 
     /**
-     * Serialize resulting graph to a string.
+     * Serialize the resulting graph of the last run to a string.
+     * Use TextRankContext.toString() instead.
      */
     @Override
     public String toString() {
-        final TreeSet<MetricVector> key_phrase_list = new TreeSet<MetricVector>(metric_space.values());
-        final StringBuilder sb = new StringBuilder();
+        final TextRankContext context = last_context;
+        return context != null ? context.toString() : super.toString();
+    }
 
-        for (MetricVector mv : key_phrase_list) {
-            if (mv.metric >= MIN_NORMALIZED_RANK) {
-                sb.append(mv.render()).append("\t").append(mv.value.text).append("\n");
-            }
+    private TextRankContext getLastContext() {
+        final TextRankContext context = last_context;
+        if (context == null) {
+            throw new IllegalStateException("TextRank has not been run");
         }
-
-        return sb.toString();
+        return context;
     }
 
     //////////////////////////////////////////////////////////////////////
@@ -434,21 +553,76 @@ public class TextRank {
     //////////////////////////////////////////////////////////////////////
     /**
      * Main entry point.
+     * Each call works on its own TextRankContext, which holds the graphs
+     * and metric vectors of the given text.
      * @param t
-     * @return 
+     * @return the context of this call
      * @throws java.lang.Exception
      */
-    public Collection<MetricVector> run(String t) throws Exception {
+    public TextRankContext run(String t) throws Exception {
 
-        text = t;
+        final TextRankContext context = new TextRankContext(t, solver_options);
 
         // executes algorithm
-        final Collection<Sentence> s_list = prepCall(text.split("\n"));
-        answer = call();//null;
+        prepCall(context, t.split("\n"));
+        call(context);
+        last_context = context;
 
         //Print keyword list
-        //logger.info("\n" + this.toString());
+        //logger.info("\n" + context.toString());
+
+        return context;
+    }
+    /**
+     * Main entry point for an already annotated text.
+     * The annotation must use the PoS tagset of the language model.
+     * The TextRank runs use the solver options of this instance.
+     * @param document
+     * @return the context of this call
+     * @throws java.lang.Exception
+     */
+    public TextRankContext run(AnnotatedDocument document) throws Exception {
+        return run(document, solver_options);
+    }
+
+    /**
+     * Main entry point for an already annotated text, with the given solver
+     * options. The iterations and residuals of each TextRank run are
+     * reported by TextRankContext.getRankReports().
+     * @param document
+     * @param solver_options
+     * @return the context of this call
+     * @throws java.lang.Exception
+     */
+    public TextRankContext run(AnnotatedDocument document,
+            RankSolverOptions solver_options) throws Exception {
+        return run(document, solver_options, WordNetBudget.DEFAULT);
+    }
+
+    /**
+     * Main entry point for an already annotated text, with the given solver
+     * options and WordNet budget. The budget only applies to texts whose
+     * graph is too large for a full WordNet enrichment (see
+     * MAX_WORDNET_GRAPH); the enrichment is reported by
+     * TextRankContext.getWordNetReport().
+     * @param document
+     * @param solver_options
+     * @param wordnet_budget
+     * @return the context of this call
+     * @throws java.lang.Exception
+     */
+    public TextRankContext run(AnnotatedDocument document,
+            RankSolverOptions solver_options,
+            WordNetBudget wordnet_budget) throws Exception {
+
+        final TextRankContext context = new TextRankContext(
+                document.getText(), solver_options, wordnet_budget);
+
+        // executes algorithm
+        prepCall(context, document);
+        call(context);
+        last_context = context;
 
-        return answer;
+        return context;
     }
 }
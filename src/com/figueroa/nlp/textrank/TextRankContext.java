@@ -0,0 +1,274 @@
+package com.figueroa.nlp.textrank;
+
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Per-call state of a TextRank run: the analyzed text, its sentences and the
+ * graphs and metric space built from them.
+ * A new context is created for every call to TextRank.run(), so a single
+ * TextRank instance can be shared by concurrent requests.
+ */
+public class TextRankContext {
+
+    private static final Logger logger = Logger.getLogger(TextRankContext.class);
+
+    protected final String text;
+    protected final ArrayList<Sentence> s_list = new ArrayList<Sentence>();
+    protected final TextRankGraph graph = new TextRankGraph();
+    protected TextRankGraph ngram_subgraph = null;
+    protected TextRankGraph synset_subgraph = new TextRankGraph();
+    protected Map<NGram, MetricVector> metric_space = null;
+    protected Map<TextRankNode, MetricVector> metric_index = null;
+    protected long start_time = 0L;
+    protected long elapsed_time = 0L;
+    protected final RankSolverOptions solver_options;
+    protected final ArrayList<RankReport> rank_reports = new ArrayList<RankReport>();
+    protected final WordNetBudget wordnet_budget;
+    protected WordNetReport wordnet_report = null;
+
+    public TextRankContext(String text) {
+        this(text, RankSolverOptions.DEFAULT);
+    }
+
+    /**
+     * @param text
+     * @param solver_options: the solver options of the TextRank runs
+     */
+    public TextRankContext(String text, RankSolverOptions solver_options) {
+        this(text, solver_options, WordNetBudget.DEFAULT);
+    }
+
+    /**
+     * @param text
+     * @param solver_options: the solver options of the TextRank runs
+     * @param wordnet_budget: the budget of the WordNet enrichment of large texts
+     */
+    public TextRankContext(String text, RankSolverOptions solver_options,
+            WordNetBudget wordnet_budget) {
+        this.text = text;
+        this.solver_options = solver_options;
+        this.wordnet_budget = wordnet_budget;
+    }
+
+    /**
+     * Construct the metric space for overall ranking from the current
+     * state of the graphs.
+     * @return a map of ngrams to metric vectors
+     */
+    public HashMap<NGram, MetricVector> calculateMetrics() {
+        return calculateMetrics(null);
+    }
+
+    /**
+     * Construct the metric space for overall ranking, and index its metric
+     * vectors by the node of their ngram.
+     * @param node_index: filled with the node -> metric vector entries, or
+     * null
+     * @return a map of ngrams to metric vectors
+     */
+    public HashMap<NGram, MetricVector> calculateMetrics(
+            final Map<TextRankNode, MetricVector> node_index) {
+
+        HashMap<NGram, MetricVector> metricSpace = new HashMap<NGram, MetricVector>();
+
+        // Collect stats for metrics
+        final int ngram_max_count = NGram.calcStats(ngram_subgraph);
+        SynsetLink.calcStats(synset_subgraph);
+
+        // Construct a metric space for overall ranking
+        final double link_min = ngram_subgraph.dist_stats.getMin();
+        final double link_coeff = ngram_subgraph.dist_stats.getMax() -
+                ngram_subgraph.dist_stats.getMin();
+
+        final double count_min = 1;
+        final double count_coeff = (double) ngram_max_count - 1;
+
+        final double synset_min = synset_subgraph.dist_stats.getMin();
+        final double synset_coeff = synset_subgraph.dist_stats.getMax() -
+                synset_subgraph.dist_stats.getMin();
+
+        for (TextRankNode n : ngram_subgraph.values()) {
+            final NGram gram = (NGram) n.value;
+
+            if (gram.length < TextRank.MAX_NGRAM_LENGTH) {
+                final double link_rank = (n.getRank() - link_min) / link_coeff;
+                final double count_rank = (gram.getCount() - count_min) / count_coeff;
+                final double synset_rank = n.maxNeighbor(synset_min, synset_coeff);
+
+                final MetricVector mv =
+                        new MetricVector(gram, link_rank, count_rank, synset_rank);
+                metricSpace.put(gram, mv);
+
+                if (node_index != null) {
+                    node_index.put(gram.getParentNode(), mv);
+                }
+            }
+        }
+
+        return metricSpace;
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    // access and utility methods
+    //////////////////////////////////////////////////////////////////////
+    /**
+     * Re-initialize the timer.
+     */
+    public void initTime() {
+        start_time = System.currentTimeMillis();
+    }
+
+    /**
+     * Report the elapsed time with a label.
+     * @param label
+     */
+    public void markTime(final String label) {
+        elapsed_time = System.currentTimeMillis() - start_time;
+
+        logger.trace("ELAPSED_TIME:\t" + elapsed_time + "\t" + label);
+    }
+
+    /**
+     * Accessor for the analyzed text.
+     * @return
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Accessor for the graph.
+     * @return
+     */
+    public TextRankGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Accessor for ngram subgraph
+     * @return
+     */
+    public TextRankGraph getNGramSubgraph() {
+        return ngram_subgraph;
+    }
+
+    /**
+     * Accessor for synset subgraph
+     * @return
+     */
+    public TextRankGraph getSynsetSubgraph() {
+        return synset_subgraph;
+    }
+
+    /**
+     * Accessor for the solver options of the TextRank runs.
+     * @return
+     */
+    public RankSolverOptions getSolverOptions() {
+        return solver_options;
+    }
+
+    /**
+     * Accessor for the reports of the TextRank runs of this call, in order
+     * (the basic graph, then the augmented graph).
+     * @return
+     */
+    public List<RankReport> getRankReports() {
+        return Collections.unmodifiableList(rank_reports);
+    }
+
+    /**
+     * Accessor for the report of the WordNet enrichment of this call.
+     * @return
+     */
+    public WordNetReport getWordNetReport() {
+        return wordnet_report;
+    }
+
+    /**
+     * Accessor for the metric vectors of the last metric calculation.
+     * @return
+     */
+    public Collection<MetricVector> getMetricVectors() {
+        return metric_space.values();
+    }
+
+    /**
+     * Accessor for the metric vector of an ngram node, from the same metric
+     * calculation as getMetricVectors().
+     * @param node
+     * @return the metric vector, or null if the node is not a ranked ngram
+     */
+    public MetricVector getMetricVector(final TextRankNode node) {
+        return metric_index.get(node);
+    }
+
+    /**
+     * Serialize the graph to a file which can be rendered.
+     * @param graph_file
+     * @throws java.lang.Exception
+     */
+    public void serializeGraph(final String graph_file) throws Exception {
+        for (TextRankNode n : graph.values()) {
+            n.marked = false;
+        }
+
+        final TreeSet<String> entries = new TreeSet<String>();
+
+        for (TextRankNode n : ngram_subgraph.values()) {
+            final NGram gram = (NGram) n.value;
+            final MetricVector mv = metric_space.get(gram);
+
+            if (mv != null) {
+                final StringBuilder sb = new StringBuilder();
+
+                sb.append("rank").append('\t');
+                sb.append(n.getId()).append('\t');
+                sb.append(mv.render());
+                entries.add(sb.toString());
+
+                n.serializeGraph(entries);
+            }
+        }
+
+        final OutputStreamWriter fw =
+                new OutputStreamWriter(new FileOutputStream(graph_file), "UTF-8");
+
+        try {
+            for (String entry : entries) {
+                fw.write(entry, 0, entry.length());
+                fw.write('\n');
+            }
+        }
+        finally {
+            fw.close();
+        }
+    }
+
+    /**
+     * Serialize resulting graph to a string.
+     */
+    @Override
+    public String toString() {
+        final TreeSet<MetricVector> key_phrase_list = new TreeSet<MetricVector>(metric_space.values());
+        final StringBuilder sb = new StringBuilder();
+
+        for (MetricVector mv : key_phrase_list) {
+            if (mv.metric >= TextRank.MIN_NORMALIZED_RANK) {
+                sb.append(mv.render()).append("\t").append(mv.value.text).append("\n");
+            }
+        }
+
+        return sb.toString();
+    }
+}
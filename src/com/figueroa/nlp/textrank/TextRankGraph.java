@@ -35,9 +35,14 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import gnu.trove.TIntObjectHashMap;
 
 import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.apache.commons.math.util.MathUtils;
@@ -46,6 +51,7 @@ import org.apache.log4j.Logger;
 import com.figueroa.nlp.KeyPhrase;
 import com.figueroa.nlp.Node;
 import com.figueroa.nlp.rankup.KeyPhraseGraph;
+import com.figueroa.util.MiscUtils;
 
 /**
  * An abstraction for handling the graph as a data object.
@@ -66,6 +72,14 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
     public final static double KEYWORD_REDUCTION_FACTOR = 1.0D; // Return all possible phrases
     public final static double TEXTRANK_DAMPING_FACTOR = 0.85D;
     public final static double STANDARD_ERROR_THRESHOLD = 0.005D;
+    // Graphs with at least this many nodes are iterated in parallel
+    // (configurable with the system property "textrank.parallel.threshold")
+    public final static int PARALLEL_THRESHOLD =
+            Integer.getInteger("textrank.parallel.threshold", 5000);
+    // Incremental reranking: maximum residual of a node rank, and maximum
+    // number of node updates per node of the graph
+    public final static double INCREMENTAL_TOLERANCE = 1.0E-4D;
+    public final static int INCREMENTAL_PUSHES_PER_NODE = 100;
     public final static String GEPHI_LOGGER_DIR =
             "." + File.separator + "graphs" + File.separator;
     
@@ -76,7 +90,40 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
     /**
      * Protected members.
      */
+    protected final static ForkJoinPool rank_pool = new ForkJoinPool();
     protected TextRankNode[] node_list = null;
+    protected RankReport rank_report = null;
+    // Vocabulary of the node keys, and index of the nodes built by id
+    protected final Vocabulary vocabulary = new Vocabulary();
+    protected final TIntObjectHashMap<TextRankNode> id_index = 
+            new TIntObjectHashMap<TextRankNode>();
+
+    /**
+     * Get the vocabulary of the node keys of this graph.
+     * @return
+     */
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Get a node built by id (see TextRankNode.buildKeyWordNode).
+     * @param id: the vocabulary id of its key
+     * @return the node, or null
+     */
+    public TextRankNode getById(final int id) {
+        return id_index.get(id);
+    }
+
+    /**
+     * Index a node of this graph by the vocabulary id of its key.
+     * @param id
+     * @param node
+     */
+    public void putById(final int id, final TextRankNode node) {
+        node.id = id;
+        id_index.put(id, node);
+    }
 
     /**
      * Run through N iterations of the TreeRank algorithm, or until
@@ -84,25 +131,59 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
      * @param logger
      */
     public void runTextRank() {
-        final int max_iterations = this.size();
-        node_list = new TextRankNode[this.size()];
+        runTextRank(RankSolverOptions.DEFAULT, true);
+    }
 
-        // load the node list
+    // For outside use
+    public void runTextRank(boolean debug) {
+        runTextRank(RankSolverOptions.DEFAULT, debug);
+    }
 
-        int j = 0;
+    /**
+     * Run the TreeRank algorithm with the given solver and stopping rules.
+     * @param options
+     * @return the report of the iterations
+     */
+    public RankReport runTextRank(RankSolverOptions options) {
+        return runTextRank(options, true);
+    }
 
-        for (TextRankNode n1 : this.values()) {
-            node_list[j++] = n1;
-        }
+    /**
+     * Warm-started incremental reranking: after the edges of some nodes have
+     * changed (or nodes have been added), propagate the rank changes from
+     * them with the PUSH solver, starting from the current ranks, instead of
+     * iterating over the whole graph again. Assumes the ranks of the other
+     * nodes had converged before the change.
+     * @param changed_nodes: the nodes whose edges changed, including new nodes
+     * @param tolerance: the maximum residual of a node rank
+     * @param debug
+     * @return the report of the updates
+     */
+    public RankReport rerank(
+            Collection<? extends Node> changed_nodes, 
+            double tolerance, 
+            boolean debug) {
+        
+        loadNodeList();
+        return iterateGraph(this.size() * INCREMENTAL_PUSHES_PER_NODE, debug,
+                RankSolverOptions.push(tolerance), changed_nodes);
+    }
+
+    /**
+     * Run the TreeRank algorithm with the given solver and stopping rules.
+     * @param options
+     * @param debug
+     * @return the report of the iterations
+     */
+    public RankReport runTextRank(RankSolverOptions options, boolean debug) {
+        loadNodeList();
 
         // iterate, then sort and mark the top results
 
-        iterateGraph(max_iterations, true);
+        return iterateGraph(this.size(), debug, options, null);
     }
 
-    // For outside use
-    public void runTextRank(boolean debug) {
-        final int max_iterations = this.size();
+    private void loadNodeList() {
         node_list = new TextRankNode[this.size()];
 
         // load the node list
@@ -112,100 +193,104 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
         for (TextRankNode n1 : this.values()) {
             node_list[j++] = n1;
         }
-
-        // iterate, then sort and mark the top results
-
-        iterateGraph(max_iterations, debug);
     }
     
     /**
      * Iterate through the graph, calculating rank.
+     * The graph is first frozen into a CompressedGraph, so the iterations run
+     * over primitive arrays; the ranks are written back to the nodes at the end.
+     * See RankSolver for the solvers and stopping rules.
+     * Graphs with at least PARALLEL_THRESHOLD nodes are swept in parallel
+     * (see ParallelRankSweep), except with the Gauss-Seidel solver. The ranks
+     * of each sweep are bit-identical to the sequential ones. The standard 
+     * error is reduced in a different order, so it can differ in the last 
+     * bits (relative error ~1e-12), and a run whose error lands exactly on 
+     * the threshold may stop one iteration earlier or later. In that case 
+     * the ranks differ by less than the convergence threshold. dist_stats 
+     * is only filled by sequential sweeps with the standard error residual.
+     * With the PUSH solver, the changes are propagated from the changed nodes
+     * instead (see RankSolver.solvePush), and max_iterations bounds the
+     * number of node updates.
      * @param max_iterations
      * @param debug
-     * @param logger
+     * @param options
+     * @param changed_nodes: the nodes the PUSH solver starts from, or null
+     * for all the nodes
+     * @return the report of the iterations
      */
-    protected void iterateGraph(
+    protected RankReport iterateGraph(
             final int max_iterations, 
-            boolean debug
+            boolean debug,
+            RankSolverOptions options,
+            Collection<? extends Node> changed_nodes
             ) {
 
-        final double[] rank_list = new double[node_list.length];
-        final double[] previous_rank_list = new double[node_list.length];
-        for (int i = 0; i < node_list.length; i++) {
-            previous_rank_list[i] = node_list[i].getRank();
-        }
-
-        // either run through N iterations, or until the standard
-        // error converges below a threshold
-
-        for (int k = 0; k < max_iterations; k++) {
-            dist_stats.clear();
-
-            // calculate the next rank for each node
-
-            for (int i = 0; i < node_list.length; i++) {
-                final TextRankNode n1 = node_list[i];
-                double rank = 0.0D;
-
-                /**
-                 * Original unweighted formula
-                 */
-//		for (TextRankNode n2 : n1.edges.keySet()) {
-//		    rank += n2.rank / (double) n2.edges.size();
-//		}
+        final CompressedGraph graph = new CompressedGraph(node_list);
+        final double[] previous_rank_list = graph.getRanks();
+        final double[] rank_list = graph.getRanks();
 
-                /**
-                 * New weighted formula
-                 */
-                for (Node n2 : n1.getEdges().keySet()) {
-                    double denominator = 0.0D;
-                    for (Double d : n2.getEdges().values()) {
-                        denominator += d;
-                    }
-
-                    double normalizedWeight = n2.getEdges().get(n1) / denominator;
-                    //LOG.info("NORMALIZED WEIGHT: " + normalizedWeight);
-
-                    rank += normalizedWeight * n2.getRank();
-                    //rank += (n2.edges.get(n1) * n2.rank) / denominator;
-                }
-
-                rank *= TEXTRANK_DAMPING_FACTOR;
-                rank += 1.0D - TEXTRANK_DAMPING_FACTOR;
-
-                rank_list[i] = rank;
-                dist_stats.addValue(Math.abs(n1.getRank() - rank));
-            }
-
-            final double standard_error =
-                    dist_stats.getStandardDeviation() / Math.sqrt(dist_stats.getN());
+        final RankSolver solver = new RankSolver(graph, options, TEXTRANK_DAMPING_FACTOR);
+        final RankReport report;
+        if (options.solver == RankSolverOptions.Solver.PUSH) {
+            report = solver.solvePush(rank_list, 
+                    getSeeds(graph, changed_nodes), max_iterations, debug);
+        }
+        else {
+            report = solver.solve(rank_list, max_iterations, dist_stats, rank_pool, debug);
+        }
+        rank_report = report;
+        
+        // write back the final ranks and swap in previous ranks
+        graph.setRanks(rank_list);
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            node_list[i].setPreviousRank(previous_rank_list[i]);
+        }
 
-            if (debug) {
-                logger.trace("iteration: " + k + " error: " + standard_error);
-            }
+        return report;
+    }
 
-            // swap in new rank values
-            for (int i = 0; i < node_list.length; i++) {
-                node_list[i].setRank(rank_list[i]);
-            }
+    /**
+     * Get the ids of the changed nodes that are ranked.
+     * @param graph
+     * @param changed_nodes
+     * @return the ids, or null if changed_nodes is null
+     */
+    private static int[] getSeeds(
+            CompressedGraph graph, 
+            Collection<? extends Node> changed_nodes) {
 
-            if (standard_error < STANDARD_ERROR_THRESHOLD) {
-                break;
-            }
+        if (changed_nodes == null) {
+            return null;
         }
         
-        // swap in previous ranks
-        for (int i = 0; i < node_list.length; i++) {
-            node_list[i].setPreviousRank(previous_rank_list[i]);
+        int[] seeds = new int[changed_nodes.size()];
+        int count = 0;
+        for (Node node : changed_nodes) {
+            int id = graph.getId(node);
+            if (id >= 0 && id < graph.getNodeCount()) {
+                seeds[count++] = id;
+            }
         }
+        return Arrays.copyOf(seeds, count);
+    }
+
+    /**
+     * Get the report of the last run of the TextRank algorithm.
+     * @return the report, or null if the algorithm has not been run
+     */
+    public RankReport getRankReport() {
+        return rank_report;
     }
 
     /**
      * Sort results to identify potential keywords.
+     * Only the top max_results + 1 nodes are selected and marked (see
+     * MiscUtils.selectTop); node_list itself is left in its order.
      * @param max_results
      */
     public void sortResults(final long max_results) {
-        Arrays.sort(node_list,
+        final int limit = (int) Math.min(node_list.length, max_results + 1);
+        final List<TextRankNode> top_nodes = MiscUtils.selectTop(Arrays.asList(node_list), limit,
                 new Comparator<TextRankNode>() {
 
                     @Override
@@ -226,13 +311,9 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
 
         dist_stats.clear();
 
-        for (int i = 0; i < node_list.length; i++) {
-            final TextRankNode n1 = node_list[i];
-
-            if (i <= max_results) {
-                n1.marked = true;
-                dist_stats.addValue(n1.getRank());
-            }
+        for (TextRankNode n1 : top_nodes) {
+            n1.marked = true;
+            dist_stats.addValue(n1.getRank());
         }
     }
 
@@ -263,8 +344,8 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
             KeyPhrase keyphrase = keyphraseGraph.get(node.key);
             String nodeString = node.toString(keyphrase);
             
-            HashMap<Node, Double> previousEdges = node.getPreviousEdges();
-            HashMap<Node, Double> edges = node.getEdges();
+            Map<Node, Double> previousEdges = node.getPreviousEdges();
+            Map<Node, Double> edges = node.getEdges();
 
             logger.trace(nodeString);
             logger.trace("\tEdges: ");
@@ -314,8 +395,8 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
         for (Node node : this.values()) {
             String nodeString = node.toString();
             
-            HashMap<Node, Double> previousEdges = node.getPreviousEdges();
-            HashMap<Node, Double> edges = node.getEdges();
+            Map<Node, Double> previousEdges = node.getPreviousEdges();
+            Map<Node, Double> edges = node.getEdges();
 
             logger.trace(nodeString);
             logger.trace("\tEdges: ");
@@ -388,7 +469,7 @@ public class TextRankGraph extends TreeMap<String, TextRankNode> {
                 writer.write(nodeString);
 
                 // Print edge weights
-                HashMap<Node, Double> nodeEdges = node.getEdges();
+                Map<Node, Double> nodeEdges = node.getEdges();
                 String edgeText = "";
                 for (TextRankNode node2 : this.values()) {
                     // Skip SynsetLink nodes
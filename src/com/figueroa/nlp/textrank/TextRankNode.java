@@ -52,6 +52,7 @@ public class TextRankNode extends Node {
      * Public members.
      */
     public NodeValue value = null;
+    public int id = -1; // Vocabulary id of the key, for nodes built by id
 
     /**
      * Private constructor.
@@ -88,6 +89,35 @@ public class TextRankNode extends Node {
         return n;
     }
 
+    /**
+     * Factory method for nodes whose key is interned in the vocabulary of
+     * the graph. Looks up the node by id, and only creates the value and
+     * the node (with the key string of the vocabulary) for a new id.
+     * @param graph
+     * @param id: the vocabulary id of the key
+     * @param value_text: the text of the value, if it is a new KeyWord
+     * @param pos: the PoS tag of the value, if it is a new KeyWord
+     * @return 
+     * @throws java.lang.Exception 
+     */
+    public static TextRankNode buildKeyWordNode(
+            final TextRankGraph graph, 
+            final int id, 
+            final String value_text,
+            final String pos) 
+            throws Exception {
+        TextRankNode n = graph.getById(id);
+
+        if (n == null) {
+            final KeyWord value = new KeyWord(value_text, pos);
+            n = buildNode(graph, graph.getVocabulary().getKey(id), value);
+            value.setParentNode(n); // SET PARENT NODE
+            graph.putById(id, n);
+        }
+
+        return n;
+    }
+
     /**
      * Search nearest neighbors in WordNet subgraph to find the
      * maximum rank of any adjacent SYNONYM synset.
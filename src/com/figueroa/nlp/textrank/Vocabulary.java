@@ -0,0 +1,161 @@
+package com.figueroa.nlp.textrank;
+
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Per-request vocabulary that interns the node keys of a TextRank graph,
+ * and the sequences of node ids that identify n-grams, to int ids.
+ * The node key of a (token, PoS tag) pair is computed by the language model
+ * (stemming included) only the first time the pair occurs; the key string
+ * of an n-gram is only built for a new n-gram.
+ * Ids are assigned from 0 in interning order. A vocabulary is not thread
+ * safe; it belongs to the graph of a single call.
+ */
+public class Vocabulary {
+
+    private final ArrayList<String> keys = new ArrayList<String>();
+    private final TObjectIntHashMap<String> key_ids = new TObjectIntHashMap<String>();
+
+    // (PoS tag -> token -> id) cache of LanguageModel.getNodeKey
+    private final HashMap<String, TObjectIntHashMap<String>> token_ids =
+            new HashMap<String, TObjectIntHashMap<String>>();
+
+    // Sequences of ids; the probe is reused for lookups
+    private final TObjectIntHashMap<IdSequence> sequence_ids =
+            new TObjectIntHashMap<IdSequence>();
+    private final IdSequence probe = new IdSequence();
+
+    /**
+     * Intern a key string.
+     * @param key
+     * @return the id of the key
+     */
+    public int intern(final String key) {
+        if (key_ids.containsKey(key)) {
+            return key_ids.get(key);
+        }
+        final int id = keys.size();
+        keys.add(key);
+        key_ids.put(key, id);
+        return id;
+    }
+
+    /**
+     * Get the id of the node key of a token.
+     * @param lang
+     * @param token
+     * @param pos
+     * @return the id of lang.getNodeKey(token, pos)
+     * @throws Exception
+     */
+    public int getNodeKeyId(final LanguageModel lang, final String token, final String pos)
+            throws Exception {
+
+        TObjectIntHashMap<String> ids = token_ids.get(pos);
+        if (ids == null) {
+            ids = new TObjectIntHashMap<String>();
+            token_ids.put(pos, ids);
+        }
+        else if (ids.containsKey(token)) {
+            return ids.get(token);
+        }
+
+        final int id = intern(lang.getNodeKey(token, pos));
+        ids.put(token, id);
+        return id;
+    }
+
+    /**
+     * Get the id of a sequence of ids (e.g. the node ids of an n-gram).
+     * @param sequence
+     * @param length: the length of the sequence, from index 0
+     * @return the id, or -1 if the sequence has not been interned
+     */
+    public int getSequenceId(final int[] sequence, final int length) {
+        probe.set(sequence, length);
+        return sequence_ids.containsKey(probe) ? sequence_ids.get(probe) : -1;
+    }
+
+    /**
+     * Intern a sequence of ids with its key string.
+     * @param sequence
+     * @param length: the length of the sequence, from index 0
+     * @param key
+     * @return the id of the sequence
+     */
+    public int internSequence(final int[] sequence, final int length, final String key) {
+        final int id = getSequenceId(sequence, length);
+        if (id >= 0) {
+            return id;
+        }
+        final IdSequence copy = new IdSequence();
+        copy.set(Arrays.copyOf(sequence, length), length);
+        final int new_id = keys.size();
+        keys.add(key);
+        sequence_ids.put(copy, new_id);
+        return new_id;
+    }
+
+    /**
+     * Get the key string of an id.
+     * @param id
+     * @return
+     */
+    public String getKey(final int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Get the number of interned keys and sequences.
+     * @return
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * A range [0, length) of an int array, hashed and compared by content.
+     */
+    private static class IdSequence {
+
+        private int[] ids;
+        private int length;
+        private int hash;
+
+        void set(final int[] ids, final int length) {
+            this.ids = ids;
+            this.length = length;
+            int h = 1;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + ids[i];
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof IdSequence)) {
+                return false;
+            }
+            final IdSequence that = (IdSequence) o;
+            if (that.hash != hash || that.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (that.ids[i] != ids[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import net.didion.jwnl.JWNL;
 import net.didion.jwnl.JWNLException;
 import net.didion.jwnl.data.IndexWord;
 import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Synset;
 import net.didion.jwnl.dictionary.Dictionary;
 import net.didion.jwnl.dictionary.MorphologicalProcessor;
 
@@ -45,6 +46,8 @@ import java.io.FileReader;
 import java.io.InputStream;
 import java.io.StringWriter;
 
+import com.figueroa.nlp.WordNetImage;
+
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.input.SAXBuilder;
@@ -53,7 +56,8 @@ import org.jdom.output.XMLOutputter;
 import org.jdom.xpath.XPath;
 
 /**
- * Access to WordNet through JWNL.
+ * Access to WordNet through JWNL, or through a precompiled WordNetImage
+ * when one is given (see buildDictionary(WordNetImage)).
  * @author paco@sharethis.com
  * @author flo@leibert.de
  */
@@ -64,6 +68,7 @@ public class WordNet {
      */
     protected static Dictionary dictionary = null;
     protected static MorphologicalProcessor mp = null;
+    protected static WordNetImage image = null;
 
     /**
      * Singleton
@@ -90,6 +95,22 @@ public class WordNet {
         }
     }
 
+    /**
+     * Use a precompiled WordNet image instead of the JWNL dictionary.
+     * @param wordNetImage
+     */
+    public static void buildDictionary(final WordNetImage wordNetImage) {
+        image = wordNetImage;
+    }
+
+    /**
+     * Access the WordNet image.
+     * @return the image, or null if JWNL is used
+     */
+    public static WordNetImage getImage() {
+        return image;
+    }
+
     /**
      * Update the configuration so that we can create a properties
      * stream using it.
@@ -134,8 +155,17 @@ public class WordNet {
 
     /**
      * Lookup the first lemma found.
+     * JWNL's file-backed dictionary is not thread-safe, so lookups are
+     * serialized on this class.
      */
-    public static IndexWord getLemma(final POS pos, final String derivation) throws JWNLException {
+    public static synchronized IndexWord getLemma(final POS pos, final String derivation) throws JWNLException {
         return mp.lookupBaseForm(pos, derivation);
     }
+
+    /**
+     * Lookup a synset by its offset.
+     */
+    public static synchronized Synset getSynset(final POS pos, final long offset) throws JWNLException {
+        return dictionary.getSynsetAt(pos, offset);
+    }
 }
@@ -0,0 +1,71 @@
+package com.figueroa.nlp.textrank;
+
+/**
+ * Budget of the WordNet enrichment (PASS 3 of TextRank) of the texts whose
+ * graph exceeds TextRank.MAX_WORDNET_GRAPH, which are otherwise not enriched
+ * at all.
+ * Only the top-ranked candidates (nouns and adjectives, and collocations)
+ * are looked up, the senses, hypernyms and siblings of each are capped, and
+ * the pass stops when the synset nodes run out. The budget is checked
+ * between candidates, so the neighborhood of the last candidate may go over
+ * it by up to maxSenses * maxHypernyms * (maxSiblings + 1) nodes.
+ * Smaller graphs are always enriched in full.
+ * An optional time limit bounds the pass further, but the keywords then
+ * depend on the machine load, so the results of such a budget must not be
+ * cached. The default budget has no time limit.
+ */
+public class WordNetBudget {
+
+    public final static WordNetBudget DEFAULT = new WordNetBudget(150, 3, 2, 20, 3000, 0L);
+
+    // Larger texts are not enriched (the original behaviour)
+    public final static WordNetBudget NONE = new WordNetBudget(0, 0, 0, 0, 0, 0L);
+
+    public final int maxCandidates;
+    public final int maxSenses;        // Per candidate
+    public final int maxHypernyms;     // Per sense
+    public final int maxSiblings;      // Per hypernym
+    public final int maxSynsetNodes;
+    public final long maxMillis;
+
+    /**
+     * @param maxCandidates: the number of top-ranked candidates looked up,
+     * or 0 to disable the enrichment of larger texts
+     * @param maxSenses: the senses of a candidate that are linked
+     * @param maxHypernyms: the hypernyms of a sense that are linked
+     * @param maxSiblings: the siblings under a hypernym that are linked
+     * @param maxSynsetNodes: no more candidates are looked up once the
+     * synset subgraph has this many nodes
+     * @param maxMillis: no more candidates are looked up after this time,
+     * or 0 for no time limit
+     */
+    public WordNetBudget(
+            int maxCandidates,
+            int maxSenses,
+            int maxHypernyms,
+            int maxSiblings,
+            int maxSynsetNodes,
+            long maxMillis) {
+
+        this.maxCandidates = maxCandidates;
+        this.maxSenses = maxSenses;
+        this.maxHypernyms = maxHypernyms;
+        this.maxSiblings = maxSiblings;
+        this.maxSynsetNodes = maxSynsetNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    public boolean isEnabled() {
+        return maxCandidates > 0;
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "none";
+        }
+        return maxCandidates + " candidates, " + maxSenses + "/" + maxHypernyms + "/" +
+                maxSiblings + " senses/hypernyms/siblings, " + maxSynsetNodes +
+                " synset nodes" + (maxMillis > 0 ? ", " + maxMillis + " ms" : "");
+    }
+}
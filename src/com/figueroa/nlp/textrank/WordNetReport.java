@@ -0,0 +1,86 @@
+package com.figueroa.nlp.textrank;
+
+/**
+ * Report of the WordNet enrichment of a text: whether it was full or
+ * budgeted, how many candidates were looked up, how many synset nodes were
+ * created and kept, and how much of the budget was consumed.
+ */
+public class WordNetReport {
+
+    /**
+     * How the enrichment ended.
+     */
+    public static enum Stop {
+        COMPLETE,    // Every candidate was looked up
+        SKIPPED,     // The text was too large and there was no budget
+        CANDIDATES,  // Only the top-ranked candidates were looked up
+        NODES,       // The synset node budget ran out
+        TIME         // The time limit of the budget ran out
+    }
+
+    public final WordNetBudget budget;     // null for a full enrichment
+    public final int candidateCount;
+    public final int lookups;
+    public final int synsetNodes;          // Created, before pruning
+    public final int keptSynsetNodes;      // After pruning
+    public final long elapsedMillis;
+    public final Stop stop;
+
+    public WordNetReport(
+            WordNetBudget budget,
+            int candidateCount,
+            int lookups,
+            int synsetNodes,
+            int keptSynsetNodes,
+            long elapsedMillis,
+            Stop stop) {
+
+        this.budget = budget;
+        this.candidateCount = candidateCount;
+        this.lookups = lookups;
+        this.synsetNodes = synsetNodes;
+        this.keptSynsetNodes = keptSynsetNodes;
+        this.elapsedMillis = elapsedMillis;
+        this.stop = stop;
+    }
+
+    public boolean isBudgeted() {
+        return budget != null;
+    }
+
+    /**
+     * Get the fraction of the synset node budget that was consumed.
+     * @return
+     */
+    public double getNodeBudgetUsed() {
+        return budget != null && budget.maxSynsetNodes > 0 ?
+                (double) synsetNodes / budget.maxSynsetNodes : 0.0D;
+    }
+
+    /**
+     * Get the fraction of the time budget that was consumed.
+     * @return
+     */
+    public double getTimeBudgetUsed() {
+        return budget != null && budget.maxMillis > 0 ?
+                (double) elapsedMillis / budget.maxMillis : 0.0D;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(budget != null ? "[budget: " + budget + "] " : "[full] ");
+        sb.append("lookups: ").append(lookups).append('/').append(candidateCount);
+        sb.append(", synset nodes: ").append(synsetNodes);
+        sb.append(" (kept ").append(keptSynsetNodes).append(')');
+        sb.append(", elapsed: ").append(elapsedMillis).append(" ms");
+        if (budget != null) {
+            sb.append(", nodes used: ").append(Math.round(100.0D * getNodeBudgetUsed())).append('%');
+            if (budget.maxMillis > 0) {
+                sb.append(", time used: ").append(Math.round(100.0D * getTimeBudgetUsed())).append('%');
+            }
+        }
+        sb.append(", ").append(stop);
+        return sb.toString();
+    }
+}
@@ -2,9 +2,11 @@ package com.figueroa.security;
 
 import java.util.ArrayList;
 
+import org.apache.log4j.Logger;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,10 +27,22 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
  */
 public class SpringSecurityConfig extends WebSecurityConfigurerAdapter {
 
+	private static final Logger logger = Logger.getLogger(SpringSecurityConfig.class);
+
     private final UserService userService;
     private final TokenAuthenticationService tokenAuthenticationService;
     // TODO: should be replaced with a value private to your application and ideally loaded from a property file.
     private final static String SECRET = "secret";
+    // Authority required by the administrative web services (cache flush and
+    // metrics). Only the admin user holds it, and that user only exists when
+    // it is configured (see addAdminUser()).
+    public final static String ADMIN_AUTHORITY = "admin";
+    // Configuration of the admin user: system properties, or else environment
+    // variables
+    public final static String ADMIN_USERNAME_PROPERTY = "nlp.admin.username";
+    public final static String ADMIN_PASSWORD_HASH_PROPERTY = "nlp.admin.passwordHash";
+    public final static String ADMIN_USERNAME_VARIABLE = "NLP_ADMIN_USERNAME";
+    public final static String ADMIN_PASSWORD_HASH_VARIABLE = "NLP_ADMIN_PASSWORD_HASH";
 
     public SpringSecurityConfig() {
         super(true);
@@ -37,6 +51,9 @@ public class SpringSecurityConfig extends WebSecurityConfigurerAdapter {
         // Add testing user
         addTestingUser();
         
+        // Add admin user, if configured
+        addAdminUser();
+        
         tokenAuthenticationService = 
         		new TokenAuthenticationService(SECRET, userService);
     }
@@ -50,6 +67,38 @@ public class SpringSecurityConfig extends WebSecurityConfigurerAdapter {
         User user = new User("user", "password", authorities);
         this.userService.addUser(user);
     }
+    
+    /**
+     * Add the admin user, with the ADMIN_AUTHORITY authority, if its name and
+     * BCrypt password hash are configured, either as the system properties
+     * nlp.admin.username and nlp.admin.passwordHash or as the environment
+     * variables NLP_ADMIN_USERNAME and NLP_ADMIN_PASSWORD_HASH (e.g. with
+     * heroku config:set). Like the other users, it authenticates with a token
+     * whose subject is its name.
+     */
+    private void addAdminUser() {
+    	String username = getSetting(ADMIN_USERNAME_PROPERTY, ADMIN_USERNAME_VARIABLE);
+    	String passwordHash = 
+    			getSetting(ADMIN_PASSWORD_HASH_PROPERTY, ADMIN_PASSWORD_HASH_VARIABLE);
+    	if (username == null || passwordHash == null) {
+    		logger.info("No admin user configured, the administrative web services are disabled");
+    		return;
+    	}
+    	
+    	ArrayList<SimpleGrantedAuthority> authorities = new ArrayList<SimpleGrantedAuthority>();
+        authorities.add(new SimpleGrantedAuthority(ADMIN_AUTHORITY));
+        User user = new User(username, passwordHash, authorities);
+        this.userService.addUser(user);
+        logger.info("Admin user: " + username);
+    }
+    
+    private static String getSetting(String property, String variable) {
+    	String value = System.getProperty(property);
+    	if (value == null || value.isEmpty()) {
+    		value = System.getenv(variable);
+    	}
+    	return value == null || value.isEmpty() ? null : value;
+    }
 
     @Override
     /**
@@ -63,6 +112,12 @@ public class SpringSecurityConfig extends WebSecurityConfigurerAdapter {
 	        
 	    	// Allow access to api-docs
 	        .antMatchers("/ws/api-docs/**").permitAll()
+	        // Allow access to the readiness check (e.g. for health checks)
+	        .antMatchers("/ws/ready").permitAll()
+	        // Restrict the administrative web services (the patterns also cover
+	        // the trailing slash and suffix variants mapped by Spring MVC)
+	        .antMatchers(HttpMethod.DELETE, "/ws/cache*/**").hasAuthority(ADMIN_AUTHORITY)
+	        .antMatchers("/ws/metrics*/**").hasAuthority(ADMIN_AUTHORITY)
 	        // Request authentication for any web service
 	        .antMatchers("/ws/**").authenticated()
 	        
@@ -2,11 +2,12 @@ package com.figueroa.util;
 
 import java.util.HashMap;
 import java.util.List;
+import com.figueroa.nlp.AnnotatedDocument;
 import com.figueroa.nlp.KeyPhrase;
 import com.figueroa.nlp.Lemmatizer;
 import com.figueroa.nlp.rake.RakeNode;
 import com.figueroa.nlp.textrank.TextRankNode;
-import com.figueroa.nlp.textrank.TextRank;
+import com.figueroa.nlp.textrank.TextRankContext;
 
 /**
  * Representation of an Abstract text
@@ -25,7 +26,8 @@ public class Abstract {
     private Type type;
     private List<KeyPhrase> originalKeyphraseSet;
     private boolean phraseFeaturesSet;
-    private TextRank textRank;
+    private TextRankContext textRankContext;
+    private AnnotatedDocument annotatedDocument;
     private HashMap<String, RakeNode> rakeFullGraph;
     private HashMap<String, Double> currentRakeKeyphrases;
     private HashMap<String, Double> currentRakeWords;
@@ -52,10 +54,13 @@ public class Abstract {
         this.type = type;
         originalKeyphraseSet = null;
         phraseFeaturesSet = false;
-        textRank = null;
+        textRankContext = null;
 
         try {
-            stemmedText = lemmatizer.stemText(originalText, false);
+            // Tag and lemmatize the text once; the annotation is reused by
+            // TextRank, PhraseFeatures and RankUp
+            annotatedDocument = lemmatizer.annotate(this.originalText);
+            stemmedText = annotatedDocument.getLemmatizedText();
         }
         catch (Exception e) {
             throw new Exception("Exception in Abstract creation: " + e.getMessage());
@@ -123,6 +128,15 @@ public class Abstract {
         return stemmedText;
     }
 
+    /**
+     * Get the annotation (sentences, tags and lemmas) of the original text.
+     * @return the annotated text, or null if the abstract was created from
+     * an already stemmed text
+     */
+    public AnnotatedDocument getAnnotatedDocument() {
+        return annotatedDocument;
+    }
+
     public Type getType() {
         return type;
     }
@@ -153,8 +167,8 @@ public class Abstract {
         }
         
         // Then, reset textrank graph
-        if (textRank != null) {
-            for (TextRankNode node : textRank.getGraph().values()) {
+        if (textRankContext != null) {
+            for (TextRankNode node : textRankContext.getGraph().values()) {
                 node.resetNodeScoresAndWeights();
             }
         }
@@ -168,12 +182,12 @@ public class Abstract {
         
     }
     
-    public void setTextRank(TextRank textRank) {
-        this.textRank = textRank;
+    public void setTextRankContext(TextRankContext textRankContext) {
+        this.textRankContext = textRankContext;
     }
     
-    public TextRank getTextRank() {
-        return textRank;
+    public TextRankContext getTextRankContext() {
+        return textRankContext;
     }
     
     public HashMap<String, RakeNode> getRakeFullGraph() {
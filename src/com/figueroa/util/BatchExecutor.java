@@ -0,0 +1,240 @@
+package com.figueroa.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs batches of independent items over a bounded pool of worker threads.
+ * The pool is sized to the available cores. A batch never occupies more
+ * than one queue slot per thread, however many items it has, and no thread
+ * waits for it: a batch that does not fit in the queue is rejected, and the
+ * results are passed to a listener when its last item finishes.
+ * The results are in the order of the items, and an item that fails only
+ * reports its own error.
+ */
+public class BatchExecutor {
+
+	private static final Logger logger = Logger.getLogger(BatchExecutor.class);
+
+    /**
+     * The result of a single item: either its value or its error.
+     * @param <T>
+     */
+    public static class ItemResult<T> {
+        public final T value;
+        public final String error;
+
+        private ItemResult(T value, String error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    // Metrics
+    private final AtomicLong completedItems = new AtomicLong();
+    private final AtomicLong rejectedBatches = new AtomicLong();
+    private final AtomicLong cancelledBatches = new AtomicLong();
+
+    /**
+     * Creates a batch executor.
+     * @param name: the prefix of the worker thread names
+     * @param threads: the number of worker threads
+     * @param queueCapacity: the maximum number of waiting items
+     */
+    public BatchExecutor(final String name, int threads, int queueCapacity) {
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates a batch executor with one worker thread per available core.
+     * @param name: the prefix of the worker thread names
+     * @param queueCapacity: the maximum number of waiting items
+     */
+    public BatchExecutor(String name, int queueCapacity) {
+        this(name, Runtime.getRuntime().availableProcessors(), queueCapacity);
+    }
+
+    /**
+     * Receives the results of a batch, in the same order as its items.
+     * @param <T>
+     */
+    public static interface BatchListener<T> {
+        void completed(List<ItemResult<T>> results);
+    }
+
+    /**
+     * A batch running on this executor. Each of its runners takes the next
+     * item of the batch, runs it and then goes back to the end of the queue,
+     * so that concurrent batches take turns on the worker threads.
+     * @param <T>
+     */
+    public class Batch<T> implements Runnable {
+
+        private final List<? extends Callable<T>> items;
+        private final BatchListener<T> listener;
+        private final AtomicReferenceArray<ItemResult<T>> results;
+        private final AtomicInteger nextItem = new AtomicInteger();
+        private final AtomicInteger finishedItems = new AtomicInteger();
+        private volatile boolean cancelled = false;
+
+        private Batch(List<? extends Callable<T>> items, BatchListener<T> listener) {
+            this.items = items;
+            this.listener = listener;
+            this.results = new AtomicReferenceArray<>(items.size());
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int item = nextItem.getAndIncrement();
+                if (item >= items.size() || cancelled) {
+                    return;
+                }
+                results.set(item, runItem(items.get(item)));
+                completedItems.incrementAndGet();
+                if (finishedItems.incrementAndGet() == items.size()) {
+                    complete();
+                    return;
+                }
+                // If the queue is full, keep running items on this thread
+                try {
+                    executor.execute(this);
+                    return;
+                }
+                catch (RejectedExecutionException e) {
+                    continue;
+                }
+            }
+        }
+
+        private ItemResult<T> runItem(Callable<T> item) {
+            try {
+                return new ItemResult<T>(item.call(), null);
+            }
+            catch (Exception e) {
+                logger.error("Exception in batch item: " + e.getMessage());
+                return new ItemResult<T>(null,
+                        e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        }
+
+        private void complete() {
+            List<ItemResult<T>> resultList = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                resultList.add(results.get(i));
+            }
+            listener.completed(resultList);
+        }
+
+        /**
+         * Stops running the items of this batch. The items already running
+         * finish, but the listener is not called.
+         */
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                cancelledBatches.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Runs all the given items without waiting for them. At most one item
+     * per worker thread runs at a time, and the listener is called by the
+     * thread that finishes the last item.
+     * @param items
+     * @param listener
+     * @return the running batch
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> Batch<T> submitAll(List<? extends Callable<T>> items,
+            BatchListener<T> listener) {
+
+        Batch<T> batch = new Batch<>(items, listener);
+        if (items.isEmpty()) {
+            batch.complete();
+            return batch;
+        }
+
+        // The runners take all the items, so the batch can start with fewer
+        // runners than threads
+        int runners = Math.min(items.size(), executor.getMaximumPoolSize());
+        for (int i = 0; i < runners; i++) {
+            try {
+                executor.execute(batch);
+            }
+            catch (RejectedExecutionException e) {
+                if (i == 0) {
+                    rejectedBatches.incrementAndGet();
+                    throw e;
+                }
+                break;
+            }
+        }
+
+        return batch;
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Get the current metrics of this executor.
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+
+        LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", executor.getMaximumPoolSize());
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("completedItems", completedItems.get());
+        metrics.put("rejectedBatches", rejectedBatches.get());
+        metrics.put("cancelledBatches", cancelledBatches.get());
+
+        return metrics;
+    }
+
+    /**
+     * Stops accepting new items.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,5 +1,11 @@
 package com.figueroa.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
 import org.apache.commons.math.util.MathUtils;
 
 /**
@@ -54,4 +60,56 @@ public class MiscUtils {
         return string;
     }
     
+    /**
+     * Select the first limit items of a collection in the order of the
+     * comparator, without sorting the whole collection: the items are
+     * passed through a heap of limit items, and only those are sorted.
+     * Items that compare equal keep their order in the collection, as with
+     * a (stable) full sort.
+     * @param items
+     * @param limit
+     * @param comparator
+     * @return the first limit items (or all of them), in order
+     */
+    public static <T> ArrayList<T> selectTop(Collection<? extends T> items, 
+            int limit, final Comparator<? super T> comparator) {
+        
+        final ArrayList<T> list = new ArrayList<>(items);
+        if (limit >= list.size()) {
+            Collections.sort(list, comparator);
+            return list;
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        // Indices in the heap, the last item in order at its head
+        final Comparator<Integer> order = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = comparator.compare(list.get(a), list.get(b));
+                return c != 0 ? c : a.compareTo(b);
+            }
+        };
+        PriorityQueue<Integer> heap = 
+                new PriorityQueue<>(limit + 1, Collections.reverseOrder(order));
+        for (int i = 0; i < list.size(); i++) {
+            if (heap.size() < limit) {
+                heap.add(i);
+            }
+            else if (order.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        
+        ArrayList<Integer> selected = new ArrayList<>(heap);
+        Collections.sort(selected, order);
+        ArrayList<T> top = new ArrayList<>(selected.size());
+        for (int i : selected) {
+            top.add(list.get(i));
+        }
+        return top;
+    }
+    
 }
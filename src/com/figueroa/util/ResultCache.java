@@ -0,0 +1,233 @@
+package com.figueroa.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded in-memory cache of results, addressed by the content of the
+ * request that produced them (see key()).
+ * When the cache is full, the least recently used entry is evicted. A cache
+ * can also be bounded by the total weight of its results (e.g. an estimate
+ * of their size, see weigh()); the least recently used entries are then
+ * evicted until the total fits. Entries older than the time to live are
+ * treated as missing and removed.
+ * The cache keeps hit, miss, eviction and expiration counts.
+ * Cached values are shared between callers, so they must not be modified.
+ *
+ * @param <V> the type of the cached results
+ */
+public class ResultCache<V> {
+
+    private static class CachedResult<V> {
+        final V value;
+        final long creationTime;
+        final long weight;
+
+        CachedResult(V value, long creationTime, long weight) {
+            this.value = value;
+            this.creationTime = creationTime;
+            this.weight = weight;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long maxWeight;
+    private final LinkedHashMap<String, CachedResult<V>> entries;
+    private long weight = 0;
+
+    // Metrics
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    /**
+     * Creates a cache.
+     * @param maxEntries: the maximum number of results kept
+     * @param ttlMillis: the time to live of each result
+     */
+    public ResultCache(final int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its results as well.
+     * @param maxEntries: the maximum number of results kept
+     * @param ttlMillis: the time to live of each result
+     * @param maxWeight: the maximum total weight of the results kept
+     */
+    public ResultCache(final int maxEntries, long ttlMillis, long maxWeight) {
+
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.maxWeight = maxWeight;
+
+        // Access order, so that the eldest entry is the least recently used
+        entries = new LinkedHashMap<String, CachedResult<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult<V>> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    weight -= eldest.getValue().weight;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the cached result of the given key.
+     * @param key
+     * @return the cached result, or null if it is missing or expired
+     */
+    public synchronized V get(String key) {
+
+        CachedResult<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            weight -= entry.weight;
+            expirations++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Cache a result. Null results, and results heavier than the maximum
+     * weight, are not cached.
+     * @param key
+     * @param value
+     */
+    public synchronized void put(String key, V value) {
+
+        if (value == null) {
+            return;
+        }
+        long valueWeight = weigh(value);
+        if (valueWeight > maxWeight) {
+            return;
+        }
+
+        CachedResult<V> previous = entries.put(key,
+                new CachedResult<V>(value, System.currentTimeMillis(), valueWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += valueWeight;
+
+        // Evict the least recently used results (the new one is the last)
+        Iterator<CachedResult<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Get the weight of a result, for caches bounded by weight.
+     * @param value
+     * @return the weight, 1 by default
+     */
+    protected long weigh(V value) {
+        return 1;
+    }
+
+    /**
+     * Remove all the cached results.
+     * @return the number of results removed
+     */
+    public synchronized int clear() {
+        int size = entries.size();
+        entries.clear();
+        weight = 0;
+        return size;
+    }
+
+    private boolean isExpired(CachedResult<V> entry, long now) {
+        return now - entry.creationTime > ttlMillis;
+    }
+
+    /**
+     * Get the current metrics of this cache.
+     * @return a map of metric names to values
+     */
+    public synchronized Map<String, Object> getMetrics() {
+
+        LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+        long lookups = hits + misses;
+
+        metrics.put("size", entries.size());
+        metrics.put("maxEntries", maxEntries);
+        if (maxWeight < Long.MAX_VALUE) {
+            metrics.put("weight", weight);
+            metrics.put("maxWeight", maxWeight);
+        }
+        metrics.put("ttlSeconds", ttlMillis / 1000);
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+        metrics.put("evictions", evictions);
+        metrics.put("expirations", expirations);
+
+        return metrics;
+    }
+
+    /**
+     * Normalize a text before using it in a key, so that texts that only
+     * differ in their line endings or surrounding whitespace (which don't
+     * change the result) share the same entry.
+     * @param text
+     * @return the normalized text
+     */
+    public static String normalizeText(String text) {
+        return text.replace("\r\n", "\n").trim();
+    }
+
+    /**
+     * Build a key from the parts of a request (e.g. the operation, the method,
+     * the configuration and the normalized text) as the SHA-256 hash of the
+     * parts. The texts themselves are not kept in the cache.
+     * @param parts
+     * @return the hexadecimal key
+     */
+    public static String key(String... parts) {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0); // Separator, so that parts can't be shifted
+        }
+
+        byte[] hash = digest.digest();
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return key.toString();
+    }
+}
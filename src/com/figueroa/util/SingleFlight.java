@@ -0,0 +1,86 @@
+package com.figueroa.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical computations that are in progress at the same time.
+ * The first caller of a key runs the computation; the callers that arrive
+ * with the same key while it is running wait for it and receive the same
+ * result (or exception), instead of running it again.
+ * The computation of a key is forgotten as soon as it completes or fails,
+ * so later callers run it again (results are kept by a ResultCache, not
+ * here).
+ *
+ * @param <V> the type of the results
+ */
+public class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, FutureTask<V>> inFlight =
+            new ConcurrentHashMap<>();
+
+    // Metrics
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    /**
+     * Run the computation of the given key, or wait for the one in progress.
+     * @param key: the key identifying the computation (e.g. a ResultCache key)
+     * @param computation
+     * @return the result of the computation
+     * @throws Exception the exception thrown by the computation
+     */
+    public V execute(String key, Callable<V> computation) throws Exception {
+
+        FutureTask<V> task = new FutureTask<>(computation);
+        FutureTask<V> runningTask = inFlight.putIfAbsent(key, task);
+
+        if (runningTask == null) {
+            executions.incrementAndGet();
+            try {
+                task.run();
+            }
+            finally {
+                inFlight.remove(key, task);
+            }
+            runningTask = task;
+        }
+        else {
+            coalescedCalls.incrementAndGet();
+        }
+
+        try {
+            return runningTask.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the current metrics: computations in progress, computations run,
+     * and calls that waited for a computation in progress.
+     * @return a map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+
+        LinkedHashMap<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("executions", executions.get());
+        metrics.put("coalescedCalls", coalescedCalls.get());
+
+        return metrics;
+    }
+}
@@ -1,239 +0,0 @@
-# Implementation of RAKE - Rapid Automtic Keyword Exraction algorithm
-# as described in:
-# Rose, S., D. Engel, N. Cramer, and W. Cowley (2010). 
-# Automatic keyword extraction from indi-vidual documents. 
-# In M. W. Berry and J. Kogan (Eds.), Text Mining: Applications and Theory.unknown: John Wiley and Sons, Ltd.
-
-import re
-import operator
-stoppath = "SmartStoplist.txt"
-debug = False
-test = False
-
-
-def is_number(s):
-    try:
-        float(s) if '.' in s else int(s)
-        return True
-    except ValueError:
-        return False
-
-
-def load_stop_words(stop_word_file):
-    """
-    Utility function to load stop words from a file and return as a list of words
-    @param stop_word_file Path and file name of a file containing stop words.
-    @return list A list of stop words.
-    """
-    stop_words = []
-    for line in open(stop_word_file):
-        if line.strip()[0:1] != "#":
-            for word in line.split():  # in case more than one per line
-                stop_words.append(word)
-    return stop_words
-
-
-def separate_words(text, min_word_return_size):
-    """
-    Utility function to return a list of all words that are have a length greater than a specified number of characters.
-    @param text The text that must be split in to words.
-    @param min_word_return_size The minimum no of characters a word must have to be included.
-    """
-    splitter = re.compile('[^a-zA-Z0-9_\\+\\-/]')
-    words = []
-    for single_word in splitter.split(text):
-        current_word = single_word.strip().lower()
-        #leave numbers in phrase, but don't count as words, since they tend to invalidate scores of their phrases
-        if len(current_word) > min_word_return_size and current_word != '' and not is_number(current_word):
-            words.append(current_word)
-    return words
-
-
-def get_word_list(phrase):
-    word_list = separate_words(phrase, 0)
-    return word_list
-
-
-def split_sentences(text):
-    """
-    Utility function to return a list of sentences.
-    @param text The text that must be split in to sentences.
-    """
-    sentence_delimiters = re.compile(u'[.!?,;:\t\\-\\"\\(\\)\\\'\u2019\u2013]')
-    sentences = sentence_delimiters.split(text)
-    return sentences
-
-
-def build_stop_word_regex(stop_word_file_path):
-    stop_word_list = load_stop_words(stop_word_file_path)
-    stop_word_regex_list = []
-    for word in stop_word_list:
-        word_regex = '\\b' + word + '\\b'
-        stop_word_regex_list.append(word_regex)
-    stop_word_pattern = re.compile('|'.join(stop_word_regex_list), re.IGNORECASE)
-    return stop_word_pattern
-
-
-def generate_candidate_keywords(sentence_list, stopword_pattern):
-    phrase_list = []
-    for s in sentence_list:
-        tmp = re.sub(stopword_pattern, '|', s.strip())
-        phrases = tmp.split("|")
-        for phrase in phrases:
-            phrase = phrase.strip().lower()
-            if phrase != "":
-                phrase_list.append(phrase)
-    return phrase_list
-
-
-def calculate_word_scores(phraseList, co_occ_graph):
-    word_frequency = {}
-    word_degree = {}
-    for phrase in phraseList:
-        word_list = separate_words(phrase, 0)
-        word_list_length = len(word_list)
-        word_list_degree = word_list_length - 1
-        #if word_list_degree > 3: word_list_degree = 3 #exp.
-
-        for word in word_list:
-            word_frequency.setdefault(word, 0)
-            word_frequency[word] += 1
-            word_degree.setdefault(word, 0)
-            word_degree[word] += word_list_degree  #orig.
-
-            # Build graph
-            # e.g. {'upper': {'upper': 1, 'bounds': 1}, 'set': {'supporting': 1, 'set': 3, 'minimal': 2}, ...}
-            for word2 in word_list:
-                if word not in co_occ_graph:
-                    co_occ_graph[word] = {}
-                co_occ_graph[word].setdefault(word2, 0)
-                co_occ_graph[word][word2] += 1
-
-            #word_degree[word] += 1/(word_list_length*1.0) #exp.
-    for item in word_frequency:
-        word_degree[item] = word_degree[item] + word_frequency[item]
-
-    # Calculate Word scores = deg(w)/freq(w)
-    word_score = {}
-    for item in word_frequency:
-        word_score.setdefault(item, 0)
-        word_score[item] = word_degree[item] / (word_frequency[item] * 1.0)  # orig.
-    #word_score[item] = word_frequency[item]/(word_degree[item] * 1.0) #exp.
-    return word_score
-
-
-def recalculate_word_scores(co_occ_graph):
-    """
-    Recalculate word scores using co-occurrence graph
-    Graph looks like: {'upper': {'upper': 1, 'bounds': 1}, 'set': {'supporting': 1, 'set': 3, 'minimal': 2}, ...}
-    :param co_occ_graph: the co-occurrence graph
-    :return: a dictionary of {word: score}
-    """
-    word_frequency = {}
-    word_degree = {}
-    for node in co_occ_graph:
-        edges = co_occ_graph[node]
-        word_frequency[node] = edges[node]
-
-        word_degree.setdefault(node, 0)
-        for edge_node in edges:
-            edge_weight = edges[edge_node]
-            word_degree[node] += edge_weight
-
-    # Calculate Word scores = deg(w)/freq(w)
-    word_score = {}
-    for item in word_frequency:
-        word_score.setdefault(item, 0)
-        try:
-            word_score[item] = word_degree[item] / (word_frequency[item] * 1.0)  # orig.
-        except Exception, e:
-            print "Error in word_score[item] = word_degree[item] / (word_frequency[item] * 1.0)"
-            print "item = %s, word_degree[item] = %f, word_frequency[item] = %f" % (item, word_degree[item], word_frequency[item])
-            raise e
-
-    return word_score
-
-
-def generate_candidate_keyword_scores(phrase_list, word_score):
-    keyword_candidates = {}
-    for phrase in phrase_list:
-        keyword_candidates.setdefault(phrase, 0)
-        word_list = separate_words(phrase, 0)
-        candidate_score = 0
-        for word in word_list:
-            candidate_score += word_score[word]
-        keyword_candidates[phrase] = candidate_score
-    return keyword_candidates
-
-
-class Rake(object):
-
-    def __init__(self, stop_words_path):
-        self.stop_words_path = stop_words_path
-        self.__stop_words_pattern = build_stop_word_regex(stop_words_path)
-        self.phrase_list = []
-        self.word_scores = {}
-        self.keyword_candidates = {}
-        self.co_occ_graph = {}
-
-    def run(self, text):
-        sentence_list = split_sentences(text)
-
-        self.phrase_list = generate_candidate_keywords(sentence_list, self.__stop_words_pattern)
-
-        # Reinitialize co-occurrence graph
-        self.co_occ_graph = {}
-        self.word_scores = calculate_word_scores(self.phrase_list, self.co_occ_graph)
-
-        self.keyword_candidates = generate_candidate_keyword_scores(self.phrase_list, self.word_scores)
-
-        sorted_keywords = sorted(self.keyword_candidates.items(), key=operator.itemgetter(1), reverse=True)
-        return sorted_keywords
-
-    def rerun(self):
-        """
-        Rerun RAKE using an already generated co-occurrence graph
-        :return: a sorted dictionary of {keyword: score}
-        """
-        self.word_scores = recalculate_word_scores(self.co_occ_graph)
-        self.keyword_candidates = generate_candidate_keyword_scores(self.phrase_list, self.word_scores)
-        sorted_keywords = sorted(self.keyword_candidates.items(), key=operator.itemgetter(1), reverse=True)
-        return sorted_keywords
-
-    def modify_phrase_edge_weights(self, phrase, weight):
-        """
-        Modifies the edge weights of all words in the phrase
-        :param phrase: the phrase
-        :param weight: the weight to add (or subtract if negative)
-        :return:
-        """
-        word_list = separate_words(phrase, 0)
-        for word in word_list:
-            self.modify_word_edge_weights(word, weight)
-
-    def modify_word_edge_weights(self, node, weight):
-        """
-        Modifies all edge weights in this node (word)
-        :param node: the word
-        :param weight: the weight to add (or subtract if negative)
-        :return:
-        """
-        for edge_node in self.co_occ_graph[node]:
-            self.co_occ_graph[node][edge_node] += weight
-            self.co_occ_graph[edge_node][node] += weight
-
-    def modify_edge_weight(self, node1, node2, weight):
-        """
-        Modifies edge weight between node1 and node 2 (words)
-        :param node1: the first word
-        :param node2: the second word
-        :param weight: the new weight to assign
-        :return:
-        """
-        self.co_occ_graph[node1][node2] = weight
-        self.co_occ_graph[node2][node1] = weight
-
-    def print_co_occ_graph(self):
-        print "*** Co-Occurrence Graph ***"
-        for node in self.co_occ_graph:
-            print node, self.co_occ_graph[node]
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.figueroa.nlp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.figueroa.nlp.textrank.KeyWord;
+import com.figueroa.nlp.textrank.TextRankGraph;
+import com.figueroa.nlp.textrank.TextRankNode;
+
+/**
+ * Checks the edge arrays of Node: adding, updating and removing edges, and
+ * looking them up with indexOfEdge, with and without the edge index (above
+ * and below EDGE_INDEX_THRESHOLD edges).
+ */
+public class NodeTest extends TestCase {
+
+    private TextRankGraph graph;
+    private TextRankNode node;
+    private List<TextRankNode> others;
+
+    @Override
+    protected void setUp() throws Exception {
+        graph = new TextRankGraph();
+        node = TextRankNode.buildNode(graph, "NNnode", new KeyWord("node", "NN"));
+        others = new ArrayList<TextRankNode>();
+        for (int i = 0; i < 2 * Node.EDGE_INDEX_THRESHOLD; i++) {
+            others.add(TextRankNode.buildNode(graph, "NN" + i, new KeyWord("word" + i, "NN")));
+        }
+    }
+
+    public void testAddWithoutIndex() {
+        checkAdd(Node.EDGE_INDEX_THRESHOLD);
+    }
+
+    public void testAddWithIndex() {
+        checkAdd(2 * Node.EDGE_INDEX_THRESHOLD);
+    }
+
+    public void testUpdate() {
+        connect(3);
+        final Node other = others.get(1);
+
+        // connect() replaces the weight, and keeps the previous weight unset
+        node.connect(other, 2.0D);
+        assertEquals(3, node.getEdgeCount());
+        assertEquals(1, node.indexOfEdge(other));
+        assertEquals(2.0D, node.getEdgeWeight(1), 0.0D);
+        assertTrue(Double.isNaN(node.getPreviousEdgeWeight(1)));
+        assertFalse(node.getPreviousEdges().containsKey(other));
+
+        // setEdgeWeight() keeps the previous weight
+        node.setEdgeWeight(other, 5.0D);
+        assertEquals(5.0D, node.getEdgeWeight(1), 0.0D);
+        assertEquals(2.0D, node.getPreviousEdgeWeight(1), 0.0D);
+        assertEquals(Double.valueOf(5.0D), node.getEdges().get(other));
+        assertEquals(Double.valueOf(2.0D), node.getPreviousEdges().get(other));
+        assertEquals(1, node.getPreviousEdges().size());
+        assertEquals(1.0D + 5.0D + 1.0D, node.getEdgeWeightSum(), 0.0D);
+
+        // The edge of the other node is not changed
+        assertEquals(2.0D, other.getEdgeWeight(other.indexOfEdge(node)), 0.0D);
+
+        try {
+            node.setEdgeWeight(others.get(5), 1.0D);
+            fail("Weight set on a missing edge");
+        }
+        catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    public void testRemoveWithoutIndex() {
+        checkRemove(Node.EDGE_INDEX_THRESHOLD);
+    }
+
+    public void testRemoveWithIndex() {
+        checkRemove(2 * Node.EDGE_INDEX_THRESHOLD);
+    }
+
+    public void testRevert() {
+        connect(4);
+        node.setEdgeWeight(others.get(0), 3.0D);
+        node.setEdgeWeight(others.get(2), 4.0D);
+        node.revertNode();
+
+        // Edges whose weight was never set are dropped
+        assertEquals(2, node.getEdgeCount());
+        assertEquals(Node.DEFAULT_EDGE_WEIGHT, node.getEdges().get(others.get(0)));
+        assertEquals(Node.DEFAULT_EDGE_WEIGHT, node.getEdges().get(others.get(2)));
+        assertEquals(-1, node.indexOfEdge(others.get(1)));
+        assertEquals(-1, node.indexOfEdge(others.get(3)));
+    }
+
+    public void testEdgeMapView() {
+        connect(Node.EDGE_INDEX_THRESHOLD + 2);
+        final Node removed = others.get(3);
+        assertEquals(Node.DEFAULT_EDGE_WEIGHT, node.getEdges().remove(removed));
+        assertNull(node.getEdges().remove(removed));
+        assertNull(node.getEdges().put(removed, 2.0D));
+        assertEquals(Double.valueOf(2.0D), node.getEdges().get(removed));
+        assertEquals(Node.EDGE_INDEX_THRESHOLD + 1, node.indexOfEdge(removed));
+
+        int count = 0;
+        for (Node edgeNode : node.getEdges().keySet()) {
+            assertEquals(count++, node.indexOfEdge(edgeNode));
+        }
+        assertEquals(node.getEdgeCount(), count);
+    }
+
+    /**
+     * Connect the node to the first n other nodes, and check that the edges
+     * are kept in insertion order.
+     */
+    private void checkAdd(int n) {
+        connect(n);
+        assertEquals(n, node.getEdgeCount());
+        assertEquals(n, node.getEdges().size());
+        for (int i = 0; i < n; i++) {
+            final Node other = others.get(i);
+            assertSame(other, node.getEdgeNode(i));
+            assertEquals(i, node.indexOfEdge(other));
+            assertEquals(Node.DEFAULT_EDGE_WEIGHT, node.getEdgeWeight(i), 0.0D);
+            assertEquals(0, other.indexOfEdge(node));
+        }
+        if (n < others.size()) {
+            assertEquals(-1, node.indexOfEdge(others.get(n)));
+        }
+        assertEquals(-1, node.indexOfEdge(node));
+    }
+
+    /**
+     * Connect the node to the first n other nodes, then disconnect them in
+     * a mixed order: the last edge takes the place of each removed edge.
+     */
+    private void checkRemove(int n) {
+        connect(n);
+        for (int i = 0; i < n; i++) {
+            node.setEdgeWeight(others.get(i), i);
+        }
+
+        node.disconnect(others.get(0));
+        assertEquals(n - 1, node.getEdgeCount());
+        assertEquals(-1, node.indexOfEdge(others.get(0)));
+        assertEquals(-1, others.get(0).indexOfEdge(node));
+        assertSame(others.get(n - 1), node.getEdgeNode(0));
+        assertEquals(0, node.indexOfEdge(others.get(n - 1)));
+        assertEquals(n - 1.0D, node.getEdgeWeight(0), 0.0D);
+        assertEquals(Node.DEFAULT_EDGE_WEIGHT, node.getPreviousEdgeWeight(0), 0.0D);
+
+        // The last edge
+        node.disconnect(others.get(n - 2));
+        assertEquals(n - 2, node.getEdgeCount());
+        assertEquals(-1, node.indexOfEdge(others.get(n - 2)));
+
+        // Every remaining edge is found at its index
+        for (int i = 0; i < node.getEdgeCount(); i++) {
+            final Node other = node.getEdgeNode(i);
+            assertEquals(i, node.indexOfEdge(other));
+            assertEquals(Double.valueOf(node.getEdgeWeight(i)), node.getEdges().get(other));
+        }
+
+        // Removing a missing edge does nothing
+        node.disconnect(others.get(0));
+        assertEquals(n - 2, node.getEdgeCount());
+
+        // A removed edge can be added again, at the end
+        node.connect(others.get(0), 3.0D);
+        assertEquals(n - 2, node.indexOfEdge(others.get(0)));
+        assertEquals(3.0D, node.getEdgeWeight(n - 2), 0.0D);
+        assertTrue(Double.isNaN(node.getPreviousEdgeWeight(n - 2)));
+    }
+
+    private void connect(int n) {
+        for (int i = 0; i < n; i++) {
+            node.connect(others.get(i), Node.DEFAULT_EDGE_WEIGHT);
+        }
+    }
+}
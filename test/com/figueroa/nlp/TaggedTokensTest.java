@@ -0,0 +1,150 @@
+package com.figueroa.nlp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.ling.TaggedWord;
+
+/**
+ * Checks the tokens of POSTagger.tag() against the tagged string that
+ * POSTagger.tagText() built before TaggedTokens (Sentence.listToString of
+ * each tagged sentence). The Stanford model is not needed: the tagger is
+ * replaced by a few deterministic rules.
+ */
+public class TaggedTokensTest extends TestCase {
+
+    private final static String SEPARATOR = "_";
+
+    private final static String[] TEXTS = {
+        "The tagger splits sentences. It keeps   their offsets!",
+        "<p>HTML tags are removed</p> and the separator_is replaced.",
+        "Numbers like 3.14 (and brackets) get tags; zork gets an unknown tag.",
+        "\"Quoted words,\" she said quickly, \"are tokens too.\"",
+        "One sentence without a final period",
+    };
+
+    private final static POSTagger posTagger = new RuleTagger();
+
+    public void testTaggedText() {
+        for (String text : TEXTS) {
+            assertEquals(text, tagString(text), posTagger.tag(text).getTaggedText(SEPARATOR));
+            assertEquals(text, tagString(text), posTagger.tagText(text));
+        }
+    }
+
+    public void testTokens() {
+        for (String text : TEXTS) {
+            final String cleanText = posTagger.cleanText(text);
+            final TaggedTokens tokens = posTagger.tag(text);
+            assertEquals(cleanText, tokens.getText());
+
+            final List<List<HasWord>> sentences = posTagger.tokenizeText(cleanText);
+            assertEquals(sentences.size(), tokens.getSentenceCount());
+            int token = 0;
+            int lastEnd = 0;
+            for (int s = 0; s < sentences.size(); s++) {
+                assertEquals(token, tokens.getSentenceStart(s));
+                final List<TaggedWord> tagged = posTagger.tagSentence(sentences.get(s));
+                for (TaggedWord word : tagged) {
+                    assertEquals(word.word(), tokens.getWord(token));
+                    assertEquals(word.tag(), tokens.getTag(token));
+                    assertEquals(posTagger.getTagId(word.tag()), tokens.getTagId(token));
+                    // Brackets and quotes are normalized by the tokenizer
+                    // (e.g. -LRB-), so only words are compared to the text
+                    assertTrue(tokens.getBeginPosition(token) >= lastEnd);
+                    if (Character.isLetterOrDigit(word.word().charAt(0))) {
+                        assertEquals(word.word(), cleanText.substring(
+                                tokens.getBeginPosition(token), tokens.getEndPosition(token)));
+                    }
+                    lastEnd = tokens.getEndPosition(token);
+                    token++;
+                }
+                assertEquals(token, tokens.getSentenceEnd(s));
+            }
+            assertEquals(token, tokens.size());
+        }
+    }
+
+    /**
+     * Penn Treebank tags have fixed ids; other tags get the following ids.
+     */
+    public void testTagIds() {
+        assertEquals(0, posTagger.getTagId("CC"));
+        assertEquals(11, posTagger.getTagId("NN"));
+        final TaggedTokens tokens = posTagger.tag(TEXTS[2]);
+        final int unknown = posTagger.getTagId("XX");
+        assertTrue(unknown > posTagger.getTagId("-RRB-"));
+        boolean found = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getWord(i).equals("zork")) {
+                assertEquals("XX", tokens.getTag(i));
+                assertEquals(unknown, tokens.getTagId(i));
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+
+    /**
+     * The tagged string as tagText() built it before TaggedTokens.
+     */
+    private String tagString(String text) {
+        String taggedText = "";
+        for (List<HasWord> sentence : posTagger.tokenizeText(posTagger.cleanText(text))) {
+            final ArrayList<TaggedWord> tSentence = posTagger.tagSentence(sentence);
+            taggedText = taggedText.concat(
+                    Sentence.listToString(tSentence, false, SEPARATOR) + " ");
+        }
+        taggedText = taggedText.replaceAll("  ", " ");
+        return taggedText.trim();
+    }
+
+    /**
+     * A POSTagger that tags words by their form. Its Stanford model is not
+     * loaded (the constructor reports the missing model and goes on).
+     */
+    private static class RuleTagger extends POSTagger {
+
+        RuleTagger() {
+            super("missing.tagger", SEPARATOR);
+        }
+
+        @Override
+        public ArrayList<TaggedWord> tagSentence(List<HasWord> sentence) {
+            final ArrayList<TaggedWord> tagged = new ArrayList<TaggedWord>();
+            for (HasWord word : sentence) {
+                tagged.add(new TaggedWord(word.word(), getRuleTag(word.word())));
+            }
+            return tagged;
+        }
+
+        private static String getRuleTag(String word) {
+            if (word.equals("zork")) {
+                return "XX";
+            }
+            if (word.equalsIgnoreCase("the") || word.equalsIgnoreCase("a")) {
+                return "DT";
+            }
+            if (word.equals("-LRB-") || word.equals("-RRB-")) {
+                return word;
+            }
+            if (!Character.isLetterOrDigit(word.charAt(0))) {
+                return word.length() == 1 ? word : ":";
+            }
+            if (Character.isDigit(word.charAt(0))) {
+                return "CD";
+            }
+            if (word.endsWith("ly")) {
+                return "RB";
+            }
+            if (word.endsWith("s")) {
+                return "NNS";
+            }
+            return Character.isUpperCase(word.charAt(0)) ? "NNP" : "NN";
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.figueroa.nlp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.data.Word;
+
+import com.figueroa.nlp.textrank.WordNet;
+
+import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.morph.WordnetStemmer;
+
+/**
+ * Checks the WordNet image against the libraries it replaces, on images
+ * compiled from the dictionaries of this tree: the stems of the Lemmatizer
+ * (JWI, WordNet 3.0) and the lemmas, senses, words and hypernym/hyponym
+ * pointers of TextRank (JWNL, WordNet 2.1).
+ * The noun index and data files are not in this tree, and neither library
+ * opens a dictionary without them, so both dictionaries are copied with
+ * generated noun files: the base forms of noun.exc, in a tree of hypernyms.
+ * The words are the lemmas and exception forms of the dictionaries, with
+ * regular inflections and collocation variants added.
+ */
+public class WordNetImageTest extends TestCase {
+
+    private final static String LEMMATIZER_DICT = "resources/WordNet-3.0/dict";
+    private final static String TEXTRANK_RESOURCES = "resources/textrank";
+    private final static String TEXTRANK_DICT = TEXTRANK_RESOURCES + "/en/wn";
+    private final static String[] DICT_FILES = {"index.noun", "index.verb", "index.adj",
+        "index.adv", "data.noun", "data.verb", "data.adj", "data.adv", "noun.exc",
+        "verb.exc", "adj.exc", "adv.exc", "lexnames"};
+
+    private final static String[] SUFFIXES = {"s", "es", "ed", "ing", "er", "est", "ies", "ful", "men"};
+    private final static String[] EXTRA_WORDS = {"Running", "WELL-KNOWN", "well known",
+        "well-knowns", "re-examined", "o'clock", "24-hour", "ran away", "gave up",
+        "looked up to", "bigger", "Best", "x", "s", "ies"};
+
+    // Every n-th word is compared, to keep the test short
+    private final static int JWI_STRIDE = 10;
+    private final static int JWNL_STRIDE = 400;
+
+    private final static edu.mit.jwi.item.POS[] JWI_POS = {
+        edu.mit.jwi.item.POS.NOUN, edu.mit.jwi.item.POS.VERB,
+        edu.mit.jwi.item.POS.ADJECTIVE, edu.mit.jwi.item.POS.ADVERB};
+    private final static POS[] JWNL_POS = {POS.NOUN, POS.VERB, POS.ADJECTIVE, POS.ADVERB};
+
+    // Children of each generated noun synset
+    private final static int NOUN_FANOUT = 8;
+
+    public void testFindStems() throws Exception {
+        final File dictDir = copyDictionary(getResourceDir(LEMMATIZER_DICT),
+                new File(createTempDir(), "dict"));
+        final WordNetImage image = compile(dictDir);
+
+        final IDictionary dict = new edu.mit.jwi.Dictionary(dictDir.toURI().toURL());
+        dict.open();
+        try {
+            final WordnetStemmer stemmer = new WordnetStemmer(dict);
+            final List<String> words = getWords(dictDir);
+            int compared = 0;
+            for (int i = 0; i < words.size(); i += JWI_STRIDE) {
+                final String word = words.get(i);
+                for (edu.mit.jwi.item.POS pos : JWI_POS) {
+                    assertEquals("stems of \"" + word + "\" (" + pos + ")",
+                            stemmer.findStems(word, pos), image.findStems(word, pos.getTag()));
+                    compared++;
+                }
+            }
+            assertTrue(compared > 10000);
+        }
+        finally {
+            dict.close();
+        }
+    }
+
+    public void testLookupBaseForm() throws Exception {
+        final File resourcesDir = createTextRankResources();
+        final File dictDir = new File(resourcesDir, "en/wn");
+
+        final WordNetImage image = compile(dictDir);
+        WordNet.buildDictionary(resourcesDir.getPath(), "en");
+
+        final List<String> words = getWords(dictDir);
+        int compared = 0;
+        for (int i = 0; i < words.size(); i += JWNL_STRIDE) {
+            final String word = words.get(i);
+            for (POS pos : JWNL_POS) {
+                final char tag = pos.getKey().charAt(0);
+                final IndexWord indexWord = WordNet.getLemma(pos, word);
+                final String lemma = image.lookupBaseForm(tag, word);
+                final String message = "\"" + word + "\" (" + pos.getKey() + ")";
+
+                if (indexWord == null) {
+                    assertNull(message, lemma);
+                    continue;
+                }
+                assertEquals(message, indexWord.getLemma().replace(' ', '_'), lemma);
+
+                final Synset[] senses = indexWord.getSenses();
+                final long[] imageSenses = image.getSenses(tag, lemma);
+                assertEquals(message, senses.length, imageSenses.length);
+                for (int s = 0; s < senses.length; s++) {
+                    assertEquals(message, senses[s].getOffset(), imageSenses[s]);
+                    assertSynset(image, tag, senses[s]);
+                }
+                compared++;
+            }
+        }
+        assertTrue(compared > 100);
+    }
+
+    public void testNotAnImage() throws Exception {
+        final File file = File.createTempFile("wordnet", ".img");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not an image".getBytes("UTF-8"));
+        }
+        try {
+            WordNetImage.load(file.getPath());
+            fail();
+        }
+        catch (Exception e) {
+            assertTrue(e.getMessage().startsWith("Exception in WordNetImage"));
+        }
+    }
+
+    private static void assertSynset(WordNetImage image, char tag, Synset synset) {
+        final String message = "synset " + synset.getOffset() + " (" + tag + ")";
+
+        final Word[] words = synset.getWords();
+        final String[] imageWords = image.getWords(tag, synset.getOffset());
+        assertEquals(message, words.length, imageWords.length);
+        for (int w = 0; w < words.length; w++) {
+            // The image drops the adjective markers, e.g. galore(ip)
+            assertEquals(message, words[w].getLemma().replaceAll("\\(.*\\)$", ""), imageWords[w]);
+        }
+
+        assertTargets(message, synset.getPointers(PointerType.HYPERNYM),
+                image.getPointerTargets(tag, synset.getOffset(), WordNetImage.HYPERNYM));
+        assertTargets(message, synset.getPointers(PointerType.HYPONYM),
+                image.getPointerTargets(tag, synset.getOffset(), WordNetImage.HYPONYM));
+    }
+
+    private static void assertTargets(String message, Pointer[] pointers, long[] targets) {
+        final long[] expected = new long[pointers.length];
+        for (int i = 0; i < pointers.length; i++) {
+            expected[i] = pointers[i].getTargetOffset();
+        }
+        assertTrue(message, Arrays.equals(expected, targets));
+    }
+
+    /**
+     * Copy the files of a dictionary, generating the noun index and data
+     * files if they are missing.
+     * @return the copy
+     */
+    private static File copyDictionary(File dictDir, File copyDir) throws Exception {
+        assertTrue(copyDir.mkdirs());
+        for (String fileName : DICT_FILES) {
+            final File file = new File(dictDir, fileName);
+            if (file.exists()) {
+                copyFile(file, new File(copyDir, fileName));
+            }
+        }
+        if (!new File(copyDir, "data.noun").exists()) {
+            writeNouns(new File(dictDir, "noun.exc"), copyDir);
+        }
+        return copyDir;
+    }
+
+    /**
+     * Write noun index and data files with one synset for each base form of
+     * an exception list. Synset i is a hyponym of synset (i - 1) / NOUN_FANOUT.
+     */
+    private static void writeNouns(File exceptionFile, File dictDir) throws Exception {
+        final Set<String> lemmas = new TreeSet<String>();
+        for (String line : readLines(exceptionFile)) {
+            final String[] fields = line.split(" ");
+            lemmas.addAll(Arrays.asList(fields).subList(1, fields.length));
+        }
+        final String[] nouns = lemmas.toArray(new String[lemmas.size()]);
+
+        // The offsets are the byte positions of the records, and the records
+        // only hold fixed width offsets, so they are written twice
+        final long[] offsets = new long[nouns.length];
+        final String[] records = new String[nouns.length];
+        for (int pass = 0; pass < 2; pass++) {
+            long offset = 0;
+            for (int i = 0; i < nouns.length; i++) {
+                final List<String> pointers = new ArrayList<String>();
+                if (i > 0) {
+                    pointers.add(String.format("@ %08d n 0000", offsets[(i - 1) / NOUN_FANOUT]));
+                }
+                for (int child = i * NOUN_FANOUT + 1;
+                        child <= i * NOUN_FANOUT + NOUN_FANOUT && child < nouns.length; child++) {
+                    pointers.add(String.format("~ %08d n 0000", offsets[child]));
+                }
+                offsets[i] = offset;
+                records[i] = String.format("%08d 03 n 01 %s 0 %03d%s%s | generated  %n",
+                        offset, nouns[i], pointers.size(), pointers.isEmpty() ? "" : " ",
+                        join(pointers.toArray(new String[pointers.size()]), " "));
+                offset += records[i].getBytes("UTF-8").length;
+            }
+        }
+
+        try (Writer data = new OutputStreamWriter(
+                new FileOutputStream(new File(dictDir, "data.noun")), "UTF-8");
+                Writer index = new OutputStreamWriter(
+                new FileOutputStream(new File(dictDir, "index.noun")), "UTF-8")) {
+            for (int i = 0; i < nouns.length; i++) {
+                data.write(records[i]);
+                final String symbols = i == 0 ? "1 ~" :
+                        i * NOUN_FANOUT + 1 < nouns.length ? "2 @ ~" : "1 @";
+                index.write(String.format("%s n 1 %s 1 0 %08d  %n", nouns[i], symbols, offsets[i]));
+            }
+        }
+    }
+
+    /**
+     * Copy the TextRank WordNet resources (see WordNet.buildDictionary),
+     * with generated noun files. JWNL reads its configuration from
+     * <resources>/en and the dictionary from <resources>/en/wn.
+     * @return the resources directory
+     */
+    public static File createTextRankResources() throws Exception {
+        final File resourcesDir = createTempDir();
+        final File modelDir = new File(resourcesDir, "en");
+        copyDictionary(getResourceDir(TEXTRANK_DICT), new File(modelDir, "wn"));
+        copyFile(new File(getResourceDir(TEXTRANK_RESOURCES), "en/wn_file_props.xml"),
+                new File(modelDir, "wn_file_props.xml"));
+        return resourcesDir;
+    }
+
+    /**
+     * Compile and load the image of a dictionary.
+     */
+    public static WordNetImage compile(File dictDir) throws Exception {
+        final File imageFile = File.createTempFile("wordnet", ".img");
+        imageFile.deleteOnExit();
+        WordNetImageCompiler.compile(dictDir, imageFile);
+        return WordNetImage.load(imageFile.getPath());
+    }
+
+    /**
+     * Get the lemmas and exception forms of a dictionary, with inflections
+     * and collocation variants.
+     */
+    private static List<String> getWords(File dictDir) throws Exception {
+        final Set<String> words = new LinkedHashSet<String>();
+        for (String fileName : new String[] {"index.noun", "index.verb", "index.adj",
+                "index.adv", "noun.exc", "verb.exc", "adj.exc", "adv.exc"}) {
+
+            for (String line : readLines(new File(dictDir, fileName))) {
+                if (line.startsWith(" ")) {
+                    continue; // License header
+                }
+                final String[] fields = line.split(" ");
+                final String lemma = fields[0];
+                words.add(lemma);
+                words.add(lemma.replace('_', ' '));
+                for (String suffix : SUFFIXES) {
+                    words.add(lemma + suffix);
+                }
+                final String[] parts = lemma.split("_");
+                if (parts.length > 1) {
+                    parts[0] += "s";
+                    words.add(join(parts, "_"));
+                    words.add(join(parts, " "));
+                    parts[0] += "ing";
+                    words.add(join(parts, "-"));
+                }
+                if (fileName.endsWith(".exc")) {
+                    words.addAll(Arrays.asList(fields).subList(1, fields.length));
+                }
+            }
+        }
+        words.addAll(Arrays.asList(EXTRA_WORDS));
+        return new ArrayList<String>(words);
+    }
+
+    private static String join(String[] parts, String separator) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    private static File createTempDir() throws Exception {
+        final File dir = File.createTempFile("wordnet", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static void copyFile(File file, File copy) throws Exception {
+        copy.getParentFile().mkdirs();
+        Files.copy(file.toPath(), copy.toPath());
+        copy.deleteOnExit();
+    }
+
+    private static File getResourceDir(String resource) throws Exception {
+        final URL url = WordNetImageTest.class.getClassLoader().getResource(resource);
+        assertNotNull(resource, url);
+        return new File(url.toURI());
+    }
+
+    private static List<String> readLines(File file) throws Exception {
+        final ArrayList<String> lines = new ArrayList<String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,133 @@
+package com.figueroa.nlp.rake;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks RakeExtractor against the scores of the Python RAKE implementation
+ * it was ported from (rake.py), for the texts of rake/texts.txt. The
+ * expected scores (rake/expected_scores.tsv) were generated by rake.py with
+ * the same stoplist, after run() and after changing one edge weight and
+ * calling rerun(). They must be identical, not just close.
+ */
+public class RakeExtractorTest extends TestCase {
+
+    private final static String STOPLIST = "resources/python/rake/SmartStoplist.txt";
+
+    private List<String> texts;
+    private Map<Integer, Map<String, Double>> runScores;
+    private Map<Integer, Map<String, Double>> rerunScores;
+    private Map<Integer, String[]> edges;
+
+    @Override
+    protected void setUp() throws Exception {
+        texts = readLines("rake/texts.txt");
+        runScores = new TreeMap<Integer, Map<String, Double>>();
+        rerunScores = new TreeMap<Integer, Map<String, Double>>();
+        edges = new TreeMap<Integer, String[]>();
+
+        for (String line : readLines("rake/expected_scores.tsv")) {
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue;
+            }
+            final String[] fields = line.split("\t");
+            final int text = Integer.parseInt(fields[0]);
+            if (fields[1].equals("edge")) {
+                edges.put(text, fields);
+            }
+            else {
+                final Map<Integer, Map<String, Double>> scores =
+                        fields[1].equals("run") ? runScores : rerunScores;
+                if (!scores.containsKey(text)) {
+                    scores.put(text, new HashMap<String, Double>());
+                }
+                scores.get(text).put(fields[2], Double.parseDouble(fields[3]));
+            }
+        }
+    }
+
+    public void testRun() throws Exception {
+        assertEquals(texts.size(), runScores.size());
+        for (int i = 0; i < texts.size(); i++) {
+            final RakeExtractor extractor = new RakeExtractor(getStoplist());
+            assertScores(i, runScores.get(i), extractor.run(texts.get(i)));
+        }
+    }
+
+    public void testRerun() throws Exception {
+        assertEquals(texts.size(), rerunScores.size());
+        for (int i = 0; i < texts.size(); i++) {
+            final RakeExtractor extractor = new RakeExtractor(getStoplist());
+            extractor.run(texts.get(i));
+            final String[] edge = edges.get(i);
+            extractor.setEdgeWeight(edge[2], edge[3], Double.parseDouble(edge[4]));
+            extractor.rerun();
+            assertScores(i, rerunScores.get(i), extractor.getKeywordScores());
+        }
+    }
+
+    /**
+     * Reruns after restoreState() only rescore the changed words (and the
+     * words that rerun() scores differently from run()), so every cycle
+     * must give the same scores as the first one.
+     */
+    public void testRerunAfterRestore() throws Exception {
+        for (int i = 0; i < texts.size(); i++) {
+            final RakeExtractor reference = new RakeExtractor(getStoplist());
+            reference.run(texts.get(i));
+            reference.rerun();
+
+            final RakeExtractor extractor = new RakeExtractor(getStoplist());
+            extractor.run(texts.get(i));
+            final String[] edge = edges.get(i);
+            final double weight = Double.parseDouble(edge[4]);
+            for (int cycle = 0; cycle < 2; cycle++) {
+                extractor.setEdgeWeight(edge[2], edge[3], weight);
+                extractor.rerun();
+                assertScores(i, rerunScores.get(i), extractor.getKeywordScores());
+                extractor.restoreState();
+                assertScores(i, runScores.get(i), extractor.getKeywordScores());
+            }
+            extractor.rerun();
+            assertScores(i, reference.getKeywordScores(), extractor.getKeywordScores());
+        }
+    }
+
+    private static void assertScores(int text, Map<String, Double> expected,
+            Map<String, Double> actual) {
+        assertEquals("phrases of text " + text, new TreeMap<String, Double>(expected).keySet(),
+                new TreeMap<String, Double>(actual).keySet());
+        for (String phrase : expected.keySet()) {
+            assertEquals("score of \"" + phrase + "\" in text " + text,
+                    expected.get(phrase), actual.get(phrase));
+        }
+    }
+
+    private static String getStoplist() throws Exception {
+        final URL url = RakeExtractorTest.class.getClassLoader().getResource(STOPLIST);
+        assertNotNull(STOPLIST, url);
+        return new File(url.toURI()).getAbsolutePath();
+    }
+
+    private static List<String> readLines(String resource) throws Exception {
+        final ArrayList<String> lines = new ArrayList<String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                RakeExtractorTest.class.getClassLoader().getResourceAsStream(resource),
+                "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
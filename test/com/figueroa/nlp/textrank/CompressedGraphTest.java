@@ -0,0 +1,146 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+
+import com.figueroa.nlp.Node;
+
+/**
+ * Checks the iteration over a CompressedGraph against the iteration over the
+ * edge maps of the nodes it replaced: on a fixed graph, the default solver
+ * must give the same ranks, bit for bit, after the same number of sweeps.
+ */
+public class CompressedGraphTest extends TestCase {
+
+    private final static int SIZE = 300;
+
+    /**
+     * The normalized weights of a small graph, worked out by hand.
+     */
+    public void testWeightedRankSum() throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final TextRankNode a = TextRankNode.buildNode(graph, "NNa", new KeyWord("a", "NN"));
+        final TextRankNode b = TextRankNode.buildNode(graph, "NNb", new KeyWord("b", "NN"));
+        final TextRankNode c = TextRankNode.buildNode(graph, "NNc", new KeyWord("c", "NN"));
+        a.connect(b, 2.0D);
+        a.connect(c, 1.0D);
+        b.connect(c, 3.0D);
+
+        final CompressedGraph compressed = new CompressedGraph(new Node[] {a, b});
+        assertEquals(2, compressed.getNodeCount());
+        assertEquals(3, compressed.getTotalNodeCount());
+        assertEquals(4, compressed.getEdgeCount());
+        assertEquals(2, compressed.getId(c));
+        assertEquals(1, compressed.getAdjacentIds(compressed.getId(a)).length);
+
+        // a: 2/5 of the rank of b and 1/4 of the rank of c
+        final double[] ranks = {1.0D, 2.0D, 4.0D};
+        assertEquals(2.0D * 2.0D / 5.0D + 4.0D * 1.0D / 4.0D,
+                compressed.getWeightedRankSum(compressed.getId(a), ranks), 1.0E-15D);
+        // b: 2/3 of the rank of a and 3/4 of the rank of c
+        assertEquals(1.0D * 2.0D / 3.0D + 4.0D * 3.0D / 4.0D,
+                compressed.getWeightedRankSum(compressed.getId(b), ranks), 1.0E-15D);
+    }
+
+    public void testSameRanksAsMapIteration() throws Exception {
+        for (long seed = 1; seed <= 3; seed++) {
+            final TextRankGraph reference = buildGraph(seed);
+            final int iterations = iterateEdgeMaps(reference);
+
+            final TextRankGraph graph = buildGraph(seed);
+            final RankReport report = graph.runTextRank(RankSolverOptions.DEFAULT, false);
+
+            assertEquals(iterations, report.iterations);
+            for (TextRankNode n : reference.values()) {
+                final TextRankNode node = graph.get(n.key);
+                assertEquals(n.key, n.getRank(), node.getRank(), 0.0D);
+                assertEquals(n.key, n.getPreviousRank(), node.getPreviousRank(), 0.0D);
+            }
+        }
+    }
+
+    /**
+     * The iteration before CompressedGraph: the normalized weights are
+     * computed from the edge maps in every sweep, and the ranks are swapped
+     * into the nodes after each sweep.
+     * @return the number of sweeps
+     */
+    private static int iterateEdgeMaps(TextRankGraph graph) {
+        final List<TextRankNode> node_list = new ArrayList<TextRankNode>(graph.values());
+        final double[] rank_list = new double[node_list.size()];
+        final double[] previous_rank_list = new double[node_list.size()];
+        for (int i = 0; i < node_list.size(); i++) {
+            previous_rank_list[i] = node_list.get(i).getRank();
+        }
+        final SummaryStatistics dist_stats = new SummaryStatistics();
+        final double damping_factor = TextRankGraph.TEXTRANK_DAMPING_FACTOR;
+
+        int iterations = 0;
+        for (int k = 0; k < node_list.size(); k++) {
+            dist_stats.clear();
+            iterations++;
+
+            for (int i = 0; i < node_list.size(); i++) {
+                final TextRankNode n1 = node_list.get(i);
+                double rank = 0.0D;
+                for (Node n2 : n1.getEdges().keySet()) {
+                    double denominator = 0.0D;
+                    for (Double d : n2.getEdges().values()) {
+                        denominator += d;
+                    }
+                    rank += n2.getEdges().get(n1) / denominator * n2.getRank();
+                }
+                rank *= damping_factor;
+                rank += 1.0D - damping_factor;
+
+                rank_list[i] = rank;
+                dist_stats.addValue(Math.abs(n1.getRank() - rank));
+            }
+
+            for (int i = 0; i < node_list.size(); i++) {
+                node_list.get(i).setRank(rank_list[i]);
+            }
+
+            if (dist_stats.getStandardDeviation() / Math.sqrt(dist_stats.getN()) <
+                    TextRankGraph.STANDARD_ERROR_THRESHOLD) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < node_list.size(); i++) {
+            node_list.get(i).setPreviousRank(previous_rank_list[i]);
+        }
+        return iterations;
+    }
+
+    /**
+     * A connected graph of SIZE keyword nodes: a chain, plus random edges
+     * with random weights.
+     */
+    private static TextRankGraph buildGraph(long seed) throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final Random random = new Random(seed);
+
+        final List<TextRankNode> nodes = new ArrayList<TextRankNode>();
+        for (int i = 0; i < SIZE; i++) {
+            nodes.add(TextRankNode.buildNode(graph, "NN" + i, new KeyWord("word" + i, "NN")));
+        }
+        for (int i = 1; i < SIZE; i++) {
+            nodes.get(i).connect(nodes.get(i - 1), Node.DEFAULT_EDGE_WEIGHT);
+        }
+        for (int i = 0; i < 3 * SIZE; i++) {
+            final TextRankNode a = nodes.get(random.nextInt(SIZE));
+            final TextRankNode b = nodes.get(random.nextInt(SIZE));
+            if (a != b) {
+                a.connect(b, 0.1D + 2.0D * random.nextDouble());
+            }
+        }
+
+        return graph;
+    }
+}
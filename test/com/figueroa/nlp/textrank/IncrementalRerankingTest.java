@@ -0,0 +1,166 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.figueroa.nlp.Node;
+
+/**
+ * Checks the incremental reranking (PUSH solver) against a full rerun of
+ * the Jacobi solver, on synthetic graphs whose ranks had converged before
+ * the change, as in TextRank pass 4 and the RankUp error feedback.
+ */
+public class IncrementalRerankingTest extends TestCase {
+
+    private final static int SIZE = 400;
+    private final static int ADDED = 60;
+
+    // Converged ranks for the reference
+    private final static RankSolverOptions CONVERGED = new RankSolverOptions(
+            RankSolverOptions.Solver.JACOBI, RankSolverOptions.Residual.L_INF, 1.0E-12D);
+
+    /**
+     * New nodes connected to the graph (TextRank pass 4).
+     */
+    public void testAddedNodes() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            final TextRankGraph incremental = buildGraph(seed);
+            incremental.runTextRank(CONVERGED);
+            final Set<Node> changed = addNodes(incremental, seed);
+            incremental.rerank(changed, 1.0E-10D, false);
+
+            final TextRankGraph full = buildGraph(seed);
+            full.runTextRank(CONVERGED);
+            addNodes(full, seed);
+            full.runTextRank(CONVERGED);
+
+            assertEquals(full.size(), incremental.size());
+            assertTrue(maxRankDifference(full, incremental) < 1.0E-7D);
+        }
+    }
+
+    /**
+     * Changed edge weights (RankUp error feedback).
+     */
+    public void testChangedEdgeWeights() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            final TextRankGraph incremental = buildGraph(seed);
+            incremental.runTextRank(CONVERGED);
+            final Set<Node> changed = changeEdgeWeights(incremental, seed);
+            incremental.rerank(changed, 1.0E-10D, false);
+
+            final TextRankGraph full = buildGraph(seed);
+            full.runTextRank(CONVERGED);
+            changeEdgeWeights(full, seed);
+            full.runTextRank(CONVERGED);
+
+            assertTrue(maxRankDifference(full, incremental) < 1.0E-7D);
+        }
+    }
+
+    /**
+     * With the tolerance used by TextRank and RankUp, the ranks (about 1 on
+     * average) stay within ten times the tolerance of the full solver.
+     */
+    public void testDefaultTolerance() throws Exception {
+        final double bound = 10.0D * TextRankGraph.INCREMENTAL_TOLERANCE;
+        for (long seed = 1; seed <= 5; seed++) {
+            final TextRankGraph incremental = buildGraph(seed);
+            incremental.runTextRank(CONVERGED);
+            final Set<Node> changed = addNodes(incremental, seed);
+            incremental.rerank(changed, TextRankGraph.INCREMENTAL_TOLERANCE, false);
+
+            final TextRankGraph full = buildGraph(seed);
+            full.runTextRank(CONVERGED);
+            addNodes(full, seed);
+            full.runTextRank(CONVERGED);
+
+            assertTrue(maxRankDifference(full, incremental) < bound);
+        }
+    }
+
+    /**
+     * A connected graph of SIZE keyword nodes: a chain, plus random edges.
+     */
+    private static TextRankGraph buildGraph(long seed) throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final Random random = new Random(seed);
+
+        final List<TextRankNode> nodes = new ArrayList<TextRankNode>();
+        for (int i = 0; i < SIZE; i++) {
+            nodes.add(TextRankNode.buildNode(graph, "NN" + i, new KeyWord("word" + i, "NN")));
+        }
+        for (int i = 1; i < SIZE; i++) {
+            nodes.get(i).connect(nodes.get(i - 1), Node.DEFAULT_EDGE_WEIGHT);
+        }
+        for (int i = 0; i < 2 * SIZE; i++) {
+            final TextRankNode a = nodes.get(random.nextInt(SIZE));
+            final TextRankNode b = nodes.get(random.nextInt(SIZE));
+            if (a != b) {
+                a.connect(b, Node.DEFAULT_EDGE_WEIGHT);
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Add ADDED ngram nodes, each connected to two to four keyword nodes.
+     * @return the new nodes and the nodes they are connected to
+     */
+    private static Set<Node> addNodes(TextRankGraph graph, long seed) throws Exception {
+        final Random random = new Random(-seed);
+        final Set<Node> changed =
+                Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+
+        for (int i = 0; i < ADDED; i++) {
+            final TextRankNode n = TextRankNode.buildNode(
+                    graph, "NGram" + i, new KeyWord("phrase " + i, "NN"));
+            changed.add(n);
+            final int length = 2 + random.nextInt(3);
+            for (int j = 0; j < length; j++) {
+                final TextRankNode keyword = graph.get("NN" + random.nextInt(SIZE));
+                n.connect(keyword, Node.DEFAULT_EDGE_WEIGHT);
+                changed.add(keyword);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Change the weights of the edges of some nodes, in both directions.
+     * @return the nodes whose edge weights changed
+     */
+    private static Set<Node> changeEdgeWeights(TextRankGraph graph, long seed) {
+        final Random random = new Random(-seed);
+        final Set<Node> changed =
+                Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+
+        for (int i = 0; i < SIZE / 10; i++) {
+            final TextRankNode n = graph.get("NN" + random.nextInt(SIZE));
+            final Node edge_node = n.getEdgeNode(random.nextInt(n.getEdgeCount()));
+            final double weight = 0.1D + 2.0D * random.nextDouble();
+            n.setEdgeWeight(edge_node, weight);
+            edge_node.setEdgeWeight(n, weight);
+            changed.add(n);
+            changed.add(edge_node);
+        }
+
+        return changed;
+    }
+
+    private static double maxRankDifference(TextRankGraph a, TextRankGraph b) {
+        double max = 0.0D;
+        for (TextRankNode n : a.values()) {
+            max = Math.max(max, Math.abs(n.rank - b.get(n.key).rank));
+        }
+        return max;
+    }
+}
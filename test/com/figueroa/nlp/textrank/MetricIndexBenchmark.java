@@ -0,0 +1,120 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Microbenchmark of the mapping of metric vectors to the TextRank graph
+ * nodes (step 1.2 of GraphBasedKeywordExtractor with the whole TextRank
+ * graph): a scan of the metric space for every node, as it was done before
+ * the metric vectors were indexed by node, against the lookup in the index
+ * of TextRankContext.
+ * The graphs are synthetic: each size is the number of keyword nodes, plus
+ * half as many ngram nodes with a metric vector each.
+ * Usage: MetricIndexBenchmark [size...]
+ * It is in the test sources, in the package of TextRankContext, and is not
+ * packaged with the application.
+ */
+public class MetricIndexBenchmark {
+
+    private final static int[] DEFAULT_SIZES = {500, 1000, 2000, 4000, 8000};
+    private final static int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("nodes\tvectors\tscan_ms\tindex_ms\tspeedup");
+        for (int size : sizes) {
+            final TextRankContext context = buildContext(size);
+            final int vectors = context.metric_index.size();
+
+            // Warm up both loops, and check that they agree
+            if (mapByScan(context) != mapByIndex(context)) {
+                throw new Exception("Exception in MetricIndexBenchmark: mappings differ");
+            }
+
+            long scanTime = Long.MAX_VALUE;
+            long indexTime = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long startTime = System.nanoTime();
+                mapByScan(context);
+                scanTime = Math.min(scanTime, System.nanoTime() - startTime);
+
+                startTime = System.nanoTime();
+                mapByIndex(context);
+                indexTime = Math.min(indexTime, System.nanoTime() - startTime);
+            }
+
+            System.out.println(context.graph.size() + "\t" + vectors + "\t" +
+                    String.format("%.3f\t%.3f\t%.0fx", scanTime / 1e6, indexTime / 1e6,
+                    (double) scanTime / Math.max(1L, indexTime)));
+        }
+    }
+
+    /**
+     * Build a context with size keyword nodes and size / 2 ngram nodes, each
+     * ngram node with a metric vector.
+     */
+    private static TextRankContext buildContext(int size) throws Exception {
+        final TextRankContext context = new TextRankContext("");
+        context.metric_index = new HashMap<TextRankNode, MetricVector>();
+
+        for (int i = 0; i < size; i++) {
+            TextRankNode.buildNode(context.graph, "NN" + i, new KeyWord("word" + i, "NN"));
+        }
+        for (int i = 0; i < size / 2; i++) {
+            final KeyWord value = new KeyWord("phrase " + i, "NN");
+            final TextRankNode n = TextRankNode.buildNode(context.graph, "NGram" + i, value);
+            value.setParentNode(n);
+
+            final double rank = (double) ((i * 7919) % size) / size;
+            context.metric_index.put(n, new MetricVector(value, rank, rank, 0.0D));
+        }
+
+        return context;
+    }
+
+    /**
+     * The mapping before the index: a scan of the sorted metric space.
+     * @return the sum of the mapped metrics
+     */
+    private static double mapByScan(TextRankContext context) {
+        final TreeSet<MetricVector> metricSpace =
+                new TreeSet<MetricVector>(context.metric_index.values());
+        double sum = 0.0D;
+
+        for (TextRankNode node : context.graph.values()) {
+            double originalTextRankScore = -1.0;
+            for (MetricVector mv : metricSpace) {
+                if (mv.value.getParentNode().equals(node)) {
+                    originalTextRankScore = mv.metric;
+                    break;
+                }
+            }
+            sum += originalTextRankScore;
+        }
+
+        return sum;
+    }
+
+    /**
+     * The mapping with the index of the context.
+     * @return the sum of the mapped metrics
+     */
+    private static double mapByIndex(TextRankContext context) {
+        double sum = 0.0D;
+
+        for (TextRankNode node : context.graph.values()) {
+            final MetricVector mv = context.getMetricVector(node);
+            sum += mv != null ? mv.metric : -1.0;
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,157 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the n-grams collected from the token spans of the sentences by
+ * NGram.collectNGrams: which spans are emitted, and how repeated spans are
+ * counted.
+ */
+public class NGramTest extends TestCase {
+
+    private TextRankGraph graph;
+    private List<Sentence> sentences;
+    private final LanguageModel lang = new TestLanguage();
+
+    @Override
+    protected void setUp() throws Exception {
+        graph = new TextRankGraph();
+        sentences = new ArrayList<Sentence>();
+        addSentence("Sparse graph ranking is fast .", "JJ NN NN VBZ JJ .");
+        addSentence("Graph ranking uses sparse graph ranking .", "NN NN VBZ JJ NN NN .");
+        addSentence("Ranking .", "NN .");
+        addSentence("Unmarked words .", "JJ NNS .");
+        // A span that reaches the end of the sentence is not emitted
+        addSentence("Fast graph ranking", "JJ NN NN");
+
+        for (TextRankNode n : graph.values()) {
+            n.setRank(0.5D);
+        }
+        graph.get("NNgraph").marked = true;
+        graph.get("NNgraph").setRank(1.5D);
+        graph.get("NNranking").marked = true;
+        graph.get("NNranking").setRank(2.0D);
+    }
+
+    public void testSpans() throws Exception {
+        final Map<String, NGram> ngrams = collect(1.8D);
+        assertEquals(3, ngrams.size());
+
+        // Repeated span: counted, with the text and context of the first one
+        final NGram sparse = ngrams.get("Sparse graph ranking");
+        assertNotNull(sparse);
+        assertEquals(2, sparse.getCount());
+        assertEquals(3, sparse.length);
+        assertSame(sentences.get(0), sparse.first_context.s);
+        assertEquals(0, sparse.first_context.start);
+        assertTrue(sparse.nodes.contains(graph.get("JJsparse")));
+        assertEquals("NGramJJsparseNNgraphNNranking", sparse.getParentNode().key);
+        assertEquals(2.0D, sparse.getParentNode().getRank(), 0.0D);
+
+        // Another order of the same nodes
+        final NGram graphRanking = ngrams.get("Graph ranking");
+        assertNotNull(graphRanking);
+        assertEquals(1, graphRanking.getCount());
+        assertSame(sentences.get(1), graphRanking.first_context.s);
+
+        // A single noun with a rank above the threshold
+        final NGram ranking = ngrams.get("Ranking");
+        assertNotNull(ranking);
+        assertEquals(1, ranking.length);
+        assertEquals(2.0D, ranking.getParentNode().getRank(), 0.0D);
+    }
+
+    public void testRankThreshold() throws Exception {
+        final Map<String, NGram> ngrams = collect(3.0D);
+        assertEquals(2, ngrams.size());
+        assertNull(ngrams.get("Ranking"));
+        assertEquals(2, ngrams.get("Sparse graph ranking").getCount());
+    }
+
+    /**
+     * Collecting the n-grams again gives the same n-grams, as the buffers
+     * are not shared between calls.
+     */
+    public void testRepeatedCollection() throws Exception {
+        final Map<String, NGram> first = collect(1.8D);
+        final Map<String, NGram> second = collect(1.8D);
+        assertEquals(first.keySet(), second.keySet());
+        for (String text : first.keySet()) {
+            assertEquals(first.get(text).getCount(), second.get(text).getCount());
+        }
+    }
+
+    private Map<String, NGram> collect(double rank_threshold) throws Exception {
+        final TextRankGraph ngrams = NGram.collectNGrams(lang, sentences, rank_threshold);
+        final Map<String, NGram> by_text = new HashMap<String, NGram>();
+        for (TextRankNode n : ngrams.values()) {
+            final NGram gram = (NGram) n.value;
+            assertNull(gram.text, by_text.put(gram.text, gram));
+            assertSame(n, ngrams.getById(n.id));
+        }
+        return by_text;
+    }
+
+    private void addSentence(String text, String tags) throws Exception {
+        final Sentence s = new Sentence(text);
+        s.setAnnotation(text.split(" "), tags.split(" "));
+        s.mapTokens(lang, graph);
+        sentences.add(s);
+    }
+
+    /**
+     * A language model whose node key is the PoS prefix and the lowercase
+     * token.
+     */
+    private static class TestLanguage extends LanguageModel {
+
+        @Override
+        public String getNodeKey(final String text, final String pos) {
+            return pos.substring(0, 2) + text.toLowerCase();
+        }
+
+        @Override
+        public boolean isNoun(final String pos) {
+            return pos.startsWith("NN");
+        }
+
+        @Override
+        public boolean isAdjective(final String pos) {
+            return pos.startsWith("JJ");
+        }
+
+        @Override
+        public boolean isVerb(final String pos) {
+            return pos.startsWith("VB");
+        }
+
+        @Override
+        public void loadResources(final String path) {
+        }
+
+        @Override
+        public String[] splitParagraph(final String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] tokenizeSentence(final String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] tagTokens(final String[] token_list) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String stemToken(final String token) {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+
+import com.figueroa.nlp.Node;
+
+/**
+ * Checks that graphs with at least PARALLEL_THRESHOLD nodes, which are swept
+ * in parallel, get the same ranks as with sequential sweeps.
+ */
+public class ParallelRankSweepTest extends TestCase {
+
+    private final static int SIZE = TextRankGraph.PARALLEL_THRESHOLD + 1500;
+
+    private final static RankSolverOptions L_INF = new RankSolverOptions(
+            RankSolverOptions.Solver.JACOBI, RankSolverOptions.Residual.L_INF, 1.0E-8D);
+
+    /**
+     * A single sweep: the same ranks, bit for bit, and the same statistics
+     * of the rank changes (up to the order of the reduction).
+     */
+    public void testSweep() throws Exception {
+        final TextRankGraph graph = buildGraph(1);
+        final CompressedGraph compressed = new CompressedGraph(
+                graph.values().toArray(new Node[graph.size()]));
+        final Random random = new Random(2);
+        final double[] ranks = new double[compressed.getTotalNodeCount()];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = 0.5D + random.nextDouble();
+        }
+
+        final double[] parallel_ranks = new double[ranks.length];
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final double[] stats;
+        try {
+            stats = pool.invoke(new ParallelRankSweep(compressed, ranks, parallel_ranks,
+                    TextRankGraph.TEXTRANK_DAMPING_FACTOR, 0, compressed.getNodeCount()));
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        final double[] serial_ranks = new double[ranks.length];
+        final SummaryStatistics dist_stats = new SummaryStatistics();
+        double max = 0.0D;
+        for (int i = 0; i < compressed.getNodeCount(); i++) {
+            serial_ranks[i] = sweep(compressed, i, ranks);
+            final double change = Math.abs(ranks[i] - serial_ranks[i]);
+            dist_stats.addValue(change);
+            max = Math.max(max, change);
+        }
+
+        for (int i = 0; i < compressed.getNodeCount(); i++) {
+            assertEquals(serial_ranks[i], parallel_ranks[i], 0.0D);
+        }
+        assertEquals((double) compressed.getNodeCount(), stats[0], 0.0D);
+        assertEquals(dist_stats.getMean(), stats[1], 1.0E-12D * dist_stats.getMean());
+        assertEquals(dist_stats.getSum(), stats[3], 1.0E-12D * dist_stats.getSum());
+        assertEquals(max, stats[4], 0.0D);
+        final double standard_error =
+                dist_stats.getStandardDeviation() / Math.sqrt(dist_stats.getN());
+        assertEquals(standard_error, ParallelRankSweep.getStandardError(stats),
+                1.0E-12D * standard_error);
+    }
+
+    /**
+     * A full run with the maximum rank change as residual, which does not
+     * depend on the order of the reduction: the same ranks, bit for bit,
+     * after the same number of sweeps as a sequential Jacobi iteration.
+     */
+    public void testRunTextRank() throws Exception {
+        for (long seed = 1; seed <= 2; seed++) {
+            final TextRankGraph graph = buildGraph(seed);
+            final CompressedGraph compressed = new CompressedGraph(
+                    graph.values().toArray(new Node[graph.size()]));
+            final double[] ranks = compressed.getRanks();
+            final int iterations = iterate(compressed, ranks, graph.size(), L_INF.tolerance);
+
+            final RankReport report = graph.runTextRank(L_INF, false);
+
+            assertTrue(report.parallel);
+            assertEquals(iterations, report.iterations);
+            int i = 0;
+            for (TextRankNode n : graph.values()) {
+                assertEquals(n.key, ranks[i++], n.getRank(), 0.0D);
+            }
+        }
+    }
+
+    /**
+     * Sequential Jacobi iteration with the maximum rank change as residual.
+     * @return the number of sweeps
+     */
+    private static int iterate(CompressedGraph graph, double[] ranks,
+            int max_iterations, double tolerance) {
+        final double[] next_ranks = ranks.clone();
+        for (int k = 0; k < max_iterations; k++) {
+            double max = 0.0D;
+            for (int i = 0; i < graph.getNodeCount(); i++) {
+                next_ranks[i] = sweep(graph, i, ranks);
+                max = Math.max(max, Math.abs(ranks[i] - next_ranks[i]));
+            }
+            System.arraycopy(next_ranks, 0, ranks, 0, graph.getNodeCount());
+            if (max < tolerance) {
+                return k + 1;
+            }
+        }
+        return max_iterations;
+    }
+
+    private static double sweep(CompressedGraph graph, int id, double[] ranks) {
+        double rank = graph.getWeightedRankSum(id, ranks);
+        rank *= TextRankGraph.TEXTRANK_DAMPING_FACTOR;
+        rank += 1.0D - TextRankGraph.TEXTRANK_DAMPING_FACTOR;
+        return rank;
+    }
+
+    /**
+     * A connected graph of SIZE keyword nodes: a chain, plus random edges
+     * with random weights.
+     */
+    private static TextRankGraph buildGraph(long seed) throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final Random random = new Random(seed);
+
+        final List<TextRankNode> nodes = new ArrayList<TextRankNode>();
+        for (int i = 0; i < SIZE; i++) {
+            nodes.add(TextRankNode.buildNode(graph, "NN" + i, new KeyWord("word" + i, "NN")));
+        }
+        for (int i = 1; i < SIZE; i++) {
+            nodes.get(i).connect(nodes.get(i - 1), Node.DEFAULT_EDGE_WEIGHT);
+        }
+        for (int i = 0; i < 2 * SIZE; i++) {
+            final TextRankNode a = nodes.get(random.nextInt(SIZE));
+            final TextRankNode b = nodes.get(random.nextInt(SIZE));
+            if (a != b) {
+                a.connect(b, 0.1D + 2.0D * random.nextDouble());
+            }
+        }
+
+        return graph;
+    }
+}
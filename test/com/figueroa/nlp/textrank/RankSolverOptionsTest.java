@@ -0,0 +1,42 @@
+package com.figueroa.nlp.textrank;
+
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the solver options read from the TextRank solver properties.
+ */
+public class RankSolverOptionsTest extends TestCase {
+
+    public void testDefaultProperties() throws Exception {
+        final RankSolverOptions options = RankSolverOptions.fromProperties(new Properties());
+        assertEquals(RankSolverOptions.DEFAULT.toString(), options.toString());
+        assertFalse(options.incrementalReranking);
+    }
+
+    public void testIncrementalReranking() throws Exception {
+        final Properties props = new Properties();
+        props.setProperty("residual", "L_INF");
+        props.setProperty("tolerance", "1.0E-6");
+        props.setProperty("incremental_reranking", "true");
+
+        final RankSolverOptions options = RankSolverOptions.fromProperties(props);
+        assertEquals(RankSolverOptions.Solver.JACOBI, options.solver);
+        assertEquals(RankSolverOptions.Residual.L_INF, options.residual);
+        assertEquals(1.0E-6D, options.tolerance, 0.0D);
+        assertTrue(options.incrementalReranking);
+    }
+
+    public void testPushSolverRejected() {
+        final Properties props = new Properties();
+        props.setProperty("solver", "PUSH");
+        try {
+            RankSolverOptions.fromProperties(props);
+            fail();
+        }
+        catch (Exception e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.figueroa.nlp.textrank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Pointer;
+import net.didion.jwnl.data.PointerType;
+import net.didion.jwnl.data.Synset;
+
+import com.figueroa.nlp.Node;
+import com.figueroa.nlp.WordNetImage;
+import com.figueroa.nlp.WordNetImageTest;
+
+/**
+ * Checks that the WordNet enrichment of SynsetLink.addKeyWord, whose
+ * neighborhoods come from the SynsetNeighborhood cache (or a WordNet image),
+ * builds the same synset graph as the traversal of the JWNL dictionary it
+ * replaced, both when the neighborhoods are loaded and when they are cached.
+ * The dictionary is the one of WordNetImageTest (with generated nouns).
+ */
+public class SynsetNeighborhoodTest extends TestCase {
+
+    // Every n-th lemma of each index is used, to keep the test short
+    private final static int STRIDE = 40;
+
+    private final static POS[] POSES = {POS.NOUN, POS.VERB, POS.ADJECTIVE, POS.ADVERB};
+    private final static String[] INDEX_FILES = {"index.noun", "index.verb", "index.adj", "index.adv"};
+
+    private static File dictDir = null;
+
+    private List<POS> poses;
+    private List<String> texts;
+
+    @Override
+    protected void setUp() throws Exception {
+        if (dictDir == null) {
+            final File resourcesDir = WordNetImageTest.createTextRankResources();
+            WordNet.buildDictionary(resourcesDir.getPath(), "en");
+            dictDir = new File(resourcesDir, "en/wn");
+        }
+
+        poses = new ArrayList<POS>();
+        texts = new ArrayList<String>();
+        for (int p = 0; p < POSES.length; p++) {
+            final List<String> lemmas = readLemmas(new File(dictDir, INDEX_FILES[p]));
+            for (int i = 0; i < lemmas.size(); i += STRIDE) {
+                poses.add(POSES[p]);
+                texts.add(lemmas.get(i).replace('_', ' '));
+                // An inflected form, or a word without a lemma
+                poses.add(POSES[p]);
+                texts.add(lemmas.get(i) + "s");
+            }
+        }
+        SynsetNeighborhood.clearCache();
+    }
+
+    @Override
+    protected void tearDown() {
+        WordNet.buildDictionary((WordNetImage) null);
+        SynsetNeighborhood.clearCache();
+    }
+
+    public void testCachedEnrichment() throws Exception {
+        final TextRankGraph reference = enrichUncached();
+
+        final TextRankGraph loaded = enrich();
+        assertTrue(reference.size() > 1000);
+        assertGraphs(reference, loaded);
+        final long misses = (Long) SynsetNeighborhood.getCacheMetrics().get("misses");
+
+        final TextRankGraph cached = enrich();
+        assertGraphs(reference, cached);
+        final Map<String, Object> metrics = SynsetNeighborhood.getCacheMetrics();
+        assertEquals(misses, metrics.get("misses"));
+        assertTrue((Long) metrics.get("hits") >= texts.size());
+    }
+
+    public void testImageEnrichment() throws Exception {
+        final TextRankGraph reference = enrichUncached();
+
+        WordNet.buildDictionary(WordNetImageTest.compile(dictDir));
+        assertGraphs(reference, enrich());
+        assertGraphs(reference, enrich());
+    }
+
+    /**
+     * The memory of the cached neighborhoods is estimated and bounded.
+     */
+    public void testCacheWeight() throws Exception {
+        enrich();
+        final Map<String, Object> metrics = SynsetNeighborhood.getCacheMetrics();
+        assertEquals(SynsetNeighborhood.CACHE_MAX_BYTES, metrics.get("maxWeight"));
+        final long weight = (Long) metrics.get("weight");
+        assertTrue(weight >= 200L * (Integer) metrics.get("size"));
+        assertTrue(weight <= SynsetNeighborhood.CACHE_MAX_BYTES);
+
+        SynsetNeighborhood.clearCache();
+        assertEquals(0L, SynsetNeighborhood.getCacheMetrics().get("weight"));
+    }
+
+    /**
+     * Enrich keyword nodes with SynsetLink.addKeyWord, into a single synset
+     * subgraph as in TextRank.
+     * @return the synset subgraph
+     */
+    private TextRankGraph enrich() throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final TextRankGraph subgraph = new TextRankGraph();
+        for (int i = 0; i < texts.size(); i++) {
+            SynsetLink.addKeyWord(subgraph, buildKeyWordNode(graph, i), texts.get(i), poses.get(i));
+        }
+        return subgraph;
+    }
+
+    /**
+     * Enrich keyword nodes by traversing the JWNL dictionary, as
+     * SynsetLink.addKeyWord did before SynsetNeighborhood.
+     * @return the synset subgraph
+     */
+    private TextRankGraph enrichUncached() throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final TextRankGraph subgraph = new TextRankGraph();
+        for (int i = 0; i < texts.size(); i++) {
+            final TextRankNode n = buildKeyWordNode(graph, i);
+            final POS pos = poses.get(i);
+            final IndexWord iw = WordNet.getLemma(pos, texts.get(i));
+            if (iw == null) {
+                continue;
+            }
+            for (Synset synset : iw.getSenses()) {
+                final TextRankNode node_synset = SynsetLink.testLink(subgraph,
+                        synset.getOffset(), pos, n, SynsetLink.MyRelation.SYNONYM, 1);
+                if (node_synset == null) {
+                    continue;
+                }
+                for (Pointer hypernym : synset.getPointers(PointerType.HYPERNYM)) {
+                    final Synset hypernym_synset = hypernym.getTargetSynset();
+                    final TextRankNode node_hypernym = SynsetLink.testLink(subgraph,
+                            hypernym_synset.getOffset(), pos, node_synset,
+                            SynsetLink.MyRelation.HYPERNYM, 2);
+                    if (node_hypernym == null) {
+                        continue;
+                    }
+                    for (Pointer sibling : hypernym_synset.getPointers(PointerType.HYPONYM)) {
+                        final Synset sibling_synset = sibling.getTargetSynset();
+                        if (sibling_synset.getOffset() != synset.getOffset()) {
+                            SynsetLink.testLink(subgraph, sibling_synset.getOffset(), pos,
+                                    node_hypernym, SynsetLink.MyRelation.SIBLING, 3);
+                        }
+                    }
+                }
+            }
+        }
+        return subgraph;
+    }
+
+    private TextRankNode buildKeyWordNode(TextRankGraph graph, int i) throws Exception {
+        final String text = texts.get(i);
+        return TextRankNode.buildNode(graph, poses.get(i).getKey() + i,
+                new KeyWord(text, poses.get(i).getKey()));
+    }
+
+    /**
+     * Compare two synset subgraphs: their nodes, the values of the nodes,
+     * and the nodes and weights of their edges, in order.
+     */
+    private static void assertGraphs(TextRankGraph expected, TextRankGraph actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (TextRankNode n : expected.values()) {
+            final TextRankNode node = actual.get(n.key);
+            final SynsetLink link = (SynsetLink) n.value;
+            final SynsetLink nodeLink = (SynsetLink) node.value;
+            assertEquals(n.key, link.offset, nodeLink.offset);
+            assertEquals(n.key, link.pos, nodeLink.pos);
+            assertEquals(n.key, link.relation, nodeLink.relation);
+            assertEquals(n.key, link.hops, nodeLink.hops);
+            assertEquals(n.key, link.parent.key, nodeLink.parent.key);
+            assertEquals(n.key, n.marked, node.marked);
+            assertEquals(n.key, getEdges(n), getEdges(node));
+        }
+    }
+
+    private static String getEdges(Node n) {
+        final StringBuilder sb = new StringBuilder();
+        for (int edge = 0; edge < n.getEdgeCount(); edge++) {
+            sb.append(n.getEdgeNode(edge).key).append('=').append(n.getEdgeWeight(edge)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> readLemmas(File indexFile) throws Exception {
+        final TreeSet<String> lemmas = new TreeSet<String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(indexFile), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(" ")) { // License header
+                    lemmas.add(line.split(" ")[0]);
+                }
+            }
+        }
+        return new ArrayList<String>(lemmas);
+    }
+}
@@ -0,0 +1,157 @@
+package com.figueroa.nlp.textrank;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the interning of node keys and id sequences by Vocabulary, and the
+ * lookup of the nodes of a graph by id.
+ */
+public class VocabularyTest extends TestCase {
+
+    public void testIntern() {
+        final Vocabulary vocabulary = new Vocabulary();
+        assertEquals(0, vocabulary.intern("NNword"));
+        assertEquals(1, vocabulary.intern("JJother"));
+        assertEquals(0, vocabulary.intern(new String("NNword")));
+        assertEquals(2, vocabulary.size());
+        assertEquals("NNword", vocabulary.getKey(0));
+        assertEquals("JJother", vocabulary.getKey(1));
+    }
+
+    /**
+     * The node key of a (token, PoS tag) pair is only computed once, and
+     * tokens with the same node key share its id.
+     */
+    public void testNodeKeyId() throws Exception {
+        final Vocabulary vocabulary = new Vocabulary();
+        final CountingLanguage lang = new CountingLanguage();
+
+        final int id = vocabulary.getNodeKeyId(lang, "Graph", "NN");
+        assertEquals(id, vocabulary.getNodeKeyId(lang, "Graph", "NN"));
+        assertEquals(1, lang.calls);
+        assertEquals("NNgraph", vocabulary.getKey(id));
+
+        // Another token with the same key, and the same token with another tag
+        assertEquals(id, vocabulary.getNodeKeyId(lang, "graph", "NNS"));
+        assertEquals(2, lang.calls);
+        final int adjective = vocabulary.getNodeKeyId(lang, "Graph", "JJ");
+        assertTrue(adjective != id);
+        assertEquals("JJgraph", vocabulary.getKey(adjective));
+        assertEquals(3, lang.calls);
+
+        assertEquals(id, vocabulary.intern("NNgraph"));
+        assertEquals(2, vocabulary.size());
+    }
+
+    /**
+     * Sequences are compared by the content of their range, not by array.
+     */
+    public void testSequences() {
+        final Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern("NNa");
+        final int[] buffer = {3, 1, 4, 1, 5};
+
+        assertEquals(-1, vocabulary.getSequenceId(buffer, 3));
+        final int id = vocabulary.internSequence(buffer, 3, "NGram314");
+        assertEquals(1, id);
+        assertEquals("NGram314", vocabulary.getKey(id));
+
+        // The interned sequence is a copy of the range
+        buffer[0] = 9;
+        assertEquals(-1, vocabulary.getSequenceId(buffer, 3));
+        assertEquals(id, vocabulary.getSequenceId(new int[] {3, 1, 4, 7}, 3));
+        assertEquals(id, vocabulary.internSequence(new int[] {3, 1, 4}, 3, "ignored"));
+        assertEquals("NGram314", vocabulary.getKey(id));
+
+        // Prefixes and other orders are other sequences
+        assertEquals(-1, vocabulary.getSequenceId(new int[] {3, 1, 4}, 2));
+        assertEquals(-1, vocabulary.getSequenceId(new int[] {1, 3, 4}, 3));
+        assertEquals(2, vocabulary.internSequence(new int[] {3, 1}, 2, "NGram31"));
+        assertEquals(id, vocabulary.getSequenceId(new int[] {3, 1, 4}, 3));
+        assertEquals(3, vocabulary.size());
+    }
+
+    /**
+     * Mapping the tokens of sentences builds one node per node key, indexed
+     * by its id.
+     */
+    public void testMapTokens() throws Exception {
+        final TextRankGraph graph = new TextRankGraph();
+        final CountingLanguage lang = new CountingLanguage();
+
+        final Sentence s1 = new Sentence("Sparse graph ranking");
+        s1.setAnnotation(new String[] {"Sparse", "graph", "ranking"},
+                new String[] {"JJ", "NN", "NN"});
+        s1.mapTokens(lang, graph);
+        final Sentence s2 = new Sentence("The graph of graphs");
+        s2.setAnnotation(new String[] {"The", "graph", "of", "Graph"},
+                new String[] {"DT", "NN", "IN", "NNS"});
+        s2.mapTokens(lang, graph);
+
+        assertEquals(3, graph.size());
+        assertEquals(3, graph.getVocabulary().size());
+        assertEquals(4, lang.calls);
+        assertNull(s2.node_list[0]);
+        assertSame(s1.node_list[1], s2.node_list[1]);
+        assertSame(s1.node_list[1], s2.node_list[3]);
+
+        for (TextRankNode n : graph.values()) {
+            assertEquals(n.key, graph.getVocabulary().getKey(n.id));
+            assertSame(n, graph.getById(n.id));
+        }
+    }
+
+    /**
+     * A language model whose node key is the PoS prefix and the lowercase
+     * token, and which counts the node keys it computes.
+     */
+    private static class CountingLanguage extends LanguageModel {
+
+        int calls = 0;
+
+        @Override
+        public String getNodeKey(final String text, final String pos) {
+            calls++;
+            return pos.substring(0, 2) + text.toLowerCase();
+        }
+
+        @Override
+        public boolean isNoun(final String pos) {
+            return pos.startsWith("NN");
+        }
+
+        @Override
+        public boolean isAdjective(final String pos) {
+            return pos.startsWith("JJ");
+        }
+
+        @Override
+        public boolean isVerb(final String pos) {
+            return pos.startsWith("VB");
+        }
+
+        @Override
+        public void loadResources(final String path) {
+        }
+
+        @Override
+        public String[] splitParagraph(final String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] tokenizeSentence(final String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] tagTokens(final String[] token_list) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String stemToken(final String token) {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.figueroa.security;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import junit.framework.TestCase;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Checks the access rules of the administrative web services (cache flush
+ * and metrics) through the security filter chain of SpringSecurityConfig:
+ * 403 (Forbidden) without a token or with the token of a user without the
+ * admin authority, and access for the configured admin user.
+ */
+public class SpringSecurityConfigTest extends TestCase {
+
+    private final static String ADMIN = "operator";
+
+    private AnnotationConfigApplicationContext context;
+    private Filter filterChain;
+    private TokenAuthenticationService tokenAuthenticationService;
+
+    @Override
+    protected void setUp() throws Exception {
+        System.setProperty(SpringSecurityConfig.ADMIN_USERNAME_PROPERTY, ADMIN);
+        System.setProperty(SpringSecurityConfig.ADMIN_PASSWORD_HASH_PROPERTY,
+                "$2a$10$8Ib2XyQJkAIxZ7yDfj9mVOg0C2yq5x4mD1wzKQ0n7ZJ1fQ7pQfX3W");
+        context = new AnnotationConfigApplicationContext(SpringSecurityConfig.class);
+        filterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        tokenAuthenticationService = context.getBean(TokenAuthenticationService.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        context.close();
+        System.clearProperty(SpringSecurityConfig.ADMIN_USERNAME_PROPERTY);
+        System.clearProperty(SpringSecurityConfig.ADMIN_PASSWORD_HASH_PROPERTY);
+    }
+
+    public void testAdminServicesWithoutToken() throws Exception {
+        assertEquals(403, call("DELETE", "/ws/cache", null));
+        assertEquals(403, call("GET", "/ws/metrics", null));
+        assertEquals(403, call("GET", "/ws/metrics.json", null));
+    }
+
+    public void testAdminServicesWithUserToken() throws Exception {
+        String token = getToken("user", "test");
+        assertEquals(403, call("DELETE", "/ws/cache", token));
+        assertEquals(403, call("DELETE", "/ws/cache/", token));
+        assertEquals(403, call("GET", "/ws/metrics", token));
+        // Other web services are still allowed
+        assertEquals(200, call("GET", "/ws/keywords", token));
+    }
+
+    public void testAdminServicesWithAdminToken() throws Exception {
+        String token = getToken(ADMIN, SpringSecurityConfig.ADMIN_AUTHORITY);
+        assertEquals(200, call("DELETE", "/ws/cache", token));
+        assertEquals(200, call("GET", "/ws/metrics", token));
+    }
+
+    public void testNoAdminWithoutConfiguration() throws Exception {
+        tearDown();
+        context = new AnnotationConfigApplicationContext(SpringSecurityConfig.class);
+        filterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        tokenAuthenticationService = context.getBean(TokenAuthenticationService.class);
+        try {
+            call("GET", "/ws/metrics", getToken(ADMIN, SpringSecurityConfig.ADMIN_AUTHORITY));
+            fail("Unknown admin user accepted");
+        }
+        catch (UsernameNotFoundException e) {
+            // The token of an unknown user is rejected
+        }
+    }
+
+    /**
+     * Get the token of a user, as given by TokenAuthenticationService.
+     */
+    private String getToken(String username, String authority) {
+        ArrayList<SimpleGrantedAuthority> authorities = new ArrayList<SimpleGrantedAuthority>();
+        authorities.add(new SimpleGrantedAuthority(authority));
+        Response response = new Response();
+        tokenAuthenticationService.addAuthentication(response.proxy,
+                new UserAuthentication(new User(username, "password", authorities)));
+        return response.headers.get("Authorization");
+    }
+
+    /**
+     * Send a request through the security filter chain.
+     * @return the error status of the response, or 200 if the request
+     * reached the web service
+     */
+    private int call(String method, String uri, String token) throws Exception {
+        Response response = new Response();
+        final boolean[] reached = new boolean[1];
+        filterChain.doFilter(request(method, uri, token), response.proxy, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                reached[0] = true;
+            }
+        });
+        if (reached[0]) {
+            assertEquals(0, response.status);
+            return 200;
+        }
+        return response.status;
+    }
+
+    private static HttpServletRequest request(final String method, final String uri,
+            final String token) {
+        final HashMap<String, Object> attributes = new HashMap<String, Object>();
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                SpringSecurityConfigTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return method;
+                    case "getRequestURI":
+                    case "getServletPath":
+                        return uri;
+                    case "getRequestURL":
+                        return new StringBuffer("http://localhost" + uri);
+                    case "getContextPath":
+                        return "";
+                    case "getHeader":
+                        return "Authorization".equals(args[0]) && token != null ?
+                                "Bearer " + token : null;
+                    case "getHeaderNames":
+                        return Collections.enumeration(token != null ?
+                                Collections.singleton("Authorization") :
+                                Collections.<String>emptySet());
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "removeAttribute":
+                        attributes.remove(args[0]);
+                        return null;
+                    case "getSession":
+                        // Access denied to an anonymous user saves the request
+                        // in the session
+                        return session(attributes);
+                    case "getScheme":
+                        return "http";
+                    case "getServerName":
+                        return "localhost";
+                    case "getServerPort":
+                        return 80;
+                    default:
+                        return defaultValue(m);
+                }
+            }
+        });
+    }
+
+    private static HttpSession session(final Map<String, Object> attributes) {
+        return (HttpSession) Proxy.newProxyInstance(
+                SpringSecurityConfigTest.class.getClassLoader(),
+                new Class<?>[] { HttpSession.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                switch (m.getName()) {
+                    case "getAttribute":
+                        return attributes.get("session." + args[0]);
+                    case "setAttribute":
+                        attributes.put("session." + args[0], args[1]);
+                        return null;
+                    case "getId":
+                        return "session";
+                    default:
+                        return defaultValue(m);
+                }
+            }
+        });
+    }
+
+    /**
+     * A response that keeps its headers and error status.
+     */
+    private static class Response implements InvocationHandler {
+        final Map<String, String> headers = new HashMap<String, String>();
+        int status = 0;
+        final HttpServletResponse proxy = (HttpServletResponse) Proxy.newProxyInstance(
+                SpringSecurityConfigTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, this);
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) {
+            switch (m.getName()) {
+                case "addHeader":
+                case "setHeader":
+                    headers.put((String) args[0], (String) args[1]);
+                    return null;
+                case "sendError":
+                case "setStatus":
+                    status = (Integer) args[0];
+                    return null;
+                case "encodeURL":
+                case "encodeRedirectURL":
+                    return args[0];
+                default:
+                    return defaultValue(m);
+            }
+        }
+    }
+
+    private static Object defaultValue(Method m) {
+        Class<?> type = m.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == Enumeration.class) {
+            return Collections.enumeration(Collections.emptySet());
+        }
+        if (type == Map.class) {
+            return Collections.emptyMap();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.figueroa.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the eviction of ResultCache by number of results and by weight.
+ */
+public class ResultCacheTest extends TestCase {
+
+    public void testMaxEntries() {
+        final ResultCache<String> cache = new ResultCache<String>(2, Long.MAX_VALUE);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+
+        // b is the least recently used
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1L, cache.getMetrics().get("evictions"));
+        assertNull(cache.getMetrics().get("weight"));
+    }
+
+    public void testMaxWeight() {
+        final ResultCache<String> cache = new LengthCache(100, 10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals(8L, cache.getMetrics().get("weight"));
+
+        // b, then a, are evicted to fit c
+        cache.put("c", "cccccccc");
+        assertNull(cache.get("b"));
+        assertNull(cache.get("a"));
+        assertEquals("cccccccc", cache.get("c"));
+        assertEquals(8L, cache.getMetrics().get("weight"));
+        assertEquals(2L, cache.getMetrics().get("evictions"));
+
+        // Replacing a result replaces its weight
+        cache.put("c", "cc");
+        cache.put("d", "dddd");
+        assertEquals(6L, cache.getMetrics().get("weight"));
+        assertEquals(2, cache.getMetrics().get("size"));
+
+        // Results heavier than the maximum are not cached
+        cache.put("e", "eeeeeeeeeee");
+        assertNull(cache.get("e"));
+        assertEquals("cc", cache.get("c"));
+        assertEquals(6L, cache.getMetrics().get("weight"));
+
+        assertEquals(2, cache.clear());
+        assertEquals(0L, cache.getMetrics().get("weight"));
+        assertEquals(10L, cache.getMetrics().get("maxWeight"));
+    }
+
+    public void testMaxEntriesWithWeight() {
+        final ResultCache<String> cache = new LengthCache(1, 10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bb");
+        assertNull(cache.get("a"));
+        assertEquals(2L, cache.getMetrics().get("weight"));
+    }
+
+    /**
+     * A cache weighing its results by their length.
+     */
+    private static class LengthCache extends ResultCache<String> {
+
+        LengthCache(int maxEntries, long maxWeight) {
+            super(maxEntries, Long.MAX_VALUE, maxWeight);
+        }
+
+        @Override
+        protected long weigh(String value) {
+            return value.length();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.figueroa.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that SingleFlight runs concurrent computations of the same key
+ * once, and gives every caller its result or its exception.
+ */
+public class SingleFlightTest extends TestCase {
+
+    private final static int CALLERS = 8;
+    private final static long TIMEOUT_SECONDS = 10;
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() {
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @Override
+    protected void tearDown() {
+        executor.shutdownNow();
+    }
+
+    public void testConcurrentCallsComputeOnce() throws Exception {
+        final SingleFlight<List<String>> singleFlight = new SingleFlight<List<String>>();
+        final BlockingComputation<List<String>> computation =
+                new BlockingComputation<List<String>>(new ArrayList<String>(), null);
+
+        final List<Future<List<String>>> results = call(singleFlight, "key", computation);
+        computation.releaseWhenCoalesced(singleFlight, CALLERS - 1);
+
+        final List<String> result = results.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (Future<List<String>> future : results) {
+            assertSame(result, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(1, computation.calls.get());
+        assertEquals(1L, singleFlight.getMetrics().get("executions"));
+        assertEquals((long) CALLERS - 1, singleFlight.getMetrics().get("coalescedCalls"));
+        assertEquals(0, singleFlight.getMetrics().get("inFlight"));
+
+        // The completed computation is forgotten
+        assertNotSame(result, singleFlight.execute("key", new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return new ArrayList<String>();
+            }
+        }));
+        assertEquals(2L, singleFlight.getMetrics().get("executions"));
+    }
+
+    public void testConcurrentCallsShareException() throws Exception {
+        final SingleFlight<String> singleFlight = new SingleFlight<String>();
+        final Exception exception = new Exception("Exception in test: computation failed");
+        final BlockingComputation<String> computation =
+                new BlockingComputation<String>(null, exception);
+
+        final List<Future<String>> results = call(singleFlight, "key", computation);
+        computation.releaseWhenCoalesced(singleFlight, CALLERS - 1);
+
+        for (Future<String> future : results) {
+            try {
+                future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                fail("No exception");
+            }
+            catch (ExecutionException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+        assertEquals(1, computation.calls.get());
+        assertEquals(0, singleFlight.getMetrics().get("inFlight"));
+
+        // A failed computation is not kept either
+        assertEquals("result", singleFlight.execute("key", new Callable<String>() {
+            @Override
+            public String call() {
+                return "result";
+            }
+        }));
+    }
+
+    public void testDifferentKeys() throws Exception {
+        final SingleFlight<String> singleFlight = new SingleFlight<String>();
+        final BlockingComputation<String> first = new BlockingComputation<String>("first", null);
+        final BlockingComputation<String> second = new BlockingComputation<String>("second", null);
+
+        final Future<String> firstResult = executor.submit(execute(singleFlight, "first", first));
+        final Future<String> secondResult = executor.submit(execute(singleFlight, "second", second));
+        assertTrue(first.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(second.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        first.release.countDown();
+        second.release.countDown();
+
+        assertEquals("first", firstResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("second", secondResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2L, singleFlight.getMetrics().get("executions"));
+        assertEquals(0L, singleFlight.getMetrics().get("coalescedCalls"));
+    }
+
+    /**
+     * Call execute with the same key and computation from CALLERS threads.
+     */
+    private <V> List<Future<V>> call(SingleFlight<V> singleFlight, String key,
+            BlockingComputation<V> computation) throws Exception {
+        final List<Future<V>> results = new ArrayList<Future<V>>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(execute(singleFlight, key, computation)));
+        }
+        return results;
+    }
+
+    private static <V> Callable<V> execute(final SingleFlight<V> singleFlight,
+            final String key, final Callable<V> computation) {
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                return singleFlight.execute(key, computation);
+            }
+        };
+    }
+
+    /**
+     * A computation that counts its calls, and waits to be released before
+     * returning its result or throwing its exception.
+     */
+    private static class BlockingComputation<V> implements Callable<V> {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final V result;
+        private final Exception exception;
+
+        BlockingComputation(V result, Exception exception) {
+            this.result = result;
+            this.exception = exception;
+        }
+
+        @Override
+        public V call() throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            if (!release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new Exception("Exception in test: computation not released");
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            return result;
+        }
+
+        /**
+         * Release the computation once the given number of callers wait
+         * for it.
+         */
+        void releaseWhenCoalesced(SingleFlight<V> singleFlight, long callers)
+                throws Exception {
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            final long deadline = System.currentTimeMillis() + TIMEOUT_SECONDS * 1000;
+            while ((Long) singleFlight.getMetrics().get("coalescedCalls") < callers) {
+                assertTrue("Callers not coalesced", System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            release.countDown();
+        }
+    }
+}